@@ -0,0 +1,83 @@
+// Benchmark: AnalisisBenchmark.java
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.analisis.InstantaneaColumnar;
+import com.biblioteca.model.analisis.InstantaneaColumnar.ColumnaEntera;
+import com.biblioteca.model.analisis.InstantaneaColumnar.ColumnaTexto;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Agregados sobre la instantánea columnar frente a los mismos cálculos sobre listas de entidades
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AnalisisBenchmark {
+
+    // Las dos representaciones se cargan una vez; solo se mide el cálculo
+    @State(Scope.Benchmark)
+    public static class Datos {
+        InstantaneaColumnar instantanea;
+        List<Libro> libros;
+        List<DVD> dvds;
+
+        @Setup(Level.Trial)
+        public void preparar(Catalogo catalogo) throws SQLException {
+            instantanea = new InstantaneaColumnar(catalogo.catalogoDAO,
+                    catalogo.libroDAO, catalogo.revistaDAO, catalogo.dvdDAO);
+            instantanea.cargar();
+            libros = catalogo.libroDAO.obtenerTodos();
+            dvds = catalogo.dvdDAO.obtenerTodos();
+        }
+    }
+
+    @Benchmark
+    public double mediaPaginasColumnar(Datos datos) {
+        return datos.instantanea.seleccionar()
+                .donde(ColumnaTexto.TIPO, "LIBRO")
+                .media(ColumnaEntera.NUMERO_PAGINAS);
+    }
+
+    @Benchmark
+    public double mediaPaginasEntidades(Datos datos) {
+        return datos.libros.stream().mapToInt(Libro::getNumeroPaginas).average().orElse(0);
+    }
+
+    @Benchmark
+    public Map<String, Long> duracionPorGeneroColumnar(Datos datos) {
+        return datos.instantanea.seleccionar()
+                .donde(ColumnaTexto.TIPO, "DVD")
+                .sumaPor(ColumnaEntera.DURACION, ColumnaTexto.GENERO);
+    }
+
+    @Benchmark
+    public Map<String, Long> duracionPorGeneroEntidades(Datos datos) {
+        Map<String, Long> duraciones = new HashMap<>();
+        for (DVD dvd : datos.dvds) {
+            duraciones.merge(dvd.getGenero(), (long) dvd.getDuracion(), Long::sum);
+        }
+        return duraciones;
+    }
+
+    @Benchmark
+    public Map<Integer, Long> elementosPorAnoColumnar(Datos datos) {
+        return datos.instantanea.seleccionar().contarPor(ColumnaEntera.ANO_PUBLICACION);
+    }
+}
@@ -0,0 +1,102 @@
+// Benchmark: BaseDatosEmbebida.java
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import com.biblioteca.model.dao.DVDDAO;
+import com.biblioteca.model.dao.LibroDAO;
+import com.biblioteca.model.dao.MigradorEsquema;
+import com.biblioteca.model.dao.PoolConexiones;
+import com.biblioteca.model.dao.RevistaDAO;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Base de datos H2 en memoria con el esquema de MigradorEsquema, para medir los DAO sin servidor
+public final class BaseDatosEmbebida {
+    private static final int TAMANO_LOTE_CARGA = 5_000;
+
+    private static final String[] GENEROS = {"Novela", "Ensayo", "Poesía", "Ciencia", "Historia", "Infantil"};
+    private static final String[] EDITORIALES = {"Anagrama", "Alfaguara", "Planeta", "Tusquets", "Siruela"};
+    private static final String[] CATEGORIAS = {"Ciencia", "Cultura", "Deportes", "Economía", "Tecnología"};
+    private static final String[] PALABRAS = {"sombra", "viento", "ciudad", "memoria", "río", "noche",
+            "jardín", "silencio", "camino", "tiempo", "mar", "espejo", "fuego", "invierno", "luz"};
+
+    private BaseDatosEmbebida() {}
+
+    public static PoolConexiones crear(String nombre) throws SQLException {
+        String url = "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        PoolConexiones pool = new PoolConexiones(new PoolConexiones.Configuracion(url, "sa", "")
+                .setTamanoMaximo(16)
+                .setUmbralFugaMs(0));
+        try {
+            new MigradorEsquema(pool).migrar();
+        } catch (SQLException e) {
+            pool.close();
+            throw e;
+        }
+        return pool;
+    }
+
+    // Reparte el catálogo entre los tres tipos: mitad libros, un cuarto revistas y un cuarto DVDs
+    public static void poblar(PoolConexiones pool, int tamanoCatalogo) throws SQLException {
+        LibroDAO libroDAO = new LibroDAO(pool);
+        RevistaDAO revistaDAO = new RevistaDAO(pool);
+        DVDDAO dvdDAO = new DVDDAO(pool);
+
+        int libros = tamanoCatalogo / 2;
+        int revistas = tamanoCatalogo / 4;
+        int dvds = tamanoCatalogo - libros - revistas;
+
+        List<Libro> loteLibros = new ArrayList<>(TAMANO_LOTE_CARGA);
+        for (int i = 0; i < libros; i++) {
+            loteLibros.add(libro(i));
+            if (loteLibros.size() == TAMANO_LOTE_CARGA) {
+                libroDAO.insertarLote(loteLibros, TAMANO_LOTE_CARGA);
+                loteLibros.clear();
+            }
+        }
+        libroDAO.insertarLote(loteLibros, TAMANO_LOTE_CARGA);
+
+        List<Revista> loteRevistas = new ArrayList<>(TAMANO_LOTE_CARGA);
+        for (int i = 0; i < revistas; i++) {
+            loteRevistas.add(revista(i));
+            if (loteRevistas.size() == TAMANO_LOTE_CARGA) {
+                revistaDAO.insertarLote(loteRevistas, TAMANO_LOTE_CARGA);
+                loteRevistas.clear();
+            }
+        }
+        revistaDAO.insertarLote(loteRevistas, TAMANO_LOTE_CARGA);
+
+        List<DVD> loteDVDs = new ArrayList<>(TAMANO_LOTE_CARGA);
+        for (int i = 0; i < dvds; i++) {
+            loteDVDs.add(dvd(i));
+            if (loteDVDs.size() == TAMANO_LOTE_CARGA) {
+                dvdDAO.insertarLote(loteDVDs, TAMANO_LOTE_CARGA);
+                loteDVDs.clear();
+            }
+        }
+        dvdDAO.insertarLote(loteDVDs, TAMANO_LOTE_CARGA);
+    }
+
+    public static Libro libro(int i) {
+        return new Libro(titulo(i), "Autor " + (i % 5_000), 1900 + i % 125,
+                String.format("978-%010d", i), 80 + i % 900,
+                GENEROS[i % GENEROS.length], EDITORIALES[i % EDITORIALES.length]);
+    }
+
+    public static Revista revista(int i) {
+        return new Revista(titulo(i), "Redacción " + (i % 500), 1950 + i % 75,
+                1 + i % 400, CATEGORIAS[i % CATEGORIAS.length]);
+    }
+
+    public static DVD dvd(int i) {
+        return new DVD(titulo(i), "Director " + (i % 2_000), 1960 + i % 65,
+                60 + i % 180, GENEROS[i % GENEROS.length]);
+    }
+
+    public static String titulo(int i) {
+        return PALABRAS[i % PALABRAS.length] + " " + PALABRAS[(i / PALABRAS.length) % PALABRAS.length] + " " + i;
+    }
+}
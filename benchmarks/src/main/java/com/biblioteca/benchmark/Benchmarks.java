@@ -0,0 +1,28 @@
+// Benchmark: Benchmarks.java
+package com.biblioteca.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Punto de entrada: sin argumentos ejecuta todo con el perfilador gc (tasa de asignación);
+// con argumentos se comporta como el lanzador estándar de JMH
+public class Benchmarks {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ejecutarTodos();
+    }
+
+    private static void ejecutarTodos() throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include("com\\.biblioteca\\.benchmark\\..*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opciones).run();
+    }
+}
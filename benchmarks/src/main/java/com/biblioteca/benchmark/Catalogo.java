@@ -0,0 +1,109 @@
+// Benchmark: Catalogo.java
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.dao.CatalogoDAO;
+import com.biblioteca.model.dao.DVDDAO;
+import com.biblioteca.model.dao.EnrutadorConexiones;
+import com.biblioteca.model.dao.LibroDAO;
+import com.biblioteca.model.dao.PoolConexiones;
+import com.biblioteca.model.dao.RevistaDAO;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Catálogo sembrado una vez por ejecución y compartido por todos los hilos del benchmark
+@State(Scope.Benchmark)
+public class Catalogo {
+    private static final String[] TERMINOS = {"sombra", "viento", "ciudad", "memoria", "noche", "tiempo"};
+    private static final String[] CATEGORIAS = {"Ciencia", "Cultura", "Deportes", "Economía", "Tecnología"};
+    private static final String[] GENEROS = {"Novela", "Ensayo", "Poesía", "Ciencia", "Historia", "Infantil"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanoCatalogo;
+
+    // Con la caché activa obtenerPorId mide la caché; sin ella, el viaje a la base de datos
+    @Param({"false"})
+    public boolean cache;
+
+    // Réplicas de lectura: otras bases embebidas sembradas igual, que hacen de réplicas sin replicación
+    @Param({"0"})
+    public int replicas;
+
+    public PoolConexiones pool;
+    public EnrutadorConexiones enrutador;
+    public LibroDAO libroDAO;
+    public RevistaDAO revistaDAO;
+    public DVDDAO dvdDAO;
+    public CatalogoDAO catalogoDAO;
+
+    private int primerLibro;
+    private int ultimoLibro;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        pool = BaseDatosEmbebida.crear("catalogo" + tamanoCatalogo);
+        BaseDatosEmbebida.poblar(pool, tamanoCatalogo);
+        List<PoolConexiones> poolsReplica = new ArrayList<>(replicas);
+        for (int i = 0; i < replicas; i++) {
+            PoolConexiones replica = BaseDatosEmbebida.crear("catalogo" + tamanoCatalogo + "-replica" + i);
+            BaseDatosEmbebida.poblar(replica, tamanoCatalogo);
+            poolsReplica.add(replica);
+        }
+        enrutador = new EnrutadorConexiones(pool, poolsReplica);
+
+        libroDAO = new LibroDAO(enrutador);
+        revistaDAO = new RevistaDAO(enrutador);
+        dvdDAO = new DVDDAO(enrutador);
+        catalogoDAO = new CatalogoDAO(enrutador);
+        if (!cache) {
+            libroDAO.configurarCache(0, 0);
+            revistaDAO.configurarCache(0, 0);
+            dvdDAO.configurarCache(0, 0);
+        }
+        libroDAO.construirIndice();
+
+        try (Connection conexion = pool.obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(
+                     "SELECT MIN(id), MAX(id) FROM ElementoBiblioteca WHERE tipo = 'LIBRO'");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            primerLibro = rs.getInt(1);
+            ultimoLibro = rs.getInt(2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        System.out.println(pool.getEstadisticas());
+        for (PoolConexiones replica : enrutador.getReplicas()) {
+            System.out.println("Réplica: " + replica.getEstadisticas());
+        }
+        enrutador.close();
+    }
+
+    public int libroAleatorio() {
+        return ThreadLocalRandom.current().nextInt(primerLibro, ultimoLibro + 1);
+    }
+
+    public String terminoAleatorio() {
+        return TERMINOS[ThreadLocalRandom.current().nextInt(TERMINOS.length)];
+    }
+
+    public String categoriaAleatoria() {
+        return CATEGORIAS[ThreadLocalRandom.current().nextInt(CATEGORIAS.length)];
+    }
+
+    public String generoAleatorio() {
+        return GENEROS[ThreadLocalRandom.current().nextInt(GENEROS.length)];
+    }
+}
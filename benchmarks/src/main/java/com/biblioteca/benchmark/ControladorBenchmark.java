@@ -0,0 +1,82 @@
+// Benchmark: ControladorBenchmark.java
+package com.biblioteca.benchmark;
+
+import com.biblioteca.controller.FusionConflicto;
+import com.biblioteca.controller.LibroController;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.dao.ConexionBD;
+import com.biblioteca.model.dao.ConflictoVersionException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Los mismos caminos que usan los paneles, pasando por el controlador (y su ejecutor asíncrono)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ControladorBenchmark {
+    private LibroController controller;
+
+    @Setup(Level.Trial)
+    public void preparar(Catalogo catalogo) throws SQLException {
+        // Los controladores crean sus DAO sobre el enrutador compartido de ConexionBD
+        ConexionBD.setEnrutador(catalogo.enrutador);
+        controller = new LibroController();
+        // Las búsquedas se miden con el índice ya construido
+        controller.iniciar().join();
+        // Dos hilos pueden editar el mismo libro a la vez: gana el último, como con la escritura ciega de antes
+        controller.configurarFusion(FusionConflicto.sobrescribir(), 3);
+        if (!catalogo.cache) {
+            controller.configurarCache(0, 0);
+        }
+    }
+
+    @Benchmark
+    public Libro obtenerPorId(Catalogo catalogo) {
+        return controller.obtenerPorId(catalogo.libroAleatorio());
+    }
+
+    @Benchmark
+    public Libro obtenerPorIdAsync(Catalogo catalogo) {
+        return controller.obtenerPorIdAsync(catalogo.libroAleatorio()).join();
+    }
+
+    @Benchmark
+    public List<Libro> obtenerPagina(Catalogo catalogo) {
+        return controller.obtenerPagina(catalogo.libroAleatorio(), 100);
+    }
+
+    @Benchmark
+    public int contar() {
+        return controller.contar();
+    }
+
+    // Edición como la del panel: se lee el libro y se guarda sobre la versión leída
+    @Benchmark
+    public boolean guardar(Catalogo catalogo) throws ConflictoVersionException {
+        int id = catalogo.libroAleatorio();
+        Libro libro = BaseDatosEmbebida.libro(id);
+        libro.setId(id);
+        libro.setVersion(controller.obtenerPorId(id).getVersion());
+        return controller.guardar(libro);
+    }
+
+    @Benchmark
+    public List<Libro> buscarPorTitulo(Catalogo catalogo) {
+        return controller.buscarPorTitulo(catalogo.terminoAleatorio());
+    }
+}
@@ -0,0 +1,101 @@
+// Benchmark: DAOBenchmark.java
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import com.biblioteca.model.dao.ConflictoVersionException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Rendimiento de los métodos de acceso a datos contra el catálogo embebido
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DAOBenchmark {
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    @Benchmark
+    public Libro obtenerPorId(Catalogo catalogo) throws SQLException {
+        return catalogo.libroDAO.obtenerPorId(catalogo.libroAleatorio());
+    }
+
+    @Benchmark
+    public List<Libro> obtenerTodos(Catalogo catalogo) throws SQLException {
+        return catalogo.libroDAO.obtenerTodos();
+    }
+
+    @Benchmark
+    public void recorrerTodos(Catalogo catalogo, Blackhole bh) throws SQLException {
+        catalogo.libroDAO.recorrerTodos(bh::consume);
+    }
+
+    // Catálogo completo en una consulta polimórfica frente a una consulta por tipo
+    @Benchmark
+    public List<ElementoBiblioteca> obtenerTodosElementos(Catalogo catalogo) throws SQLException {
+        return catalogo.catalogoDAO.obtenerTodosElementos();
+    }
+
+    @Benchmark
+    public List<ElementoBiblioteca> obtenerTodosPorTipo(Catalogo catalogo) throws SQLException {
+        List<ElementoBiblioteca> elementos = new ArrayList<>(catalogo.libroDAO.obtenerTodos());
+        elementos.addAll(catalogo.revistaDAO.obtenerTodos());
+        elementos.addAll(catalogo.dvdDAO.obtenerTodos());
+        return elementos;
+    }
+
+    @Benchmark
+    public List<Libro> obtenerPagina(Catalogo catalogo) throws SQLException {
+        return catalogo.libroDAO.obtenerPagina(catalogo.libroAleatorio(), 100);
+    }
+
+    // Cada inserción hace crecer el catálogo; con las iteraciones configuradas el efecto es pequeño
+    @Benchmark
+    public boolean insertar(Catalogo catalogo) throws SQLException {
+        return catalogo.libroDAO.insertar(BaseDatosEmbebida.libro(SECUENCIA.incrementAndGet()));
+    }
+
+    // Lectura de la versión y escritura sobre ella; sin caché la lectura también va a la base de datos
+    @Benchmark
+    public boolean actualizar(Catalogo catalogo) throws SQLException {
+        int id = catalogo.libroAleatorio();
+        Libro libro = BaseDatosEmbebida.libro(id);
+        libro.setId(id);
+        libro.setVersion(catalogo.libroDAO.obtenerPorId(id).getVersion());
+        try {
+            return catalogo.libroDAO.actualizar(libro);
+        } catch (ConflictoVersionException e) {
+            // Otro hilo guardó el mismo libro entre la lectura y la escritura
+            return false;
+        }
+    }
+
+    @Benchmark
+    public List<Libro> buscarPorTitulo(Catalogo catalogo) throws SQLException {
+        return catalogo.libroDAO.buscarPorTitulo(catalogo.terminoAleatorio() + " " + catalogo.terminoAleatorio());
+    }
+
+    @Benchmark
+    public List<Revista> buscarPorCategoria(Catalogo catalogo) throws SQLException {
+        return catalogo.revistaDAO.buscarPorCategoria(catalogo.categoriaAleatoria());
+    }
+
+    @Benchmark
+    public List<DVD> buscarPorGenero(Catalogo catalogo) throws SQLException {
+        return catalogo.dvdDAO.buscarPorGenero(catalogo.generoAleatorio());
+    }
+}
@@ -0,0 +1,201 @@
+// Prueba: EnrutadorConexionesTest.java
+package com.biblioteca.model.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// El enrutador sobre bases de datos H2 en memoria, una primaria y una o dos réplicas. Cada base de
+// datos guarda su nombre en una tabla, así se sabe a cuál ha ido cada conexión.
+class EnrutadorConexionesTest {
+
+    private static final AtomicInteger BASES = new AtomicInteger();
+
+    private final List<PoolConexiones> pools = new ArrayList<>();
+
+    @AfterEach
+    void cerrar() {
+        for (PoolConexiones pool : pools) {
+            pool.close();
+        }
+    }
+
+    private PoolConexiones base(String nombre, int tamanoMaximo) throws SQLException {
+        String url = "jdbc:h2:mem:enrutador" + BASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        PoolConexiones pool = new PoolConexiones(new PoolConexiones.Configuracion(url, "sa", "")
+                .setTamanoMaximo(tamanoMaximo)
+                .setMinimoInactivas(0)
+                .setUmbralFugaMs(0));
+        pools.add(pool);
+        try (Connection conexion = pool.obtenerConexion();
+             Statement stmt = conexion.createStatement()) {
+            stmt.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+            stmt.execute("INSERT INTO origen VALUES ('" + nombre + "')");
+        }
+        return pool;
+    }
+
+    private static String origen(Connection conexion) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement("SELECT nombre FROM origen");
+             ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    private static String leer(EnrutadorConexiones enrutador) throws SQLException {
+        try (Connection conexion = enrutador.obtenerLectura()) {
+            return origen(conexion);
+        }
+    }
+
+    @Test
+    void leeDeLaReplicaYEscribeEnLaPrimaria() throws Exception {
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(base("replica", 2)));
+
+        assertEquals("replica", leer(enrutador));
+        try (Connection conexion = enrutador.obtenerEscritura()) {
+            assertEquals("primaria", origen(conexion));
+        }
+        assertEquals(1, enrutador.getLecturasReplica());
+        assertEquals(0, enrutador.getLecturasPrimaria());
+    }
+
+    @Test
+    void sinReplicasTodoVaALaPrimaria() throws Exception {
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2));
+        enrutador.anotarEscritura();
+
+        assertEquals("primaria", leer(enrutador));
+        assertEquals(1, enrutador.getLecturasPrimaria());
+        assertEquals(0, enrutador.getLecturasTrasEscritura());
+    }
+
+    @Test
+    void trasUnaEscrituraPropiaLeeDeLaPrimariaDuranteLaVentana() throws Exception {
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(base("replica", 2)))
+                .setVentanaLecturaPropiaMs(300);
+
+        enrutador.anotarEscritura();
+        assertEquals("primaria", leer(enrutador));
+        assertEquals("primaria", leer(enrutador));
+        assertEquals(2, enrutador.getLecturasTrasEscritura());
+
+        Thread.sleep(400);
+        assertEquals("replica", leer(enrutador));
+        assertEquals(2, enrutador.getLecturasTrasEscritura());
+    }
+
+    @Test
+    void conVentanaCeroNoVuelveALaPrimaria() throws Exception {
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(base("replica", 2)))
+                .setVentanaLecturaPropiaMs(0);
+
+        enrutador.anotarEscritura();
+        assertEquals("replica", leer(enrutador));
+        assertEquals(0, enrutador.getLecturasTrasEscritura());
+    }
+
+    @Test
+    void unaReplicaLlenaPasaLaLecturaALaPrimariaSinEsperar() throws Exception {
+        PoolConexiones replica = base("replica", 1);
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(replica));
+
+        try (Connection ocupada = enrutador.obtenerLectura()) {
+            assertEquals("replica", origen(ocupada));
+            long inicio = System.nanoTime();
+            assertEquals("primaria", leer(enrutador));
+            // Muy por debajo de la espera del pool de la réplica, que es de 30 s
+            assertTrue(System.nanoTime() - inicio < 1_000_000_000L);
+        }
+        // Llena no es caída: sigue en el reparto
+        assertEquals(0, enrutador.getFallosReplica());
+        assertEquals("replica", leer(enrutador));
+    }
+
+    @Test
+    void unaReplicaCaidaQuedaFueraDelReparto() throws Exception {
+        PoolConexiones caida = base("caida", 2);
+        PoolConexiones viva = base("viva", 2);
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(caida, viva));
+        caida.close();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("viva", leer(enrutador));
+        }
+        assertEquals(1, enrutador.getFallosReplica());
+    }
+
+    @Test
+    void siTodasLasReplicasEstanCaidasLeeDeLaPrimaria() throws Exception {
+        PoolConexiones replica = base("replica", 2);
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(replica));
+        replica.close();
+
+        assertEquals("primaria", leer(enrutador));
+        assertEquals("primaria", leer(enrutador));
+        assertEquals(2, enrutador.getLecturasPrimaria());
+        assertEquals(0, enrutador.getLecturasReplica());
+    }
+
+    @Test
+    void rotatoriaAlternaEntreLasReplicas() throws Exception {
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2),
+                List.of(base("a", 2), base("b", 2)))
+                .setEstrategia(EnrutadorConexiones.Estrategia.ROTATORIA);
+
+        List<String> origenes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            origenes.add(leer(enrutador));
+        }
+        assertEquals(List.of("a", "b", "a", "b"), origenes);
+    }
+
+    @Test
+    void menosCargadaEligeLaReplicaConMenosConexionesPrestadas() throws Exception {
+        PoolConexiones a = base("a", 4);
+        PoolConexiones b = base("b", 4);
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(a, b))
+                .setEstrategia(EnrutadorConexiones.Estrategia.MENOS_CARGADA);
+
+        try (Connection a1 = a.obtenerConexion();
+             Connection a2 = a.obtenerConexion()) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("b", leer(enrutador));
+            }
+            // Con tres prestadas en b y dos en a, la siguiente va a a
+            try (Connection b1 = b.obtenerConexion();
+                 Connection b2 = b.obtenerConexion();
+                 Connection b3 = b.obtenerConexion()) {
+                assertEquals("a", leer(enrutador));
+                assertEquals("a", leer(enrutador));
+            }
+        }
+    }
+
+    @Test
+    void menosCargadaMideLaCargaEnProporcionAlTamano() throws Exception {
+        PoolConexiones pequena = base("pequena", 2);
+        PoolConexiones grande = base("grande", 8);
+        EnrutadorConexiones enrutador = new EnrutadorConexiones(base("primaria", 2), List.of(pequena, grande))
+                .setEstrategia(EnrutadorConexiones.Estrategia.MENOS_CARGADA);
+
+        // Una de dos en la pequeña pesa más que dos de ocho en la grande
+        try (Connection p = pequena.obtenerConexion();
+             Connection g1 = grande.obtenerConexion();
+             Connection g2 = grande.obtenerConexion()) {
+            assertEquals("grande", leer(enrutador));
+            assertEquals("grande", leer(enrutador));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+// Prueba: PoolConexionesTest.java
+package com.biblioteca.model.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// El pool contra una base de datos H2 en memoria distinta en cada prueba
+class PoolConexionesTest {
+
+    private static final AtomicInteger BASES = new AtomicInteger();
+
+    private PoolConexiones pool;
+
+    @AfterEach
+    void cerrar() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static PoolConexiones.Configuracion configuracion() {
+        String url = "jdbc:h2:mem:pool" + BASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        return new PoolConexiones.Configuracion(url, "sa", "")
+                .setMinimoInactivas(0)
+                .setUmbralFugaMs(0);
+    }
+
+    @Test
+    void noPrestaMasDelMaximoYCuentaLasEsperasAgotadas() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(2).setTiempoEsperaMs(50));
+        Connection primera = pool.obtenerConexion();
+        Connection segunda = pool.obtenerConexion();
+
+        assertThrows(SQLTimeoutException.class, pool::obtenerConexion);
+        PoolConexiones.Estadisticas estadisticas = pool.getEstadisticas();
+        assertEquals(2, estadisticas.getActivas());
+        assertEquals(2, estadisticas.getPrestamos());
+        assertEquals(1, estadisticas.getEsperasAgotadas());
+
+        // Quien espera recibe la conexión en cuanto otro la devuelve, y la espera queda medida
+        Thread devolucion = new Thread(() -> {
+            dormir(100);
+            cerrarSinError(primera);
+        });
+        devolucion.start();
+        try (Connection tercera = pool.obtenerConexion(5_000)) {
+            assertTrue(tercera.isValid(1));
+        }
+        devolucion.join();
+        segunda.close();
+
+        estadisticas = pool.getEstadisticas();
+        assertEquals(3, estadisticas.getPrestamos());
+        assertEquals(1, estadisticas.getEsperasAgotadas());
+        assertTrue(estadisticas.getTiempoEsperaMaximoMicros() >= 50_000, estadisticas.toString());
+        assertEquals(2, estadisticas.getConexionesCreadas());
+        assertEquals(0, estadisticas.getActivas());
+    }
+
+    @Test
+    void sinEsperaFallaEnElActoSiEstaLleno() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(1));
+        try (Connection ocupada = pool.obtenerConexion()) {
+            long inicio = System.nanoTime();
+            assertThrows(SQLTimeoutException.class, () -> pool.obtenerConexion(0));
+            assertTrue(System.nanoTime() - inicio < 1_000_000_000L);
+        }
+    }
+
+    @Test
+    void descartaAlPrestarUnaInactivaRota() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(2));
+        Connection fisica;
+        try (Connection conexion = pool.obtenerConexion()) {
+            fisica = conexion.unwrap(Connection.class);
+        }
+        fisica.close();
+
+        try (Connection conexion = pool.obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement("SELECT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+            assertNotSame(fisica, conexion.unwrap(Connection.class));
+        }
+        PoolConexiones.Estadisticas estadisticas = pool.getEstadisticas();
+        assertEquals(1, estadisticas.getConexionesDescartadas());
+        assertEquals(2, estadisticas.getConexionesCreadas());
+    }
+
+    @Test
+    void devuelveLaConexionSinTransaccionAbierta() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(1));
+        try (Connection conexion = pool.obtenerConexion()) {
+            conexion.setAutoCommit(false);
+        }
+        try (Connection conexion = pool.obtenerConexion()) {
+            assertTrue(conexion.getAutoCommit());
+        }
+        Connection devuelta = pool.obtenerConexion();
+        devuelta.close();
+        assertTrue(devuelta.isClosed());
+        assertThrows(SQLException.class, () -> devuelta.prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    void cierraLasInactivasQueSuperanElTiempoMaximo() throws Exception {
+        pool = new PoolConexiones(configuracion()
+                .setTamanoMaximo(3)
+                .setMinimoInactivas(1)
+                .setTiempoMaximoInactividadMs(50)
+                .setIntervaloMantenimientoMs(20));
+        Connection primera = pool.obtenerConexion();
+        Connection segunda = pool.obtenerConexion();
+        Connection tercera = pool.obtenerConexion();
+        Connection fisicaPrimera = primera.unwrap(Connection.class);
+        primera.close();
+        segunda.close();
+        tercera.close();
+        assertEquals(3, pool.getEstadisticas().getInactivas());
+
+        esperarA(() -> pool.getEstadisticas().getInactivas() == 1);
+        // Se conserva la usada más recientemente y se cierran las demás
+        assertTrue(fisicaPrimera.isClosed());
+        dormir(150);
+        assertEquals(1, pool.getEstadisticas().getInactivas());
+    }
+
+    @Test
+    void avisaUnaVezDeUnPrestamoQueSuperaElUmbral() throws Exception {
+        pool = new PoolConexiones(configuracion()
+                .setUmbralFugaMs(50)
+                .setIntervaloMantenimientoMs(20));
+        try (Connection retenida = pool.obtenerConexion()) {
+            esperarA(() -> pool.getEstadisticas().getFugasDetectadas() == 1);
+            dormir(150);
+            assertEquals(1, pool.getEstadisticas().getFugasDetectadas());
+        }
+        try (Connection devuelta = pool.obtenerConexion()) {
+            assertTrue(devuelta.isValid(1));
+        }
+        dormir(150);
+        assertEquals(1, pool.getEstadisticas().getFugasDetectadas());
+    }
+
+    @Test
+    void elAvisoDeFugaIndicaDondeSeObtuvoSoloSiSePide() throws Exception {
+        String sinOrigen = avisoDeFuga(false);
+        assertTrue(sinOrigen.startsWith("Posible fuga de conexión"), sinOrigen);
+        assertFalse(sinOrigen.contains("obtenida en"), sinOrigen);
+
+        String conOrigen = avisoDeFuga(true);
+        assertTrue(conOrigen.contains("obtenida en"), conOrigen);
+        assertTrue(conOrigen.contains("avisoDeFuga"), conOrigen);
+        assertFalse(conOrigen.contains("PoolConexiones."), conOrigen);
+        assertEquals(1, conOrigen.strip().lines().count(), conOrigen);
+    }
+
+    private String avisoDeFuga(boolean registrarOrigen) throws Exception {
+        PrintStream anterior = System.err;
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(salida, true, StandardCharsets.UTF_8));
+        try (PoolConexiones conFuga = new PoolConexiones(configuracion()
+                .setUmbralFugaMs(50)
+                .setRegistrarOrigenFuga(registrarOrigen)
+                .setIntervaloMantenimientoMs(20));
+             Connection retenida = conFuga.obtenerConexion()) {
+            // El contador sube antes de escribir el aviso: se espera a la línea completa
+            esperarA(() -> salida.toString(StandardCharsets.UTF_8).contains("\n"));
+        } finally {
+            System.setErr(anterior);
+        }
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void reutilizaLasSentenciasDeCadaConexionFisica() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(2).setTamanoCacheSentencias(2));
+        try (Connection conexion = pool.obtenerConexion()) {
+            consultar(conexion, "SELECT 1");
+            consultar(conexion, "SELECT 1");
+        }
+        PoolConexiones.Estadisticas estadisticas = pool.getEstadisticas();
+        assertEquals(1, estadisticas.getSentenciasPreparadas());
+        assertEquals(1, estadisticas.getSentenciasReutilizadas());
+
+        // La caché sobrevive al préstamo: la misma conexión física vuelve a encontrarla
+        try (Connection conexion = pool.obtenerConexion()) {
+            consultar(conexion, "SELECT 1");
+        }
+        assertEquals(2, pool.getEstadisticas().getSentenciasReutilizadas());
+
+        // Cada conexión física tiene su propia caché
+        try (Connection primera = pool.obtenerConexion();
+             Connection segunda = pool.obtenerConexion()) {
+            assertNotSame(primera.unwrap(Connection.class), segunda.unwrap(Connection.class));
+            consultar(segunda, "SELECT 1");
+        }
+        estadisticas = pool.getEstadisticas();
+        assertEquals(2, estadisticas.getSentenciasPreparadas());
+        assertEquals(2, estadisticas.getSentenciasReutilizadas());
+    }
+
+    @Test
+    void desalojaLaSentenciaMenosUsadaAlLlenarseLaCache() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(1).setTamanoCacheSentencias(2));
+        try (Connection conexion = pool.obtenerConexion()) {
+            consultar(conexion, "SELECT 1");
+            consultar(conexion, "SELECT 2");
+            consultar(conexion, "SELECT 1");
+            consultar(conexion, "SELECT 3");
+            assertEquals(1, pool.getEstadisticas().getSentenciasDesalojadas());
+
+            // SELECT 2 era la menos usada: sale y hay que prepararla otra vez; SELECT 1 sigue
+            consultar(conexion, "SELECT 1");
+            consultar(conexion, "SELECT 2");
+        }
+        PoolConexiones.Estadisticas estadisticas = pool.getEstadisticas();
+        assertEquals(4, estadisticas.getSentenciasPreparadas());
+        assertEquals(2, estadisticas.getSentenciasReutilizadas());
+        assertEquals(2, estadisticas.getSentenciasDesalojadas());
+    }
+
+    @Test
+    void unaSentenciaCacheadaSeEntregaLimpia() throws Exception {
+        pool = new PoolConexiones(configuracion().setTamanoMaximo(1));
+        try (Connection conexion = pool.obtenerConexion()) {
+            PreparedStatement primera = conexion.prepareStatement("SELECT ?");
+            int tamanoFetch = primera.getFetchSize();
+            primera.setInt(1, 7);
+            primera.setFetchSize(tamanoFetch + 3);
+            primera.executeQuery();
+            primera.close();
+            assertTrue(primera.isClosed());
+
+            try (PreparedStatement segunda = conexion.prepareStatement("SELECT ?")) {
+                assertSame(conexion, segunda.getConnection());
+                assertEquals(tamanoFetch, segunda.getFetchSize());
+                assertThrows(SQLException.class, segunda::executeQuery);
+            }
+        }
+    }
+
+    private static void consultar(Connection conexion, String sql) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+        }
+    }
+
+    private static void esperarA(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            dormir(10);
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void cerrarSinError(Connection conexion) {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,18 +2,59 @@
 package com.biblioteca.controller;
 
 import ElementoBiblioteca;
+import com.biblioteca.model.dao.Cambios;
+import com.biblioteca.model.dao.Cancelacion;
+import com.biblioteca.model.dao.ConflictoVersionException;
+import com.biblioteca.model.dao.Criterio;
 import com.biblioteca.model.dao.ElementoBibliotecaDAO;
+import com.biblioteca.model.dao.EliminacionParcialException;
+import com.biblioteca.model.dao.EscrituraDiferida;
+import com.biblioteca.model.dao.MetricasDAO;
+import com.biblioteca.model.dao.ResultadoLote;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public abstract class BibliotecaController<T extends ElementoBiblioteca> {
+    private static final int MAXIMO_SUGERENCIAS = 8;
+
+    // Un hilo virtual por tarea: las consultas bloqueantes no ocupan hilos de plataforma.
+    // Lo comparten todos los controladores del paquete.
+    static final ExecutorService EJECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     protected ElementoBibliotecaDAO<T> dao;
+    // Si está activa, guardar pasa por la cola con commit en grupo en lugar de escribir directamente
+    private volatile EscrituraDiferida<T> escrituraDiferida;
+    // Sin fusión un conflicto de versión llega a quien guarda; con ella se reintenta hasta maximoReintentos veces
+    private volatile FusionConflicto<T> fusion;
+    private volatile int maximoReintentos;
 
     public BibliotecaController(ElementoBibliotecaDAO<T> dao) {
         this.dao = dao;
     }
 
+    // Construye el índice de búsqueda en segundo plano, sin bloquear la interfaz. Lo llama el panel
+    // tras crear el controlador, no el constructor, para que el hilo no vea un objeto a medio construir.
+    public CompletableFuture<Void> iniciar() {
+        return enSegundoPlano("construirIndice", () -> {
+            try {
+                dao.construirIndiceSiFalta();
+            } catch (SQLException e) {
+                System.err.println("Error al construir el índice de búsqueda: " + e.getMessage());
+            }
+            return null;
+        });
+    }
+
     public T obtenerPorId(int id) {
         try {
             return dao.obtenerPorId(id);
@@ -32,19 +73,142 @@ public abstract class BibliotecaController<T extends ElementoBiblioteca> {
         }
     }
 
-    public boolean guardar(T elemento) {
+    public List<T> buscarPorTexto(String texto) {
+        try {
+            return dao.buscarPorTexto(texto);
+        } catch (SQLException e) {
+            System.err.println("Error al buscar elementos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public List<T> buscar(Criterio<T> criterio) {
+        return buscar(criterio, new Cancelacion());
+    }
+
+    public List<T> buscar(Criterio<T> criterio, Cancelacion cancelacion) {
+        try {
+            return dao.buscar(criterio, cancelacion);
+        } catch (SQLException e) {
+            if (!cancelacion.isCancelada()) {
+                System.err.println("Error al buscar elementos: " + e.getMessage());
+            }
+            return new ArrayList<>();
+        }
+    }
+
+    public List<T> obtenerPagina(int despuesDeId, int limite) {
+        try {
+            return dao.obtenerPagina(despuesDeId, limite);
+        } catch (SQLException e) {
+            System.err.println("Error al obtener la página de elementos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public List<T> obtenerPaginaPorPosicion(int posicion, int limite) {
+        try {
+            return dao.obtenerPaginaPorPosicion(posicion, limite);
+        } catch (SQLException e) {
+            System.err.println("Error al obtener la página de elementos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public int contar() {
+        try {
+            return dao.contar();
+        } catch (SQLException e) {
+            System.err.println("Error al contar los elementos: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Delta desde la marca de la última sincronización (null para empezar); null si falla
+    public Cambios<T> obtenerCambiosDesde(Timestamp marca) {
+        try {
+            return dao.obtenerCambiosDesde(marca);
+        } catch (SQLException e) {
+            System.err.println("Error al obtener los cambios: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void recorrerTodos(Consumer<? super T> accion) {
+        try {
+            dao.recorrerTodos(accion);
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer los elementos: " + e.getMessage());
+        }
+    }
+
+    // Con la escritura diferida activa espera a que el grupo que contiene el guardado esté confirmado.
+    // El elemento debe llevar la versión con la que se leyó: si otro cliente lo guardó después, se
+    // aplica la fusión configurada o se lanza ConflictoVersionException sin haber escrito nada.
+    public boolean guardar(T elemento) throws ConflictoVersionException {
+        for (int reintentos = 0; ; reintentos++) {
+            try {
+                return escribir(elemento);
+            } catch (ConflictoVersionException e) {
+                FusionConflicto<T> actual = fusion;
+                if (actual == null || reintentos >= maximoReintentos) {
+                    throw e;
+                }
+                T enBaseDeDatos = convertir(e.getActual());
+                if (!actual.fusionar(elemento, enBaseDeDatos)) {
+                    throw e;
+                }
+                elemento.setVersion(enBaseDeDatos.getVersion());
+            }
+        }
+    }
+
+    private boolean escribir(T elemento) throws ConflictoVersionException {
+        EscrituraDiferida<T> diferida = escrituraDiferida;
+        if (diferida != null) {
+            try {
+                return diferida.guardar(elemento).join();
+            } catch (IllegalStateException e) {
+                // Se desactivó mientras tanto: se guarda directamente
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ConflictoVersionException conflicto) {
+                    throw conflicto;
+                }
+                throw e;
+            }
+        }
         try {
             if (elemento.getId() < 0) {
                 return dao.insertar(elemento);
             } else {
                 return dao.actualizar(elemento);
             }
+        } catch (ConflictoVersionException e) {
+            throw e;
         } catch (SQLException e) {
             System.err.println("Error al guardar el elemento: " + e.getMessage());
             return false;
         }
     }
 
+    // null vuelve a entregar los conflictos a quien guarda
+    public void configurarFusion(FusionConflicto<T> fusion, int maximoReintentos) {
+        if (maximoReintentos < 0) {
+            throw new IllegalArgumentException("El número de reintentos no puede ser negativo");
+        }
+        this.maximoReintentos = maximoReintentos;
+        this.fusion = fusion;
+    }
+
+    public ResultadoLote insertarLote(List<T> elementos) {
+        try {
+            return dao.insertarLote(elementos);
+        } catch (SQLException e) {
+            System.err.println("Error al insertar el lote: " + e.getMessage());
+            return ResultadoLote.fallido(elementos.size(), e);
+        }
+    }
+
     public boolean eliminar(int id) {
         try {
             return dao.eliminar(id);
@@ -53,4 +217,138 @@ public abstract class BibliotecaController<T extends ElementoBiblioteca> {
             return false;
         }
     }
+
+    // Devuelve los ids borrados. Si falla a medias, los tramos ya borrados no se deshacen y se
+    // devuelven igualmente: la lista tiene menos ids de los pedidos
+    public List<Integer> eliminarLote(Collection<Integer> ids) {
+        try {
+            return dao.eliminarLote(ids);
+        } catch (EliminacionParcialException e) {
+            System.err.println("Error al eliminar los elementos: " + e.getMessage());
+            return new ArrayList<>(e.getEliminados());
+        } catch (SQLException e) {
+            System.err.println("Error al eliminar los elementos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Sugerencias para la búsqueda mientras se escribe; se resuelven en memoria, sin consultar la base de datos
+    public List<String> sugerir(String prefijo) {
+        return dao.sugerir(prefijo, MAXIMO_SUGERENCIAS);
+    }
+
+    // Agrupa los guardados: hasta capacidad en cola, un commit por cada tamanoGrupo elementos o cada
+    // intervaloMs, y las ediciones repetidas de un mismo id se escriben una sola vez
+    public synchronized void activarEscrituraDiferida(int capacidad, int tamanoGrupo, long intervaloMs) {
+        EscrituraDiferida<T> anterior = escrituraDiferida;
+        escrituraDiferida = new EscrituraDiferida<>(dao, capacidad, tamanoGrupo, intervaloMs);
+        if (anterior != null) {
+            anterior.close();
+        }
+    }
+
+    // Escribe lo que quede en cola y vuelve a guardar cada elemento con su propio commit
+    public synchronized void desactivarEscrituraDiferida() {
+        EscrituraDiferida<T> anterior = escrituraDiferida;
+        escrituraDiferida = null;
+        if (anterior != null) {
+            anterior.close();
+        }
+    }
+
+    // Tamaño 0 desactiva la caché de entidades del DAO; ttlMs 0 quita la caducidad
+    public void configurarCache(int tamanoMaximo, long ttlMs) {
+        dao.configurarCache(tamanoMaximo, ttlMs);
+    }
+
+    // Variantes asíncronas: ejecutan la operación fuera del hilo de Swing
+    public CompletableFuture<T> obtenerPorIdAsync(int id) {
+        return enSegundoPlano("obtenerPorId", () -> obtenerPorId(id));
+    }
+
+    public CompletableFuture<List<T>> obtenerTodosAsync() {
+        return enSegundoPlano("obtenerTodos", this::obtenerTodos);
+    }
+
+    // A diferencia de la versión síncrona, un error completa el futuro con la SQLException como causa
+    // en lugar de devolver una lista vacía: la tabla no debe tomar por vacía una página que no llegó
+    public CompletableFuture<List<T>> obtenerPaginaAsync(int despuesDeId, int limite) {
+        return enSegundoPlano("obtenerPagina", () -> {
+            try {
+                return dao.obtenerPagina(despuesDeId, limite);
+            } catch (SQLException e) {
+                System.err.println("Error al obtener la página de elementos: " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<List<T>> obtenerPaginaPorPosicionAsync(int posicion, int limite) {
+        return enSegundoPlano("obtenerPaginaPorPosicion", () -> {
+            try {
+                return dao.obtenerPaginaPorPosicion(posicion, limite);
+            } catch (SQLException e) {
+                System.err.println("Error al obtener la página de elementos: " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    // Cancelar el futuro aborta la consulta en curso
+    public CompletableFuture<List<T>> buscarAsync(Criterio<T> criterio) {
+        return cancelable("buscar", cancelacion -> buscar(criterio, cancelacion));
+    }
+
+    public CompletableFuture<Integer> contarAsync() {
+        return enSegundoPlano("contar", this::contar);
+    }
+
+    public CompletableFuture<Cambios<T>> obtenerCambiosDesdeAsync(Timestamp marca) {
+        return enSegundoPlano("obtenerCambiosDesde", () -> obtenerCambiosDesde(marca));
+    }
+
+    // Un conflicto de versión completa el futuro con un error cuya causa es ConflictoVersionException
+    public CompletableFuture<Boolean> guardarAsync(T elemento) {
+        return enSegundoPlano("guardar", () -> {
+            try {
+                return guardar(elemento);
+            } catch (ConflictoVersionException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Boolean> eliminarAsync(int id) {
+        return enSegundoPlano("eliminar", () -> eliminar(id));
+    }
+
+    public CompletableFuture<List<Integer>> eliminarLoteAsync(Collection<Integer> ids) {
+        return enSegundoPlano("eliminarLote", () -> eliminarLote(ids));
+    }
+
+    // La latencia "async.<operacion>" de las métricas del DAO incluye la espera en el ejecutor
+    protected <R> CompletableFuture<R> enSegundoPlano(String operacion, Supplier<R> tarea) {
+        MetricasDAO.Operacion metrica = dao.getMetricas().operacion("async." + operacion);
+        long inicio = System.nanoTime();
+        return CompletableFuture.supplyAsync(tarea, EJECUTOR)
+                .whenComplete((resultado, error) -> metrica.registrar(inicio, resultado instanceof List
+                        ? ((List<?>) resultado).size() : 0, error != null));
+    }
+
+    // Como enSegundoPlano, pero cancelar el futuro aborta también la consulta en curso (Statement.cancel)
+    protected <R> CompletableFuture<R> cancelable(String operacion, Function<Cancelacion, R> tarea) {
+        Cancelacion cancelacion = new Cancelacion();
+        CompletableFuture<R> futuro = enSegundoPlano(operacion, () -> tarea.apply(cancelacion));
+        futuro.whenComplete((resultado, error) -> {
+            if (futuro.isCancelled()) {
+                cancelacion.cancelar();
+            }
+        });
+        return futuro;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T convertir(ElementoBiblioteca elemento) {
+        return (T) elemento;
+    }
 }
@@ -0,0 +1,68 @@
+// Controlador: CatalogoController.java
+package com.biblioteca.controller;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.dao.CatalogoDAO;
+import com.biblioteca.model.dao.FabricaDAO;
+import com.biblioteca.model.dao.MetricasDAO;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Vista unificada de la biblioteca: libros, revistas y DVDs juntos, cada consulta en un solo viaje
+public class CatalogoController {
+    private CatalogoDAO catalogoDAO;
+
+    public CatalogoController() throws SQLException {
+        this.catalogoDAO = FabricaDAO.crearCatalogoDAO();
+    }
+
+    public List<ElementoBiblioteca> obtenerTodosElementos() {
+        try {
+            return catalogoDAO.obtenerTodosElementos();
+        } catch (SQLException e) {
+            System.err.println("Error al obtener el catálogo: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public List<ElementoBiblioteca> obtenerPaginaElementos(int despuesDeId, int limite) {
+        try {
+            return catalogoDAO.obtenerPaginaElementos(despuesDeId, limite);
+        } catch (SQLException e) {
+            System.err.println("Error al obtener la página del catálogo: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public int contarElementos() {
+        try {
+            return catalogoDAO.contarElementos();
+        } catch (SQLException e) {
+            System.err.println("Error al contar el catálogo: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public CompletableFuture<List<ElementoBiblioteca>> obtenerTodosElementosAsync() {
+        return enSegundoPlano("obtenerTodosElementos", this::obtenerTodosElementos);
+    }
+
+    public CompletableFuture<List<ElementoBiblioteca>> obtenerPaginaElementosAsync(int despuesDeId, int limite) {
+        return enSegundoPlano("obtenerPaginaElementos", () -> obtenerPaginaElementos(despuesDeId, limite));
+    }
+
+    public CompletableFuture<Integer> contarElementosAsync() {
+        return enSegundoPlano("contarElementos", this::contarElementos);
+    }
+
+    private <R> CompletableFuture<R> enSegundoPlano(String operacion, Supplier<R> tarea) {
+        MetricasDAO.Operacion metrica = catalogoDAO.getMetricas().operacion("async." + operacion);
+        long inicio = System.nanoTime();
+        return CompletableFuture.supplyAsync(tarea, BibliotecaController.EJECUTOR)
+                .whenComplete((resultado, error) -> metrica.registrar(inicio, resultado instanceof List
+                        ? ((List<?>) resultado).size() : 0, error != null));
+    }
+}
@@ -2,25 +2,39 @@
 package com.biblioteca.controller;
 
 import com.biblioteca.model.DVD;
+import com.biblioteca.model.dao.Cancelacion;
+import com.biblioteca.model.dao.FabricaDAO;
 import com.biblioteca.model.dao.DVDDAO;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DVDController extends BibliotecaController<DVD> {
     private DVDDAO dvdDAO;
 
     public DVDController() throws SQLException {
-        super(new DVDDAO());
+        super(FabricaDAO.crearDVDDAO());
         this.dvdDAO = (DVDDAO) this.dao;
     }
 
     public List<DVD> buscarPorGenero(String genero) {
+        return buscarPorGenero(genero, new Cancelacion());
+    }
+
+    public List<DVD> buscarPorGenero(String genero, Cancelacion cancelacion) {
         try {
-            return dvdDAO.buscarPorGenero(genero);
+            return dvdDAO.buscarPorGenero(genero, cancelacion);
         } catch (SQLException e) {
-            System.err.println("Error al buscar DVDs por género: " + e.getMessage());
+            if (!cancelacion.isCancelada()) {
+                System.err.println("Error al buscar DVDs por género: " + e.getMessage());
+            }
             return new ArrayList<>();
         }
     }
+
+    // Cancelar el futuro (por ejemplo, al seguir escribiendo) aborta la consulta en curso
+    public CompletableFuture<List<DVD>> buscarPorGeneroAsync(String genero) {
+        return cancelable("buscarPorGenero", cancelacion -> buscarPorGenero(genero, cancelacion));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+// Controlador: EstadisticasController.java
+package com.biblioteca.controller;
+
+import com.biblioteca.model.dao.EstadisticasCatalogo;
+import com.biblioteca.model.dao.EstadisticasDAO;
+import com.biblioteca.model.dao.FabricaDAO;
+import com.biblioteca.model.dao.MetricasDAO;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+// Resumen del catálogo para el panel de bienvenida; las cifras salen agregadas de la base de datos
+public class EstadisticasController {
+    private EstadisticasDAO estadisticasDAO;
+
+    public EstadisticasController() throws SQLException {
+        this.estadisticasDAO = FabricaDAO.crearEstadisticasDAO();
+    }
+
+    // null si no se pudieron obtener
+    public EstadisticasCatalogo obtenerEstadisticas() {
+        try {
+            return estadisticasDAO.obtenerEstadisticas();
+        } catch (SQLException e) {
+            System.err.println("Error al obtener las estadísticas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public CompletableFuture<EstadisticasCatalogo> obtenerEstadisticasAsync() {
+        MetricasDAO.Operacion metrica = estadisticasDAO.getMetricas().operacion("async.obtenerEstadisticas");
+        long inicio = System.nanoTime();
+        return CompletableFuture.supplyAsync(this::obtenerEstadisticas, BibliotecaController.EJECUTOR)
+                .whenComplete((resultado, error) -> metrica.registrar(inicio, resultado != null ? 1 : 0, error != null));
+    }
+}
@@ -0,0 +1,18 @@
+// Controlador: FusionConflicto.java
+package com.biblioteca.controller;
+
+import com.biblioteca.model.ElementoBiblioteca;
+
+// Qué hacer cuando un guardado choca con el cambio de otro cliente. fusionar recibe lo editado y lo
+// que hay ahora en la base de datos, deja en mio lo que se quiere escribir y devuelve false para
+// renunciar. El controlador pone en mio la versión actual y vuelve a intentarlo.
+@FunctionalInterface
+public interface FusionConflicto<T extends ElementoBiblioteca> {
+
+    boolean fusionar(T mio, T actual);
+
+    // Lo editado gana a lo que guardó el otro cliente, pero solo después de haberlo visto
+    static <T extends ElementoBiblioteca> FusionConflicto<T> sobrescribir() {
+        return (mio, actual) -> true;
+    }
+}
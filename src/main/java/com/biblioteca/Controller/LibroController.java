@@ -2,25 +2,39 @@
 package com.biblioteca.controller;
 
 import com.biblioteca.model.Libro;
+import com.biblioteca.model.dao.Cancelacion;
+import com.biblioteca.model.dao.FabricaDAO;
 import com.biblioteca.model.dao.LibroDAO;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class LibroController extends BibliotecaController<Libro> {
     private LibroDAO libroDAO;
 
     public LibroController() throws SQLException {
-        super(new LibroDAO());
+        super(FabricaDAO.crearLibroDAO());
         this.libroDAO = (LibroDAO) this.dao;
     }
 
     public List<Libro> buscarPorTitulo(String titulo) {
+        return buscarPorTitulo(titulo, new Cancelacion());
+    }
+
+    public List<Libro> buscarPorTitulo(String titulo, Cancelacion cancelacion) {
         try {
-            return libroDAO.buscarPorTitulo(titulo);
+            return libroDAO.buscarPorTitulo(titulo, cancelacion);
         } catch (SQLException e) {
-            System.err.println("Error al buscar libros por título: " + e.getMessage());
+            if (!cancelacion.isCancelada()) {
+                System.err.println("Error al buscar libros por título: " + e.getMessage());
+            }
             return new ArrayList<>();
         }
     }
+
+    // Cancelar el futuro (por ejemplo, al seguir escribiendo) aborta la consulta en curso
+    public CompletableFuture<List<Libro>> buscarPorTituloAsync(String titulo) {
+        return cancelable("buscarPorTitulo", cancelacion -> buscarPorTitulo(titulo, cancelacion));
+    }
 }
\ No newline at end of file
@@ -2,25 +2,39 @@
 package com.biblioteca.controller;
 
 import com.biblioteca.model.Revista;
+import com.biblioteca.model.dao.Cancelacion;
+import com.biblioteca.model.dao.FabricaDAO;
 import com.biblioteca.model.dao.RevistaDAO;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class RevistaController extends BibliotecaController<Revista> {
     private RevistaDAO revistaDAO;
 
     public RevistaController() throws SQLException {
-        super(new RevistaDAO());
+        super(FabricaDAO.crearRevistaDAO());
         this.revistaDAO = (RevistaDAO) this.dao;
     }
 
     public List<Revista> buscarPorCategoria(String categoria) {
+        return buscarPorCategoria(categoria, new Cancelacion());
+    }
+
+    public List<Revista> buscarPorCategoria(String categoria, Cancelacion cancelacion) {
         try {
-            return revistaDAO.buscarPorCategoria(categoria);
+            return revistaDAO.buscarPorCategoria(categoria, cancelacion);
         } catch (SQLException e) {
-            System.err.println("Error al buscar revistas por categoría: " + e.getMessage());
+            if (!cancelacion.isCancelada()) {
+                System.err.println("Error al buscar revistas por categoría: " + e.getMessage());
+            }
             return new ArrayList<>();
         }
     }
+
+    // Cancelar el futuro (por ejemplo, al seguir escribiendo) aborta la consulta en curso
+    public CompletableFuture<List<Revista>> buscarPorCategoriaAsync(String categoria) {
+        return cancelable("buscarPorCategoria", cancelacion -> buscarPorCategoria(categoria, cancelacion));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+// Vista: BusquedaIncremental.java
+package com.biblioteca.view;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.ActionEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Búsqueda mientras se escribe sobre un campo de texto. Espera a que el usuario haga una pausa
+// antes de buscar, así que escribir deprisa lanza una consulta y no una por tecla; mientras tanto
+// ofrece debajo del campo las sugerencias en memoria. Todo ocurre en el hilo de Swing.
+public final class BusquedaIncremental {
+    private static final int PAUSA_MS = 300;
+
+    private final JTextField campo;
+    private final Function<String, List<String>> sugerencias;
+    private final Consumer<String> buscar;
+    private final Timer temporizador;
+    private final JPopupMenu menuSugerencias = new JPopupMenu();
+    private boolean aplicandoSugerencia;
+
+    public BusquedaIncremental(JTextField campo, Function<String, List<String>> sugerencias,
+                               Consumer<String> buscar) {
+        this.campo = campo;
+        this.sugerencias = sugerencias;
+        this.buscar = buscar;
+
+        temporizador = new Timer(PAUSA_MS, e -> alTerminarPausa());
+        temporizador.setRepeats(false);
+        // Sin foco propio, para que el usuario pueda seguir escribiendo con el menú abierto
+        menuSugerencias.setFocusable(false);
+
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                programar();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                programar();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Solo cambian atributos, no el texto
+            }
+        });
+        campo.addActionListener(e -> buscarAhora());
+        campo.getInputMap().put(KeyStroke.getKeyStroke("ESCAPE"), "ocultarSugerencias");
+        campo.getActionMap().put("ocultarSugerencias", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                menuSugerencias.setVisible(false);
+            }
+        });
+    }
+
+    // Busca ya con el texto actual, sin esperar a la pausa (Intro o botón Buscar)
+    public void buscarAhora() {
+        temporizador.stop();
+        menuSugerencias.setVisible(false);
+        buscar.accept(campo.getText().trim());
+    }
+
+    private void programar() {
+        if (!aplicandoSugerencia) {
+            temporizador.restart();
+        }
+    }
+
+    private void alTerminarPausa() {
+        String texto = campo.getText().trim();
+        mostrarSugerencias(texto);
+        buscar.accept(texto);
+    }
+
+    private void mostrarSugerencias(String texto) {
+        menuSugerencias.setVisible(false);
+        menuSugerencias.removeAll();
+        if (texto.isEmpty() || !campo.isShowing()) {
+            return;
+        }
+
+        for (String sugerencia : sugerencias.apply(texto)) {
+            if (sugerencia.equalsIgnoreCase(texto)) {
+                continue;
+            }
+            JMenuItem item = new JMenuItem(sugerencia);
+            item.addActionListener(e -> aplicarSugerencia(sugerencia));
+            menuSugerencias.add(item);
+        }
+        if (menuSugerencias.getComponentCount() > 0) {
+            menuSugerencias.show(campo, 0, campo.getHeight());
+        }
+    }
+
+    private void aplicarSugerencia(String sugerencia) {
+        aplicandoSugerencia = true;
+        try {
+            campo.setText(sugerencia);
+        } finally {
+            aplicandoSugerencia = false;
+        }
+        buscarAhora();
+    }
+}
@@ -0,0 +1,96 @@
+// Vista: GraficoBarras.java
+package com.biblioteca.view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Barras horizontales sencillas: etiqueta, barra proporcional al mayor valor y la cifra
+public final class GraficoBarras extends JComponent {
+    private static final int MAXIMO_BARRAS = 8;
+    private static final int ALTO_FILA = 20;
+    private static final Color COLOR_BARRA = new Color(70, 130, 180);
+
+    private final List<String> etiquetas = new ArrayList<>();
+    private final List<Integer> valores = new ArrayList<>();
+    private final NumberFormat formato = NumberFormat.getIntegerInstance();
+
+    public GraficoBarras() {
+        setPreferredSize(new Dimension(260, MAXIMO_BARRAS * ALTO_FILA + 8));
+    }
+
+    // Muestra las primeras MAXIMO_BARRAS entradas en el orden del mapa; la clave null se rotula aparte
+    public void setDatos(Map<String, Integer> datos) {
+        etiquetas.clear();
+        valores.clear();
+        for (Map.Entry<String, Integer> dato : datos.entrySet()) {
+            if (etiquetas.size() == MAXIMO_BARRAS) {
+                break;
+            }
+            etiquetas.add(dato.getKey() != null ? dato.getKey() : "(sin dato)");
+            valores.add(dato.getValue());
+        }
+        repaint();
+    }
+
+    public static int getMaximoBarras() {
+        return MAXIMO_BARRAS;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            if (valores.isEmpty()) {
+                g2.setColor(Color.GRAY);
+                g2.drawString("Sin datos", 4, ALTO_FILA);
+                return;
+            }
+
+            FontMetrics metricas = g2.getFontMetrics();
+            int anchoEtiquetas = 0;
+            int anchoCifras = 0;
+            int maximo = 1;
+            for (int i = 0; i < valores.size(); i++) {
+                anchoEtiquetas = Math.max(anchoEtiquetas, metricas.stringWidth(etiquetas.get(i)));
+                anchoCifras = Math.max(anchoCifras, metricas.stringWidth(formato.format(valores.get(i))));
+                maximo = Math.max(maximo, valores.get(i));
+            }
+            anchoEtiquetas = Math.min(anchoEtiquetas, getWidth() * 2 / 5);
+            int inicioBarras = anchoEtiquetas + 8;
+            int anchoBarras = Math.max(0, getWidth() - inicioBarras - anchoCifras - 8);
+
+            for (int i = 0; i < valores.size(); i++) {
+                int y = 4 + i * ALTO_FILA;
+                int base = y + (ALTO_FILA + metricas.getAscent()) / 2 - 2;
+                g2.setColor(getForeground());
+                g2.drawString(recortar(etiquetas.get(i), metricas, anchoEtiquetas), 0, base);
+
+                int largo = (int) ((long) anchoBarras * valores.get(i) / maximo);
+                g2.setColor(COLOR_BARRA);
+                g2.fillRect(inicioBarras, y + 3, Math.max(1, largo), ALTO_FILA - 6);
+
+                g2.setColor(getForeground());
+                g2.drawString(formato.format(valores.get(i)), inicioBarras + largo + 4, base);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private static String recortar(String texto, FontMetrics metricas, int ancho) {
+        if (metricas.stringWidth(texto) <= ancho) {
+            return texto;
+        }
+        String recortado = texto;
+        while (!recortado.isEmpty() && metricas.stringWidth(recortado + "…") > ancho) {
+            recortado = recortado.substring(0, recortado.length() - 1);
+        }
+        return recortado + "…";
+    }
+}
@@ -0,0 +1,265 @@
+// Vista: ModeloTablaPaginado.java
+package com.biblioteca.view;
+
+import com.biblioteca.controller.BibliotecaController;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.dao.Cambios;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+// Modelo de tabla que pide las filas por páginas a medida que se hacen visibles.
+// Solo guarda unas pocas páginas en memoria, así que abrir un catálogo enorme cuesta lo mismo que uno pequeño.
+// Todo el estado se toca desde el hilo de Swing; las consultas van por los métodos asíncronos del controlador.
+public class ModeloTablaPaginado<T extends ElementoBiblioteca> extends AbstractTableModel {
+    private static final int TAMANO_PAGINA = 100;
+    private static final int PAGINAS_EN_MEMORIA = 8;
+
+    private final BibliotecaController<T> controller;
+    private final String[] columnas;
+    private final BiFunction<T, Integer, Object> valorColumna;
+
+    // Páginas cargadas, de la menos a la más usada recientemente
+    private final LinkedHashMap<Integer, List<T>> paginas = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > PAGINAS_EN_MEMORIA;
+        }
+    };
+    // Último id de cada página ya vista, para pedir la siguiente por clave en lugar de por OFFSET
+    private final Map<Integer, Integer> ultimoIdPorPagina = new HashMap<>();
+    private final Set<Integer> pendientes = new HashSet<>();
+    // Borrados ya aplicados: un mismo delta puede repetirse y no deben descontarse dos veces
+    private final Set<Integer> eliminadosAplicados = new HashSet<>();
+
+    private int totalFilas;
+    private List<T> resultados;   // Resultado de una búsqueda: se muestra completo, sin paginar
+    private int generacion;       // Descarta páginas pedidas antes de la última recarga
+
+    public ModeloTablaPaginado(BibliotecaController<T> controller, String[] columnas,
+                               BiFunction<T, Integer, Object> valorColumna) {
+        this.controller = controller;
+        this.columnas = columnas;
+        this.valorColumna = valorColumna;
+    }
+
+    // Pasa a mostrar el catálogo completo con el total ya contado; las filas se piden al verse
+    public void mostrarCatalogo(int totalFilas) {
+        limpiar();
+        this.totalFilas = totalFilas;
+        fireTableDataChanged();
+    }
+
+    // Muestra una lista ya cargada, por ejemplo el resultado de una búsqueda
+    public void mostrarResultados(List<T> resultados) {
+        limpiar();
+        this.resultados = resultados;
+        this.totalFilas = resultados.size();
+        fireTableDataChanged();
+    }
+
+    // Aplica un delta sin recargar la tabla. Las filas modificadas que estén en memoria se sustituyen;
+    // si además cambió el número de filas, se descartan las páginas desde el primer id afectado, que
+    // se volverán a pedir al verse. Las páginas anteriores siguen valiendo porque el orden es por id.
+    public void aplicarCambios(Cambios<T> cambios) {
+        if (resultados != null) {
+            aplicarCambiosAResultados(cambios);
+            return;
+        }
+        if (cambios.isVacio()) {
+            return;
+        }
+
+        int frontera = Integer.MAX_VALUE;
+        boolean estructural = cambios.getTotal() >= 0 && cambios.getTotal() != totalFilas;
+        for (Integer id : cambios.getEliminados()) {
+            if (eliminadosAplicados.add(id)) {
+                estructural = true;
+                frontera = Math.min(frontera, id);
+            }
+        }
+
+        List<Integer> filasActualizadas = new ArrayList<>();
+        for (T elemento : cambios.getModificados()) {
+            int fila = sustituir(elemento);
+            if (fila >= 0) {
+                filasActualizadas.add(fila);
+            } else {
+                frontera = Math.min(frontera, elemento.getId());
+            }
+        }
+
+        if (estructural) {
+            descartarPaginasDesde(frontera);
+            totalFilas = cambios.getTotal();
+            fireTableDataChanged();
+        } else {
+            for (int fila : filasActualizadas) {
+                fireTableRowsUpdated(fila, fila);
+            }
+        }
+    }
+
+    // Elemento de la fila si ya está cargado; null si su página aún no ha llegado
+    public T getElemento(int fila) {
+        if (resultados != null) {
+            return resultados.get(fila);
+        }
+        int pagina = fila / TAMANO_PAGINA;
+        List<T> elementos = paginas.get(pagina);
+
+        // Pide la página si falta y adelanta las vecinas para que el desplazamiento no espere
+        solicitarPagina(pagina);
+        solicitarPagina(pagina + 1);
+        if (pagina > 0) {
+            solicitarPagina(pagina - 1);
+        }
+        if (elementos == null) {
+            return null;
+        }
+        int indice = fila % TAMANO_PAGINA;
+        return indice < elementos.size() ? elementos.get(indice) : null;
+    }
+
+    // Como getElemento pero sin pedir páginas: para recorrer una selección que puede abarcar miles
+    // de filas, donde pedir cada página lanzaría una consulta por cada cien filas
+    public T getElementoCargado(int fila) {
+        if (resultados != null) {
+            return resultados.get(fila);
+        }
+        List<T> elementos = paginas.get(fila / TAMANO_PAGINA);
+        int indice = fila % TAMANO_PAGINA;
+        return elementos != null && indice < elementos.size() ? elementos.get(indice) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnas[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T elemento = getElemento(rowIndex);
+        return elemento == null ? null : valorColumna.apply(elemento, columnIndex);
+    }
+
+    private void limpiar() {
+        generacion++;
+        paginas.clear();
+        ultimoIdPorPagina.clear();
+        pendientes.clear();
+        eliminadosAplicados.clear();
+        resultados = null;
+        totalFilas = 0;
+    }
+
+    // En una búsqueda ya mostrada solo se actualizan o quitan filas; las altas no se añaden porque
+    // no se sabe si cumplen el criterio
+    private void aplicarCambiosAResultados(Cambios<T> cambios) {
+        if (cambios.isVacio()) {
+            return;
+        }
+        Map<Integer, T> modificados = new HashMap<>();
+        for (T elemento : cambios.getModificados()) {
+            modificados.put(elemento.getId(), elemento);
+        }
+        Set<Integer> eliminados = new HashSet<>(cambios.getEliminados());
+
+        List<T> nuevos = new ArrayList<>(resultados.size());
+        boolean cambiado = false;
+        for (T elemento : resultados) {
+            if (eliminados.contains(elemento.getId())) {
+                cambiado = true;
+                continue;
+            }
+            T modificado = modificados.get(elemento.getId());
+            cambiado |= modificado != null;
+            nuevos.add(modificado != null ? modificado : elemento);
+        }
+        if (cambiado) {
+            resultados = nuevos;
+            totalFilas = nuevos.size();
+            fireTableDataChanged();
+        }
+    }
+
+    // Sustituye el elemento en la página cargada que lo contiene; devuelve su fila o -1 si no está
+    private int sustituir(T elemento) {
+        for (Map.Entry<Integer, List<T>> pagina : paginas.entrySet()) {
+            List<T> elementos = pagina.getValue();
+            if (elementos.isEmpty() || elemento.getId() < elementos.get(0).getId()
+                    || elemento.getId() > elementos.get(elementos.size() - 1).getId()) {
+                continue;
+            }
+            for (int i = 0; i < elementos.size(); i++) {
+                if (elementos.get(i).getId() == elemento.getId()) {
+                    elementos.set(i, elemento);
+                    return pagina.getKey() * TAMANO_PAGINA + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Olvida las páginas que contienen ids desde la frontera en adelante, la última página si estaba
+    // incompleta (las altas van al final) y las cargas en curso, que podrían traer filas desplazadas
+    private void descartarPaginasDesde(int frontera) {
+        generacion++;
+        pendientes.clear();
+        paginas.entrySet().removeIf(pagina -> pagina.getValue().size() < TAMANO_PAGINA
+                || pagina.getValue().get(pagina.getValue().size() - 1).getId() >= frontera);
+        ultimoIdPorPagina.values().removeIf(ultimoId -> ultimoId >= frontera);
+    }
+
+    private void solicitarPagina(int pagina) {
+        if (resultados != null || pagina * TAMANO_PAGINA >= totalFilas
+                || paginas.containsKey(pagina) || !pendientes.add(pagina)) {
+            return;
+        }
+
+        int generacionSolicitud = generacion;
+        Integer ultimoIdAnterior = pagina == 0 ? Integer.valueOf(0) : ultimoIdPorPagina.get(pagina - 1);
+        CompletableFuture<List<T>> carga = ultimoIdAnterior != null
+                ? controller.obtenerPaginaAsync(ultimoIdAnterior, TAMANO_PAGINA)
+                : controller.obtenerPaginaPorPosicionAsync(pagina * TAMANO_PAGINA, TAMANO_PAGINA);
+
+        // Una página que falló no se guarda: sale de pendientes y se vuelve a pedir la próxima vez que
+        // se pinte alguna de sus filas. No se avisa a la tabla para no reintentar en bucle.
+        carga.whenComplete((elementos, error) -> SwingUtilities.invokeLater(() -> {
+            if (generacionSolicitud != generacion) {
+                return;
+            }
+            pendientes.remove(pagina);
+            if (error != null) {
+                return;
+            }
+            paginas.put(pagina, elementos);
+            if (!elementos.isEmpty()) {
+                ultimoIdPorPagina.put(pagina, elementos.get(elementos.size() - 1).getId());
+            }
+            int primera = pagina * TAMANO_PAGINA;
+            int ultima = Math.min(primera + TAMANO_PAGINA, totalFilas) - 1;
+            if (ultima >= primera) {
+                fireTableRowsUpdated(primera, ultima);
+            }
+        }));
+    }
+}
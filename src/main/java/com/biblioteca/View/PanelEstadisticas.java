@@ -0,0 +1,145 @@
+// Vista: PanelEstadisticas.java
+package com.biblioteca.view;
+
+import com.biblioteca.controller.EstadisticasController;
+import com.biblioteca.model.dao.EstadisticasCatalogo;
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.sql.SQLException;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Panel de bienvenida con el resumen del catálogo. Solo pide recuentos agregados, así que cuesta
+// lo mismo con mil elementos que con millones y no carga ninguna entidad.
+public final class PanelEstadisticas extends JPanel {
+    private EstadisticasController controller;
+
+    private JLabel lblTotal;
+    private GraficoBarras graficoDecadas;
+    private GraficoBarras graficoGeneros;
+    private GraficoBarras graficoCategorias;
+    private GraficoBarras graficoEditoriales;
+    private GraficoBarras graficoPaginas;
+    private GraficoBarras graficoDuracion;
+    private final NumberFormat formato = NumberFormat.getIntegerInstance();
+
+    public PanelEstadisticas() throws SQLException {
+        this.controller = new EstadisticasController();
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        inicializarComponentes();
+    }
+
+    private void inicializarComponentes() {
+        JPanel cabecera = new JPanel(new GridLayout(2, 1));
+        JLabel lblBienvenida = new JLabel("Bienvenido al Sistema de Biblioteca", JLabel.CENTER);
+        lblBienvenida.setFont(new Font("Arial", Font.BOLD, 24));
+        lblTotal = new JLabel(" ", JLabel.CENTER);
+        lblTotal.setFont(new Font("Arial", Font.PLAIN, 16));
+        cabecera.add(lblBienvenida);
+        cabecera.add(lblTotal);
+        add(cabecera, BorderLayout.NORTH);
+
+        graficoDecadas = new GraficoBarras();
+        graficoGeneros = new GraficoBarras();
+        graficoCategorias = new GraficoBarras();
+        graficoEditoriales = new GraficoBarras();
+        graficoPaginas = new GraficoBarras();
+        graficoDuracion = new GraficoBarras();
+
+        JPanel tarjetas = new JPanel(new GridLayout(2, 3, 10, 10));
+        tarjetas.add(tarjeta("Por década", graficoDecadas));
+        tarjetas.add(tarjeta("Géneros (libros y DVDs)", graficoGeneros));
+        tarjetas.add(tarjeta("Categorías de revistas", graficoCategorias));
+        tarjetas.add(tarjeta("Editoriales", graficoEditoriales));
+        tarjetas.add(tarjeta("Páginas por libro", graficoPaginas));
+        tarjetas.add(tarjeta("Duración de los DVDs", graficoDuracion));
+        add(tarjetas, BorderLayout.CENTER);
+
+        JLabel lblInstrucciones = new JLabel("<html><center>Seleccione una opción en la barra de herramientas<br>para gestionar los elementos de la biblioteca.</center></html>", JLabel.CENTER);
+        add(lblInstrucciones, BorderLayout.SOUTH);
+    }
+
+    // Pide las estadísticas en segundo plano y las pinta al llegar
+    public void actualizar() {
+        lblTotal.setText("Cargando estadísticas...");
+        controller.obtenerEstadisticasAsync().thenAccept(estadisticas -> SwingUtilities.invokeLater(() -> {
+            if (estadisticas == null) {
+                lblTotal.setText("No se pudieron cargar las estadísticas");
+                return;
+            }
+            mostrar(estadisticas);
+        }));
+    }
+
+    private void mostrar(EstadisticasCatalogo estadisticas) {
+        Map<String, Integer> porTipo = estadisticas.getPorTipo();
+        lblTotal.setText(formato.format(estadisticas.getTotal()) + " elementos: "
+                + formato.format(porTipo.getOrDefault("LIBRO", 0)) + " libros, "
+                + formato.format(porTipo.getOrDefault("REVISTA", 0)) + " revistas y "
+                + formato.format(porTipo.getOrDefault("DVD", 0)) + " DVDs");
+
+        graficoDecadas.setDatos(tramos(estadisticas.getPorDecada(), 10, "", true));
+        graficoGeneros.setDatos(estadisticas.getPorGenero());
+        graficoCategorias.setDatos(estadisticas.getPorCategoria());
+        graficoEditoriales.setDatos(estadisticas.getPorEditorial());
+        graficoPaginas.setDatos(tramos(estadisticas.getPaginas(), estadisticas.getAnchoTramoPaginas(), " pág.", false));
+        graficoDuracion.setDatos(tramos(estadisticas.getDuracion(), estadisticas.getAnchoTramoDuracion(), " min", false));
+    }
+
+    // Rotula los tramos ("1990-1999", "100-199 pág.") y junta los que no caben en el gráfico: los más
+    // antiguos si recientes es true (décadas), los más altos si no (páginas, duración)
+    private static Map<String, Integer> tramos(SortedMap<Integer, Integer> recuentos, int ancho, String unidad,
+                                               boolean recientes) {
+        List<Map.Entry<Integer, Integer>> entradas = new ArrayList<>(recuentos.entrySet());
+        int maximo = GraficoBarras.getMaximoBarras();
+        Map<String, Integer> datos = new LinkedHashMap<>();
+        if (entradas.size() <= maximo) {
+            for (Map.Entry<Integer, Integer> entrada : entradas) {
+                datos.put(rotulo(entrada.getKey(), ancho, unidad), entrada.getValue());
+            }
+            return datos;
+        }
+
+        int sobrantes = entradas.size() - maximo + 1;
+        if (recientes) {
+            int juntos = 0;
+            for (Map.Entry<Integer, Integer> entrada : entradas.subList(0, sobrantes)) {
+                juntos += entrada.getValue();
+            }
+            datos.put("Antes de " + entradas.get(sobrantes).getKey(), juntos);
+            for (Map.Entry<Integer, Integer> entrada : entradas.subList(sobrantes, entradas.size())) {
+                datos.put(rotulo(entrada.getKey(), ancho, unidad), entrada.getValue());
+            }
+        } else {
+            int corte = entradas.size() - sobrantes;
+            for (Map.Entry<Integer, Integer> entrada : entradas.subList(0, corte)) {
+                datos.put(rotulo(entrada.getKey(), ancho, unidad), entrada.getValue());
+            }
+            int juntos = 0;
+            for (Map.Entry<Integer, Integer> entrada : entradas.subList(corte, entradas.size())) {
+                juntos += entrada.getValue();
+            }
+            datos.put(entradas.get(corte).getKey() + " o más" + unidad, juntos);
+        }
+        return datos;
+    }
+
+    private static String rotulo(int inicio, int ancho, String unidad) {
+        return inicio + "-" + (inicio + ancho - 1) + unidad;
+    }
+
+    private static JPanel tarjeta(String titulo, JComponent contenido) {
+        JPanel tarjeta = new JPanel(new BorderLayout());
+        tarjeta.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), titulo,
+                TitledBorder.LEFT, TitledBorder.TOP));
+        tarjeta.add(contenido, BorderLayout.CENTER);
+        return tarjeta;
+    }
+}
@@ -3,28 +3,40 @@ package com.biblioteca.view;
 
 import com.biblioteca.controller.LibroController;
 import com.biblioteca.model.Libro;
+import com.biblioteca.model.dao.ConflictoVersionException;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class PanelLibros extends JPanel {
     private MainFrame parent;
     private com.biblioteca.view.PanelDVDs.LibroController controller;
 
     private JTable tablaLibros;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaPaginado<Libro> modeloTabla;
     private JTextField txtBuscar;
+    private BusquedaIncremental busqueda;
     private JButton btnBuscar;
     private JButton btnAgregar;
     private JButton btnEditar;
     private JButton btnEliminar;
     private JButton btnActualizar;
+    private JLabel lblEstado;
+
+    // Consulta cuyo resultado se mostrará en la tabla; una nueva consulta sustituye a la anterior
+    private CompletableFuture<?> cargaActual;
+    // Hora del servidor de la última sincronización; desde ella se piden los cambios
+    private Timestamp marcaSincronizacion;
 
     public PanelLibros(MainFrame parent) throws SQLException {
         this.parent = parent;
         this.controller = new com.biblioteca.view.PanelDVDs.LibroController();
+        controller.iniciar();
 
         setLayout(new BorderLayout());
         inicializarComponentes();
@@ -38,12 +50,16 @@ public class PanelLibros extends JPanel {
         JPanel panelBusqueda = new JPanel(new FlowLayout(FlowLayout.LEFT));
         txtBuscar = new JTextField(20);
         btnBuscar = new JButton("Buscar");
-        btnBuscar.addActionListener(e -> buscarLibros());
+        busqueda = new BusquedaIncremental(txtBuscar, controller::sugerir, this::buscarLibros);
+        btnBuscar.addActionListener(e -> busqueda.buscarAhora());
 
-        panelBusqueda.add(new JLabel("Buscar por título: "));
+        panelBusqueda.add(new JLabel("Buscar por título o autor: "));
         panelBusqueda.add(txtBuscar);
         panelBusqueda.add(btnBuscar);
 
+        lblEstado = new JLabel(" ");
+        panelBusqueda.add(lblEstado);
+
         // Panel de acciones
         JPanel panelAcciones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         btnAgregar = new JButton("Agregar");
@@ -65,15 +81,18 @@ public class PanelLibros extends JPanel {
         panelSuperior.add(panelAcciones, BorderLayout.EAST);
 
         // Tabla de libros
-        modeloTabla = new DefaultTableModel(
-                new Object[][] {},
-                new String[] {"ID", "Título", "Autor", "Año", "ISBN", "Páginas", "Género", "Editorial"}
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloTabla = new ModeloTablaPaginado<>(controller,
+                new String[] {"ID", "Título", "Autor", "Año", "ISBN", "Páginas", "Género", "Editorial"},
+                (libro, columna) -> switch (columna) {
+                    case 0 -> libro.getId();
+                    case 1 -> libro.getTitulo();
+                    case 2 -> libro.getAutor();
+                    case 3 -> libro.getAnoPublicacion();
+                    case 4 -> libro.getIsbn();
+                    case 5 -> libro.getNumeroPaginas();
+                    case 6 -> libro.getGenero();
+                    default -> libro.getEditorial();
+                });
 
         tablaLibros = new JTable(modeloTabla);
         JScrollPane scrollPane = new JScrollPane(tablaLibros);
@@ -98,50 +117,62 @@ public class PanelLibros extends JPanel {
     }
 
     public void actualizarTabla() {
-        // Limpiar tabla
-        modeloTabla.setRowCount(0);
-
-        // Obtener libros y agregarlos a la tabla
-        List<Libro> libros = controller.obtenerTodos();
-        for (Libro libro : libros) {
-            modeloTabla.addRow(new Object[] {
-                    libro.getId(),
-                    libro.getTitulo(),
-                    libro.getAutor(),
-                    libro.getAnoPublicacion(),
-                    libro.getIsbn(),
-                    libro.getNumeroPaginas(),
-                    libro.getGenero(),
-                    libro.getEditorial()
-            });
-        }
+        // Solo se cuenta el total; las filas se piden por páginas al mostrarse
+        cargarTabla(controller.obtenerCambiosDesdeAsync(null), cambios -> {
+            if (cambios != null) {
+                marcaSincronizacion = cambios.getMarca();
+                modeloTabla.mostrarCatalogo(cambios.getTotal());
+            }
+        });
     }
 
-    private void buscarLibros() {
-        String terminoBusqueda = txtBuscar.getText().trim();
+    // Aplica a lo que ya se muestra solo lo que cambió desde la última sincronización
+    public void refrescarTabla() {
+        if (marcaSincronizacion == null) {
+            actualizarTabla();
+            return;
+        }
+        cargarTabla(controller.obtenerCambiosDesdeAsync(marcaSincronizacion), cambios -> {
+            if (cambios != null) {
+                marcaSincronizacion = cambios.getMarca();
+                modeloTabla.aplicarCambios(cambios);
+            }
+        });
+    }
 
+    // Cada búsqueda cancela la anterior, también en el servidor si aún se está ejecutando
+    private void buscarLibros(String terminoBusqueda) {
         if (terminoBusqueda.isEmpty()) {
             actualizarTabla();
             return;
         }
 
-        // Limpiar tabla
-        modeloTabla.setRowCount(0);
-
-        // Buscar libros y agregarlos a la tabla
-        List<Libro> libros = controller.buscarPorTitulo(terminoBusqueda);
-        for (Libro libro : libros) {
-            modeloTabla.addRow(new Object[] {
-                    libro.getId(),
-                    libro.getTitulo(),
-                    libro.getAutor(),
-                    libro.getAnoPublicacion(),
-                    libro.getIsbn(),
-                    libro.getNumeroPaginas(),
-                    libro.getGenero(),
-                    libro.getEditorial()
-            });
+        cargarTabla(controller.buscarPorTituloAsync(terminoBusqueda), modeloTabla::mostrarResultados);
+    }
+
+    // Aplica el resultado de la consulta a la tabla cuando llega, siempre desde el hilo de Swing
+    private <R> void cargarTabla(CompletableFuture<R> carga, Consumer<R> aplicar) {
+        if (cargaActual != null) {
+            cargaActual.cancel(false);
         }
+        cargaActual = carga;
+        mostrarCargando(true);
+
+        carga.whenComplete((resultado, error) -> SwingUtilities.invokeLater(() -> {
+            if (carga != cargaActual) {
+                return; // Superada por una consulta más reciente
+            }
+            cargaActual = null;
+            mostrarCargando(false);
+            if (error == null) {
+                aplicar.accept(resultado);
+            }
+        }));
+    }
+
+    private void mostrarCargando(boolean cargando) {
+        lblEstado.setText(cargando ? "Cargando..." : " ");
+        setCursor(cargando ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
     }
 
     private void agregarLibro() {
@@ -149,16 +180,18 @@ public class PanelLibros extends JPanel {
         Libro libro = (Libro) dialogo.mostrar();
 
         if (libro != null) {
-            if (controller.guardar(libro)) {
-                JOptionPane.showMessageDialog(this,
-                        "Libro agregado correctamente",
-                        "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                actualizarTabla();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error al agregar el libro",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            controller.guardarAsync(libro).thenAccept(guardado -> SwingUtilities.invokeLater(() -> {
+                if (guardado) {
+                    JOptionPane.showMessageDialog(this,
+                            "Libro agregado correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                    refrescarTabla();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Error al agregar el libro",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
         }
     }
 
@@ -172,29 +205,48 @@ public class PanelLibros extends JPanel {
             return;
         }
 
-        int id = (int) tablaLibros.getValueAt(filaSeleccionada, 0);
-        Libro libro = controller.obtenerPorId(id);
-
-        if (libro != null) {
-            DialogoAgregarElemento dialogo = new DialogoAgregarElemento(parent, "Editar Libro", "LIBRO", libro);
-            Libro libroEditado = (Libro) dialogo.mostrar();
+        Libro seleccionado = modeloTabla.getElemento(filaSeleccionada);
+        if (seleccionado == null) {
+            return; // La fila aún se está cargando
+        }
 
-            if (libroEditado != null) {
-                if (controller.guardar(libroEditado)) {
-                    JOptionPane.showMessageDialog(this,
-                            "Libro actualizado correctamente",
-                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                    actualizarTabla();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Error al actualizar el libro",
-                            "Error", JOptionPane.ERROR_MESSAGE);
+        int id = seleccionado.getId();
+        controller.obtenerPorIdAsync(id).thenAccept(libro -> SwingUtilities.invokeLater(() -> {
+            if (libro != null) {
+                DialogoAgregarElemento dialogo = new DialogoAgregarElemento(parent, "Editar Libro", "LIBRO", libro);
+                Libro libroEditado = (Libro) dialogo.mostrar();
+
+                if (libroEditado != null) {
+                    // Se guarda sobre la versión que se mostró en el diálogo
+                    libroEditado.setVersion(libro.getVersion());
+                    controller.guardarAsync(libroEditado).whenComplete((guardado, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error != null && error.getCause() instanceof ConflictoVersionException) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Otro usuario modificó el libro mientras se editaba; no se guardaron los cambios",
+                                    "Conflicto de edición", JOptionPane.WARNING_MESSAGE);
+                            refrescarTabla();
+                        } else if (error == null && guardado) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Libro actualizado correctamente",
+                                    "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                            refrescarTabla();
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error al actualizar el libro",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
                 }
             }
-        }
+        }));
     }
 
     private void eliminarLibro() {
+        if (tablaLibros.getSelectedRowCount() > 1) {
+            eliminarSeleccionados();
+            return;
+        }
+
         int filaSeleccionada = tablaLibros.getSelectedRow();
 
         if (filaSeleccionada < 0) {
@@ -204,24 +256,74 @@ public class PanelLibros extends JPanel {
             return;
         }
 
-        int id = (int) tablaLibros.getValueAt(filaSeleccionada, 0);
-        String titulo = (String) tablaLibros.getValueAt(filaSeleccionada, 1);
+        Libro seleccionado = modeloTabla.getElemento(filaSeleccionada);
+        if (seleccionado == null) {
+            return; // La fila aún se está cargando
+        }
+
+        int id = seleccionado.getId();
+        String titulo = seleccionado.getTitulo();
 
         int confirmacion = JOptionPane.showConfirmDialog(this,
                 "¿Está seguro de eliminar el libro \"" + titulo + "\"?",
                 "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            if (controller.eliminar(id)) {
-                JOptionPane.showMessageDialog(this,
-                        "Libro eliminado correctamente",
-                        "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                actualizarTabla();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error al eliminar el libro",
-                        "Error", JOptionPane.ERROR_MESSAGE);
+            controller.eliminarAsync(id).thenAccept(eliminado -> SwingUtilities.invokeLater(() -> {
+                if (eliminado) {
+                    JOptionPane.showMessageDialog(this,
+                            "Libro eliminado correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                    refrescarTabla();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Error al eliminar el libro",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
+        }
+    }
+
+    // Con varias filas seleccionadas se borran de una vez con eliminarLote. Solo se borran las filas
+    // cuya página está en memoria: una selección de todo el catálogo no debe cargarlo entero. Si
+    // quedan filas fuera se avisa antes de confirmar.
+    private void eliminarSeleccionados() {
+        int[] filas = tablaLibros.getSelectedRows();
+        List<Integer> ids = new ArrayList<>();
+        for (int fila : filas) {
+            Libro seleccionado = modeloTabla.getElementoCargado(fila);
+            if (seleccionado != null) {
+                ids.add(seleccionado.getId());
             }
         }
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Ninguno de los libros seleccionados está cargado todavía",
+                    "Atención", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String pregunta = "¿Está seguro de eliminar los " + ids.size() + " libros seleccionados?";
+        if (ids.size() < filas.length) {
+            pregunta = (filas.length - ids.size()) + " de las " + filas.length + " filas seleccionadas aún no se han "
+                    + "cargado y no se eliminarán.\n¿Eliminar solo los " + ids.size() + " libros cargados?";
+        }
+        int confirmacion = JOptionPane.showConfirmDialog(this, pregunta,
+                "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
+
+        if (confirmacion == JOptionPane.YES_OPTION) {
+            controller.eliminarLoteAsync(ids).thenAccept(eliminados -> SwingUtilities.invokeLater(() -> {
+                if (eliminados.size() == ids.size()) {
+                    JOptionPane.showMessageDialog(this,
+                            eliminados.size() + " libros eliminados correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Se eliminaron " + eliminados.size() + " de " + ids.size() + " libros",
+                            "Atención", JOptionPane.WARNING_MESSAGE);
+                }
+                refrescarTabla();
+            }));
+        }
     }
 }
\ No newline at end of file
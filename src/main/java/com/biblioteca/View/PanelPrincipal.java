@@ -13,6 +13,7 @@ public class PanelPrincipal extends JPanel {
     private com.biblioteca.view.PanelDVDs.PanelLibros panelLibros;
     private com.biblioteca.view.PanelRevistas panelRevistas;
     private com.biblioteca.view.PanelDVDs panelDVDs;
+    private PanelEstadisticas panelEstadisticas;
 
     private JToolBar toolBar;
 
@@ -28,14 +29,18 @@ public class PanelPrincipal extends JPanel {
         toolBar = new JToolBar();
         toolBar.setFloatable(false);
 
+        JButton btnInicio = new JButton("Inicio");
         JButton btnLibros = new JButton("Libros");
         JButton btnRevistas = new JButton("Revistas");
         JButton btnDVDs = new JButton("DVDs");
 
+        btnInicio.addActionListener(e -> mostrarPanelBienvenida());
         btnLibros.addActionListener(e -> mostrarPanelLibros());
         btnRevistas.addActionListener(e -> mostrarPanelRevistas());
         btnDVDs.addActionListener(e -> mostrarPanelDVDs());
 
+        toolBar.add(btnInicio);
+        toolBar.add(new JToolBar.Separator());
         toolBar.add(btnLibros);
         toolBar.add(new JToolBar.Separator());
         toolBar.add(btnRevistas);
@@ -58,20 +63,12 @@ public class PanelPrincipal extends JPanel {
             contenedor.add(panelRevistas, "REVISTAS");
             contenedor.add(panelDVDs, "DVDS");
 
-            // Panel de bienvenida
-            JPanel panelBienvenida = new JPanel(new BorderLayout());
-            JLabel lblBienvenida = new JLabel("Bienvenido al Sistema de Biblioteca", JLabel.CENTER);
-            lblBienvenida.setFont(new Font("Arial", Font.BOLD, 24));
-
-            JLabel lblInstrucciones = new JLabel("<html><center>Seleccione una opción en la barra de herramientas<br>para gestionar los elementos de la biblioteca.</center></html>", JLabel.CENTER);
-
-            panelBienvenida.add(lblBienvenida, BorderLayout.CENTER);
-            panelBienvenida.add(lblInstrucciones, BorderLayout.SOUTH);
-
-            contenedor.add(panelBienvenida, "BIENVENIDA");
+            // Panel de bienvenida con el resumen del catálogo
+            panelEstadisticas = new PanelEstadisticas();
+            contenedor.add(panelEstadisticas, "BIENVENIDA");
 
             add(contenedor, BorderLayout.CENTER);
-            cardLayout.show(contenedor, "BIENVENIDA");
+            mostrarPanelBienvenida();
         } catch (Exception e) {
             JOptionPane.showMessageDialog(parent,
                     "Error al inicializar los paneles: " + e.getMessage(),
@@ -79,13 +76,18 @@ public class PanelPrincipal extends JPanel {
         }
     }
 
+    public void mostrarPanelBienvenida() {
+        panelEstadisticas.actualizar();
+        cardLayout.show(contenedor, "BIENVENIDA");
+    }
+
     public void mostrarPanelLibros() {
-        panelLibros.actualizarTabla();
+        panelLibros.refrescarTabla();
         cardLayout.show(contenedor, "LIBROS");
     }
 
     public void mostrarPanelRevistas() {
-        panelRevistas.actualizarTabla();
+        panelRevistas.refrescarTabla();
         cardLayout.show(contenedor, "REVISTAS");
     }
 
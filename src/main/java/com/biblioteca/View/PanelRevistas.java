@@ -3,28 +3,40 @@ package com.biblioteca.view;
 
 import com.biblioteca.controller.RevistaController;
 import com.biblioteca.model.Revista;
+import com.biblioteca.model.dao.ConflictoVersionException;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class PanelRevistas extends JPanel {
     private MainFrame parent;
     private RevistaController controller;
 
     private JTable tablaRevistas;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaPaginado<Revista> modeloTabla;
     private JTextField txtBuscar;
+    private BusquedaIncremental busqueda;
     private JButton btnBuscar;
     private JButton btnAgregar;
     private JButton btnEditar;
     private JButton btnEliminar;
     private JButton btnActualizar;
+    private JLabel lblEstado;
+
+    // Consulta cuyo resultado se mostrará en la tabla; una nueva consulta sustituye a la anterior
+    private CompletableFuture<?> cargaActual;
+    // Hora del servidor de la última sincronización; desde ella se piden los cambios
+    private Timestamp marcaSincronizacion;
 
     public PanelRevistas(MainFrame parent) throws SQLException {
         this.parent = parent;
         this.controller = new RevistaController();
+        controller.iniciar();
 
         setLayout(new BorderLayout());
         inicializarComponentes();
@@ -38,12 +50,16 @@ public class PanelRevistas extends JPanel {
         JPanel panelBusqueda = new JPanel(new FlowLayout(FlowLayout.LEFT));
         txtBuscar = new JTextField(20);
         btnBuscar = new JButton("Buscar");
-        btnBuscar.addActionListener(e -> buscarRevistas());
+        busqueda = new BusquedaIncremental(txtBuscar, controller::sugerir, this::buscarRevistas);
+        btnBuscar.addActionListener(e -> busqueda.buscarAhora());
 
         panelBusqueda.add(new JLabel("Buscar por categoría: "));
         panelBusqueda.add(txtBuscar);
         panelBusqueda.add(btnBuscar);
 
+        lblEstado = new JLabel(" ");
+        panelBusqueda.add(lblEstado);
+
         // Panel de acciones
         JPanel panelAcciones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         btnAgregar = new JButton("Agregar");
@@ -65,15 +81,16 @@ public class PanelRevistas extends JPanel {
         panelSuperior.add(panelAcciones, BorderLayout.EAST);
 
         // Tabla de revistas
-        modeloTabla = new DefaultTableModel(
-                new Object[][] {},
-                new String[] {"ID", "Título", "Autor", "Año", "Edición", "Categoría"}
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloTabla = new ModeloTablaPaginado<>(controller,
+                new String[] {"ID", "Título", "Autor", "Año", "Edición", "Categoría"},
+                (revista, columna) -> switch (columna) {
+                    case 0 -> revista.getId();
+                    case 1 -> revista.getTitulo();
+                    case 2 -> revista.getAutor();
+                    case 3 -> revista.getAnoPublicacion();
+                    case 4 -> revista.getNumeroEdicion();
+                    default -> revista.getCategoria();
+                });
 
         tablaRevistas = new JTable(modeloTabla);
         JScrollPane scrollPane = new JScrollPane(tablaRevistas);
@@ -96,46 +113,62 @@ public class PanelRevistas extends JPanel {
     }
 
     public void actualizarTabla() {
-        // Limpiar tabla
-        modeloTabla.setRowCount(0);
-
-        // Obtener revistas y agregarlos a la tabla
-        List<Revista> revistas = controller.obtenerTodos();
-        for (Revista revista : revistas) {
-            modeloTabla.addRow(new Object[] {
-                    revista.getId(),
-                    revista.getTitulo(),
-                    revista.getAutor(),
-                    revista.getAnoPublicacion(),
-                    revista.getNumeroEdicion(),
-                    revista.getCategoria()
-            });
-        }
+        // Solo se cuenta el total; las filas se piden por páginas al mostrarse
+        cargarTabla(controller.obtenerCambiosDesdeAsync(null), cambios -> {
+            if (cambios != null) {
+                marcaSincronizacion = cambios.getMarca();
+                modeloTabla.mostrarCatalogo(cambios.getTotal());
+            }
+        });
     }
 
-    private void buscarRevistas() {
-        String terminoBusqueda = txtBuscar.getText().trim();
+    // Aplica a lo que ya se muestra solo lo que cambió desde la última sincronización
+    public void refrescarTabla() {
+        if (marcaSincronizacion == null) {
+            actualizarTabla();
+            return;
+        }
+        cargarTabla(controller.obtenerCambiosDesdeAsync(marcaSincronizacion), cambios -> {
+            if (cambios != null) {
+                marcaSincronizacion = cambios.getMarca();
+                modeloTabla.aplicarCambios(cambios);
+            }
+        });
+    }
 
+    // Cada búsqueda cancela la anterior, también en el servidor si aún se está ejecutando
+    private void buscarRevistas(String terminoBusqueda) {
         if (terminoBusqueda.isEmpty()) {
             actualizarTabla();
             return;
         }
 
-        // Limpiar tabla
-        modeloTabla.setRowCount(0);
-
-        // Buscar revistas y agregarlos a la tabla
-        List<Revista> revistas = controller.buscarPorCategoria(terminoBusqueda);
-        for (Revista revista : revistas) {
-            modeloTabla.addRow(new Object[] {
-                    revista.getId(),
-                    revista.getTitulo(),
-                    revista.getAutor(),
-                    revista.getAnoPublicacion(),
-                    revista.getNumeroEdicion(),
-                    revista.getCategoria()
-            });
+        cargarTabla(controller.buscarPorCategoriaAsync(terminoBusqueda), modeloTabla::mostrarResultados);
+    }
+
+    // Aplica el resultado de la consulta a la tabla cuando llega, siempre desde el hilo de Swing
+    private <R> void cargarTabla(CompletableFuture<R> carga, Consumer<R> aplicar) {
+        if (cargaActual != null) {
+            cargaActual.cancel(false);
         }
+        cargaActual = carga;
+        mostrarCargando(true);
+
+        carga.whenComplete((resultado, error) -> SwingUtilities.invokeLater(() -> {
+            if (carga != cargaActual) {
+                return; // Superada por una consulta más reciente
+            }
+            cargaActual = null;
+            mostrarCargando(false);
+            if (error == null) {
+                aplicar.accept(resultado);
+            }
+        }));
+    }
+
+    private void mostrarCargando(boolean cargando) {
+        lblEstado.setText(cargando ? "Cargando..." : " ");
+        setCursor(cargando ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
     }
 
     private void agregarRevista() {
@@ -143,16 +176,18 @@ public class PanelRevistas extends JPanel {
         Revista revista = (Revista) dialogo.mostrar();
 
         if (revista != null) {
-            if (controller.guardar(revista)) {
-                JOptionPane.showMessageDialog(this,
-                        "Revista agregada correctamente",
-                        "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                actualizarTabla();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error al agregar la revista",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            controller.guardarAsync(revista).thenAccept(guardado -> SwingUtilities.invokeLater(() -> {
+                if (guardado) {
+                    JOptionPane.showMessageDialog(this,
+                            "Revista agregada correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                    refrescarTabla();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Error al agregar la revista",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
         }
     }
 
@@ -166,29 +201,48 @@ public class PanelRevistas extends JPanel {
             return;
         }
 
-        int id = (int) tablaRevistas.getValueAt(filaSeleccionada, 0);
-        Revista revista = controller.obtenerPorId(id);
-
-        if (revista != null) {
-            DialogoAgregarElemento dialogo = new DialogoAgregarElemento(parent, "Editar Revista", "REVISTA", revista);
-            Revista revistaEditada = (Revista) dialogo.mostrar();
+        Revista seleccionada = modeloTabla.getElemento(filaSeleccionada);
+        if (seleccionada == null) {
+            return; // La fila aún se está cargando
+        }
 
-            if (revistaEditada != null) {
-                if (controller.guardar(revistaEditada)) {
-                    JOptionPane.showMessageDialog(this,
-                            "Revista actualizada correctamente",
-                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                    actualizarTabla();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Error al actualizar la revista",
-                            "Error", JOptionPane.ERROR_MESSAGE);
+        int id = seleccionada.getId();
+        controller.obtenerPorIdAsync(id).thenAccept(revista -> SwingUtilities.invokeLater(() -> {
+            if (revista != null) {
+                DialogoAgregarElemento dialogo = new DialogoAgregarElemento(parent, "Editar Revista", "REVISTA", revista);
+                Revista revistaEditada = (Revista) dialogo.mostrar();
+
+                if (revistaEditada != null) {
+                    // Se guarda sobre la versión que se mostró en el diálogo
+                    revistaEditada.setVersion(revista.getVersion());
+                    controller.guardarAsync(revistaEditada).whenComplete((guardado, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error != null && error.getCause() instanceof ConflictoVersionException) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Otro usuario modificó la revista mientras se editaba; no se guardaron los cambios",
+                                    "Conflicto de edición", JOptionPane.WARNING_MESSAGE);
+                            refrescarTabla();
+                        } else if (error == null && guardado) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Revista actualizada correctamente",
+                                    "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                            refrescarTabla();
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error al actualizar la revista",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
                 }
             }
-        }
+        }));
     }
 
     private void eliminarRevista() {
+        if (tablaRevistas.getSelectedRowCount() > 1) {
+            eliminarSeleccionados();
+            return;
+        }
+
         int filaSeleccionada = tablaRevistas.getSelectedRow();
 
         if (filaSeleccionada < 0) {
@@ -198,24 +252,74 @@ public class PanelRevistas extends JPanel {
             return;
         }
 
-        int id = (int) tablaRevistas.getValueAt(filaSeleccionada, 0);
-        String titulo = (String) tablaRevistas.getValueAt(filaSeleccionada, 1);
+        Revista seleccionada = modeloTabla.getElemento(filaSeleccionada);
+        if (seleccionada == null) {
+            return; // La fila aún se está cargando
+        }
+
+        int id = seleccionada.getId();
+        String titulo = seleccionada.getTitulo();
 
         int confirmacion = JOptionPane.showConfirmDialog(this,
                 "¿Está seguro de eliminar la revista \"" + titulo + "\"?",
                 "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            if (controller.eliminar(id)) {
-                JOptionPane.showMessageDialog(this,
-                        "Revista eliminada correctamente",
-                        "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                actualizarTabla();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error al eliminar la revista",
-                        "Error", JOptionPane.ERROR_MESSAGE);
+            controller.eliminarAsync(id).thenAccept(eliminado -> SwingUtilities.invokeLater(() -> {
+                if (eliminado) {
+                    JOptionPane.showMessageDialog(this,
+                            "Revista eliminada correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                    refrescarTabla();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Error al eliminar la revista",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
+        }
+    }
+
+    // Con varias filas seleccionadas se borran de una vez con eliminarLote. Solo se borran las filas
+    // cuya página está en memoria: una selección de todo el catálogo no debe cargarlo entero. Si
+    // quedan filas fuera se avisa antes de confirmar.
+    private void eliminarSeleccionados() {
+        int[] filas = tablaRevistas.getSelectedRows();
+        List<Integer> ids = new ArrayList<>();
+        for (int fila : filas) {
+            Revista seleccionado = modeloTabla.getElementoCargado(fila);
+            if (seleccionado != null) {
+                ids.add(seleccionado.getId());
             }
         }
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Ninguna de las revistas seleccionadas está cargada todavía",
+                    "Atención", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String pregunta = "¿Está seguro de eliminar las " + ids.size() + " revistas seleccionadas?";
+        if (ids.size() < filas.length) {
+            pregunta = (filas.length - ids.size()) + " de las " + filas.length + " filas seleccionadas aún no se han "
+                    + "cargado y no se eliminarán.\n¿Eliminar solo las " + ids.size() + " revistas cargadas?";
+        }
+        int confirmacion = JOptionPane.showConfirmDialog(this, pregunta,
+                "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
+
+        if (confirmacion == JOptionPane.YES_OPTION) {
+            controller.eliminarLoteAsync(ids).thenAccept(eliminados -> SwingUtilities.invokeLater(() -> {
+                if (eliminados.size() == ids.size()) {
+                    JOptionPane.showMessageDialog(this,
+                            eliminados.size() + " revistas eliminadas correctamente",
+                            "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                            "Se eliminaron " + eliminados.size() + " de " + ids.size() + " revistas",
+                            "Atención", JOptionPane.WARNING_MESSAGE);
+                }
+                refrescarTabla();
+            }));
+        }
     }
 }
\ No newline at end of file
@@ -38,6 +38,14 @@ public class DVD extends ElementoBiblioteca {
         this.genero = genero;
     }
 
+    @Override
+    public DVD copiar() {
+        DVD copia = new DVD(getId(), getTitulo(), getAutor(), getAnoPublicacion(),
+                duracion, genero);
+        copia.setVersion(getVersion());
+        return copia;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " - Duración: " + duracion + " min - " + genero;
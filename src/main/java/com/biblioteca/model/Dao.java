@@ -3,28 +3,137 @@ package com.biblioteca.model.dao;
 
 import ElementoBiblioteca;
 import com.biblioteca.model.Revista;
-import com.biblioteca.view.PanelDVDs;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class ElementoBibliotecaDAO<T extends ElementoBiblioteca> {
 
-    protected Connection conexion;
+    private static final int TAMANO_CACHE_POR_DEFECTO = 500;
+    private static final int TAMANO_LOTE_POR_DEFECTO = 500;
+    private static final int TAMANO_FETCH_POR_DEFECTO = 500;
+    protected static final int MAXIMO_IDS_POR_CONSULTA = 500;
+    private static final int MAXIMO_FORMAS_COMPILADAS = 128;
+    // Cuánto antes de la marca se vuelve a leer en obtenerCambiosDesde; cubre las transacciones
+    // que tomaron su hora antes de la marca pero se confirmaron después de leerla
+    private static final long MARGEN_SINCRONIZACION_MS = 10_000;
+    private static final String QUERY_INSERTAR_BASE =
+            "INSERT INTO ElementoBiblioteca (titulo, autor, ano_publicacion, tipo) VALUES (?, ?, ?, ?)";
+    // Control optimista: solo se escribe si la fila sigue en la versión desde la que se editó
+    private static final String QUERY_ACTUALIZAR_BASE = "UPDATE ElementoBiblioteca SET titulo = ?, autor = ?, " +
+            "ano_publicacion = ?, version = version + 1, actualizado_en = CURRENT_TIMESTAMP(6) WHERE id = ? AND version = ?";
+
+    // Escrituras confirmadas (o vistas en un delta) desde que arrancó la aplicación, de cualquier tipo.
+    // Las cachés derivadas de varias tablas, como las estadísticas, lo comparan para saber si siguen valiendo.
+    private static final AtomicLong ESCRITURAS = new AtomicLong();
+
+    protected final EnrutadorConexiones enrutador;
+    protected final MetricasDAO metricas;
+    private final String tipo;
+    private volatile CacheEntidades<T> cache = new CacheEntidades<>(TAMANO_CACHE_POR_DEFECTO, 0);
+    private volatile int tamanoLote = TAMANO_LOTE_POR_DEFECTO;
+    private volatile int tamanoFetch = TAMANO_FETCH_POR_DEFECTO;
+    private volatile IndiceTexto indice;
+    private volatile TrieSugerencias sugerencias;
+    // Escrituras confirmadas mientras construirIndice recorre la tabla: id -> elemento, o null si se
+    // borró. Se aplican al índice nuevo justo antes de publicarlo, con cerrojoIndice tomado.
+    private final Object cerrojoIndice = new Object();
+    private Map<Integer, T> cambiosEnConstruccion;
+
+    // SQL compilado por forma de Criterio, de la menos a la más usada. Devolver siempre la misma
+    // cadena hace que la caché de sentencias del pool encuentre la sentencia ya preparada.
+    private final Map<String, String> consultasCompiladas = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAXIMO_FORMAS_COMPILADAS;
+        }
+    };
+
+    // tipo es el valor de la columna tipo del subtipo; se recibe aquí, y no de un método que la
+    // subclase sobrescriba, porque el constructor ya lo necesita
+    public ElementoBibliotecaDAO(String tipo) throws SQLException {
+        this(tipo, ConexionBD.getEnrutador());
+    }
+
+    public ElementoBibliotecaDAO(String tipo, PoolConexiones pool) {
+        this(tipo, new EnrutadorConexiones(pool));
+    }
+
+    public ElementoBibliotecaDAO(String tipo, EnrutadorConexiones enrutador) {
+        this.tipo = tipo;
+        this.enrutador = enrutador;
+        this.metricas = MetricasDAO.para(tipo);
+    }
+
+    // Cada operación pide su propia conexión al pool y la devuelve al cerrarla.
+    // Las escrituras, y las lecturas que deben ver lo último, van a la primaria.
+    protected Connection obtenerConexion() throws SQLException {
+        return enrutador.obtenerEscritura();
+    }
+
+    // Para las consultas que admiten leer de una réplica
+    protected Connection obtenerConexionLectura() throws SQLException {
+        return enrutador.obtenerLectura();
+    }
+
+    // Operación de base de datos que se puede medir
+    @FunctionalInterface
+    protected interface OperacionBD<R> {
+        R ejecutar() throws SQLException;
+    }
+
+    // Ejecuta la operación anotando latencia, filas devueltas y errores en las métricas del tipo
+    protected <R> R medir(String nombre, OperacionBD<R> operacionBD) throws SQLException {
+        MetricasDAO.Operacion operacion = metricas.operacion(nombre);
+        long inicio = System.nanoTime();
+        R resultado;
+        try {
+            resultado = operacionBD.ejecutar();
+        } catch (SQLException | RuntimeException e) {
+            operacion.registrar(inicio, 0, true);
+            throw e;
+        }
+        operacion.registrar(inicio, contarFilas(resultado), false);
+        return resultado;
+    }
+
+    private static long contarFilas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        } else if (resultado instanceof Collection) {
+            return ((Collection<?>) resultado).size();
+        } else if (resultado instanceof Boolean) {
+            return (Boolean) resultado ? 1 : 0;
+        } else if (resultado instanceof ResultadoLote) {
+            return ((ResultadoLote) resultado).getInsertados();
+        } else if (resultado instanceof Cambios) {
+            Cambios<?> cambios = (Cambios<?>) resultado;
+            return cambios.getModificados().size() + cambios.getEliminados().size();
+        }
+        return 1;
+    }
 
-    public ElementoBibliotecaDAO() throws SQLException {
-        this.conexion = PanelDVDs.ConexionBD.getConnection();
+    public MetricasDAO getMetricas() {
+        return metricas;
     }
 
     // Método para insertar un elemento en la tabla base
-    protected int insertarElementoBase(T elemento) throws SQLException {
-        String query = "INSERT INTO ElementoBiblioteca (titulo, autor, ano_publicacion, tipo) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conexion.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, elemento.getTitulo());
-            stmt.setString(2, elemento.getAutor());
-            stmt.setInt(3, elemento.getAnoPublicacion());
-            stmt.setString(4, elemento.getTipo());
+    protected int insertarElementoBase(Connection conexion, T elemento) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(QUERY_INSERTAR_BASE, Statement.RETURN_GENERATED_KEYS)) {
+            asignarParametrosBase(stmt, elemento);
 
             int filasAfectadas = stmt.executeUpdate();
             if (filasAfectadas == 0) {
@@ -41,553 +150,2435 @@ public abstract class ElementoBibliotecaDAO<T extends ElementoBiblioteca> {
         }
     }
 
-    // Método para actualizar un elemento en la tabla base
-    protected void actualizarElementoBase(T elemento) throws SQLException {
-        String query = "UPDATE ElementoBiblioteca SET titulo = ?, autor = ?, ano_publicacion = ? WHERE id = ?";
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setString(1, elemento.getTitulo());
-            stmt.setString(2, elemento.getAutor());
-            stmt.setInt(3, elemento.getAnoPublicacion());
-            stmt.setInt(4, elemento.getId());
+    private void asignarParametrosBase(PreparedStatement stmt, T elemento) throws SQLException {
+        stmt.setString(1, elemento.getTitulo());
+        stmt.setString(2, elemento.getAutor());
+        stmt.setInt(3, elemento.getAnoPublicacion());
+        stmt.setString(4, elemento.getTipo());
+    }
 
-            int filasAfectadas = stmt.executeUpdate();
-            if (filasAfectadas == 0) {
-                throw new SQLException("La actualización falló, no se encontró el elemento con ID " + elemento.getId());
+    // Inserción masiva: tramos de tamanoLote elementos, dos sentencias batch y un commit por tramo.
+    // Un tramo que falla se deshace entero y se anota en el resultado; los demás siguen adelante.
+    public ResultadoLote insertarLote(List<T> elementos) throws SQLException {
+        return insertarLote(elementos, tamanoLote);
+    }
+
+    public ResultadoLote insertarLote(List<T> elementos, int tamanoLote) throws SQLException {
+        return medir("insertarLote", () -> {
+            if (tamanoLote <= 0) {
+                throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
             }
-        }
+            ResultadoLote resultado = new ResultadoLote(elementos.size());
+            if (elementos.isEmpty()) {
+                return resultado;
+            }
+
+            try (Connection conexion = obtenerConexion()) {
+                conexion.setAutoCommit(false);
+                try (PreparedStatement stmtBase = conexion.prepareStatement(QUERY_INSERTAR_BASE, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement stmtSubtipo = conexion.prepareStatement(getSqlInsercionSubtipo())) {
+
+                    for (int desde = 0; desde < elementos.size(); desde += tamanoLote) {
+                        List<T> tramo = elementos.subList(desde, Math.min(desde + tamanoLote, elementos.size()));
+                        try {
+                            insertarTramo(stmtBase, stmtSubtipo, tramo);
+                            conexion.commit();
+                            resultado.registrarInsertados(tramo.size());
+                            ESCRITURAS.incrementAndGet();
+                            anotarEscrituraPropia();
+                            for (T elemento : tramo) {
+                                elemento.setVersion(1);
+                                indexar(elemento);
+                            }
+                        } catch (SQLException e) {
+                            conexion.rollback();
+                            stmtBase.clearBatch();
+                            stmtSubtipo.clearBatch();
+                            for (T elemento : tramo) {
+                                elemento.setId(-1);
+                            }
+                            resultado.registrarFallo(desde, desde + tramo.size(), e);
+                        }
+                    }
+                } finally {
+                    conexion.setAutoCommit(true);
+                }
+            }
+            return resultado;
+        });
     }
 
-    // Método para eliminar un elemento y todas sus referencias
-    public boolean eliminar(int id) throws SQLException {
-        String query = "DELETE FROM ElementoBiblioteca WHERE id = ?";
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            int filasAfectadas = stmt.executeUpdate();
-            return filasAfectadas > 0;
+    private void insertarTramo(PreparedStatement stmtBase, PreparedStatement stmtSubtipo, List<T> tramo) throws SQLException {
+        for (T elemento : tramo) {
+            asignarParametrosBase(stmtBase, elemento);
+            stmtBase.addBatch();
         }
-    }
+        stmtBase.executeBatch();
 
-    // Métodos abstractos que deben implementar las clases hijas
-    public abstract T obtenerPorId(int id) throws SQLException;
-    public abstract List<T> obtenerTodos() throws SQLException;
-    public abstract boolean insertar(T elemento) throws SQLException;
-    public abstract boolean actualizar(T elemento) throws SQLException;
-}
+        // Las claves generadas llegan en el mismo orden en que se añadieron al batch
+        try (ResultSet generatedKeys = stmtBase.getGeneratedKeys()) {
+            for (T elemento : tramo) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("La inserción por lotes falló, faltan IDs generados.");
+                }
+                elemento.setId(generatedKeys.getInt(1));
+            }
+        }
 
+        for (T elemento : tramo) {
+            stmtSubtipo.setInt(1, elemento.getId());
+            asignarParametrosSubtipo(stmtSubtipo, elemento);
+            stmtSubtipo.addBatch();
+        }
+        stmtSubtipo.executeBatch();
+    }
 
-// DAO: LibroDAO.java
-package com.biblioteca.model.dao;
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
 
-import com.biblioteca.model.Libro;
-import java.sql.*;
-        import java.util.ArrayList;
-import java.util.List;
+    public void setTamanoLote(int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.tamanoLote = tamanoLote;
+    }
 
-public class LibroDAO extends ElementoBibliotecaDAO<Libro> {
+    // Método para actualizar un elemento en la tabla base. Siempre se toca la fila base, aunque solo
+    // cambien campos del subtipo, para que la versión y actualizado_en reflejen el cambio.
+    // Si otro cliente la guardó después de leerla se lanza ConflictoVersionException.
+    protected void actualizarElementoBase(Connection conexion, T elemento) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(QUERY_ACTUALIZAR_BASE)) {
+            asignarParametrosActualizacionBase(stmt, elemento);
 
-    public LibroDAO() throws SQLException {
-        super();
+            int filasAfectadas = stmt.executeUpdate();
+            if (filasAfectadas == 0) {
+                throw noActualizado(conexion, elemento);
+            }
+        }
     }
 
-    @Override
-    public Libro obtenerPorId(int id) throws SQLException {
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "l.isbn, l.numero_paginas, l.genero, l.editorial " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Libro l ON e.id = l.id " +
-                "WHERE e.id = ? AND e.tipo = 'LIBRO'";
+    private void asignarParametrosActualizacionBase(PreparedStatement stmt, T elemento) throws SQLException {
+        stmt.setString(1, elemento.getTitulo());
+        stmt.setString(2, elemento.getAutor());
+        stmt.setInt(3, elemento.getAnoPublicacion());
+        stmt.setInt(4, elemento.getId());
+        stmt.setLong(5, elemento.getVersion());
+    }
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setInt(1, id);
+    // El UPDATE no tocó ninguna fila: o ya no existe o está en otra versión. Se lee en la misma
+    // conexión, que es la de la primaria, para no confundir un conflicto con el retraso de una réplica.
+    private SQLException noActualizado(Connection conexion, T elemento) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(getSqlSeleccion() + " AND e.id = ?")) {
+            stmt.setInt(1, elemento.getId());
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Libro(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getString("isbn"),
-                            rs.getInt("numero_paginas"),
-                            rs.getString("genero"),
-                            rs.getString("editorial")
-                    );
+                    return new ConflictoVersionException(elemento, mapear(rs));
                 }
             }
         }
-        return null;
+        return new SQLException("La actualización falló, no se encontró el elemento con ID " + elemento.getId());
     }
 
-    @Override
-    public List<Libro> obtenerTodos() throws SQLException {
-        List<Libro> libros = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "l.isbn, l.numero_paginas, l.genero, l.editorial " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Libro l ON e.id = l.id " +
-                "WHERE e.tipo = 'LIBRO'";
-
-        try (Statement stmt = conexion.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            while (rs.next()) {
-                libros.add(new Libro(
-                        rs.getInt("id"),
-                        rs.getString("titulo"),
-                        rs.getString("autor"),
-                        rs.getInt("ano_publicacion"),
-                        rs.getString("isbn"),
-                        rs.getInt("numero_paginas"),
-                        rs.getString("genero"),
-                        rs.getString("editorial")
-                ));
+    // Escribe altas (id < 0) y modificaciones en una sola transacción con un único commit, usando
+    // sentencias batch. Si algo falla se deshace todo el grupo y se lanza la excepción.
+    public void guardarGrupo(List<T> elementos) throws SQLException {
+        medir("guardarGrupo", () -> {
+            List<T> altas = new ArrayList<>();
+            List<T> modificaciones = new ArrayList<>();
+            for (T elemento : elementos) {
+                (elemento.getId() < 0 ? altas : modificaciones).add(elemento);
             }
-        }
-        return libros;
-    }
-
-    @Override
-    public boolean insertar(Libro libro) throws SQLException {
-        conexion.setAutoCommit(false);
-        try {
-            // Inserta en la tabla base y obtiene el ID generado
-            int id = insertarElementoBase(libro);
-            libro.setId(id);
-
-            // Inserta en la tabla Libro
-            String query = "INSERT INTO Libro (id, isbn, numero_paginas, genero, editorial) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setInt(1, id);
-                stmt.setString(2, libro.getIsbn());
-                stmt.setInt(3, libro.getNumeroPaginas());
-                stmt.setString(4, libro.getGenero());
-                stmt.setString(5, libro.getEditorial());
 
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
+            try (Connection conexion = obtenerConexion()) {
+                conexion.setAutoCommit(false);
+                try {
+                    if (!altas.isEmpty()) {
+                        try (PreparedStatement stmtBase = conexion.prepareStatement(QUERY_INSERTAR_BASE, Statement.RETURN_GENERATED_KEYS);
+                             PreparedStatement stmtSubtipo = conexion.prepareStatement(getSqlInsercionSubtipo())) {
+                            insertarTramo(stmtBase, stmtSubtipo, altas);
+                        }
+                    }
+                    if (!modificaciones.isEmpty()) {
+                        try (PreparedStatement stmtBase = conexion.prepareStatement(QUERY_ACTUALIZAR_BASE);
+                             PreparedStatement stmtSubtipo = conexion.prepareStatement(getSqlActualizacionSubtipo())) {
+                            for (T elemento : modificaciones) {
+                                asignarParametrosActualizacionBase(stmtBase, elemento);
+                                stmtBase.addBatch();
+                                asignarParametrosActualizacionSubtipo(stmtSubtipo, elemento);
+                                stmtSubtipo.addBatch();
+                            }
+                            int[] filas = stmtBase.executeBatch();
+                            for (int i = 0; i < filas.length; i++) {
+                                if (filas[i] == 0) {
+                                    throw noActualizado(conexion, modificaciones.get(i));
+                                }
+                            }
+                            comprobarActualizados(stmtSubtipo.executeBatch(), modificaciones);
+                        }
+                    }
                     conexion.commit();
-                    return true;
-                } else {
+                    ESCRITURAS.incrementAndGet();
+                    anotarEscrituraPropia();
+                } catch (SQLException e) {
                     conexion.rollback();
-                    return false;
+                    for (T alta : altas) {
+                        alta.setId(-1);
+                    }
+                    throw e;
+                } finally {
+                    conexion.setAutoCommit(true);
                 }
             }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        } finally {
-            conexion.setAutoCommit(true);
+
+            for (T elemento : altas) {
+                elemento.setVersion(1);
+                cache.guardar(elemento.getId(), copiar(elemento));
+                indexar(elemento);
+            }
+            for (T elemento : modificaciones) {
+                elemento.setVersion(elemento.getVersion() + 1);
+                cache.guardar(elemento.getId(), copiar(elemento));
+                indexar(elemento);
+            }
+            return elementos;
+        });
+    }
+
+    private static void comprobarActualizados(int[] filas, List<? extends ElementoBiblioteca> elementos) throws SQLException {
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                throw new SQLException("La actualización falló, no se encontró el elemento con ID " + elementos.get(i).getId());
+            }
         }
     }
 
-    @Override
-    public boolean actualizar(Libro libro) throws SQLException {
-        conexion.setAutoCommit(false);
-        try {
-            // Actualiza la tabla base
-            actualizarElementoBase(libro);
-
-            // Actualiza la tabla Libro
-            String query = "UPDATE Libro SET isbn = ?, numero_paginas = ?, genero = ?, editorial = ? WHERE id = ?";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setString(1, libro.getIsbn());
-                stmt.setInt(2, libro.getNumeroPaginas());
-                stmt.setString(3, libro.getGenero());
-                stmt.setString(4, libro.getEditorial());
-                stmt.setInt(5, libro.getId());
-
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
+    // Método para eliminar un elemento y todas sus referencias. En la misma transacción se anota
+    // en ElementoEliminado, de donde obtenerCambiosDesde saca los borrados.
+    public boolean eliminar(int id) throws SQLException {
+        return medir("eliminar", () -> {
+            try (Connection conexion = obtenerConexion()) {
+                conexion.setAutoCommit(false);
+                try {
+                    boolean eliminado = !eliminarTramo(conexion, List.of(id)).isEmpty();
                     conexion.commit();
-                    return true;
-                } else {
+                    if (eliminado) {
+                        anotarEliminado(id);
+                    }
+                    return eliminado;
+                } catch (SQLException e) {
                     conexion.rollback();
-                    return false;
+                    throw e;
+                } finally {
+                    conexion.setAutoCommit(true);
                 }
+            } finally {
+                cache.invalidar(id);
             }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        } finally {
-            conexion.setAutoCommit(true);
-        }
+        });
     }
 
-    public List<Libro> buscarPorTitulo(String titulo) throws SQLException {
-        List<Libro> libros = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "l.isbn, l.numero_paginas, l.genero, l.editorial " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Libro l ON e.id = l.id " +
-                "WHERE e.tipo = 'LIBRO' AND e.titulo LIKE ?";
+    // Borrado de muchos elementos, como un expurgo del fondo: tramos de IN de MAXIMO_IDS_POR_CONSULTA
+    // ids con una transacción por tramo, para no bloquear miles de filas a la vez. Devuelve los ids que
+    // existían y se han borrado. Si un tramo falla se deshace solo ese tramo: los anteriores quedan
+    // borrados y anotados, y la EliminacionParcialException lleva sus ids.
+    public List<Integer> eliminarLote(Collection<Integer> ids) throws SQLException {
+        return medir("eliminarLote", () -> {
+            List<Integer> pendientes = new ArrayList<>(new LinkedHashSet<>(ids));
+            List<Integer> eliminados = new ArrayList<>(pendientes.size());
+            if (pendientes.isEmpty()) {
+                return eliminados;
+            }
+            try (Connection conexion = obtenerConexion()) {
+                conexion.setAutoCommit(false);
+                try {
+                    for (int desde = 0; desde < pendientes.size(); desde += MAXIMO_IDS_POR_CONSULTA) {
+                        List<Integer> tramo = pendientes.subList(desde, Math.min(desde + MAXIMO_IDS_POR_CONSULTA, pendientes.size()));
+                        List<Integer> borrados;
+                        try {
+                            borrados = eliminarTramo(conexion, tramo);
+                            conexion.commit();
+                        } catch (SQLException e) {
+                            conexion.rollback();
+                            throw new EliminacionParcialException(eliminados, pendientes.size(), e);
+                        }
+                        for (int id : borrados) {
+                            anotarEliminado(id);
+                        }
+                        eliminados.addAll(borrados);
+                    }
+                } finally {
+                    conexion.setAutoCommit(true);
+                }
+            }
+            return eliminados;
+        });
+    }
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setString(1, "%" + titulo + "%");
+    // Borra un tramo dentro de la transacción abierta y devuelve los ids que existían. La fila del
+    // subtipo se borra antes que la base, sin depender del ON DELETE CASCADE. El SQL depende solo
+    // del tamaño del tramo, así que todos los tramos completos comparten sentencias preparadas.
+    private List<Integer> eliminarTramo(Connection conexion, List<Integer> tramo) throws SQLException {
+        String enTramo = " IN (" + marcadores(tramo.size()) + ")";
+        List<Integer> existentes = new ArrayList<>(tramo.size());
+        // Bloquea las filas antes de borrar: lo que se devuelve es lo que este tramo ha borrado
+        try (PreparedStatement stmt = conexion.prepareStatement(
+                "SELECT id FROM ElementoBiblioteca WHERE tipo = ? AND id" + enTramo + " ORDER BY id FOR UPDATE")) {
+            stmt.setString(1, getTipo());
+            asignarIds(stmt, 2, tramo);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    libros.add(new Libro(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getString("isbn"),
-                            rs.getInt("numero_paginas"),
-                            rs.getString("genero"),
-                            rs.getString("editorial")
-                    ));
+                    existentes.add(rs.getInt(1));
                 }
             }
         }
-        return libros;
+        if (existentes.isEmpty()) {
+            return existentes;
+        }
+        try (PreparedStatement stmt = conexion.prepareStatement("DELETE FROM " + getTablaSubtipo() + " WHERE id" + enTramo)) {
+            asignarIds(stmt, 1, tramo);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conexion.prepareStatement(
+                "DELETE FROM ElementoBiblioteca WHERE tipo = ? AND id" + enTramo)) {
+            stmt.setString(1, getTipo());
+            asignarIds(stmt, 2, tramo);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conexion.prepareStatement("INSERT INTO ElementoEliminado (id, tipo) VALUES (?, ?)")) {
+            for (int id : existentes) {
+                stmt.setInt(1, id);
+                stmt.setString(2, getTipo());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        return existentes;
     }
-}
-
-// DAO: RevistaDAO.java
-package com.biblioteca.model.dao;
-
-import com.biblioteca.model.Revista;
-import java.sql.*;
-        import java.util.ArrayList;
-import java.util.List;
 
-public class RevistaDAO extends ElementoBibliotecaDAO<Revista> {
+    private static void asignarIds(PreparedStatement stmt, int primero, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setInt(primero + i, ids.get(i));
+        }
+    }
 
-    public RevistaDAO() throws SQLException {
-        super();
+    // Lectura a través de la caché: solo consulta la base de datos si el ID no está en ella. Lo leído
+    // no entra en la caché si entretanto se escribió o borró ese id (ver CacheEntidades.guardarLeido).
+    public T obtenerPorId(int id) throws SQLException {
+        return medir("obtenerPorId", () -> {
+            CacheEntidades<T> actual = cache;
+            long marca = actual.marca();
+            T elemento = actual.obtener(id);
+            if (elemento == null) {
+                elemento = consultarPorId(id);
+                if (elemento == null) {
+                    return null;
+                }
+                actual.guardarLeido(id, copiar(elemento), marca);
+            }
+            return copiar(elemento);
+        });
     }
 
-    @Override
-    public Revista obtenerPorId(int id) throws SQLException {
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "r.numero_edicion, r.categoria " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Revista r ON e.id = r.id " +
-                "WHERE e.id = ? AND e.tipo = 'REVISTA'";
+    public boolean insertar(T elemento) throws SQLException {
+        return medir("insertar", () -> {
+            boolean insertado = insertarEnBD(elemento);
+            if (insertado) {
+                elemento.setVersion(1);
+                anotarGuardado(elemento);
+            }
+            return insertado;
+        });
+    }
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Revista(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getInt("numero_edicion"),
-                            rs.getString("categoria")
-                    );
+    public boolean actualizar(T elemento) throws SQLException {
+        return medir("actualizar", () -> {
+            boolean actualizado = false;
+            try {
+                actualizado = actualizarEnBD(elemento);
+            } finally {
+                if (actualizado) {
+                    elemento.setVersion(elemento.getVersion() + 1);
+                    anotarGuardado(elemento);
+                } else {
+                    cache.invalidar(elemento.getId());
                 }
             }
-        }
-        return null;
+            return actualizado;
+        });
     }
 
-    @Override
-    public List<Revista> obtenerTodos() throws SQLException {
-        List<Revista> revistas = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "r.numero_edicion, r.categoria " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Revista r ON e.id = r.id " +
-                "WHERE e.tipo = 'REVISTA'";
+    public List<T> obtenerTodos() throws SQLException {
+        return medir("obtenerTodos", () -> {
+            List<T> elementos = new ArrayList<>();
+            recorrer(elementos::add);
+            return elementos;
+        });
+    }
 
-        try (Statement stmt = conexion.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+    // Recorre todos los elementos con un cursor, sin acumularlos en memoria
+    public void recorrerTodos(Consumer<? super T> accion) throws SQLException {
+        MetricasDAO.Operacion operacion = metricas.operacion("recorrerTodos");
+        long inicio = System.nanoTime();
+        long[] filas = {0};
+        try {
+            recorrer(elemento -> {
+                filas[0]++;
+                accion.accept(elemento);
+            });
+        } catch (SQLException | RuntimeException e) {
+            operacion.registrar(inicio, filas[0], true);
+            throw e;
+        }
+        operacion.registrar(inicio, filas[0], false);
+    }
 
+    // Recorrido de todo el tipo en orden de id; lo usan obtenerTodos, recorrerTodos y construirIndice
+    protected void recorrer(Consumer<? super T> accion) throws SQLException {
+        try (Connection conexion = obtenerConexionLectura();
+             PreparedStatement stmt = prepararCursor(conexion, getSqlSeleccion() + " ORDER BY e.id");
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                revistas.add(new Revista(
-                        rs.getInt("id"),
-                        rs.getString("titulo"),
-                        rs.getString("autor"),
-                        rs.getInt("ano_publicacion"),
-                        rs.getInt("numero_edicion"),
-                        rs.getString("categoria")
-                ));
+                accion.accept(mapear(rs));
             }
         }
-        return revistas;
     }
 
-    @Override
-    public boolean insertar(Revista revista) throws SQLException {
-        conexion.setAutoCommit(false);
+    // Flujo perezoso sobre un cursor abierto: debe cerrarse (try-with-resources) para liberar la conexión
+    public Stream<T> obtenerFlujo() throws SQLException {
+        Connection conexion = obtenerConexionLectura();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
         try {
-            // Inserta en la tabla base y obtiene el ID generado
-            int id = insertarElementoBase(revista);
-            revista.setId(id);
-
-            // Inserta en la tabla Revista
-            String query = "INSERT INTO Revista (id, numero_edicion, categoria) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setInt(1, id);
-                stmt.setInt(2, revista.getNumeroEdicion());
-                stmt.setString(3, revista.getCategoria());
+            stmt = prepararCursor(conexion, getSqlSeleccion() + " ORDER BY e.id");
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            cerrarCursor(rs, stmt, conexion);
+            throw e;
+        }
 
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
-                    conexion.commit();
+        final PreparedStatement stmtFlujo = stmt;
+        final ResultSet rsFlujo = rs;
+        Spliterator<T> cursor = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accion) {
+                try {
+                    if (!rsFlujo.next()) {
+                        return false;
+                    }
+                    accion.accept(mapear(rsFlujo));
                     return true;
-                } else {
-                    conexion.rollback();
-                    return false;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error al leer el flujo de elementos: " + e.getMessage(), e);
                 }
             }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        } finally {
-            conexion.setAutoCommit(true);
-        }
+        };
+        return StreamSupport.stream(cursor, false)
+                .onClose(() -> cerrarCursor(rsFlujo, stmtFlujo, conexion));
     }
 
-    @Override
-    public boolean actualizar(Revista revista) throws SQLException {
-        conexion.setAutoCommit(false);
-        try {
-            // Actualiza la tabla base
-            actualizarElementoBase(revista);
-
-            // Actualiza la tabla Revista
-            String query = "UPDATE Revista SET numero_edicion = ?, categoria = ? WHERE id = ?";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setInt(1, revista.getNumeroEdicion());
-                stmt.setString(2, revista.getCategoria());
-                stmt.setInt(3, revista.getId());
-
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
-                    conexion.commit();
-                    return true;
-                } else {
-                    conexion.rollback();
-                    return false;
+    // Paginación por clave: los elementos con id mayor que despuesDeId, en orden de id.
+    // Para la primera página se pasa 0; para la siguiente, el id del último elemento recibido.
+    public List<T> obtenerPagina(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPagina", () -> {
+            List<T> pagina = new ArrayList<>(Math.min(limite, 1000));
+            String query = getSqlSeleccion() + " AND e.id > ? ORDER BY e.id LIMIT ?";
+
+            try (Connection conexion = obtenerConexionLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(query)) {
+                stmt.setInt(1, despuesDeId);
+                stmt.setInt(2, limite);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pagina.add(mapear(rs));
+                    }
                 }
             }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        } finally {
-            conexion.setAutoCommit(true);
-        }
+            return pagina;
+        });
     }
 
-    public List<Revista> buscarPorCategoria(String categoria) throws SQLException {
-        List<Revista> revistas = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "r.numero_edicion, r.categoria " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN Revista r ON e.id = r.id " +
-                "WHERE e.tipo = 'REVISTA' AND r.categoria LIKE ?";
+    // Página por posición (LIMIT/OFFSET); solo para saltos a zonas aún no visitadas,
+    // porque el coste crece con la posición. Para avanzar página a página usar obtenerPagina.
+    public List<T> obtenerPaginaPorPosicion(int posicion, int limite) throws SQLException {
+        return medir("obtenerPaginaPorPosicion", () -> {
+            List<T> pagina = new ArrayList<>(Math.min(limite, 1000));
+            String query = getSqlSeleccion() + " ORDER BY e.id LIMIT ? OFFSET ?";
+
+            try (Connection conexion = obtenerConexionLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(query)) {
+                stmt.setInt(1, limite);
+                stmt.setInt(2, posicion);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pagina.add(mapear(rs));
+                    }
+                }
+            }
+            return pagina;
+        });
+    }
+
+    public int contar() throws SQLException {
+        return medir("contar", () -> {
+            try (Connection conexion = obtenerConexionLectura()) {
+                return contar(conexion);
+            }
+        });
+    }
 
+    private int contar(Connection conexion) throws SQLException {
+        String query = "SELECT COUNT(*) FROM ElementoBiblioteca WHERE tipo = ?";
         try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setString(1, "%" + categoria + "%");
+            stmt.setString(1, getTipo());
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    revistas.add(new Revista(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getInt("numero_edicion"),
-                            rs.getString("categoria")
-                    ));
-                }
+                return rs.next() ? rs.getInt(1) : 0;
             }
         }
-        return revistas;
     }
-}
 
-// DAO: DVDDAO.java
-package com.biblioteca.model.dao;
+    // Delta desde la marca de una sincronización anterior: filas con actualizado_en posterior
+    // (inserciones y actualizaciones) e ids anotados en ElementoEliminado, más el total si hubo
+    // algún cambio. Se relee un margen antes de la marca, así que un cambio puede llegar dos
+    // veces; aplicarlo de nuevo no tiene efecto. Con marca null solo se obtienen el total y la
+    // marca desde la que seguir. La marca es la hora del servidor, no la del cliente. Va a la
+    // primaria: en una réplica retrasada más que el margen se perderían cambios para siempre.
+    public Cambios<T> obtenerCambiosDesde(Timestamp marca) throws SQLException {
+        return medir("obtenerCambiosDesde", () -> {
+            try (Connection conexion = obtenerConexion()) {
+                Timestamp nuevaMarca;
+                try (PreparedStatement stmt = conexion.prepareStatement("SELECT CURRENT_TIMESTAMP(6)");
+                     ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    nuevaMarca = rs.getTimestamp(1);
+                }
+                if (marca == null) {
+                    return new Cambios<T>(Collections.emptyList(), Collections.emptyList(),
+                            contar(conexion), nuevaMarca);
+                }
 
-import com.biblioteca.model.DVD;
-import java.sql.*;
-        import java.util.ArrayList;
-import java.util.List;
+                Timestamp desde = new Timestamp(marca.getTime() - MARGEN_SINCRONIZACION_MS);
+                List<T> modificados = new ArrayList<>();
+                String query = getSqlSeleccion() + " AND e.actualizado_en >= ? ORDER BY e.id";
+                try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+                    stmt.setTimestamp(1, desde);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            modificados.add(mapear(rs));
+                        }
+                    }
+                }
 
-public class DVDDAO extends ElementoBibliotecaDAO<DVD> {
+                List<Integer> eliminados = new ArrayList<>();
+                query = "SELECT id FROM ElementoEliminado WHERE tipo = ? AND eliminado_en >= ? ORDER BY id";
+                try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+                    stmt.setString(1, getTipo());
+                    stmt.setTimestamp(2, desde);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            eliminados.add(rs.getInt(1));
+                        }
+                    }
+                }
 
-    public DVDDAO() throws SQLException {
-        super();
+                anotarCambios(modificados, eliminados);
+                int total = !modificados.isEmpty() || !eliminados.isEmpty() ? contar(conexion) : -1;
+                return new Cambios<>(modificados, eliminados, total, nuevaMarca);
+            }
+        });
     }
 
-    @Override
-    public DVD obtenerPorId(int id) throws SQLException {
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "d.duracion, d.genero " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN DVD d ON e.id = d.id " +
-                "WHERE e.id = ? AND e.tipo = 'DVD'";
+    public int getTamanoFetch() {
+        return tamanoFetch;
+    }
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new DVD(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getInt("duracion"),
-                            rs.getString("genero")
-                    );
-                }
-            }
-        }
-        return null;
+    public static long getEscrituras() {
+        return ESCRITURAS.get();
     }
 
-    @Override
-    public List<DVD> obtenerTodos() throws SQLException {
-        List<DVD> dvds = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "d.duracion, d.genero " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN DVD d ON e.id = d.id " +
-                "WHERE e.tipo = 'DVD'";
+    public void setTamanoFetch(int tamanoFetch) {
+        this.tamanoFetch = tamanoFetch;
+    }
 
-        try (Statement stmt = conexion.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+    private PreparedStatement prepararCursor(Connection conexion, String query) throws SQLException {
+        PreparedStatement stmt = conexion.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(tamanoFetch);
+        return stmt;
+    }
 
-            while (rs.next()) {
-                dvds.add(new DVD(
-                        rs.getInt("id"),
-                        rs.getString("titulo"),
-                        rs.getString("autor"),
-                        rs.getInt("ano_publicacion"),
-                        rs.getInt("duracion"),
-                        rs.getString("genero")
-                ));
+    private static void cerrarCursor(ResultSet rs, Statement stmt, Connection conexion) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar el cursor: " + e.getMessage());
+        } finally {
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexión: " + e.getMessage());
             }
         }
-        return dvds;
     }
 
-    @Override
-    public boolean insertar(DVD dvd) throws SQLException {
-        conexion.setAutoCommit(false);
-        try {
-            // Inserta en la tabla base y obtiene el ID generado
-            int id = insertarElementoBase(dvd);
-            dvd.setId(id);
+    // Búsqueda por palabras de título y autor resuelta en el índice en memoria; sin tildes ni
+    // mayúsculas, cada palabra de la consulta vale como prefijo y deben aparecer todas
+    public List<T> buscarPorTexto(String texto) throws SQLException {
+        return buscarPorTexto(texto, new Cancelacion());
+    }
 
-            // Inserta en la tabla DVD
-            String query = "INSERT INTO DVD (id, duracion, genero) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setInt(1, id);
-                stmt.setInt(2, dvd.getDuracion());
-                stmt.setString(3, dvd.getGenero());
+    public List<T> buscarPorTexto(String texto, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorTexto", () -> cargarPorTexto(texto, cancelacion));
+    }
 
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
-                    conexion.commit();
-                    return true;
-                } else {
-                    conexion.rollback();
-                    return false;
-                }
-            }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        } finally {
-            conexion.setAutoCommit(true);
+    // Sin medir: para las búsquedas de las subclases que se resuelven en el índice y ya se miden
+    // con su propio nombre, así una búsqueda cuenta una sola vez en las métricas
+    protected final List<T> cargarPorTexto(String texto, Cancelacion cancelacion) throws SQLException {
+        return cargarPorIds(buscarIdsPorTexto(texto), cancelacion);
+    }
+
+    public List<Integer> buscarIdsPorTexto(String texto) throws SQLException {
+        IndiceTexto actual = indice;
+        if (actual == null) {
+            construirIndiceSiFalta();
+            actual = indice;
         }
+        return actual.buscar(texto);
     }
 
-    @Override
-    public boolean actualizar(DVD dvd) throws SQLException {
-        conexion.setAutoCommit(false);
+    // Textos que empiezan por lo escrito, para ofrecerlos mientras se teclea. No consulta la base
+    // de datos: hasta que construirIndice termina no hay sugerencias.
+    public List<String> sugerir(String prefijo, int maximo) {
+        TrieSugerencias actual = sugerencias;
+        return actual == null ? Collections.emptyList() : actual.sugerir(prefijo, maximo);
+    }
+
+    // Carga el índice y las sugerencias con todo el catálogo de este tipo. Las escrituras que ocurran
+    // mientras tanto no se aplican sobre el índice a medio construir, donde una fila del recorrido
+    // leída antes de ellas podría pisarlas: se guardan y se aplican encima al terminar.
+    public synchronized void construirIndice() throws SQLException {
+        IndiceTexto nuevo = new IndiceTexto();
+        TrieSugerencias nuevasSugerencias = new TrieSugerencias();
+        synchronized (cerrojoIndice) {
+            cambiosEnConstruccion = new LinkedHashMap<>();
+        }
         try {
-            // Actualiza la tabla base
-            actualizarElementoBase(dvd);
-
-            // Actualiza la tabla DVD
-            String query = "UPDATE DVD SET duracion = ?, genero = ? WHERE id = ?";
-            try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-                stmt.setInt(1, dvd.getDuracion());
-                stmt.setString(2, dvd.getGenero());
-                stmt.setInt(3, dvd.getId());
-
-                int filasAfectadas = stmt.executeUpdate();
-                if (filasAfectadas > 0) {
-                    conexion.commit();
-                    return true;
-                } else {
-                    conexion.rollback();
-                    return false;
+            recorrer(elemento -> {
+                nuevo.indexar(elemento.getId(), elemento.getVersion(), elemento.getTitulo(), elemento.getAutor());
+                nuevasSugerencias.agregar(elemento.getId(), getTextosSugerencia(elemento));
+            });
+            synchronized (cerrojoIndice) {
+                for (Map.Entry<Integer, T> cambio : cambiosEnConstruccion.entrySet()) {
+                    T elemento = cambio.getValue();
+                    if (elemento == null) {
+                        nuevo.quitar(cambio.getKey());
+                        nuevasSugerencias.quitar(cambio.getKey());
+                    } else {
+                        nuevo.indexar(elemento.getId(), elemento.getVersion(), elemento.getTitulo(), elemento.getAutor());
+                        nuevasSugerencias.agregar(elemento.getId(), getTextosSugerencia(elemento));
+                    }
                 }
+                indice = nuevo;
+                sugerencias = nuevasSugerencias;
             }
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
         } finally {
-            conexion.setAutoCommit(true);
+            synchronized (cerrojoIndice) {
+                cambiosEnConstruccion = null;
+            }
         }
     }
 
-    public List<DVD> buscarPorGenero(String genero) throws SQLException {
-        List<DVD> dvds = new ArrayList<>();
-        String query = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, " +
-                "d.duracion, d.genero " +
-                "FROM ElementoBiblioteca e " +
-                "JOIN DVD d ON e.id = d.id " +
-                "WHERE e.tipo = 'DVD' AND d.genero LIKE ?";
-
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-            stmt.setString(1, "%" + genero + "%");
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    dvds.add(new DVD(
-                            rs.getInt("id"),
-                            rs.getString("titulo"),
-                            rs.getString("autor"),
-                            rs.getInt("ano_publicacion"),
-                            rs.getInt("duracion"),
-                            rs.getString("genero")
-                    ));
-                }
-            }
+    // Para quien necesita el índice pero no uno recién hecho: si otro hilo lo estaba construyendo,
+    // se espera a que termine en lugar de recorrer la tabla otra vez
+    public synchronized void construirIndiceSiFalta() throws SQLException {
+        if (indice == null) {
+            construirIndice();
         }
-        return dvds;
     }
-}
 
-// DAO: ConexionBD.java
-package com.biblioteca.model.dao;
+    // Hidrata una lista de ids con consultas IN por tramos; el resultado sale ordenado por id
+    public List<T> obtenerPorIds(Collection<Integer> ids) throws SQLException {
+        return obtenerPorIds(ids, new Cancelacion());
+    }
+
+    public List<T> obtenerPorIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        return medir("obtenerPorIds", () -> cargarPorIds(ids, cancelacion));
+    }
+
+    // obtenerPorIds sin medir, para hidratar ids dentro de otra operación ya medida
+    protected List<T> cargarPorIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> elementos = new ArrayList<>(ids.size());
+        try (Connection conexion = obtenerConexionLectura()) {
+            Iterator<Integer> it = ids.iterator();
+            while (it.hasNext()) {
+                List<Integer> tramo = new ArrayList<>(MAXIMO_IDS_POR_CONSULTA);
+                while (it.hasNext() && tramo.size() < MAXIMO_IDS_POR_CONSULTA) {
+                    tramo.add(it.next());
+                }
+                String query = getSqlSeleccion() + " AND e.id IN (" + marcadores(tramo.size()) + ") ORDER BY e.id";
+                try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+                    for (int i = 0; i < tramo.size(); i++) {
+                        stmt.setInt(i + 1, tramo.get(i));
+                    }
+                    cancelacion.registrar(stmt);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            elementos.add(mapear(rs));
+                        }
+                    } finally {
+                        cancelacion.liberar();
+                    }
+                }
+            }
+        }
+        return elementos;
+    }
+
+    // Filtra, ordena y pagina en la base de datos con una sola consulta; ver Criterio
+    public List<T> buscar(Criterio<T> criterio) throws SQLException {
+        return buscar(criterio, new Cancelacion());
+    }
+
+    public List<T> buscar(Criterio<T> criterio, Cancelacion cancelacion) throws SQLException {
+        return medir("buscar", () -> {
+            List<T> elementos = new ArrayList<>(criterio.getLimite() >= 0 ? Math.min(criterio.getLimite(), 1000) : 10);
+            try (Connection conexion = obtenerConexionLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(compilar(criterio))) {
+                criterio.asignarParametros(stmt);
+                cancelacion.registrar(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        elementos.add(mapear(rs));
+                    }
+                } finally {
+                    cancelacion.liberar();
+                }
+            }
+            return elementos;
+        });
+    }
+
+    // Formas distintas de Criterio compiladas y aún en caché
+    public int getConsultasCompiladas() {
+        synchronized (consultasCompiladas) {
+            return consultasCompiladas.size();
+        }
+    }
+
+    private String compilar(Criterio<T> criterio) {
+        String forma = criterio.getForma();
+        synchronized (consultasCompiladas) {
+            return consultasCompiladas.computeIfAbsent(forma, f -> criterio.compilar(getSqlSeleccion()));
+        }
+    }
+
+    // Para los textos que se repiten entre muchos elementos al mapear; ver InternadorCadenas
+    protected static String internar(String texto) {
+        return InternadorCadenas.compartido().internar(texto);
+    }
+
+    protected static String marcadores(int cantidad) {
+        StringBuilder sb = new StringBuilder(cantidad * 2);
+        for (int i = 0; i < cantidad; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    // Pone al día caché e índice tras una escritura propia ya confirmada
+    protected void anotarGuardado(T elemento) {
+        ESCRITURAS.incrementAndGet();
+        anotarEscrituraPropia();
+        cache.guardar(elemento.getId(), copiar(elemento));
+        indexar(elemento);
+    }
+
+    protected void anotarEliminado(int id) {
+        ESCRITURAS.incrementAndGet();
+        anotarEscrituraPropia();
+        cache.invalidar(id);
+        desindexar(id);
+    }
+
+    // Los cambios de un delta pueden venir de otros clientes: caché e índice se ponen al día con ellos.
+    // El margen de relectura de obtenerCambiosDesde devuelve otra vez lo ya anotado, sobre todo las
+    // escrituras propias recientes; eso se salta y no cuenta en ESCRITURAS, para no tirar sin motivo
+    // las cachés que dependen de ella, como la de EstadisticasDAO.
+    protected void anotarCambios(List<T> modificados, List<Integer> eliminados) {
+        boolean nuevos = false;
+        for (T elemento : modificados) {
+            if (yaAnotado(elemento)) {
+                continue;
+            }
+            cache.invalidar(elemento.getId());
+            indexar(elemento);
+            nuevos = true;
+        }
+        IndiceTexto actual = indice;
+        for (int id : eliminados) {
+            // Sin índice no se sabe si el borrado ya se anotó y se cuenta como nuevo
+            if (actual != null && actual.getVersion(id) < 0 && cache.mirar(id) == null) {
+                continue;
+            }
+            cache.invalidar(id);
+            desindexar(id);
+            nuevos = true;
+        }
+        if (nuevos) {
+            ESCRITURAS.incrementAndGet();
+        }
+    }
+
+    // La caché o, si no lo tiene, el índice ya tienen el elemento en esta versión
+    private boolean yaAnotado(T elemento) {
+        T enCache = cache.mirar(elemento.getId());
+        if (enCache != null) {
+            return enCache.getVersion() == elemento.getVersion();
+        }
+        IndiceTexto actual = indice;
+        return actual != null && actual.getVersion(elemento.getId()) == elemento.getVersion();
+    }
+
+    // Los DAO sobre el almacén en fichero no tienen enrutador
+    private void anotarEscrituraPropia() {
+        if (enrutador != null) {
+            enrutador.anotarEscritura();
+        }
+    }
+
+    private void indexar(T elemento) {
+        synchronized (cerrojoIndice) {
+            if (cambiosEnConstruccion != null) {
+                cambiosEnConstruccion.put(elemento.getId(), copiar(elemento));
+            }
+        }
+        IndiceTexto actual = indice;
+        if (actual != null) {
+            actual.indexar(elemento.getId(), elemento.getVersion(), elemento.getTitulo(), elemento.getAutor());
+        }
+        TrieSugerencias actuales = sugerencias;
+        if (actuales != null) {
+            actuales.agregar(elemento.getId(), getTextosSugerencia(elemento));
+        }
+    }
+
+    private void desindexar(int id) {
+        synchronized (cerrojoIndice) {
+            if (cambiosEnConstruccion != null) {
+                cambiosEnConstruccion.put(id, null);
+            }
+        }
+        IndiceTexto actual = indice;
+        if (actual != null) {
+            actual.quitar(id);
+        }
+        TrieSugerencias actuales = sugerencias;
+        if (actuales != null) {
+            actuales.quitar(id);
+        }
+    }
+
+    // Sustituye la caché de entidades; tamanoMaximo 0 la desactiva y ttlMs 0 quita la caducidad
+    public void configurarCache(int tamanoMaximo, long ttlMs) {
+        this.cache = new CacheEntidades<>(tamanoMaximo, ttlMs);
+    }
+
+    public void invalidarCache() {
+        cache.limpiar();
+    }
+
+    public CacheEntidades.Estadisticas getEstadisticasCache() {
+        return cache.getEstadisticas();
+    }
+
+    // La caché guarda y entrega copias para que nadie modifique la entrada compartida
+    @SuppressWarnings("unchecked")
+    private T copiar(T elemento) {
+        return (T) elemento.copiar();
+    }
+
+    // Métodos abstractos que deben implementar las clases hijas
+    protected abstract T consultarPorId(int id) throws SQLException;
+    protected abstract boolean insertarEnBD(T elemento) throws SQLException;
+    protected abstract boolean actualizarEnBD(T elemento) throws SQLException;
+
+    // Valor de la columna tipo para este subtipo
+    protected final String getTipo() {
+        return tipo;
+    }
+
+    // Tabla con las columnas propias del subtipo, enlazada por id con ElementoBiblioteca
+    protected abstract String getTablaSubtipo();
+
+    // SELECT con el JOIN del subtipo y el filtro por tipo; admite añadir condiciones con AND
+    protected abstract String getSqlSeleccion();
+    protected abstract T mapear(ResultSet rs) throws SQLException;
+
+    // Textos que se sugieren al escribir en la búsqueda de este tipo
+    protected abstract String[] getTextosSugerencia(T elemento);
+
+    // Inserción en la tabla del subtipo: el parámetro 1 es el id y el resto lo asigna la subclase
+    protected abstract String getSqlInsercionSubtipo();
+    protected abstract void asignarParametrosSubtipo(PreparedStatement stmt, T elemento) throws SQLException;
+
+    // Actualización de la tabla del subtipo; la subclase asigna todos los parámetros, id incluido
+    protected abstract String getSqlActualizacionSubtipo();
+    protected abstract void asignarParametrosActualizacionSubtipo(PreparedStatement stmt, T elemento) throws SQLException;
+}
+
+
+// DAO: LibroDAO.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.Libro;
+import java.sql.*;
+        import java.util.ArrayList;
+import java.util.List;
+
+public class LibroDAO extends ElementoBibliotecaDAO<Libro> {
+
+    static final String TIPO = "LIBRO";
+
+    private static final String QUERY_SELECCION = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, e.version, " +
+            "l.isbn, l.numero_paginas, l.genero, l.editorial " +
+            "FROM ElementoBiblioteca e " +
+            "JOIN Libro l ON e.id = l.id " +
+            "WHERE e.tipo = 'LIBRO'";
+
+    public LibroDAO() throws SQLException {
+        super(TIPO);
+    }
+
+    public LibroDAO(PoolConexiones pool) {
+        super(TIPO, pool);
+    }
+
+    public LibroDAO(EnrutadorConexiones enrutador) {
+        super(TIPO, enrutador);
+    }
+
+    @Override
+    protected String getTablaSubtipo() {
+        return "Libro";
+    }
+
+    @Override
+    protected String getSqlSeleccion() {
+        return QUERY_SELECCION;
+    }
+
+    @Override
+    protected Libro mapear(ResultSet rs) throws SQLException {
+        Libro libro = new Libro(
+                rs.getInt("id"),
+                rs.getString("titulo"),
+                internar(rs.getString("autor")),
+                rs.getInt("ano_publicacion"),
+                rs.getString("isbn"),
+                rs.getInt("numero_paginas"),
+                internar(rs.getString("genero")),
+                internar(rs.getString("editorial"))
+        );
+        libro.setVersion(rs.getLong("version"));
+        return libro;
+    }
+
+    @Override
+    protected Libro consultarPorId(int id) throws SQLException {
+        String query = QUERY_SELECCION + " AND e.id = ?";
+
+        try (Connection conexion = obtenerConexionLectura();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapear(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean insertarEnBD(Libro libro) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Inserta en la tabla base y obtiene el ID generado
+                int id = insertarElementoBase(conexion, libro);
+                libro.setId(id);
+
+                // Inserta en la tabla Libro
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlInsercionSubtipo())) {
+                    stmt.setInt(1, id);
+                    asignarParametrosSubtipo(stmt, libro);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected boolean actualizarEnBD(Libro libro) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Actualiza la tabla base
+                actualizarElementoBase(conexion, libro);
+
+                // Actualiza la tabla Libro
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlActualizacionSubtipo())) {
+                    asignarParametrosActualizacionSubtipo(stmt, libro);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected String getSqlInsercionSubtipo() {
+        return "INSERT INTO Libro (id, isbn, numero_paginas, genero, editorial) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    protected void asignarParametrosSubtipo(PreparedStatement stmt, Libro libro) throws SQLException {
+        stmt.setString(2, libro.getIsbn());
+        stmt.setInt(3, libro.getNumeroPaginas());
+        stmt.setString(4, libro.getGenero());
+        stmt.setString(5, libro.getEditorial());
+    }
+
+    @Override
+    protected String getSqlActualizacionSubtipo() {
+        return "UPDATE Libro SET isbn = ?, numero_paginas = ?, genero = ?, editorial = ? WHERE id = ?";
+    }
+
+    @Override
+    protected void asignarParametrosActualizacionSubtipo(PreparedStatement stmt, Libro libro) throws SQLException {
+        stmt.setString(1, libro.getIsbn());
+        stmt.setInt(2, libro.getNumeroPaginas());
+        stmt.setString(3, libro.getGenero());
+        stmt.setString(4, libro.getEditorial());
+        stmt.setInt(5, libro.getId());
+    }
+
+    @Override
+    protected String[] getTextosSugerencia(Libro libro) {
+        return new String[] {libro.getTitulo()};
+    }
+
+    // Se resuelve en el índice de título y autor en lugar de con LIKE '%...%'
+    public List<Libro> buscarPorTitulo(String titulo) throws SQLException {
+        return buscarPorTitulo(titulo, new Cancelacion());
+    }
+
+    public List<Libro> buscarPorTitulo(String titulo, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorTitulo", () -> cargarPorTexto(titulo, cancelacion));
+    }
+}
+
+// DAO: RevistaDAO.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.Revista;
+import java.sql.*;
+        import java.util.ArrayList;
+import java.util.List;
+
+public class RevistaDAO extends ElementoBibliotecaDAO<Revista> {
+
+    static final String TIPO = "REVISTA";
+
+    private static final String QUERY_SELECCION = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, e.version, " +
+            "r.numero_edicion, r.categoria " +
+            "FROM ElementoBiblioteca e " +
+            "JOIN Revista r ON e.id = r.id " +
+            "WHERE e.tipo = 'REVISTA'";
+
+    public RevistaDAO() throws SQLException {
+        super(TIPO);
+    }
+
+    public RevistaDAO(PoolConexiones pool) {
+        super(TIPO, pool);
+    }
+
+    public RevistaDAO(EnrutadorConexiones enrutador) {
+        super(TIPO, enrutador);
+    }
+
+    @Override
+    protected String getTablaSubtipo() {
+        return "Revista";
+    }
+
+    @Override
+    protected String getSqlSeleccion() {
+        return QUERY_SELECCION;
+    }
+
+    @Override
+    protected Revista mapear(ResultSet rs) throws SQLException {
+        Revista revista = new Revista(
+                rs.getInt("id"),
+                rs.getString("titulo"),
+                internar(rs.getString("autor")),
+                rs.getInt("ano_publicacion"),
+                rs.getInt("numero_edicion"),
+                internar(rs.getString("categoria"))
+        );
+        revista.setVersion(rs.getLong("version"));
+        return revista;
+    }
+
+    @Override
+    protected Revista consultarPorId(int id) throws SQLException {
+        String query = QUERY_SELECCION + " AND e.id = ?";
+
+        try (Connection conexion = obtenerConexionLectura();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapear(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean insertarEnBD(Revista revista) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Inserta en la tabla base y obtiene el ID generado
+                int id = insertarElementoBase(conexion, revista);
+                revista.setId(id);
+
+                // Inserta en la tabla Revista
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlInsercionSubtipo())) {
+                    stmt.setInt(1, id);
+                    asignarParametrosSubtipo(stmt, revista);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected boolean actualizarEnBD(Revista revista) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Actualiza la tabla base
+                actualizarElementoBase(conexion, revista);
+
+                // Actualiza la tabla Revista
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlActualizacionSubtipo())) {
+                    asignarParametrosActualizacionSubtipo(stmt, revista);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected String getSqlInsercionSubtipo() {
+        return "INSERT INTO Revista (id, numero_edicion, categoria) VALUES (?, ?, ?)";
+    }
+
+    @Override
+    protected void asignarParametrosSubtipo(PreparedStatement stmt, Revista revista) throws SQLException {
+        stmt.setInt(2, revista.getNumeroEdicion());
+        stmt.setString(3, revista.getCategoria());
+    }
+
+    @Override
+    protected String getSqlActualizacionSubtipo() {
+        return "UPDATE Revista SET numero_edicion = ?, categoria = ? WHERE id = ?";
+    }
+
+    @Override
+    protected void asignarParametrosActualizacionSubtipo(PreparedStatement stmt, Revista revista) throws SQLException {
+        stmt.setInt(1, revista.getNumeroEdicion());
+        stmt.setString(2, revista.getCategoria());
+        stmt.setInt(3, revista.getId());
+    }
+
+    @Override
+    protected String[] getTextosSugerencia(Revista revista) {
+        return new String[] {revista.getCategoria()};
+    }
+
+    public List<Revista> buscarPorCategoria(String categoria) throws SQLException {
+        return buscarPorCategoria(categoria, new Cancelacion());
+    }
+
+    // La cancelación aborta la consulta en el servidor si llega mientras se ejecuta
+    public List<Revista> buscarPorCategoria(String categoria, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorCategoria", () -> {
+            List<Revista> revistas = new ArrayList<>();
+            String query = QUERY_SELECCION + " AND r.categoria LIKE ?";
+
+            try (Connection conexion = obtenerConexionLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(query)) {
+                stmt.setString(1, "%" + categoria + "%");
+                cancelacion.registrar(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        revistas.add(mapear(rs));
+                    }
+                } finally {
+                    cancelacion.liberar();
+                }
+            }
+            return revistas;
+        });
+    }
+}
+
+// DAO: DVDDAO.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import java.sql.*;
+        import java.util.ArrayList;
+import java.util.List;
+
+public class DVDDAO extends ElementoBibliotecaDAO<DVD> {
+
+    static final String TIPO = "DVD";
+
+    private static final String QUERY_SELECCION = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, e.version, " +
+            "d.duracion, d.genero " +
+            "FROM ElementoBiblioteca e " +
+            "JOIN DVD d ON e.id = d.id " +
+            "WHERE e.tipo = 'DVD'";
+
+    public DVDDAO() throws SQLException {
+        super(TIPO);
+    }
+
+    public DVDDAO(PoolConexiones pool) {
+        super(TIPO, pool);
+    }
+
+    public DVDDAO(EnrutadorConexiones enrutador) {
+        super(TIPO, enrutador);
+    }
+
+    @Override
+    protected String getTablaSubtipo() {
+        return "DVD";
+    }
+
+    @Override
+    protected String getSqlSeleccion() {
+        return QUERY_SELECCION;
+    }
+
+    @Override
+    protected DVD mapear(ResultSet rs) throws SQLException {
+        DVD dvd = new DVD(
+                rs.getInt("id"),
+                rs.getString("titulo"),
+                internar(rs.getString("autor")),
+                rs.getInt("ano_publicacion"),
+                rs.getInt("duracion"),
+                internar(rs.getString("genero"))
+        );
+        dvd.setVersion(rs.getLong("version"));
+        return dvd;
+    }
+
+    @Override
+    protected DVD consultarPorId(int id) throws SQLException {
+        String query = QUERY_SELECCION + " AND e.id = ?";
+
+        try (Connection conexion = obtenerConexionLectura();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapear(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean insertarEnBD(DVD dvd) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Inserta en la tabla base y obtiene el ID generado
+                int id = insertarElementoBase(conexion, dvd);
+                dvd.setId(id);
+
+                // Inserta en la tabla DVD
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlInsercionSubtipo())) {
+                    stmt.setInt(1, id);
+                    asignarParametrosSubtipo(stmt, dvd);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected boolean actualizarEnBD(DVD dvd) throws SQLException {
+        try (Connection conexion = obtenerConexion()) {
+            conexion.setAutoCommit(false);
+            try {
+                // Actualiza la tabla base
+                actualizarElementoBase(conexion, dvd);
+
+                // Actualiza la tabla DVD
+                try (PreparedStatement stmt = conexion.prepareStatement(getSqlActualizacionSubtipo())) {
+                    asignarParametrosActualizacionSubtipo(stmt, dvd);
+
+                    int filasAfectadas = stmt.executeUpdate();
+                    if (filasAfectadas > 0) {
+                        conexion.commit();
+                        return true;
+                    } else {
+                        conexion.rollback();
+                        return false;
+                    }
+                }
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    protected String getSqlInsercionSubtipo() {
+        return "INSERT INTO DVD (id, duracion, genero) VALUES (?, ?, ?)";
+    }
+
+    @Override
+    protected void asignarParametrosSubtipo(PreparedStatement stmt, DVD dvd) throws SQLException {
+        stmt.setInt(2, dvd.getDuracion());
+        stmt.setString(3, dvd.getGenero());
+    }
+
+    @Override
+    protected String getSqlActualizacionSubtipo() {
+        return "UPDATE DVD SET duracion = ?, genero = ? WHERE id = ?";
+    }
+
+    @Override
+    protected void asignarParametrosActualizacionSubtipo(PreparedStatement stmt, DVD dvd) throws SQLException {
+        stmt.setInt(1, dvd.getDuracion());
+        stmt.setString(2, dvd.getGenero());
+        stmt.setInt(3, dvd.getId());
+    }
+
+    @Override
+    protected String[] getTextosSugerencia(DVD dvd) {
+        return new String[] {dvd.getGenero()};
+    }
+
+    public List<DVD> buscarPorGenero(String genero) throws SQLException {
+        return buscarPorGenero(genero, new Cancelacion());
+    }
+
+    // La cancelación aborta la consulta en el servidor si llega mientras se ejecuta
+    public List<DVD> buscarPorGenero(String genero, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorGenero", () -> {
+            List<DVD> dvds = new ArrayList<>();
+            String query = QUERY_SELECCION + " AND d.genero LIKE ?";
+
+            try (Connection conexion = obtenerConexionLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(query)) {
+                stmt.setString(1, "%" + genero + "%");
+                cancelacion.registrar(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        dvds.add(mapear(rs));
+                    }
+                } finally {
+                    cancelacion.liberar();
+                }
+            }
+            return dvds;
+        });
+    }
+}
+
+// DAO: CatalogoDAO.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Catálogo completo de los tres tipos en una sola consulta: LEFT JOIN con las tres tablas de
+// subtipo y la columna tipo decide qué clase se construye con cada fila
+public class CatalogoDAO {
+
+    private static final int TAMANO_FETCH = 500;
+    private static final String QUERY_SELECCION = "SELECT e.id, e.titulo, e.autor, e.ano_publicacion, e.version, e.tipo, " +
+            "l.isbn, l.numero_paginas, l.genero AS genero_libro, l.editorial, " +
+            "r.numero_edicion, r.categoria, " +
+            "d.duracion, d.genero AS genero_dvd " +
+            "FROM ElementoBiblioteca e " +
+            "LEFT JOIN Libro l ON e.id = l.id " +
+            "LEFT JOIN Revista r ON e.id = r.id " +
+            "LEFT JOIN DVD d ON e.id = d.id";
+
+    private static final InternadorCadenas INTERNADOR = InternadorCadenas.compartido();
+
+    private final EnrutadorConexiones enrutador;
+    private final MetricasDAO metricas = MetricasDAO.para("CATALOGO");
+
+    public CatalogoDAO() throws SQLException {
+        this(ConexionBD.getEnrutador());
+    }
+
+    public CatalogoDAO(PoolConexiones pool) {
+        this(new EnrutadorConexiones(pool));
+    }
+
+    // Solo lee: todas sus consultas pueden ir a una réplica
+    public CatalogoDAO(EnrutadorConexiones enrutador) {
+        this.enrutador = enrutador;
+    }
+
+    public MetricasDAO getMetricas() {
+        return metricas;
+    }
+
+    // Todos los elementos de la biblioteca, de cualquier tipo, en orden de id
+    public List<ElementoBiblioteca> obtenerTodosElementos() throws SQLException {
+        return medir("obtenerTodosElementos", () -> {
+            List<ElementoBiblioteca> elementos = new ArrayList<>();
+            recorrer(elementos::add);
+            return elementos;
+        });
+    }
+
+    // Recorre todo el catálogo con un cursor, sin acumularlo en memoria
+    public void recorrerTodosElementos(Consumer<? super ElementoBiblioteca> accion) throws SQLException {
+        MetricasDAO.Operacion operacion = metricas.operacion("recorrerTodosElementos");
+        long inicio = System.nanoTime();
+        long[] filas = {0};
+        try {
+            recorrer(elemento -> {
+                filas[0]++;
+                accion.accept(elemento);
+            });
+        } catch (SQLException | RuntimeException e) {
+            operacion.registrar(inicio, filas[0], true);
+            throw e;
+        }
+        operacion.registrar(inicio, filas[0], false);
+    }
+
+    protected void recorrer(Consumer<? super ElementoBiblioteca> accion) throws SQLException {
+        try (Connection conexion = enrutador.obtenerLectura();
+             PreparedStatement stmt = conexion.prepareStatement(QUERY_SELECCION + " ORDER BY e.id",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(TAMANO_FETCH);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    accion.accept(mapear(rs));
+                }
+            }
+        }
+    }
+
+    // Paginación por clave sobre todo el catálogo, igual que ElementoBibliotecaDAO.obtenerPagina
+    public List<ElementoBiblioteca> obtenerPaginaElementos(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPaginaElementos", () -> {
+            List<ElementoBiblioteca> pagina = new ArrayList<>(Math.min(limite, 1000));
+            String query = QUERY_SELECCION + " WHERE e.id > ? ORDER BY e.id LIMIT ?";
+
+            try (Connection conexion = enrutador.obtenerLectura();
+                 PreparedStatement stmt = conexion.prepareStatement(query)) {
+                stmt.setInt(1, despuesDeId);
+                stmt.setInt(2, limite);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pagina.add(mapear(rs));
+                    }
+                }
+            }
+            return pagina;
+        });
+    }
+
+    public int contarElementos() throws SQLException {
+        return medir("contarElementos", () -> {
+            try (Connection conexion = enrutador.obtenerLectura();
+                 PreparedStatement stmt = conexion.prepareStatement("SELECT COUNT(*) FROM ElementoBiblioteca");
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    private ElementoBiblioteca mapear(ResultSet rs) throws SQLException {
+        ElementoBiblioteca elemento = construir(rs);
+        elemento.setVersion(rs.getLong("version"));
+        return elemento;
+    }
+
+    private ElementoBiblioteca construir(ResultSet rs) throws SQLException {
+        String tipo = rs.getString("tipo");
+        switch (tipo) {
+            case "LIBRO":
+                return new Libro(
+                        rs.getInt("id"),
+                        rs.getString("titulo"),
+                        INTERNADOR.internar(rs.getString("autor")),
+                        rs.getInt("ano_publicacion"),
+                        rs.getString("isbn"),
+                        rs.getInt("numero_paginas"),
+                        INTERNADOR.internar(rs.getString("genero_libro")),
+                        INTERNADOR.internar(rs.getString("editorial"))
+                );
+            case "REVISTA":
+                return new Revista(
+                        rs.getInt("id"),
+                        rs.getString("titulo"),
+                        INTERNADOR.internar(rs.getString("autor")),
+                        rs.getInt("ano_publicacion"),
+                        rs.getInt("numero_edicion"),
+                        INTERNADOR.internar(rs.getString("categoria"))
+                );
+            case "DVD":
+                return new DVD(
+                        rs.getInt("id"),
+                        rs.getString("titulo"),
+                        INTERNADOR.internar(rs.getString("autor")),
+                        rs.getInt("ano_publicacion"),
+                        rs.getInt("duracion"),
+                        INTERNADOR.internar(rs.getString("genero_dvd"))
+                );
+            default:
+                throw new SQLException("Tipo de elemento desconocido: " + tipo + " (id " + rs.getInt("id") + ")");
+        }
+    }
+
+    protected <R> R medir(String nombre, ElementoBibliotecaDAO.OperacionBD<R> operacionBD) throws SQLException {
+        MetricasDAO.Operacion operacion = metricas.operacion(nombre);
+        long inicio = System.nanoTime();
+        R resultado;
+        try {
+            resultado = operacionBD.ejecutar();
+        } catch (SQLException | RuntimeException e) {
+            operacion.registrar(inicio, 0, true);
+            throw e;
+        }
+        operacion.registrar(inicio, resultado instanceof List ? ((List<?>) resultado).size() : 1, false);
+        return resultado;
+    }
+}
+
+// DAO: EstadisticasDAO.java
+package com.biblioteca.model.dao;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Estadísticas del catálogo resueltas en la base de datos con GROUP BY: solo viajan los recuentos,
+// nunca las filas. El resultado se guarda y se reutiliza mientras no haya escrituras nuevas
+// (ElementoBibliotecaDAO.getEscrituras) y no pase la vigencia, que cubre los cambios de otros clientes.
+public class EstadisticasDAO {
+
+    private static final long VIGENCIA_POR_DEFECTO_MS = 60_000;
+    // Los recuentos por texto se limitan a los valores más frecuentes
+    static final int MAXIMO_GRUPOS = 50;
+    static final int ANCHO_TRAMO_PAGINAS = 100;
+    static final int ANCHO_TRAMO_DURACION = 30;
+
+    private static final String QUERY_POR_TIPO =
+            "SELECT tipo, COUNT(*) FROM ElementoBiblioteca GROUP BY tipo ORDER BY COUNT(*) DESC";
+    private static final String QUERY_POR_GENERO = "SELECT genero, COUNT(*) FROM " +
+            "(SELECT genero FROM Libro UNION ALL SELECT genero FROM DVD) g " +
+            "GROUP BY genero ORDER BY COUNT(*) DESC LIMIT " + MAXIMO_GRUPOS;
+    private static final String QUERY_POR_CATEGORIA =
+            "SELECT categoria, COUNT(*) FROM Revista GROUP BY categoria ORDER BY COUNT(*) DESC LIMIT " + MAXIMO_GRUPOS;
+    private static final String QUERY_POR_EDITORIAL =
+            "SELECT editorial, COUNT(*) FROM Libro GROUP BY editorial ORDER BY COUNT(*) DESC LIMIT " + MAXIMO_GRUPOS;
+    private static final String QUERY_POR_DECADA = "SELECT ano_publicacion - MOD(ano_publicacion, 10) AS decada, COUNT(*) " +
+            "FROM ElementoBiblioteca WHERE ano_publicacion IS NOT NULL GROUP BY decada ORDER BY decada";
+    private static final String QUERY_PAGINAS = "SELECT numero_paginas - MOD(numero_paginas, " + ANCHO_TRAMO_PAGINAS +
+            ") AS tramo, COUNT(*) FROM Libro WHERE numero_paginas IS NOT NULL GROUP BY tramo ORDER BY tramo";
+    private static final String QUERY_DURACION = "SELECT duracion - MOD(duracion, " + ANCHO_TRAMO_DURACION +
+            ") AS tramo, COUNT(*) FROM DVD WHERE duracion IS NOT NULL GROUP BY tramo ORDER BY tramo";
+
+    private final EnrutadorConexiones enrutador;
+    private final MetricasDAO metricas = MetricasDAO.para("ESTADISTICAS");
+    private volatile long vigenciaMs = VIGENCIA_POR_DEFECTO_MS;
+    private volatile EstadisticasCatalogo ultimas;
+    private volatile long escriturasAlCalcular;
+
+    public EstadisticasDAO() throws SQLException {
+        this(ConexionBD.getEnrutador());
+    }
+
+    public EstadisticasDAO(PoolConexiones pool) {
+        this(new EnrutadorConexiones(pool));
+    }
+
+    // Solo lee: todas sus consultas pueden ir a una réplica
+    public EstadisticasDAO(EnrutadorConexiones enrutador) {
+        this.enrutador = enrutador;
+    }
+
+    public MetricasDAO getMetricas() {
+        return metricas;
+    }
+
+    // 0 desactiva la reutilización: cada llamada vuelve a consultar
+    public void setVigenciaMs(long vigenciaMs) {
+        this.vigenciaMs = vigenciaMs;
+    }
+
+    // Las últimas estadísticas si siguen valiendo; si no, las calcula. Si varios hilos llegan a la
+    // vez con la caché caducada, solo uno consulta y los demás se llevan su resultado.
+    public EstadisticasCatalogo obtenerEstadisticas() throws SQLException {
+        EstadisticasCatalogo estadisticas = vigentes();
+        if (estadisticas != null) {
+            return estadisticas;
+        }
+        synchronized (this) {
+            estadisticas = vigentes();
+            if (estadisticas == null) {
+                long escrituras = ElementoBibliotecaDAO.getEscrituras();
+                estadisticas = calcular();
+                escriturasAlCalcular = escrituras;
+                ultimas = estadisticas;
+            }
+            return estadisticas;
+        }
+    }
+
+    public void invalidar() {
+        ultimas = null;
+    }
+
+    private EstadisticasCatalogo vigentes() {
+        EstadisticasCatalogo estadisticas = ultimas;
+        if (estadisticas == null || escriturasAlCalcular != ElementoBibliotecaDAO.getEscrituras()
+                || System.currentTimeMillis() - estadisticas.getCalculadoEn() >= vigenciaMs) {
+            return null;
+        }
+        return estadisticas;
+    }
+
+    // Todas las consultas con una sola conexión del pool
+    protected EstadisticasCatalogo calcular() throws SQLException {
+        MetricasDAO.Operacion operacion = metricas.operacion("obtenerEstadisticas");
+        long inicio = System.nanoTime();
+        try (Connection conexion = enrutador.obtenerLectura()) {
+            EstadisticasCatalogo estadisticas = new EstadisticasCatalogo(
+                    contarPorTexto(conexion, QUERY_POR_TIPO),
+                    contarPorTexto(conexion, QUERY_POR_GENERO),
+                    contarPorTexto(conexion, QUERY_POR_CATEGORIA),
+                    contarPorTexto(conexion, QUERY_POR_EDITORIAL),
+                    contarPorNumero(conexion, QUERY_POR_DECADA),
+                    contarPorNumero(conexion, QUERY_PAGINAS),
+                    contarPorNumero(conexion, QUERY_DURACION),
+                    ANCHO_TRAMO_PAGINAS, ANCHO_TRAMO_DURACION);
+            operacion.registrar(inicio, 1, false);
+            return estadisticas;
+        } catch (SQLException | RuntimeException e) {
+            operacion.registrar(inicio, 0, true);
+            throw e;
+        }
+    }
+
+    private static Map<String, Integer> contarPorTexto(Connection conexion, String query) throws SQLException {
+        Map<String, Integer> recuentos = new LinkedHashMap<>();
+        try (PreparedStatement stmt = conexion.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                recuentos.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        return recuentos;
+    }
+
+    private static SortedMap<Integer, Integer> contarPorNumero(Connection conexion, String query) throws SQLException {
+        SortedMap<Integer, Integer> recuentos = new TreeMap<>();
+        try (PreparedStatement stmt = conexion.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                recuentos.put(rs.getInt(1), rs.getInt(2));
+            }
+        }
+        return recuentos;
+    }
+}
+
+// DAO: ConexionBD.java
+package com.biblioteca.model.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class ConexionBD {
+    // URLs JDBC de las réplicas de lectura separadas por comas; usan el usuario y la contraseña de la primaria
+    public static final String PROPIEDAD_REPLICAS = "biblioteca.replicas";
+    // "rotatoria" (por defecto) o "menos-cargada"
+    public static final String PROPIEDAD_ESTRATEGIA = "biblioteca.replicas.estrategia";
+
+    // useCursorFetch hace que Connector/J respete setFetchSize en lugar de leer todo el resultado.
+    // useServerPrepStmts prepara en el servidor, así que la caché de sentencias del pool ahorra también el plan.
+    private static final String URL =
+            "jdbc:mysql://localhost:3306/biblioteca?useCursorFetch=true&useServerPrepStmts=true";
+    private static final String USER = "root";
+    private static final String PASSWORD = "password";
+
+    private static PoolConexiones pool;
+    private static EnrutadorConexiones enrutador;
+
+    private ConexionBD() {}
+
+    // Pool compartido por todos los DAO; se crea en el primer uso, tras poner al día el esquema
+    public static synchronized PoolConexiones getPool() throws SQLException {
+        if (pool == null) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Driver MySQL no encontrado", e);
+            }
+            PoolConexiones nuevoPool = new PoolConexiones(new PoolConexiones.Configuracion(URL, USER, PASSWORD));
+            try {
+                prepararEsquema(nuevoPool);
+            } catch (SQLException | RuntimeException e) {
+                nuevoPool.close();
+                throw e;
+            }
+            pool = nuevoPool;
+        }
+        return pool;
+    }
+
+    // Aplica las migraciones pendientes y avisa de las consultas que recorrerían tablas enteras.
+    // La comprobación de planes solo informa: si falla, la aplicación arranca igual.
+    private static void prepararEsquema(PoolConexiones nuevoPool) throws SQLException {
+        MigradorEsquema migrador = new MigradorEsquema(nuevoPool);
+        migrador.migrar();
+        try {
+            for (String aviso : migrador.comprobarConsultas()) {
+                System.err.println("Aviso de plan de consulta: " + aviso);
+            }
+        } catch (SQLException e) {
+            System.err.println("No se pudieron comprobar los planes de consulta: " + e.getMessage());
+        }
+    }
+
+    // Enrutador compartido por todos los DAO sobre el pool de getPool y las réplicas de
+    // PROPIEDAD_REPLICAS. Una réplica que no responde al arrancar se deja fuera con un aviso.
+    // Las réplicas no se migran: reciben el esquema de la primaria por la replicación.
+    public static synchronized EnrutadorConexiones getEnrutador() throws SQLException {
+        if (enrutador == null) {
+            // Se valida antes de abrir nada: un valor mal escrito no deja pools de réplica abiertos
+            EnrutadorConexiones.Estrategia estrategia = estrategiaConfigurada();
+            PoolConexiones primaria = getPool();
+            PoolConexiones.Configuracion config = primaria.getConfiguracion();
+            List<PoolConexiones> replicas = new ArrayList<>();
+            try {
+                for (String url : System.getProperty(PROPIEDAD_REPLICAS, "").split(",")) {
+                    if (url.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        replicas.add(new PoolConexiones(new PoolConexiones.Configuracion(url.trim(),
+                                config.getUsuario(), config.getPassword())));
+                    } catch (SQLException e) {
+                        System.err.println("No se pudo conectar con la réplica " + url.trim() + ": " + e.getMessage());
+                    }
+                }
+                enrutador = new EnrutadorConexiones(primaria, replicas).setEstrategia(estrategia);
+            } catch (RuntimeException e) {
+                for (PoolConexiones replica : replicas) {
+                    replica.close();
+                }
+                throw e;
+            }
+        }
+        return enrutador;
+    }
+
+    private static EnrutadorConexiones.Estrategia estrategiaConfigurada() {
+        String estrategia = System.getProperty(PROPIEDAD_ESTRATEGIA, "rotatoria").trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        switch (estrategia) {
+            case "rotatoria":
+                return EnrutadorConexiones.Estrategia.ROTATORIA;
+            case "menos-cargada":
+                return EnrutadorConexiones.Estrategia.MENOS_CARGADA;
+            default:
+                throw new IllegalStateException("Valor desconocido en " + PROPIEDAD_ESTRATEGIA + ": " + estrategia
+                        + " (se admite rotatoria o menos-cargada)");
+        }
+    }
+
+    // Permite sustituir el pool, por ejemplo por uno sobre una base de datos embebida.
+    // Las réplicas que hubiera se cierran: el pool nuevo no tiene ninguna.
+    public static synchronized void setPool(PoolConexiones nuevoPool) {
+        cerrarReplicas();
+        if (pool != null && pool != nuevoPool) {
+            pool.close();
+        }
+        pool = nuevoPool;
+    }
+
+    // Como setPool, pero con réplicas; por ejemplo dos bases de datos embebidas con los mismos datos
+    public static synchronized void setEnrutador(EnrutadorConexiones nuevoEnrutador) {
+        if (enrutador != nuevoEnrutador) {
+            setPool(nuevoEnrutador.getPrimaria());
+        }
+        enrutador = nuevoEnrutador;
+    }
+
+    // Presta una conexión del pool; quien la pide debe cerrarla para devolverla
+    public static Connection getConnection() throws SQLException {
+        return getPool().obtenerConexion();
+    }
+
+    public static synchronized void closeConnection() {
+        cerrarReplicas();
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static void cerrarReplicas() {
+        if (enrutador != null) {
+            for (PoolConexiones replica : enrutador.getReplicas()) {
+                replica.close();
+            }
+            enrutador = null;
+        }
+    }
+}
+
+// DAO: LibroDAOArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.Libro;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public class ConexionBD {
-    private static final String URL = "jdbc:mysql://localhost:3306/biblioteca";
-    private static final String USER = "root";
-    private static final String PASSWORD = "password";
+// LibroDAO sobre el almacén local en fichero en lugar de MySQL. Solo cambian las operaciones que
+// lanzan SQL; caché, índice de búsqueda, sugerencias y métricas son los de LibroDAO.
+public class LibroDAOArchivo extends LibroDAO {
+    private final TablaArchivo<Libro> tabla;
 
-    private static Connection instance;
+    public LibroDAOArchivo(AlmacenArchivo almacen) {
+        super((EnrutadorConexiones) null);
+        this.tabla = new TablaArchivo<>(almacen, TIPO);
+    }
 
-    private ConexionBD() {}
+    @Override
+    protected Libro consultarPorId(int id) {
+        return tabla.obtener(id);
+    }
 
-    public static Connection getConnection() throws SQLException {
-        if (instance == null || instance.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                instance = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Driver MySQL no encontrado", e);
+    @Override
+    protected boolean insertarEnBD(Libro libro) throws SQLException {
+        return tabla.insertar(libro);
+    }
+
+    @Override
+    protected boolean actualizarEnBD(Libro libro) throws SQLException {
+        return tabla.actualizar(libro);
+    }
+
+    @Override
+    protected void recorrer(Consumer<? super Libro> accion) {
+        tabla.recorrer(accion);
+    }
+
+    @Override
+    public ResultadoLote insertarLote(List<Libro> libros, int tamanoLote) throws SQLException {
+        return medir("insertarLote", () -> tabla.insertarLote(libros, tamanoLote, this::anotarGuardado));
+    }
+
+    @Override
+    public void guardarGrupo(List<Libro> libros) throws SQLException {
+        medir("guardarGrupo", () -> {
+            tabla.guardarGrupo(libros, this::anotarGuardado);
+            return libros;
+        });
+    }
+
+    @Override
+    public boolean eliminar(int id) throws SQLException {
+        return medir("eliminar", () -> {
+            boolean eliminado = tabla.eliminar(id);
+            if (eliminado) {
+                anotarEliminado(id);
+            }
+            return eliminado;
+        });
+    }
+
+    @Override
+    public List<Integer> eliminarLote(Collection<Integer> ids) throws SQLException {
+        return medir("eliminarLote", () -> tabla.eliminarLote(ids, MAXIMO_IDS_POR_CONSULTA, this::anotarEliminado));
+    }
+
+    @Override
+    public Stream<Libro> obtenerFlujo() {
+        return tabla.flujo();
+    }
+
+    @Override
+    public List<Libro> obtenerPagina(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPagina", () -> tabla.pagina(despuesDeId, limite));
+    }
+
+    @Override
+    public List<Libro> obtenerPaginaPorPosicion(int posicion, int limite) throws SQLException {
+        return medir("obtenerPaginaPorPosicion", () -> tabla.paginaPorPosicion(posicion, limite));
+    }
+
+    @Override
+    public int contar() throws SQLException {
+        return medir("contar", tabla::contar);
+    }
+
+    @Override
+    public Cambios<Libro> obtenerCambiosDesde(Timestamp marca) throws SQLException {
+        return medir("obtenerCambiosDesde", () -> {
+            Cambios<Libro> cambios = tabla.cambiosDesde(marca);
+            anotarCambios(cambios.getModificados(), cambios.getEliminados());
+            return cambios;
+        });
+    }
+
+    @Override
+    protected List<Libro> cargarPorIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        return tabla.porIds(ids, cancelacion);
+    }
+
+    @Override
+    public List<Libro> buscar(Criterio<Libro> criterio, Cancelacion cancelacion) throws SQLException {
+        return medir("buscar", () -> tabla.buscar(criterio, cancelacion));
+    }
+}
+
+// DAO: RevistaDAOArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.Revista;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// RevistaDAO sobre el almacén local en fichero; ver LibroDAOArchivo
+public class RevistaDAOArchivo extends RevistaDAO {
+    private final TablaArchivo<Revista> tabla;
+
+    public RevistaDAOArchivo(AlmacenArchivo almacen) {
+        super((EnrutadorConexiones) null);
+        this.tabla = new TablaArchivo<>(almacen, TIPO);
+    }
+
+    @Override
+    protected Revista consultarPorId(int id) {
+        return tabla.obtener(id);
+    }
+
+    @Override
+    protected boolean insertarEnBD(Revista revista) throws SQLException {
+        return tabla.insertar(revista);
+    }
+
+    @Override
+    protected boolean actualizarEnBD(Revista revista) throws SQLException {
+        return tabla.actualizar(revista);
+    }
+
+    @Override
+    protected void recorrer(Consumer<? super Revista> accion) {
+        tabla.recorrer(accion);
+    }
+
+    @Override
+    public ResultadoLote insertarLote(List<Revista> revistas, int tamanoLote) throws SQLException {
+        return medir("insertarLote", () -> tabla.insertarLote(revistas, tamanoLote, this::anotarGuardado));
+    }
+
+    @Override
+    public void guardarGrupo(List<Revista> revistas) throws SQLException {
+        medir("guardarGrupo", () -> {
+            tabla.guardarGrupo(revistas, this::anotarGuardado);
+            return revistas;
+        });
+    }
+
+    @Override
+    public boolean eliminar(int id) throws SQLException {
+        return medir("eliminar", () -> {
+            boolean eliminado = tabla.eliminar(id);
+            if (eliminado) {
+                anotarEliminado(id);
+            }
+            return eliminado;
+        });
+    }
+
+    @Override
+    public List<Integer> eliminarLote(Collection<Integer> ids) throws SQLException {
+        return medir("eliminarLote", () -> tabla.eliminarLote(ids, MAXIMO_IDS_POR_CONSULTA, this::anotarEliminado));
+    }
+
+    @Override
+    public Stream<Revista> obtenerFlujo() {
+        return tabla.flujo();
+    }
+
+    @Override
+    public List<Revista> obtenerPagina(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPagina", () -> tabla.pagina(despuesDeId, limite));
+    }
+
+    @Override
+    public List<Revista> obtenerPaginaPorPosicion(int posicion, int limite) throws SQLException {
+        return medir("obtenerPaginaPorPosicion", () -> tabla.paginaPorPosicion(posicion, limite));
+    }
+
+    @Override
+    public int contar() throws SQLException {
+        return medir("contar", tabla::contar);
+    }
+
+    @Override
+    public Cambios<Revista> obtenerCambiosDesde(Timestamp marca) throws SQLException {
+        return medir("obtenerCambiosDesde", () -> {
+            Cambios<Revista> cambios = tabla.cambiosDesde(marca);
+            anotarCambios(cambios.getModificados(), cambios.getEliminados());
+            return cambios;
+        });
+    }
+
+    @Override
+    protected List<Revista> cargarPorIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        return tabla.porIds(ids, cancelacion);
+    }
+
+    @Override
+    public List<Revista> buscar(Criterio<Revista> criterio, Cancelacion cancelacion) throws SQLException {
+        return medir("buscar", () -> tabla.buscar(criterio, cancelacion));
+    }
+
+    @Override
+    public List<Revista> buscarPorCategoria(String categoria, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorCategoria", () ->
+                tabla.filtrar(revista -> TablaArchivo.contiene(revista.getCategoria(), categoria), cancelacion));
+    }
+}
+
+// DAO: DVDDAOArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// DVDDAO sobre el almacén local en fichero; ver LibroDAOArchivo
+public class DVDDAOArchivo extends DVDDAO {
+    private final TablaArchivo<DVD> tabla;
+
+    public DVDDAOArchivo(AlmacenArchivo almacen) {
+        super((EnrutadorConexiones) null);
+        this.tabla = new TablaArchivo<>(almacen, TIPO);
+    }
+
+    @Override
+    protected DVD consultarPorId(int id) {
+        return tabla.obtener(id);
+    }
+
+    @Override
+    protected boolean insertarEnBD(DVD dvd) throws SQLException {
+        return tabla.insertar(dvd);
+    }
+
+    @Override
+    protected boolean actualizarEnBD(DVD dvd) throws SQLException {
+        return tabla.actualizar(dvd);
+    }
+
+    @Override
+    protected void recorrer(Consumer<? super DVD> accion) {
+        tabla.recorrer(accion);
+    }
+
+    @Override
+    public ResultadoLote insertarLote(List<DVD> dvds, int tamanoLote) throws SQLException {
+        return medir("insertarLote", () -> tabla.insertarLote(dvds, tamanoLote, this::anotarGuardado));
+    }
+
+    @Override
+    public void guardarGrupo(List<DVD> dvds) throws SQLException {
+        medir("guardarGrupo", () -> {
+            tabla.guardarGrupo(dvds, this::anotarGuardado);
+            return dvds;
+        });
+    }
+
+    @Override
+    public boolean eliminar(int id) throws SQLException {
+        return medir("eliminar", () -> {
+            boolean eliminado = tabla.eliminar(id);
+            if (eliminado) {
+                anotarEliminado(id);
+            }
+            return eliminado;
+        });
+    }
+
+    @Override
+    public List<Integer> eliminarLote(Collection<Integer> ids) throws SQLException {
+        return medir("eliminarLote", () -> tabla.eliminarLote(ids, MAXIMO_IDS_POR_CONSULTA, this::anotarEliminado));
+    }
+
+    @Override
+    public Stream<DVD> obtenerFlujo() {
+        return tabla.flujo();
+    }
+
+    @Override
+    public List<DVD> obtenerPagina(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPagina", () -> tabla.pagina(despuesDeId, limite));
+    }
+
+    @Override
+    public List<DVD> obtenerPaginaPorPosicion(int posicion, int limite) throws SQLException {
+        return medir("obtenerPaginaPorPosicion", () -> tabla.paginaPorPosicion(posicion, limite));
+    }
+
+    @Override
+    public int contar() throws SQLException {
+        return medir("contar", tabla::contar);
+    }
+
+    @Override
+    public Cambios<DVD> obtenerCambiosDesde(Timestamp marca) throws SQLException {
+        return medir("obtenerCambiosDesde", () -> {
+            Cambios<DVD> cambios = tabla.cambiosDesde(marca);
+            anotarCambios(cambios.getModificados(), cambios.getEliminados());
+            return cambios;
+        });
+    }
+
+    @Override
+    protected List<DVD> cargarPorIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        return tabla.porIds(ids, cancelacion);
+    }
+
+    @Override
+    public List<DVD> buscar(Criterio<DVD> criterio, Cancelacion cancelacion) throws SQLException {
+        return medir("buscar", () -> tabla.buscar(criterio, cancelacion));
+    }
+
+    @Override
+    public List<DVD> buscarPorGenero(String genero, Cancelacion cancelacion) throws SQLException {
+        return medir("buscarPorGenero", () ->
+                tabla.filtrar(dvd -> TablaArchivo.contiene(dvd.getGenero(), genero), cancelacion));
+    }
+}
+
+// DAO: CatalogoDAOArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// CatalogoDAO sobre el almacén local en fichero: los tres tipos mezclados en orden de id
+public class CatalogoDAOArchivo extends CatalogoDAO {
+    private final AlmacenArchivo almacen;
+
+    public CatalogoDAOArchivo(AlmacenArchivo almacen) {
+        super((EnrutadorConexiones) null);
+        this.almacen = almacen;
+    }
+
+    @Override
+    protected void recorrer(Consumer<? super ElementoBiblioteca> accion) {
+        Iterator<ElementoBiblioteca> it = almacen.recorrer(null);
+        while (it.hasNext()) {
+            accion.accept(it.next());
+        }
+    }
+
+    // Los ids son únicos entre tipos, así que basta con la página de cada tipo y quedarse con los primeros
+    @Override
+    public List<ElementoBiblioteca> obtenerPaginaElementos(int despuesDeId, int limite) throws SQLException {
+        return medir("obtenerPaginaElementos", () -> {
+            List<ElementoBiblioteca> pagina = new ArrayList<>();
+            for (String tipo : new String[] {"LIBRO", "REVISTA", "DVD"}) {
+                pagina.addAll(almacen.pagina(tipo, despuesDeId, limite));
+            }
+            pagina.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+            return pagina.size() > limite ? new ArrayList<>(pagina.subList(0, limite)) : pagina;
+        });
+    }
+
+    @Override
+    public int contarElementos() throws SQLException {
+        return medir("contarElementos", () -> almacen.contar(null));
+    }
+}
+
+// DAO: EstadisticasDAOArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// EstadisticasDAO sobre el almacén local en fichero. Sin servidor que agrupe, los mismos recuentos
+// salen de una pasada por el catálogo en memoria; la reutilización del resultado es la de EstadisticasDAO.
+public class EstadisticasDAOArchivo extends EstadisticasDAO {
+    private final AlmacenArchivo almacen;
+
+    public EstadisticasDAOArchivo(AlmacenArchivo almacen) {
+        super((EnrutadorConexiones) null);
+        this.almacen = almacen;
+    }
+
+    @Override
+    protected EstadisticasCatalogo calcular() {
+        MetricasDAO.Operacion operacion = getMetricas().operacion("obtenerEstadisticas");
+        long inicio = System.nanoTime();
+        Map<String, Integer> porTipo = new HashMap<>();
+        Map<String, Integer> porGenero = new HashMap<>();
+        Map<String, Integer> porCategoria = new HashMap<>();
+        Map<String, Integer> porEditorial = new HashMap<>();
+        SortedMap<Integer, Integer> porDecada = new TreeMap<>();
+        SortedMap<Integer, Integer> paginas = new TreeMap<>();
+        SortedMap<Integer, Integer> duracion = new TreeMap<>();
+
+        Iterator<ElementoBiblioteca> it = almacen.recorrer(null);
+        while (it.hasNext()) {
+            ElementoBiblioteca elemento = it.next();
+            porTipo.merge(elemento.getTipo(), 1, Integer::sum);
+            porDecada.merge(elemento.getAnoPublicacion() - elemento.getAnoPublicacion() % 10, 1, Integer::sum);
+            if (elemento instanceof Libro libro) {
+                porGenero.merge(libro.getGenero(), 1, Integer::sum);
+                porEditorial.merge(libro.getEditorial(), 1, Integer::sum);
+                paginas.merge(tramo(libro.getNumeroPaginas(), ANCHO_TRAMO_PAGINAS), 1, Integer::sum);
+            } else if (elemento instanceof Revista revista) {
+                porCategoria.merge(revista.getCategoria(), 1, Integer::sum);
+            } else if (elemento instanceof DVD dvd) {
+                porGenero.merge(dvd.getGenero(), 1, Integer::sum);
+                duracion.merge(tramo(dvd.getDuracion(), ANCHO_TRAMO_DURACION), 1, Integer::sum);
             }
         }
-        return instance;
+
+        EstadisticasCatalogo estadisticas = new EstadisticasCatalogo(
+                masFrecuentes(porTipo, Integer.MAX_VALUE), masFrecuentes(porGenero, MAXIMO_GRUPOS),
+                masFrecuentes(porCategoria, MAXIMO_GRUPOS), masFrecuentes(porEditorial, MAXIMO_GRUPOS),
+                porDecada, paginas, duracion, ANCHO_TRAMO_PAGINAS, ANCHO_TRAMO_DURACION);
+        operacion.registrar(inicio, 1, false);
+        return estadisticas;
     }
 
-    public static void closeConnection() {
-        try {
-            if (instance != null && !instance.isClosed()) {
-                instance.close();
+    // Igual que valor - MOD(valor, ancho) en SQL
+    private static int tramo(int valor, int ancho) {
+        return valor - valor % ancho;
+    }
+
+    // ORDER BY COUNT(*) DESC LIMIT maximo
+    private static Map<String, Integer> masFrecuentes(Map<String, Integer> recuentos, int maximo) {
+        List<Map.Entry<String, Integer>> entradas = new ArrayList<>(recuentos.entrySet());
+        entradas.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        Map<String, Integer> resultado = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entrada : entradas) {
+            if (resultado.size() == maximo) {
+                break;
             }
-        } catch (SQLException e) {
-            System.err.println("Error al cerrar la conexión: " + e.getMessage());
+            resultado.put(entrada.getKey(), entrada.getValue());
+        }
+        return resultado;
+    }
+}
+
+// DAO: FabricaDAO.java
+package com.biblioteca.model.dao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Locale;
+
+// Crea los DAO del almacenamiento configurado. Con -Dbiblioteca.almacen=archivo se usa el almacén
+// local en fichero (AlmacenArchivo) en el directorio de -Dbiblioteca.directorio, por defecto
+// ~/.biblioteca; sin la propiedad, o con "mysql", el servidor de ConexionBD.
+public final class FabricaDAO {
+    public static final String PROPIEDAD_ALMACEN = "biblioteca.almacen";
+    public static final String PROPIEDAD_DIRECTORIO = "biblioteca.directorio";
+    public static final String ALMACEN_MYSQL = "mysql";
+    public static final String ALMACEN_ARCHIVO = "archivo";
+
+    private FabricaDAO() {}
+
+    public static boolean isAlmacenArchivo() {
+        String almacen = System.getProperty(PROPIEDAD_ALMACEN, ALMACEN_MYSQL).trim().toLowerCase(Locale.ROOT);
+        switch (almacen) {
+            case ALMACEN_MYSQL:
+                return false;
+            case ALMACEN_ARCHIVO:
+                return true;
+            default:
+                throw new IllegalStateException("Valor desconocido en " + PROPIEDAD_ALMACEN + ": " + almacen
+                        + " (se admite " + ALMACEN_MYSQL + " o " + ALMACEN_ARCHIVO + ")");
+        }
+    }
+
+    public static LibroDAO crearLibroDAO() throws SQLException {
+        return isAlmacenArchivo() ? new LibroDAOArchivo(getAlmacen()) : new LibroDAO();
+    }
+
+    public static RevistaDAO crearRevistaDAO() throws SQLException {
+        return isAlmacenArchivo() ? new RevistaDAOArchivo(getAlmacen()) : new RevistaDAO();
+    }
+
+    public static DVDDAO crearDVDDAO() throws SQLException {
+        return isAlmacenArchivo() ? new DVDDAOArchivo(getAlmacen()) : new DVDDAO();
+    }
+
+    public static CatalogoDAO crearCatalogoDAO() throws SQLException {
+        return isAlmacenArchivo() ? new CatalogoDAOArchivo(getAlmacen()) : new CatalogoDAO();
+    }
+
+    public static EstadisticasDAO crearEstadisticasDAO() throws SQLException {
+        return isAlmacenArchivo() ? new EstadisticasDAOArchivo(getAlmacen()) : new EstadisticasDAO();
+    }
+
+    // Todos los DAO del proceso comparten el mismo almacén abierto
+    public static AlmacenArchivo getAlmacen() throws SQLException {
+        String directorio = System.getProperty(PROPIEDAD_DIRECTORIO);
+        Path ruta = directorio != null ? Paths.get(directorio) : Paths.get(System.getProperty("user.home"), ".biblioteca");
+        try {
+            return AlmacenArchivo.abrir(ruta);
+        } catch (IOException e) {
+            throw new SQLException("No se pudo abrir el almacén local en " + ruta + ": " + e.getMessage(), e);
         }
     }
 }
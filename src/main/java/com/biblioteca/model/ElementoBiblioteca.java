@@ -7,6 +7,7 @@ public abstract class ElementoBiblioteca {
     private String autor;
     private int anoPublicacion;
     private String tipo;
+    private long version;
 
     // Constructor
     public ElementoBiblioteca(int id, String titulo, String autor, int anoPublicacion, String tipo) {
@@ -63,6 +64,18 @@ public abstract class ElementoBiblioteca {
         this.tipo = tipo;
     }
 
+    // Versión de la fila: empieza en 1 al insertar y aumenta con cada actualización
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    // Copia independiente del elemento, usada por la caché de los DAO
+    public abstract ElementoBiblioteca copiar();
+
     @Override
     public String toString() {
         return titulo + " (" + anoPublicacion + ") - " + autor;
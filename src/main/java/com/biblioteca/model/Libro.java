@@ -60,6 +60,14 @@ public class Libro extends ElementoBiblioteca {
         this.editorial = editorial;
     }
 
+    @Override
+    public Libro copiar() {
+        Libro copia = new Libro(getId(), getTitulo(), getAutor(), getAnoPublicacion(),
+                isbn, numeroPaginas, genero, editorial);
+        copia.setVersion(getVersion());
+        return copia;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " - " + editorial + " - ISBN: " + isbn;
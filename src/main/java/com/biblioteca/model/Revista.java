@@ -38,6 +38,14 @@ public class Revista extends ElementoBiblioteca {
         this.categoria = categoria;
     }
 
+    @Override
+    public Revista copiar() {
+        Revista copia = new Revista(getId(), getTitulo(), getAutor(), getAnoPublicacion(),
+                numeroEdicion, categoria);
+        copia.setVersion(getVersion());
+        return copia;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " - Edición: " + numeroEdicion + " - " + categoria;
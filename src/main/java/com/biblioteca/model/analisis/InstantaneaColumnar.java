@@ -0,0 +1,372 @@
+// Análisis: InstantaneaColumnar.java
+package com.biblioteca.model.analisis;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.dao.Cambios;
+import com.biblioteca.model.dao.CatalogoDAO;
+import com.biblioteca.model.dao.DVDDAO;
+import com.biblioteca.model.dao.ElementoBibliotecaDAO;
+import com.biblioteca.model.dao.LibroDAO;
+import com.biblioteca.model.dao.RevistaDAO;
+import com.biblioteca.model.exportacion.Columna;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Copia en memoria del catálogo organizada por columnas para consultas analíticas: un int[] por
+// columna numérica y, para los textos repetidos, un int[] de códigos más un diccionario. Recorrer
+// una columna es recorrer un array de primitivos, sin objetos ni boxing, y un millón de filas
+// ocupan unos 40 MB en lugar de los cientos que piden las listas de entidades.
+//
+// cargar() lee el catálogo entero con un cursor; refrescar() solo pide los cambios desde la última
+// vez (ElementoBibliotecaDAO.obtenerCambiosDesde) y los aplica en su sitio. Las consultas se hacen
+// con seleccionar(), que devuelve una Seleccion filtrable.
+public class InstantaneaColumnar {
+    private static final int CAPACIDAD_INICIAL = 1_024;
+    // Proporción de filas borradas a partir de la cual se reconstruyen los arrays sin ellas
+    private static final double PROPORCION_COMPACTAR = 0.25;
+
+    public enum ColumnaEntera {
+        ID(Columna.ID),
+        ANO_PUBLICACION(Columna.ANO_PUBLICACION),
+        NUMERO_PAGINAS(Columna.NUMERO_PAGINAS),
+        NUMERO_EDICION(Columna.NUMERO_EDICION),
+        DURACION(Columna.DURACION);
+
+        private final Columna origen;
+
+        ColumnaEntera(Columna origen) {
+            this.origen = origen;
+        }
+    }
+
+    public enum ColumnaTexto {
+        TIPO(Columna.TIPO),
+        AUTOR(Columna.AUTOR),
+        GENERO(Columna.GENERO),
+        EDITORIAL(Columna.EDITORIAL),
+        CATEGORIA(Columna.CATEGORIA);
+
+        private final Columna origen;
+
+        ColumnaTexto(Columna origen) {
+            this.origen = origen;
+        }
+    }
+
+    private final CatalogoDAO catalogoDAO;
+    private final List<ElementoBibliotecaDAO<? extends ElementoBiblioteca>> daos;
+    private final Timestamp[] marcas;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columnas columnas = new Columnas(CAPACIDAD_INICIAL);
+
+    public InstantaneaColumnar(CatalogoDAO catalogoDAO, LibroDAO libroDAO, RevistaDAO revistaDAO, DVDDAO dvdDAO) {
+        this.catalogoDAO = catalogoDAO;
+        this.daos = List.of(libroDAO, revistaDAO, dvdDAO);
+        this.marcas = new Timestamp[daos.size()];
+    }
+
+    // Carga completa. Las marcas se toman antes de leer, así que lo que cambie durante la carga
+    // llega en el siguiente refresco. Las consultas siguen viendo los datos anteriores hasta el final.
+    public synchronized void cargar() throws SQLException {
+        Timestamp[] nuevasMarcas = new Timestamp[daos.size()];
+        for (int i = 0; i < daos.size(); i++) {
+            nuevasMarcas[i] = daos.get(i).obtenerCambiosDesde(null).getMarca();
+        }
+        Columnas nuevas = new Columnas(CAPACIDAD_INICIAL);
+        catalogoDAO.recorrerTodosElementos(nuevas::poner);
+
+        lock.writeLock().lock();
+        try {
+            columnas = nuevas;
+            System.arraycopy(nuevasMarcas, 0, marcas, 0, marcas.length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aplica los cambios desde el último refresco; si nunca se cargó, carga
+    public synchronized void refrescar() throws SQLException {
+        if (marcas[0] == null) {
+            cargar();
+            return;
+        }
+        List<Cambios<? extends ElementoBiblioteca>> deltas = new ArrayList<>(daos.size());
+        for (int i = 0; i < daos.size(); i++) {
+            deltas.add(daos.get(i).obtenerCambiosDesde(marcas[i]));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < deltas.size(); i++) {
+                Cambios<? extends ElementoBiblioteca> cambios = deltas.get(i);
+                for (ElementoBiblioteca elemento : cambios.getModificados()) {
+                    columnas.poner(elemento);
+                }
+                for (int id : cambios.getEliminados()) {
+                    columnas.quitar(id);
+                }
+                marcas[i] = cambios.getMarca();
+            }
+            if (columnas.borradas > columnas.filas * PROPORCION_COMPACTAR) {
+                columnas = columnas.compactadas();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Todas las filas vivas en este momento; las altas posteriores no entran en la selección
+    public Seleccion seleccionar() {
+        lock.readLock().lock();
+        try {
+            long[] bits = Arrays.copyOf(columnas.vivas, palabras(columnas.filas));
+            return new Seleccion(lock.readLock(), columnas, columnas.filas, bits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTamano() {
+        lock.readLock().lock();
+        try {
+            return columnas.filas - columnas.borradas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int palabras(int filas) {
+        return (filas + 63) >>> 6;
+    }
+
+    // Los arrays de una generación de la instantánea. Una carga o una compactación crean otra, y las
+    // selecciones hechas sobre la anterior siguen leyéndola sin verse afectadas.
+    static final class Columnas {
+        final int[][] enteros = new int[ColumnaEntera.values().length][];
+        final int[][] codigos = new int[ColumnaTexto.values().length][];
+        final Diccionario[] diccionarios;
+        final IndiceIds posiciones;
+        long[] vivas;
+        int filas;
+        int borradas;
+
+        Columnas(int capacidad) {
+            this(capacidad, crearDiccionarios());
+        }
+
+        private Columnas(int capacidad, Diccionario[] diccionarios) {
+            this.diccionarios = diccionarios;
+            this.posiciones = new IndiceIds(capacidad);
+            for (int i = 0; i < enteros.length; i++) {
+                enteros[i] = new int[capacidad];
+            }
+            for (int i = 0; i < codigos.length; i++) {
+                codigos[i] = new int[capacidad];
+            }
+            vivas = new long[palabras(capacidad)];
+        }
+
+        // Alta o sustitución por id
+        void poner(ElementoBiblioteca elemento) {
+            int fila = posiciones.obtener(elemento.getId());
+            if (fila < 0) {
+                if (filas == enteros[0].length) {
+                    crecer();
+                }
+                fila = filas++;
+                posiciones.poner(elemento.getId(), fila);
+                vivas[fila >>> 6] |= 1L << fila;
+            }
+            for (ColumnaEntera columna : ColumnaEntera.values()) {
+                enteros[columna.ordinal()][fila] = columna.origen.entero(elemento);
+            }
+            for (ColumnaTexto columna : ColumnaTexto.values()) {
+                codigos[columna.ordinal()][fila] = diccionarios[columna.ordinal()].codificar(columna.origen.texto(elemento));
+            }
+        }
+
+        void quitar(int id) {
+            int fila = posiciones.quitar(id);
+            if (fila >= 0) {
+                vivas[fila >>> 6] &= ~(1L << fila);
+                borradas++;
+            }
+        }
+
+        // Copia sin las filas borradas; los diccionarios se comparten porque los códigos no cambian
+        Columnas compactadas() {
+            Columnas nuevas = new Columnas(Math.max(CAPACIDAD_INICIAL, filas - borradas), diccionarios);
+            for (int fila = 0; fila < filas; fila++) {
+                if ((vivas[fila >>> 6] & (1L << fila)) == 0) {
+                    continue;
+                }
+                int destino = nuevas.filas++;
+                for (int c = 0; c < enteros.length; c++) {
+                    nuevas.enteros[c][destino] = enteros[c][fila];
+                }
+                for (int c = 0; c < codigos.length; c++) {
+                    nuevas.codigos[c][destino] = codigos[c][fila];
+                }
+                nuevas.vivas[destino >>> 6] |= 1L << destino;
+                nuevas.posiciones.poner(enteros[ColumnaEntera.ID.ordinal()][fila], destino);
+            }
+            return nuevas;
+        }
+
+        private void crecer() {
+            int capacidad = enteros[0].length * 2;
+            for (int i = 0; i < enteros.length; i++) {
+                enteros[i] = Arrays.copyOf(enteros[i], capacidad);
+            }
+            for (int i = 0; i < codigos.length; i++) {
+                codigos[i] = Arrays.copyOf(codigos[i], capacidad);
+            }
+            vivas = Arrays.copyOf(vivas, palabras(capacidad));
+        }
+
+        private static Diccionario[] crearDiccionarios() {
+            Diccionario[] diccionarios = new Diccionario[ColumnaTexto.values().length];
+            for (int i = 0; i < diccionarios.length; i++) {
+                diccionarios[i] = new Diccionario();
+            }
+            return diccionarios;
+        }
+    }
+
+    // Texto <-> código denso. -1 representa null; los códigos no se reutilizan nunca
+    static final class Diccionario {
+        static final int NULO = -1;
+        static final int AUSENTE = -2;
+
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        int codificar(String valor) {
+            if (valor == null) {
+                return NULO;
+            }
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                valores.add(valor);
+                codigos.put(valor, codigo);
+            }
+            return codigo;
+        }
+
+        // Código del valor sin añadirlo; AUSENTE si no aparece en ninguna fila
+        int buscar(String valor) {
+            if (valor == null) {
+                return NULO;
+            }
+            Integer codigo = codigos.get(valor);
+            return codigo != null ? codigo : AUSENTE;
+        }
+
+        String valor(int codigo) {
+            return codigo == NULO ? null : valores.get(codigo);
+        }
+
+        int getTamano() {
+            return valores.size();
+        }
+    }
+
+    // Tabla hash de id -> fila con direccionamiento abierto sobre int[], sin objetos por entrada.
+    // Los ids son positivos (autoincrementales), así que 0 marca una casilla libre.
+    static final class IndiceIds {
+        private int[] claves;
+        private int[] filas;
+        private int mascara;
+        private int tamano;
+
+        IndiceIds(int capacidad) {
+            int casillas = Integer.highestOneBit(Math.max(16, capacidad) * 2 - 1) << 1;
+            claves = new int[casillas];
+            filas = new int[casillas];
+            mascara = casillas - 1;
+        }
+
+        int obtener(int id) {
+            for (int i = mezclar(id) & mascara; ; i = (i + 1) & mascara) {
+                if (claves[i] == id) {
+                    return filas[i];
+                }
+                if (claves[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        void poner(int id, int fila) {
+            if ((tamano + 1) * 2 > claves.length) {
+                redimensionar();
+            }
+            int i = mezclar(id) & mascara;
+            while (claves[i] != 0 && claves[i] != id) {
+                i = (i + 1) & mascara;
+            }
+            if (claves[i] == 0) {
+                tamano++;
+            }
+            claves[i] = id;
+            filas[i] = fila;
+        }
+
+        // Devuelve la fila que tenía el id, o -1. Las entradas siguientes se desplazan hacia atrás
+        // para que ninguna búsqueda se corte en el hueco
+        int quitar(int id) {
+            int i = mezclar(id) & mascara;
+            while (claves[i] != id) {
+                if (claves[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mascara;
+            }
+            int fila = filas[i];
+            int j = i;
+            while (true) {
+                j = (j + 1) & mascara;
+                if (claves[j] == 0) {
+                    break;
+                }
+                int inicial = mezclar(claves[j]) & mascara;
+                boolean enSuSitio = i <= j ? (inicial > i && inicial <= j) : (inicial > i || inicial <= j);
+                if (!enSuSitio) {
+                    claves[i] = claves[j];
+                    filas[i] = filas[j];
+                    i = j;
+                }
+            }
+            claves[i] = 0;
+            tamano--;
+            return fila;
+        }
+
+        private void redimensionar() {
+            int[] clavesAnteriores = claves;
+            int[] filasAnteriores = filas;
+            claves = new int[clavesAnteriores.length * 2];
+            filas = new int[clavesAnteriores.length * 2];
+            mascara = claves.length - 1;
+            tamano = 0;
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != 0) {
+                    poner(clavesAnteriores[i], filasAnteriores[i]);
+                }
+            }
+        }
+
+        private static int mezclar(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+// Análisis: Seleccion.java
+package com.biblioteca.model.analisis;
+
+import com.biblioteca.model.analisis.InstantaneaColumnar.ColumnaEntera;
+import com.biblioteca.model.analisis.InstantaneaColumnar.ColumnaTexto;
+import com.biblioteca.model.analisis.InstantaneaColumnar.Columnas;
+import com.biblioteca.model.analisis.InstantaneaColumnar.Diccionario;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+// Subconjunto de filas de una InstantaneaColumnar, como mapa de bits (un bit por fila). Los filtros
+// recorren un int[] y devuelven una selección nueva; los agregados recorren solo los bits activos.
+// Las filas borradas después de crear la selección dejan de contar; las añadidas no entran.
+//
+//   Seleccion libros90 = instantanea.seleccionar()
+//           .donde(ColumnaTexto.TIPO, "LIBRO")
+//           .entre(ColumnaEntera.ANO_PUBLICACION, 1990, 1999);
+//   double paginas = libros90.media(ColumnaEntera.NUMERO_PAGINAS);
+public class Seleccion {
+    // Por encima de este rango de valores, contarPor agrupa con un mapa en lugar de un array
+    private static final int RANGO_MAXIMO_DENSO = 1 << 20;
+
+    private final Lock lectura;
+    private final Columnas columnas;
+    private final int filas;
+    private final long[] bits;
+
+    Seleccion(Lock lectura, Columnas columnas, int filas, long[] bits) {
+        this.lectura = lectura;
+        this.columnas = columnas;
+        this.filas = filas;
+        this.bits = bits;
+    }
+
+    // Filas cuyo texto en la columna es exactamente valor (null selecciona las que no lo tienen)
+    public Seleccion donde(ColumnaTexto columna, String valor) {
+        lectura.lock();
+        try {
+            int codigo = columnas.diccionarios[columna.ordinal()].buscar(valor);
+            long[] resultado = new long[bits.length];
+            if (codigo != Diccionario.AUSENTE) {
+                int[] codigos = columnas.codigos[columna.ordinal()];
+                for (int w = 0; w < bits.length; w++) {
+                    if (bits[w] == 0) {
+                        continue;
+                    }
+                    int base = w << 6;
+                    int fin = Math.min(64, filas - base);
+                    long palabra = 0;
+                    for (int b = 0; b < fin; b++) {
+                        palabra |= (codigos[base + b] == codigo ? 1L : 0L) << b;
+                    }
+                    resultado[w] = palabra & bits[w];
+                }
+            }
+            return derivada(resultado);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Filas con minimo <= valor <= maximo
+    public Seleccion entre(ColumnaEntera columna, int minimo, int maximo) {
+        lectura.lock();
+        try {
+            int[] valores = columnas.enteros[columna.ordinal()];
+            long[] resultado = new long[bits.length];
+            for (int w = 0; w < bits.length; w++) {
+                if (bits[w] == 0) {
+                    continue;
+                }
+                int base = w << 6;
+                int fin = Math.min(64, filas - base);
+                long palabra = 0;
+                for (int b = 0; b < fin; b++) {
+                    int valor = valores[base + b];
+                    palabra |= (valor >= minimo & valor <= maximo ? 1L : 0L) << b;
+                }
+                resultado[w] = palabra & bits[w];
+            }
+            return derivada(resultado);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Intersección con otra selección de la misma instantánea
+    public Seleccion y(Seleccion otra) {
+        comprobarMismaInstantanea(otra);
+        long[] resultado = new long[Math.min(bits.length, otra.bits.length)];
+        for (int w = 0; w < resultado.length; w++) {
+            resultado[w] = bits[w] & otra.bits[w];
+        }
+        return new Seleccion(lectura, columnas, Math.min(filas, otra.filas), resultado);
+    }
+
+    // Unión con otra selección de la misma instantánea
+    public Seleccion o(Seleccion otra) {
+        comprobarMismaInstantanea(otra);
+        long[] resultado = Arrays.copyOf(bits, Math.max(bits.length, otra.bits.length));
+        for (int w = 0; w < otra.bits.length; w++) {
+            resultado[w] |= otra.bits[w];
+        }
+        return new Seleccion(lectura, columnas, Math.max(filas, otra.filas), resultado);
+    }
+
+    public int contar() {
+        lectura.lock();
+        try {
+            return contarSinBloqueo();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    public long suma(ColumnaEntera columna) {
+        lectura.lock();
+        try {
+            int[] valores = columnas.enteros[columna.ordinal()];
+            long suma = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long palabra = bits[w] & columnas.vivas[w];
+                if (palabra == -1L) {
+                    // Palabra completa: bucle sin saltos sobre 64 valores seguidos
+                    for (int fila = w << 6, fin = fila + 64; fila < fin; fila++) {
+                        suma += valores[fila];
+                    }
+                    continue;
+                }
+                while (palabra != 0) {
+                    suma += valores[(w << 6) + Long.numberOfTrailingZeros(palabra)];
+                    palabra &= palabra - 1;
+                }
+            }
+            return suma;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Media de la columna; 0 si la selección está vacía
+    public double media(ColumnaEntera columna) {
+        int cantidad = contar();
+        return cantidad == 0 ? 0.0 : (double) suma(columna) / cantidad;
+    }
+
+    // Número de filas por valor, ordenado por valor (elementos por año, por número de páginas...)
+    public SortedMap<Integer, Long> contarPor(ColumnaEntera columna) {
+        lectura.lock();
+        try {
+            int[] valores = columnas.enteros[columna.ordinal()];
+            int minimo = Integer.MAX_VALUE;
+            int maximo = Integer.MIN_VALUE;
+            for (int w = 0; w < bits.length; w++) {
+                for (long palabra = bits[w] & columnas.vivas[w]; palabra != 0; palabra &= palabra - 1) {
+                    int valor = valores[(w << 6) + Long.numberOfTrailingZeros(palabra)];
+                    minimo = Math.min(minimo, valor);
+                    maximo = Math.max(maximo, valor);
+                }
+            }
+
+            SortedMap<Integer, Long> resultado = new TreeMap<>();
+            if (minimo > maximo) {
+                return resultado;
+            }
+            if ((long) maximo - minimo < RANGO_MAXIMO_DENSO) {
+                long[] cuentas = new long[maximo - minimo + 1];
+                for (int w = 0; w < bits.length; w++) {
+                    for (long palabra = bits[w] & columnas.vivas[w]; palabra != 0; palabra &= palabra - 1) {
+                        cuentas[valores[(w << 6) + Long.numberOfTrailingZeros(palabra)] - minimo]++;
+                    }
+                }
+                for (int i = 0; i < cuentas.length; i++) {
+                    if (cuentas[i] > 0) {
+                        resultado.put(minimo + i, cuentas[i]);
+                    }
+                }
+                return resultado;
+            }
+            Map<Integer, Long> cuentas = new HashMap<>();
+            for (int w = 0; w < bits.length; w++) {
+                for (long palabra = bits[w] & columnas.vivas[w]; palabra != 0; palabra &= palabra - 1) {
+                    cuentas.merge(valores[(w << 6) + Long.numberOfTrailingZeros(palabra)], 1L, Long::sum);
+                }
+            }
+            resultado.putAll(cuentas);
+            return resultado;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Número de filas por texto (null incluido), de más a menos frecuente
+    public Map<String, Long> contarPor(ColumnaTexto columna) {
+        return agrupar(null, columna);
+    }
+
+    // Suma de la columna por texto del grupo (duración total por género...), de mayor a menor
+    public Map<String, Long> sumaPor(ColumnaEntera valor, ColumnaTexto grupo) {
+        return agrupar(valor, grupo);
+    }
+
+    // Ids de las filas seleccionadas, en orden de fila
+    public int[] ids() {
+        lectura.lock();
+        try {
+            int[] valores = columnas.enteros[ColumnaEntera.ID.ordinal()];
+            int[] ids = new int[contarSinBloqueo()];
+            int i = 0;
+            for (int w = 0; w < bits.length; w++) {
+                for (long palabra = bits[w] & columnas.vivas[w]; palabra != 0; palabra &= palabra - 1) {
+                    ids[i++] = valores[(w << 6) + Long.numberOfTrailingZeros(palabra)];
+                }
+            }
+            return ids;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Sin columna de valor cuenta filas; con ella, suma sus valores. Acumula por código del
+    // diccionario en un long[] (la posición 0 es null) y traduce a texto al final
+    private Map<String, Long> agrupar(ColumnaEntera valor, ColumnaTexto grupo) {
+        lectura.lock();
+        try {
+            Diccionario diccionario = columnas.diccionarios[grupo.ordinal()];
+            int[] codigos = columnas.codigos[grupo.ordinal()];
+            int[] valores = valor != null ? columnas.enteros[valor.ordinal()] : null;
+            long[] acumulados = new long[diccionario.getTamano() + 1];
+            for (int w = 0; w < bits.length; w++) {
+                for (long palabra = bits[w] & columnas.vivas[w]; palabra != 0; palabra &= palabra - 1) {
+                    int fila = (w << 6) + Long.numberOfTrailingZeros(palabra);
+                    acumulados[codigos[fila] + 1] += valores != null ? valores[fila] : 1;
+                }
+            }
+
+            List<Integer> conDatos = new ArrayList<>();
+            for (int i = 0; i < acumulados.length; i++) {
+                if (acumulados[i] != 0) {
+                    conDatos.add(i);
+                }
+            }
+            conDatos.sort((a, b) -> Long.compare(acumulados[b], acumulados[a]));
+            Map<String, Long> resultado = new LinkedHashMap<>();
+            for (int i : conDatos) {
+                resultado.put(diccionario.valor(i - 1), acumulados[i]);
+            }
+            return resultado;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    private int contarSinBloqueo() {
+        int total = 0;
+        for (int w = 0; w < bits.length; w++) {
+            total += Long.bitCount(bits[w] & columnas.vivas[w]);
+        }
+        return total;
+    }
+
+    private Seleccion derivada(long[] resultado) {
+        return new Seleccion(lectura, columnas, filas, resultado);
+    }
+
+    private void comprobarMismaInstantanea(Seleccion otra) {
+        if (otra.columnas != columnas) {
+            throw new IllegalArgumentException("Las selecciones son de instantáneas distintas");
+        }
+    }
+}
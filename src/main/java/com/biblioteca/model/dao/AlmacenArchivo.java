@@ -0,0 +1,1073 @@
+// DAO: AlmacenArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Almacén embebido en un fichero, para los puestos que funcionan sin servidor MySQL. Es un registro de
+// solo añadir proyectado en memoria: cada grupo de altas, modificaciones o borrados se escribe al final
+// como un registro con su CRC32, y en memoria se guarda por tipo un índice id -> posición del último
+// estado. Al abrir se recorre el fichero para reconstruir el índice y se descarta lo que haya tras el
+// último registro íntegro. Cuando la mayor parte del fichero son estados superados se compacta en una
+// generación nueva que solo contiene lo vivo.
+//
+// Formato: cabecera "BIBL", versión y último id asignado; después registros
+// [longitud][crc32][número de operaciones][operaciones], cada operación precedida de su longitud.
+public final class AlmacenArchivo implements AutoCloseable {
+
+    private static final int FIRMA = 0x4249424C;
+    private static final int VERSION_FORMATO = 1;
+    private static final int CABECERA = 12;
+    private static final int CABECERA_REGISTRO = 8;
+    // clase, tipo, momento, id y versión
+    private static final int CABECERA_OPERACION = 22;
+
+    private static final byte GUARDAR = 1;
+    private static final byte ELIMINAR = 2;
+    private static final String[] TIPOS = {"LIBRO", "REVISTA", "DVD"};
+
+    private static final int PROYECCION_INICIAL = 4 << 20;
+    // Un MappedByteBuffer no pasa de Integer.MAX_VALUE bytes
+    private static final long TAMANO_MAXIMO = Integer.MAX_VALUE;
+    // Se compacta cuando más de la mitad del fichero son estados superados y pasa de este tamaño
+    private static final long MINIMO_COMPACTAR = 1 << 20;
+    // Tras compactar se conservan los borrados recientes, que obtenerCambiosDesde aún puede pedir
+    private static final long RETENCION_ELIMINADOS_MS = TimeUnit.DAYS.toMillis(7);
+    private static final long INTERVALO_SINCRONIZACION_MS = 1_000;
+    private static final long INTERVALO_COMPACTACION_MS = 300_000;
+
+    private static final String PREFIJO = "catalogo-";
+    private static final String EXTENSION = ".bibl";
+    private static final String TEMPORAL = ".tmp";
+
+    private static final InternadorCadenas INTERNADOR = InternadorCadenas.compartido();
+
+    // Un solo almacén por directorio en todo el proceso: lo comparten los DAO de los tres tipos
+    private static final Map<Path, AlmacenArchivo> ABIERTOS = new HashMap<>();
+
+    // Operación escrita en el fichero; posicion apunta a su contenido, tras la longitud
+    private static final class Entrada {
+        final int id;
+        final int posicion;
+        final int longitud;
+        final long momento;
+        final long version;
+
+        Entrada(int id, int posicion, int longitud, long momento, long version) {
+            this.id = id;
+            this.posicion = posicion;
+            this.longitud = longitud;
+            this.momento = momento;
+            this.version = version;
+        }
+
+        // Lo que ocupará tras compactar, con la operación sola en su registro
+        int ocupado() {
+            return CABECERA_REGISTRO + 8 + longitud;
+        }
+    }
+
+    // Operación de un registro ya validada, pendiente de aplicar con las demás del registro
+    private static final class OperacionLeida {
+        final byte clase;
+        final String tipo;
+        final Entrada entrada;
+
+        OperacionLeida(byte clase, String tipo, Entrada entrada) {
+            this.clase = clase;
+            this.tipo = tipo;
+            this.entrada = entrada;
+        }
+    }
+
+    // Último estado de cada id vivo de un tipo y sus borrados
+    private static final class Tabla {
+        final TreeMap<Integer, Entrada> vivos = new TreeMap<>();
+        final Map<Integer, Entrada> eliminados = new HashMap<>();
+    }
+
+    private final Path directorio;
+    private final FileChannel canalBloqueo;
+    private final FileLock bloqueo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Tabla> tablas = new LinkedHashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService mantenimiento;
+
+    // Todo lo siguiente se modifica con el cerrojo de escritura
+    private long generacion;
+    private Path fichero;
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private int fin;
+    private int ultimoId;
+    private long ultimoMomento;
+    private long bytesVivos;
+    private boolean pendienteSincronizar;
+    private boolean cerrado;
+    private volatile boolean sincronizarCadaEscritura;
+
+    public static synchronized AlmacenArchivo abrir(Path directorio) throws IOException {
+        Path clave = directorio.toAbsolutePath().normalize();
+        AlmacenArchivo almacen = ABIERTOS.get(clave);
+        if (almacen == null) {
+            almacen = new AlmacenArchivo(clave);
+            ABIERTOS.put(clave, almacen);
+        }
+        return almacen;
+    }
+
+    private AlmacenArchivo(Path directorio) throws IOException {
+        this.directorio = directorio;
+        for (String tipo : TIPOS) {
+            tablas.put(tipo, new Tabla());
+        }
+        Files.createDirectories(directorio);
+
+        // Dos procesos sobre el mismo fichero se pisarían los índices: el segundo no arranca
+        canalBloqueo = FileChannel.open(directorio.resolve("almacen.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock adquirido;
+        try {
+            adquirido = canalBloqueo.tryLock();
+        } catch (OverlappingFileLockException e) {
+            adquirido = null;
+        }
+        if (adquirido == null) {
+            canalBloqueo.close();
+            throw new IOException("El almacén " + directorio + " está abierto por otro proceso");
+        }
+        bloqueo = adquirido;
+
+        try {
+            abrirUltimaGeneracion();
+        } catch (IOException | RuntimeException e) {
+            if (canal != null) {
+                canal.close();
+            }
+            bloqueo.release();
+            canalBloqueo.close();
+            throw e;
+        }
+
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "almacen-archivo-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::sincronizarPendiente,
+                INTERVALO_SINCRONIZACION_MS, INTERVALO_SINCRONIZACION_MS, TimeUnit.MILLISECONDS);
+        mantenimiento.scheduleWithFixedDelay(this::compactarSiConviene,
+                INTERVALO_COMPACTACION_MS, INTERVALO_COMPACTACION_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Por defecto los cambios se llevan a disco cada segundo: un cierre brusco del proceso no pierde
+    // nada porque la proyección es del sistema, pero un corte de luz puede perder el último segundo.
+    // Con true cada escritura espera a estar en disco.
+    public AlmacenArchivo setSincronizarCadaEscritura(boolean sincronizarCadaEscritura) {
+        this.sincronizarCadaEscritura = sincronizarCadaEscritura;
+        return this;
+    }
+
+    public ElementoBiblioteca obtener(String tipo, int id) {
+        lock.readLock().lock();
+        try {
+            Entrada entrada = tabla(tipo).vivos.get(id);
+            return entrada == null ? null : leer(mapa, entrada);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean existe(String tipo, int id) {
+        lock.readLock().lock();
+        try {
+            return tabla(tipo).vivos.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Escribe altas (id < 0, reciben id nuevo) y modificaciones en un solo registro, así que tras un
+    // corte están todas o ninguna. Si alguna modificación no existe, o no viene de la versión guardada,
+    // no se escribe nada. La versión guardada es 1 en las altas y la anterior más uno en las
+    // modificaciones; la del elemento no se toca.
+    public void guardar(List<? extends ElementoBiblioteca> elementos) throws IOException, ConflictoVersionException {
+        if (elementos.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            comprobarAbierto();
+            for (ElementoBiblioteca elemento : elementos) {
+                if (elemento.getId() < 0) {
+                    continue;
+                }
+                Entrada entrada = tabla(elemento.getTipo()).vivos.get(elemento.getId());
+                if (entrada == null) {
+                    throw new NoSuchElementException("No se encontró el elemento con ID " + elemento.getId());
+                }
+                if (entrada.version != elemento.getVersion()) {
+                    throw new ConflictoVersionException(elemento, obtener(elemento.getTipo(), elemento.getId()));
+                }
+            }
+
+            long momento = reloj();
+            int siguienteId = ultimoId;
+            int[] ids = new int[elementos.size()];
+            long[] versiones = new long[elementos.size()];
+            int[] inicios = new int[elementos.size()];
+            int[] longitudes = new int[elementos.size()];
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(elementos.size() * 128);
+            DataOutputStream cuerpo = new DataOutputStream(bytes);
+            cuerpo.writeInt(elementos.size());
+            for (int i = 0; i < elementos.size(); i++) {
+                ElementoBiblioteca elemento = elementos.get(i);
+                boolean alta = elemento.getId() < 0;
+                ids[i] = alta ? ++siguienteId : elemento.getId();
+                versiones[i] = alta ? 1 : tabla(elemento.getTipo()).vivos.get(ids[i]).version + 1;
+                inicios[i] = cuerpo.size() + 4;
+                longitudes[i] = escribirOperacion(cuerpo, GUARDAR, elemento.getTipo(), momento, ids[i], versiones[i], elemento);
+            }
+
+            int posicion = anadir(bytes.toByteArray());
+            ultimoId = siguienteId;
+            for (int i = 0; i < elementos.size(); i++) {
+                ElementoBiblioteca elemento = elementos.get(i);
+                aplicar(GUARDAR, elemento.getTipo(),
+                        new Entrada(ids[i], posicion + inicios[i], longitudes[i], momento, versiones[i]));
+                elemento.setId(ids[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean eliminar(String tipo, int id) throws IOException {
+        return !eliminar(tipo, List.of(id)).isEmpty();
+    }
+
+    // Las bajas de varios ids van en un solo registro, como las altas de guardar: tras un corte están
+    // todas o ninguna. Los ids que no existen se ignoran; devuelve los que se han borrado.
+    public List<Integer> eliminar(String tipo, Collection<Integer> ids) throws IOException {
+        lock.writeLock().lock();
+        try {
+            comprobarAbierto();
+            Tabla tabla = tabla(tipo);
+            List<Integer> existentes = new ArrayList<>(ids.size());
+            for (int id : new LinkedHashSet<>(ids)) {
+                if (tabla.vivos.containsKey(id)) {
+                    existentes.add(id);
+                }
+            }
+            if (existentes.isEmpty()) {
+                return existentes;
+            }
+            long momento = reloj();
+            int[] inicios = new int[existentes.size()];
+            int[] longitudes = new int[existentes.size()];
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(existentes.size() * (CABECERA_OPERACION + 8) + 4);
+            DataOutputStream cuerpo = new DataOutputStream(bytes);
+            cuerpo.writeInt(existentes.size());
+            for (int i = 0; i < existentes.size(); i++) {
+                inicios[i] = cuerpo.size() + 4;
+                longitudes[i] = escribirOperacion(cuerpo, ELIMINAR, tipo, momento, existentes.get(i), 0, null);
+            }
+
+            int posicion = anadir(bytes.toByteArray());
+            for (int i = 0; i < existentes.size(); i++) {
+                aplicar(ELIMINAR, tipo, new Entrada(existentes.get(i), posicion + inicios[i], longitudes[i], momento, 0));
+            }
+            return existentes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Número de elementos vivos del tipo, o de todos con tipo null
+    public int contar(String tipo) {
+        lock.readLock().lock();
+        try {
+            if (tipo != null) {
+                return tabla(tipo).vivos.size();
+            }
+            int total = 0;
+            for (Tabla tabla : tablas.values()) {
+                total += tabla.vivos.size();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Los elementos con id mayor que despuesDeId, en orden de id
+    public List<ElementoBiblioteca> pagina(String tipo, int despuesDeId, int limite) {
+        lock.readLock().lock();
+        try {
+            List<ElementoBiblioteca> pagina = new ArrayList<>(Math.min(limite, 1000));
+            Iterator<Entrada> it = tabla(tipo).vivos.tailMap(despuesDeId, false).values().iterator();
+            while (it.hasNext() && pagina.size() < limite) {
+                pagina.add(leer(mapa, it.next()));
+            }
+            return pagina;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Página por posición; el salto recorre el índice en memoria, sin leer los elementos saltados
+    public List<ElementoBiblioteca> paginaPorPosicion(String tipo, int posicion, int limite) {
+        lock.readLock().lock();
+        try {
+            List<ElementoBiblioteca> pagina = new ArrayList<>(Math.min(limite, 1000));
+            Iterator<Entrada> it = tabla(tipo).vivos.values().iterator();
+            for (int i = 0; i < posicion && it.hasNext(); i++) {
+                it.next();
+            }
+            while (it.hasNext() && pagina.size() < limite) {
+                pagina.add(leer(mapa, it.next()));
+            }
+            return pagina;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Elementos vivos del tipo (o de todos con tipo null) en orden de id, leídos al avanzar. Las
+    // posiciones se toman al llamar: el recorrido no bloquea las escrituras ni ve las posteriores.
+    public Iterator<ElementoBiblioteca> recorrer(String tipo) {
+        Entrada[] entradas;
+        ByteBuffer vista;
+        lock.readLock().lock();
+        try {
+            entradas = entradasVivas(tipo);
+            vista = mapa;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Iterator<ElementoBiblioteca>() {
+            private int siguiente;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < entradas.length;
+            }
+
+            @Override
+            public ElementoBiblioteca next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return leer(vista, entradas[siguiente++]);
+            }
+        };
+    }
+
+    // Hora de este almacén en milisegundos; nunca retrocede aunque lo haga el reloj del sistema
+    public long getMomentoActual() {
+        lock.readLock().lock();
+        try {
+            return Math.max(System.currentTimeMillis(), ultimoMomento);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Elementos del tipo guardados en el momento indicado o después, en orden de id
+    public List<ElementoBiblioteca> modificadosDesde(String tipo, long momento) {
+        lock.readLock().lock();
+        try {
+            List<ElementoBiblioteca> modificados = new ArrayList<>();
+            for (Entrada entrada : tabla(tipo).vivos.values()) {
+                if (entrada.momento >= momento) {
+                    modificados.add(leer(mapa, entrada));
+                }
+            }
+            return modificados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> eliminadosDesde(String tipo, long momento) {
+        lock.readLock().lock();
+        try {
+            List<Integer> eliminados = new ArrayList<>();
+            for (Entrada entrada : tabla(tipo).eliminados.values()) {
+                if (entrada.momento >= momento) {
+                    eliminados.add(entrada.id);
+                }
+            }
+            Collections.sort(eliminados);
+            return eliminados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getTamanoFichero() {
+        lock.readLock().lock();
+        try {
+            return fin;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lo que ocuparía el fichero recién compactado
+    public long getBytesVivos() {
+        lock.readLock().lock();
+        try {
+            return CABECERA + bytesVivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reescribe en una generación nueva solo el último estado de cada elemento y los borrados recientes.
+    // Se escribe en un temporal, se sincroniza y se renombra; hasta el renombrado la generación anterior
+    // sigue siendo la buena, así que un corte a mitad no pierde nada.
+    public void compactar() throws IOException {
+        lock.writeLock().lock();
+        try {
+            comprobarAbierto();
+            long nuevaGeneracion = generacion + 1;
+            Path destino = rutaGeneracion(nuevaGeneracion);
+            Path temporal = destino.resolveSibling(destino.getFileName() + TEMPORAL);
+            long limiteEliminados = reloj() - RETENCION_ELIMINADOS_MS;
+
+            Map<String, Tabla> nuevas = new LinkedHashMap<>();
+            int posicion = CABECERA;
+            try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream datos = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(salida), 1 << 16));
+                datos.writeInt(FIRMA);
+                datos.writeInt(VERSION_FORMATO);
+                // Guarda el último id para no repetirlo aunque el elemento que lo tenía ya no esté
+                datos.writeInt(ultimoId);
+
+                for (Map.Entry<String, Tabla> tipo : tablas.entrySet()) {
+                    Tabla nueva = new Tabla();
+                    for (Entrada entrada : tipo.getValue().vivos.values()) {
+                        nueva.vivos.put(entrada.id, copiarOperacion(datos, entrada, posicion));
+                        posicion += entrada.ocupado();
+                    }
+                    for (Entrada entrada : tipo.getValue().eliminados.values()) {
+                        if (entrada.momento >= limiteEliminados) {
+                            nueva.eliminados.put(entrada.id, copiarOperacion(datos, entrada, posicion));
+                            posicion += entrada.ocupado();
+                        }
+                    }
+                    nuevas.put(tipo.getKey(), nueva);
+                }
+                datos.flush();
+                salida.force(true);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporal);
+                throw e;
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+
+            FileChannel anterior = canal;
+            Path ficheroAnterior = fichero;
+            try {
+                canal = FileChannel.open(destino, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidadPara(posicion));
+            } catch (IOException | RuntimeException e) {
+                // La generación nueva ya es la que se abrirá la próxima vez: escribir en la anterior
+                // perdería esos cambios, así que el almacén deja de admitir escrituras
+                cerrado = true;
+                throw e;
+            }
+            generacion = nuevaGeneracion;
+            fichero = destino;
+            fin = posicion;
+            bytesVivos = posicion - CABECERA;
+            tablas.putAll(nuevas);
+            pendienteSincronizar = false;
+
+            // Los recorridos en curso conservan su proyección, que sigue siendo válida sin el canal
+            anterior.close();
+            borrarSiSePuede(ficheroAnterior);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lleva a disco lo pendiente, para el hilo de mantenimiento y el cierre
+    public void sincronizar() {
+        lock.writeLock().lock();
+        try {
+            if (pendienteSincronizar && !cerrado) {
+                mapa.force();
+                pendienteSincronizar = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (AlmacenArchivo.class) {
+            ABIERTOS.remove(directorio, this);
+        }
+        mantenimiento.shutdown();
+        lock.writeLock().lock();
+        try {
+            if (canal != null && canal.isOpen()) {
+                mapa.force();
+                canal.close();
+            }
+            cerrado = true;
+        } finally {
+            lock.writeLock().unlock();
+            bloqueo.release();
+            canalBloqueo.close();
+        }
+    }
+
+    // Ejercita la recuperación sobre un directorio vacío y devuelve lo que no se comportó como debe:
+    // una cola rota (CRC distinto) se descarta y se pone a cero sin perder los registros anteriores
+    // ni las escrituras posteriores, y un registro con CRC correcto pero con una operación ilegible
+    // no deja a medias ninguna de las suyas.
+    public static List<String> comprobarRecuperacion(Path directorio) throws IOException {
+        List<String> fallos = new ArrayList<>();
+        Path ruta;
+        int inicioB;
+        int inicioC;
+        int finC;
+        Libro a = new Libro("A", "Autor", 2001, "isbn-a", 100, "Ensayo", "Editorial");
+        Libro b1 = new Libro("B1", "Autor", 2002, "isbn-b1", 200, "Ensayo", "Editorial");
+        Libro b2 = new Libro("B2", "Autor", 2003, "isbn-b2", 300, "Ensayo", "Editorial");
+        Libro c = new Libro("C", "Autor", 2004, "isbn-c", 400, "Ensayo", "Editorial");
+        Libro d = new Libro("D", "Autor", 2005, "isbn-d", 500, "Ensayo", "Editorial");
+        try (AlmacenArchivo almacen = abrir(directorio)) {
+            if (almacen.contar("LIBRO") != 0) {
+                throw new IOException("La comprobación necesita un directorio vacío: " + directorio);
+            }
+            almacen.guardar(List.of(a));
+            inicioB = almacen.fin;
+            almacen.guardar(List.of(b1, b2));
+            inicioC = almacen.fin;
+            almacen.guardar(List.of(c));
+            finC = almacen.fin;
+            ruta = almacen.fichero;
+        } catch (ConflictoVersionException e) {
+            throw new IOException(e);
+        }
+
+        // Cola rota: un byte del cuerpo de C cambia y su CRC ya no cuadra
+        byte[] contenido = Files.readAllBytes(ruta);
+        contenido[inicioC + CABECERA_REGISTRO + 8] ^= 0x5A;
+        Files.write(ruta, contenido);
+        try (AlmacenArchivo almacen = abrir(directorio)) {
+            comprobarPresentes(almacen, fallos, "cola rota", a, b1, b2);
+            comprobarAusentes(almacen, fallos, "cola rota", c);
+            if (almacen.fin != inicioC) {
+                fallos.add("cola rota: el final queda en " + almacen.fin + " en vez de " + inicioC);
+            }
+            contenido = Files.readAllBytes(ruta);
+            for (int i = inicioC; i < finC; i++) {
+                if (contenido[i] != 0) {
+                    fallos.add("cola rota: quedan restos del registro descartado en la posición " + i);
+                    break;
+                }
+            }
+            almacen.guardar(List.of(d));
+        } catch (ConflictoVersionException e) {
+            throw new IOException(e);
+        }
+        try (AlmacenArchivo almacen = abrir(directorio)) {
+            comprobarPresentes(almacen, fallos, "escritura tras la recuperación", a, b1, b2, d);
+        }
+        contenido = Files.readAllBytes(ruta);
+
+        // Registro con CRC correcto y su segunda operación ilegible: no se aplica ninguna de las dos
+        ByteBuffer vista = ByteBuffer.wrap(contenido);
+        int cuerpoB = inicioB + CABECERA_REGISTRO;
+        int segundaB = cuerpoB + 4 + 4 + vista.getInt(cuerpoB + 4) + 4;
+        contenido[segundaB] = 0x7F;
+        CRC32 crcB = new CRC32();
+        crcB.update(contenido, cuerpoB, vista.getInt(inicioB));
+        vista.putInt(inicioB + 4, (int) crcB.getValue());
+        Files.write(ruta, contenido);
+        try (AlmacenArchivo almacen = abrir(directorio)) {
+            comprobarPresentes(almacen, fallos, "operación ilegible", a);
+            comprobarAusentes(almacen, fallos, "operación ilegible", b1, b2, d);
+        }
+        return fallos;
+    }
+
+    private static void comprobarPresentes(AlmacenArchivo almacen, List<String> fallos, String caso,
+                                           ElementoBiblioteca... elementos) {
+        for (ElementoBiblioteca elemento : elementos) {
+            ElementoBiblioteca leido = almacen.obtener(elemento.getTipo(), elemento.getId());
+            if (leido == null || !elemento.getTitulo().equals(leido.getTitulo())) {
+                fallos.add(caso + ": falta " + elemento.getTitulo() + " (ID " + elemento.getId() + ")");
+            }
+        }
+    }
+
+    private static void comprobarAusentes(AlmacenArchivo almacen, List<String> fallos, String caso,
+                                          ElementoBiblioteca... elementos) {
+        for (ElementoBiblioteca elemento : elementos) {
+            if (almacen.existe(elemento.getTipo(), elemento.getId())) {
+                fallos.add(caso + ": " + elemento.getTitulo() + " (ID " + elemento.getId() + ") no debería estar");
+            }
+        }
+    }
+
+    // Uso: AlmacenArchivo, sin argumentos. Comprueba la recuperación en un directorio temporal
+    public static void main(String[] args) {
+        try {
+            Path directorio = Files.createTempDirectory("almacen-recuperacion");
+            List<String> fallos = comprobarRecuperacion(directorio);
+            for (String fallo : fallos) {
+                System.err.println("Fallo de recuperación: " + fallo);
+            }
+            if (!fallos.isEmpty()) {
+                System.exit(1);
+            }
+            System.out.println("Recuperación comprobada en " + directorio);
+        } catch (IOException e) {
+            System.err.println("No se pudo comprobar la recuperación: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void abrirUltimaGeneracion() throws IOException {
+        List<Path> generaciones = new ArrayList<>();
+        long ultima = 0;
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio, PREFIJO + "*")) {
+            for (Path ruta : contenido) {
+                String nombre = ruta.getFileName().toString();
+                if (nombre.endsWith(TEMPORAL)) {
+                    // Compactación interrumpida: la generación anterior sigue completa
+                    Files.deleteIfExists(ruta);
+                } else if (generacionDe(nombre) > 0) {
+                    generaciones.add(ruta);
+                    ultima = Math.max(ultima, generacionDe(nombre));
+                }
+            }
+        }
+        generacion = Math.max(ultima, 1);
+        fichero = rutaGeneracion(generacion);
+        for (Path ruta : generaciones) {
+            if (!ruta.equals(fichero)) {
+                // Restos de una compactación que no pudo borrar el fichero anterior
+                borrarSiSePuede(ruta);
+            }
+        }
+
+        canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long tamano = canal.size();
+        if (tamano > TAMANO_MAXIMO) {
+            throw new IOException("El almacén " + fichero + " supera el tamaño máximo de " + TAMANO_MAXIMO + " bytes");
+        }
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidadPara(tamano));
+        if (tamano < CABECERA || mapa.getInt(0) == 0) {
+            mapa.putInt(0, FIRMA).putInt(4, VERSION_FORMATO).putInt(8, 0);
+            mapa.force();
+            fin = CABECERA;
+            return;
+        }
+        if (mapa.getInt(0) != FIRMA) {
+            throw new IOException(fichero + " no es un almacén de la biblioteca");
+        }
+        if (mapa.getInt(4) != VERSION_FORMATO) {
+            throw new IOException("Versión de almacén no soportada: " + mapa.getInt(4));
+        }
+        ultimoId = mapa.getInt(8);
+        recuperar((int) tamano);
+    }
+
+    // Reconstruye los índices leyendo de principio a fin. Se detiene en el primer registro vacío (fin
+    // normal) o que no cuadra: longitud imposible o CRC distinto, lo que deja una escritura a medias.
+    // Desde ahí se pone todo a cero para que ningún resto posterior, escrito antes del corte, pase por
+    // un registro válido cuando las escrituras nuevas lleguen a su altura.
+    private void recuperar(int tamano) {
+        int posicion = CABECERA;
+        boolean danado = false;
+        while (posicion <= tamano - CABECERA_REGISTRO) {
+            int longitud = mapa.getInt(posicion);
+            if (longitud == 0) {
+                break;
+            }
+            int cuerpo = posicion + CABECERA_REGISTRO;
+            if (longitud < 4 || longitud > tamano - cuerpo || crcDe(cuerpo, longitud) != mapa.getInt(posicion + 4)) {
+                danado = true;
+                break;
+            }
+            try {
+                aplicarRegistro(cuerpo, longitud);
+            } catch (RuntimeException e) {
+                danado = true;
+                break;
+            }
+            posicion = cuerpo + longitud;
+        }
+        fin = posicion;
+
+        if (danado) {
+            System.err.println("Almacén " + fichero + ": se descarta un registro incompleto en la posición "
+                    + posicion + " y lo que le sigue (" + (tamano - posicion) + " bytes)");
+            byte[] ceros = new byte[1 << 16];
+            for (int desde = posicion; desde < tamano; desde += ceros.length) {
+                mapa.put(desde, ceros, 0, Math.min(ceros.length, tamano - desde));
+            }
+            mapa.force();
+        }
+    }
+
+    // Un registro se aplica entero o no se aplica: primero se leen y validan todas sus operaciones y
+    // solo si todas cuadran se pasan a los índices. Si no, el registro se trata como dañado.
+    private void aplicarRegistro(int cuerpo, int longitud) {
+        int finRegistro = cuerpo + longitud;
+        int operaciones = mapa.getInt(cuerpo);
+        if (operaciones < 1 || operaciones > longitud / CABECERA_OPERACION) {
+            throw new IllegalStateException("Número de operaciones imposible en la posición " + cuerpo + ": " + operaciones);
+        }
+        List<OperacionLeida> leidas = new ArrayList<>(operaciones);
+        int posicion = cuerpo + 4;
+        for (int i = 0; i < operaciones; i++) {
+            int longitudOperacion = mapa.getInt(posicion);
+            posicion += 4;
+            if (longitudOperacion < CABECERA_OPERACION || longitudOperacion > finRegistro - posicion) {
+                throw new IllegalStateException("Operación fuera del registro en la posición " + posicion);
+            }
+            byte clase = mapa.get(posicion);
+            if (clase != GUARDAR && clase != ELIMINAR) {
+                throw new IllegalStateException("Operación desconocida en el almacén: " + clase);
+            }
+            leidas.add(new OperacionLeida(clase, tipoDe(mapa.get(posicion + 1)),
+                    new Entrada(mapa.getInt(posicion + 10), posicion, longitudOperacion,
+                            mapa.getLong(posicion + 2), mapa.getLong(posicion + 14))));
+            posicion += longitudOperacion;
+        }
+        for (OperacionLeida leida : leidas) {
+            aplicar(leida.clase, leida.tipo, leida.entrada);
+        }
+    }
+
+    private void aplicar(byte clase, String tipo, Entrada entrada) {
+        Tabla tabla = tabla(tipo);
+        Entrada anterior;
+        if (clase == GUARDAR) {
+            anterior = tabla.vivos.put(entrada.id, entrada);
+        } else if (clase == ELIMINAR) {
+            anterior = tabla.vivos.remove(entrada.id);
+            Entrada eliminadoAnterior = tabla.eliminados.put(entrada.id, entrada);
+            if (eliminadoAnterior != null) {
+                bytesVivos -= eliminadoAnterior.ocupado();
+            }
+        } else {
+            throw new IllegalStateException("Operación desconocida en el almacén: " + clase);
+        }
+        if (anterior != null) {
+            bytesVivos -= anterior.ocupado();
+        }
+        bytesVivos += entrada.ocupado();
+        ultimoId = Math.max(ultimoId, entrada.id);
+        ultimoMomento = Math.max(ultimoMomento, entrada.momento);
+    }
+
+    // Añade un registro al final y devuelve la posición de su cuerpo. La longitud se escribe la última:
+    // mientras vale cero el registro no existe para la recuperación.
+    private int anadir(byte[] cuerpo) throws IOException {
+        int total = CABECERA_REGISTRO + cuerpo.length;
+        if ((long) fin + total > mapa.capacity()) {
+            if ((long) fin + total > TAMANO_MAXIMO) {
+                throw new IOException("El almacén " + fichero + " ha llegado al tamaño máximo de " + TAMANO_MAXIMO + " bytes");
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidadPara((long) fin + total));
+        }
+        int posicion = fin;
+        crc.reset();
+        crc.update(cuerpo);
+        mapa.put(posicion + CABECERA_REGISTRO, cuerpo);
+        mapa.putInt(posicion + 4, (int) crc.getValue());
+        mapa.putInt(posicion, cuerpo.length);
+        fin += total;
+
+        if (sincronizarCadaEscritura) {
+            mapa.force(posicion, total);
+        } else {
+            pendienteSincronizar = true;
+        }
+        return posicion + CABECERA_REGISTRO;
+    }
+
+    // Copia la operación tal cual, sola en un registro nuevo que empieza en posicion
+    private Entrada copiarOperacion(DataOutputStream salida, Entrada entrada, int posicion) throws IOException {
+        byte[] operacion = new byte[entrada.longitud];
+        mapa.get(entrada.posicion, operacion);
+        ByteBuffer prefijo = ByteBuffer.allocate(8).putInt(0, 1).putInt(4, operacion.length);
+        crc.reset();
+        crc.update(prefijo);
+        crc.update(operacion);
+
+        salida.writeInt(8 + operacion.length);
+        salida.writeInt((int) crc.getValue());
+        salida.writeInt(1);
+        salida.writeInt(operacion.length);
+        salida.write(operacion);
+        return new Entrada(entrada.id, posicion + CABECERA_REGISTRO + 8, entrada.longitud,
+                entrada.momento, entrada.version);
+    }
+
+    private void compactarSiConviene() {
+        boolean conviene;
+        lock.readLock().lock();
+        try {
+            conviene = !cerrado && fin > MINIMO_COMPACTAR && fin - CABECERA > 2 * bytesVivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!conviene) {
+            return;
+        }
+        try {
+            compactar();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al compactar el almacén " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    private void sincronizarPendiente() {
+        try {
+            sincronizar();
+        } catch (RuntimeException e) {
+            System.err.println("Error al sincronizar el almacén " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    private Entrada[] entradasVivas(String tipo) {
+        if (tipo != null) {
+            return tabla(tipo).vivos.values().toArray(new Entrada[0]);
+        }
+        List<Entrada> todas = new ArrayList<>();
+        for (Tabla tabla : tablas.values()) {
+            todas.addAll(tabla.vivos.values());
+        }
+        Entrada[] entradas = todas.toArray(new Entrada[0]);
+        Arrays.sort(entradas, Comparator.comparingInt(entrada -> entrada.id));
+        return entradas;
+    }
+
+    private Tabla tabla(String tipo) {
+        Tabla tabla = tablas.get(tipo);
+        if (tabla == null) {
+            throw new IllegalArgumentException("Tipo de elemento desconocido: " + tipo);
+        }
+        return tabla;
+    }
+
+    private long reloj() {
+        ultimoMomento = Math.max(System.currentTimeMillis(), ultimoMomento);
+        return ultimoMomento;
+    }
+
+    private int crcDe(int posicion, int longitud) {
+        crc.reset();
+        crc.update(mapa.slice(posicion, longitud));
+        return (int) crc.getValue();
+    }
+
+    private void comprobarAbierto() throws IOException {
+        if (cerrado) {
+            throw new IOException("El almacén " + directorio + " está cerrado");
+        }
+    }
+
+    private Path rutaGeneracion(long numero) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO, numero, EXTENSION));
+    }
+
+    private static long generacionDe(String nombre) {
+        if (!nombre.startsWith(PREFIJO) || !nombre.endsWith(EXTENSION)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // El fichero crece duplicando la proyección, sin pasar del máximo
+    private static long capacidadPara(long bytes) {
+        long capacidad = PROYECCION_INICIAL;
+        while (capacidad < bytes) {
+            capacidad *= 2;
+        }
+        return Math.min(capacidad, TAMANO_MAXIMO);
+    }
+
+    // En Windows no se puede borrar un fichero proyectado; queda para la próxima apertura
+    private static void borrarSiSePuede(Path ruta) {
+        try {
+            Files.deleteIfExists(ruta);
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar " + ruta + ", se borrará en la próxima apertura: " + e.getMessage());
+        }
+    }
+
+    private static byte codigoTipo(String tipo) {
+        for (int i = 0; i < TIPOS.length; i++) {
+            if (TIPOS[i].equals(tipo)) {
+                return (byte) (i + 1);
+            }
+        }
+        throw new IllegalArgumentException("Tipo de elemento desconocido: " + tipo);
+    }
+
+    private static String tipoDe(byte codigo) {
+        if (codigo < 1 || codigo > TIPOS.length) {
+            throw new IllegalStateException("Código de tipo desconocido en el almacén: " + codigo);
+        }
+        return TIPOS[codigo - 1];
+    }
+
+    // Escribe la operación precedida de su longitud y devuelve esa longitud
+    private static int escribirOperacion(DataOutputStream salida, byte clase, String tipo, long momento,
+                                         int id, long version, ElementoBiblioteca elemento) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream operacion = new DataOutputStream(bytes);
+        operacion.writeByte(clase);
+        operacion.writeByte(codigoTipo(tipo));
+        operacion.writeLong(momento);
+        operacion.writeInt(id);
+        operacion.writeLong(version);
+        if (elemento != null) {
+            escribirTexto(operacion, elemento.getTitulo());
+            escribirTexto(operacion, elemento.getAutor());
+            operacion.writeInt(elemento.getAnoPublicacion());
+            if (elemento instanceof Libro libro) {
+                escribirTexto(operacion, libro.getIsbn());
+                operacion.writeInt(libro.getNumeroPaginas());
+                escribirTexto(operacion, libro.getGenero());
+                escribirTexto(operacion, libro.getEditorial());
+            } else if (elemento instanceof Revista revista) {
+                operacion.writeInt(revista.getNumeroEdicion());
+                escribirTexto(operacion, revista.getCategoria());
+            } else if (elemento instanceof DVD dvd) {
+                operacion.writeInt(dvd.getDuracion());
+                escribirTexto(operacion, dvd.getGenero());
+            } else {
+                throw new IllegalArgumentException("Tipo de elemento no soportado: " + elemento.getClass().getName());
+            }
+        }
+        salida.writeInt(bytes.size());
+        bytes.writeTo(salida);
+        return bytes.size();
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static ElementoBiblioteca leer(ByteBuffer vista, Entrada entrada) {
+        Lector lector = new Lector(vista, entrada.posicion + CABECERA_OPERACION);
+        String titulo = lector.texto();
+        String autor = INTERNADOR.internar(lector.texto());
+        int anoPublicacion = lector.entero();
+
+        ElementoBiblioteca elemento;
+        switch (tipoDe(vista.get(entrada.posicion + 1))) {
+            case "LIBRO" -> {
+                String isbn = lector.texto();
+                int numeroPaginas = lector.entero();
+                String genero = INTERNADOR.internar(lector.texto());
+                String editorial = INTERNADOR.internar(lector.texto());
+                elemento = new Libro(entrada.id, titulo, autor, anoPublicacion, isbn, numeroPaginas, genero, editorial);
+            }
+            case "REVISTA" -> {
+                int numeroEdicion = lector.entero();
+                String categoria = INTERNADOR.internar(lector.texto());
+                elemento = new Revista(entrada.id, titulo, autor, anoPublicacion, numeroEdicion, categoria);
+            }
+            case "DVD" -> {
+                int duracion = lector.entero();
+                String genero = INTERNADOR.internar(lector.texto());
+                elemento = new DVD(entrada.id, titulo, autor, anoPublicacion, duracion, genero);
+            }
+            default -> throw new IllegalStateException("Tipo sin lectura en el almacén: " + entrada.id);
+        }
+        elemento.setVersion(entrada.version);
+        return elemento;
+    }
+
+    // Lectura secuencial con gets absolutos: no toca la posición de la proyección compartida
+    private static final class Lector {
+        private final ByteBuffer vista;
+        private int posicion;
+
+        Lector(ByteBuffer vista, int posicion) {
+            this.vista = vista;
+            this.posicion = posicion;
+        }
+
+        int entero() {
+            int valor = vista.getInt(posicion);
+            posicion += 4;
+            return valor;
+        }
+
+        String texto() {
+            int longitud = entero();
+            if (longitud < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[longitud];
+            vista.get(posicion, bytes);
+            posicion += longitud;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+// DAO: CacheEntidades.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caché LRU acotada por número de entradas y con caducidad opcional
+public class CacheEntidades<T extends ElementoBiblioteca> {
+
+    // Ids cuyo último cambio se recuerda para guardarLeido; los olvidados cuentan como cambiados
+    private static final int MAXIMO_CAMBIOS = 4096;
+
+    // Instantánea de los contadores de la caché
+    public static class Estadisticas {
+        private final long aciertos;
+        private final long fallos;
+        private final long desalojos;
+        private final long caducados;
+        private final int tamano;
+
+        Estadisticas(long aciertos, long fallos, long desalojos, long caducados, int tamano) {
+            this.aciertos = aciertos;
+            this.fallos = fallos;
+            this.desalojos = desalojos;
+            this.caducados = caducados;
+            this.tamano = tamano;
+        }
+
+        public long getAciertos() {
+            return aciertos;
+        }
+
+        public long getFallos() {
+            return fallos;
+        }
+
+        public long getDesalojos() {
+            return desalojos;
+        }
+
+        public long getCaducados() {
+            return caducados;
+        }
+
+        public int getTamano() {
+            return tamano;
+        }
+
+        public double getTasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0.0 : (double) aciertos / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Caché [aciertos=" + aciertos + ", fallos=" + fallos +
+                    ", desalojos=" + desalojos + ", caducados=" + caducados +
+                    ", tamaño=" + tamano + "]";
+        }
+    }
+
+    private static class Entrada<T> {
+        final T valor;
+        final long caduca;
+
+        Entrada(T valor, long caduca) {
+            this.valor = valor;
+            this.caduca = caduca;
+        }
+    }
+
+    private final int tamanoMaximo;
+    private final long ttlMs;
+    private final LinkedHashMap<Integer, Entrada<T>> entradas;
+
+    // Cada guardar, invalidar o limpiar sube la generación. Una lectura de la base de datos toma la
+    // marca antes de consultar y guardarLeido la descarta si su id cambió desde entonces: así una
+    // lectura lenta no pisa lo que otro hilo escribió ni devuelve a la caché un elemento borrado.
+    private long generacion;
+    private long generacionOlvidada;
+    private final LinkedHashMap<Integer, Long> cambios;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong caducados = new AtomicLong();
+
+    // ttlMs <= 0 significa que las entradas no caducan
+    public CacheEntidades(int tamanoMaximo, long ttlMs) {
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlMs = ttlMs;
+        // Orden de acceso: la entrada más antigua es la menos usada recientemente
+        this.entradas = new LinkedHashMap<Integer, Entrada<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entrada<T>> eldest) {
+                if (size() > CacheEntidades.this.tamanoMaximo) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.cambios = new LinkedHashMap<Integer, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                if (size() > MAXIMO_CAMBIOS) {
+                    generacionOlvidada = Math.max(generacionOlvidada, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized T obtener(int id) {
+        Entrada<T> entrada = entradas.get(id);
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        if (entrada.caduca > 0 && entrada.caduca < System.currentTimeMillis()) {
+            entradas.remove(id);
+            caducados.incrementAndGet();
+            fallos.incrementAndGet();
+            return null;
+        }
+        aciertos.incrementAndGet();
+        return entrada.valor;
+    }
+
+    // Como obtener, pero sin contar acierto ni fallo: para comprobar qué hay, no para servir una lectura
+    public synchronized T mirar(int id) {
+        Entrada<T> entrada = entradas.get(id);
+        return entrada == null || entrada.caduca > 0 && entrada.caduca < System.currentTimeMillis() ? null : entrada.valor;
+    }
+
+    // Para lo que se acaba de escribir: sustituye lo que hubiera
+    public synchronized void guardar(int id, T valor) {
+        cambios.put(id, ++generacion);
+        if (tamanoMaximo <= 0) {
+            return;
+        }
+        long caduca = ttlMs > 0 ? System.currentTimeMillis() + ttlMs : 0;
+        entradas.put(id, new Entrada<>(valor, caduca));
+    }
+
+    // Marca que se toma antes de leer de la base de datos, para pasarla después a guardarLeido
+    public synchronized long marca() {
+        return generacion;
+    }
+
+    // Para lo que se ha leído de la base de datos: solo entra si el id no ha cambiado desde la marca
+    // y la caché no tiene ya una versión igual o más nueva. Devuelve si se ha guardado.
+    public synchronized boolean guardarLeido(int id, T valor, long marca) {
+        if (tamanoMaximo <= 0 || marca < generacionOlvidada) {
+            return false;
+        }
+        Long cambio = cambios.get(id);
+        if (cambio != null && cambio > marca) {
+            return false;
+        }
+        Entrada<T> actual = entradas.get(id);
+        if (actual != null && actual.valor.getVersion() >= valor.getVersion()) {
+            return false;
+        }
+        long caduca = ttlMs > 0 ? System.currentTimeMillis() + ttlMs : 0;
+        entradas.put(id, new Entrada<>(valor, caduca));
+        return true;
+    }
+
+    public synchronized void invalidar(int id) {
+        cambios.put(id, ++generacion);
+        entradas.remove(id);
+    }
+
+    public synchronized void limpiar() {
+        generacionOlvidada = ++generacion;
+        cambios.clear();
+        entradas.clear();
+    }
+
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    public int getTamanoMaximo() {
+        return tamanoMaximo;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(aciertos.get(), fallos.get(), desalojos.get(), caducados.get(), getTamano());
+    }
+}
@@ -0,0 +1,50 @@
+// DAO: Cambios.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+// Delta de un tipo desde una sincronización anterior: elementos insertados o modificados (en orden
+// de id), ids eliminados y la marca desde la que pedir el siguiente delta
+public class Cambios<T extends ElementoBiblioteca> {
+    private final List<T> modificados;
+    private final List<Integer> eliminados;
+    private final int total;
+    private final Timestamp marca;
+
+    Cambios(List<T> modificados, List<Integer> eliminados, int total, Timestamp marca) {
+        this.modificados = modificados;
+        this.eliminados = eliminados;
+        this.total = total;
+        this.marca = marca;
+    }
+
+    public List<T> getModificados() {
+        return Collections.unmodifiableList(modificados);
+    }
+
+    public List<Integer> getEliminados() {
+        return Collections.unmodifiableList(eliminados);
+    }
+
+    // Número de elementos del tipo tras los cambios; -1 si no hubo cambios y no se contó
+    public int getTotal() {
+        return total;
+    }
+
+    public Timestamp getMarca() {
+        return marca;
+    }
+
+    public boolean isVacio() {
+        return modificados.isEmpty() && eliminados.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Cambios [modificados=" + modificados.size() + ", eliminados=" + eliminados.size() +
+                ", total=" + total + ", marca=" + marca + "]";
+    }
+}
@@ -0,0 +1,60 @@
+// DAO: Campo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.util.function.Function;
+
+// Columna por la que un Criterio puede filtrar y ordenar. T es el tipo que la tiene, así que
+// Campo.ISBN solo se acepta en un Criterio<Libro>; V es el tipo de los valores que se comparan.
+// Lleva la columna para compilar el SQL y el getter para evaluar el mismo criterio en memoria.
+public final class Campo<T extends ElementoBiblioteca, V extends Comparable<? super V>> {
+
+    public static final Campo<ElementoBiblioteca, Integer> ID =
+            new Campo<>("id", "e.id", ElementoBiblioteca::getId);
+    public static final Campo<ElementoBiblioteca, String> TITULO =
+            new Campo<>("titulo", "e.titulo", ElementoBiblioteca::getTitulo);
+    public static final Campo<ElementoBiblioteca, String> AUTOR =
+            new Campo<>("autor", "e.autor", ElementoBiblioteca::getAutor);
+    public static final Campo<ElementoBiblioteca, Integer> ANO_PUBLICACION =
+            new Campo<>("anoPublicacion", "e.ano_publicacion", ElementoBiblioteca::getAnoPublicacion);
+
+    public static final Campo<Libro, String> ISBN = new Campo<>("isbn", "l.isbn", Libro::getIsbn);
+    public static final Campo<Libro, Integer> NUMERO_PAGINAS =
+            new Campo<>("numeroPaginas", "l.numero_paginas", Libro::getNumeroPaginas);
+    public static final Campo<Libro, String> GENERO_LIBRO = new Campo<>("genero", "l.genero", Libro::getGenero);
+    public static final Campo<Libro, String> EDITORIAL = new Campo<>("editorial", "l.editorial", Libro::getEditorial);
+
+    public static final Campo<Revista, Integer> NUMERO_EDICION =
+            new Campo<>("numeroEdicion", "r.numero_edicion", Revista::getNumeroEdicion);
+    public static final Campo<Revista, String> CATEGORIA = new Campo<>("categoria", "r.categoria", Revista::getCategoria);
+
+    public static final Campo<DVD, Integer> DURACION = new Campo<>("duracion", "d.duracion", DVD::getDuracion);
+    public static final Campo<DVD, String> GENERO_DVD = new Campo<>("genero", "d.genero", DVD::getGenero);
+
+    private final String nombre;
+    private final String columna;
+    private final Function<? super T, V> valor;
+
+    private Campo(String nombre, String columna, Function<? super T, V> valor) {
+        this.nombre = nombre;
+        this.columna = columna;
+        this.valor = valor;
+    }
+
+    // Columna con el alias de getSqlSeleccion: e para ElementoBiblioteca, l, r o d para el subtipo
+    String getColumna() {
+        return columna;
+    }
+
+    V valorDe(T elemento) {
+        return valor.apply(elemento);
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
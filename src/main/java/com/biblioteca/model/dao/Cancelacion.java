@@ -0,0 +1,46 @@
+// DAO: Cancelacion.java
+package com.biblioteca.model.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Permite abortar desde otro hilo la consulta que un DAO está ejecutando: el DAO registra
+// la sentencia antes de ejecutarla y cancelar() la interrumpe en el servidor con Statement.cancel
+public class Cancelacion {
+    // Estado SQL estándar para "operación cancelada"
+    public static final String ESTADO_CANCELADA = "HY008";
+
+    private boolean cancelada;
+    private Statement enCurso;
+
+    public synchronized void cancelar() {
+        if (cancelada) {
+            return;
+        }
+        cancelada = true;
+        if (enCurso != null) {
+            try {
+                enCurso.cancel();
+            } catch (SQLException e) {
+                // La sentencia ya terminó o se cerró: no queda nada que cancelar
+            }
+        }
+    }
+
+    public synchronized boolean isCancelada() {
+        return cancelada;
+    }
+
+    // Anota la sentencia que se va a ejecutar; si ya se canceló no se llega a lanzar
+    synchronized void registrar(Statement stmt) throws SQLException {
+        if (cancelada) {
+            throw new SQLException("Consulta cancelada", ESTADO_CANCELADA);
+        }
+        enCurso = stmt;
+    }
+
+    // Se llama antes de cerrar la sentencia, para no cancelar otra que reutilice la misma
+    synchronized void liberar() {
+        enCurso = null;
+    }
+}
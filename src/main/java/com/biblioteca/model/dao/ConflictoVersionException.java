@@ -0,0 +1,41 @@
+// DAO: ConflictoVersionException.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.sql.SQLException;
+
+// Se intentó escribir un elemento a partir de una versión que ya no es la última: otro cliente lo
+// guardó mientras tanto. No se ha escrito nada; getActual trae lo que hay ahora en la base de datos
+// para mostrarlo o fundirlo con lo editado y reintentar con su versión.
+public class ConflictoVersionException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    // Estado SQL estándar de "fallo de serialización": la transacción puede reintentarse
+    public static final String ESTADO_CONFLICTO = "40001";
+
+    private final int id;
+    private final long versionEsperada;
+    private final transient ElementoBiblioteca actual;
+
+    public ConflictoVersionException(ElementoBiblioteca escrito, ElementoBiblioteca actual) {
+        super("El elemento con ID " + escrito.getId() + " se modificó mientras se editaba (versión "
+                + escrito.getVersion() + ", la actual es " + actual.getVersion() + ")", ESTADO_CONFLICTO);
+        this.id = escrito.getId();
+        this.versionEsperada = escrito.getVersion();
+        this.actual = actual;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Versión desde la que se editó
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    // Estado actual del elemento, con su versión
+    public ElementoBiblioteca getActual() {
+        return actual;
+    }
+}
@@ -0,0 +1,224 @@
+// DAO: Criterio.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Búsqueda con varios filtros, orden y paginación que el DAO compila a una sola consulta con
+// parámetros: igualdad, rangos con los extremos incluidos y prefijo, unidos con AND.
+//   new Criterio<Libro>().igual(Campo.AUTOR, "Borges").entre(Campo.ANO_PUBLICACION, 1940, 1960)
+//           .ordenarPor(Campo.TITULO).limite(50)
+// Los valores no forman parte del SQL: dos criterios con los mismos filtros y orden tienen la misma
+// forma y reutilizan la misma sentencia preparada. Las cadenas se comparan sin distinguir mayúsculas,
+// como la intercalación por defecto de MySQL.
+public final class Criterio<T extends ElementoBiblioteca> {
+
+    private enum Operador {
+        IGUAL("=", " = ?"),
+        ES_NULO("0", " IS NULL"),
+        DESDE(">", " >= ?"),
+        HASTA("<", " <= ?"),
+        // Con el comodín solo al final la condición es un rango sobre el índice de la columna
+        EMPIEZA_POR("^", " LIKE ? ESCAPE '!'");
+
+        final String clave;
+        final String sql;
+
+        Operador(String clave, String sql) {
+            this.clave = clave;
+            this.sql = sql;
+        }
+    }
+
+    private static final class Condicion<T extends ElementoBiblioteca> {
+        final Campo<? super T, ?> campo;
+        final Operador operador;
+        final Object valor;
+
+        Condicion(Campo<? super T, ?> campo, Operador operador, Object valor) {
+            this.campo = campo;
+            this.operador = operador;
+            this.valor = valor;
+        }
+    }
+
+    private static final class Orden<T extends ElementoBiblioteca> {
+        final Campo<? super T, ?> campo;
+        final boolean descendente;
+
+        Orden(Campo<? super T, ?> campo, boolean descendente) {
+            this.campo = campo;
+            this.descendente = descendente;
+        }
+    }
+
+    private final List<Condicion<T>> condiciones = new ArrayList<>();
+    private final List<Orden<T>> orden = new ArrayList<>();
+    private int limite = -1;
+    private int saltar;
+
+    // Con valor null la condición es IS NULL
+    public <V extends Comparable<? super V>> Criterio<T> igual(Campo<? super T, V> campo, V valor) {
+        condiciones.add(new Condicion<>(campo, valor == null ? Operador.ES_NULO : Operador.IGUAL, valor));
+        return this;
+    }
+
+    // Extremos incluidos; un extremo null deja ese lado abierto
+    public <V extends Comparable<? super V>> Criterio<T> entre(Campo<? super T, V> campo, V desde, V hasta) {
+        if (desde != null) {
+            condiciones.add(new Condicion<>(campo, Operador.DESDE, desde));
+        }
+        if (hasta != null) {
+            condiciones.add(new Condicion<>(campo, Operador.HASTA, hasta));
+        }
+        return this;
+    }
+
+    public Criterio<T> empiezaPor(Campo<? super T, String> campo, String prefijo) {
+        condiciones.add(new Condicion<>(campo, Operador.EMPIEZA_POR, prefijo));
+        return this;
+    }
+
+    // Se pueden encadenar varios; el id desempata al final para que las páginas sean estables
+    public Criterio<T> ordenarPor(Campo<? super T, ?> campo) {
+        orden.add(new Orden<>(campo, false));
+        return this;
+    }
+
+    public Criterio<T> ordenarPorDescendente(Campo<? super T, ?> campo) {
+        orden.add(new Orden<>(campo, true));
+        return this;
+    }
+
+    public Criterio<T> limite(int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    // Igual que OFFSET, el coste crece con lo que se salta; para recorrer páginas seguidas es
+    // mejor filtrar por el último valor visto con entre()
+    public Criterio<T> saltar(int saltar) {
+        if (saltar < 0) {
+            throw new IllegalArgumentException("El número de filas a saltar no puede ser negativo");
+        }
+        this.saltar = saltar;
+        return this;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getSaltar() {
+        return saltar;
+    }
+
+    // Lo que determina el SQL: columnas y operadores, orden y si hay LIMIT u OFFSET, sin los valores
+    String getForma() {
+        StringBuilder forma = new StringBuilder(16 * (condiciones.size() + orden.size()) + 2);
+        for (Condicion<T> condicion : condiciones) {
+            forma.append(condicion.campo.getColumna()).append(condicion.operador.clave);
+        }
+        forma.append('|');
+        for (Orden<T> o : orden) {
+            forma.append(o.campo.getColumna()).append(o.descendente ? '-' : '+');
+        }
+        return forma.append(limite >= 0 || saltar > 0 ? "L" : "").append(saltar > 0 ? "O" : "").toString();
+    }
+
+    // SQL sobre la selección del DAO, que ya termina en el WHERE del tipo y admite más condiciones con AND
+    String compilar(String seleccion) {
+        StringBuilder sql = new StringBuilder(seleccion);
+        for (Condicion<T> condicion : condiciones) {
+            sql.append(" AND ").append(condicion.campo.getColumna()).append(condicion.operador.sql);
+        }
+        sql.append(" ORDER BY ");
+        boolean porId = false;
+        for (Orden<T> o : orden) {
+            sql.append(o.campo.getColumna()).append(o.descendente ? " DESC, " : ", ");
+            porId |= o.campo == Campo.ID;
+        }
+        if (porId) {
+            sql.setLength(sql.length() - 2);
+        } else {
+            sql.append("e.id");
+        }
+        // MySQL no admite OFFSET sin LIMIT
+        if (limite >= 0 || saltar > 0) {
+            sql.append(" LIMIT ?");
+        }
+        if (saltar > 0) {
+            sql.append(" OFFSET ?");
+        }
+        return sql.toString();
+    }
+
+    // En el mismo orden en que compilar() dejó los marcadores
+    void asignarParametros(PreparedStatement stmt) throws SQLException {
+        int i = 1;
+        for (Condicion<T> condicion : condiciones) {
+            switch (condicion.operador) {
+                case ES_NULO -> { }
+                case EMPIEZA_POR -> stmt.setString(i++, escaparLike((String) condicion.valor) + "%");
+                default -> stmt.setObject(i++, condicion.valor);
+            }
+        }
+        if (limite >= 0 || saltar > 0) {
+            stmt.setInt(i++, limite >= 0 ? limite : Integer.MAX_VALUE);
+        }
+        if (saltar > 0) {
+            stmt.setInt(i, saltar);
+        }
+    }
+
+    // Evaluación en memoria con la misma semántica que el SQL, para los almacenes sin servidor
+    boolean cumple(T elemento) {
+        for (Condicion<T> condicion : condiciones) {
+            Object valor = condicion.campo.valorDe(elemento);
+            boolean cumple = switch (condicion.operador) {
+                case ES_NULO -> valor == null;
+                case IGUAL -> valor != null && comparar(valor, condicion.valor) == 0;
+                case DESDE -> valor != null && comparar(valor, condicion.valor) >= 0;
+                case HASTA -> valor != null && comparar(valor, condicion.valor) <= 0;
+                case EMPIEZA_POR -> valor != null && ((String) valor).toLowerCase(Locale.ROOT)
+                        .startsWith(((String) condicion.valor).toLowerCase(Locale.ROOT));
+            };
+            if (!cumple) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Los null van primero en orden ascendente, como en MySQL
+    Comparator<T> comparador() {
+        Comparator<T> comparador = (a, b) -> 0;
+        for (Orden<T> o : orden) {
+            Campo<? super T, ?> campo = o.campo;
+            Comparator<T> porCampo = Comparator.comparing(e -> (Object) campo.valorDe(e),
+                    Comparator.nullsFirst(Criterio::comparar));
+            comparador = comparador.thenComparing(o.descendente ? porCampo.reversed() : porCampo);
+        }
+        return comparador.thenComparingInt(ElementoBiblioteca::getId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int comparar(Object a, Object b) {
+        if (a instanceof String texto && b instanceof String otro) {
+            return texto.compareToIgnoreCase(otro);
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
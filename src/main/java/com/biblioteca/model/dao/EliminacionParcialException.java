@@ -0,0 +1,27 @@
+// DAO: EliminacionParcialException.java
+package com.biblioteca.model.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Un borrado en lote falló a mitad: los tramos anteriores ya están confirmados y no se deshacen.
+// getEliminados trae los ids que sí se borraron, para que quien llama refleje lo que pasó de verdad.
+public class EliminacionParcialException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<Integer> eliminados;
+
+    public EliminacionParcialException(List<Integer> eliminados, int total, Exception causa) {
+        super("El borrado en lote falló tras eliminar " + eliminados.size() + " de " + total
+                + " elementos: " + causa.getMessage(),
+                causa instanceof SQLException sql ? sql.getSQLState() : null,
+                causa instanceof SQLException sql ? sql.getErrorCode() : 0, causa);
+        this.eliminados = new ArrayList<>(eliminados);
+    }
+
+    public List<Integer> getEliminados() {
+        return Collections.unmodifiableList(eliminados);
+    }
+}
@@ -0,0 +1,196 @@
+// DAO: EnrutadorConexiones.java
+package com.biblioteca.model.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Reparte las conexiones entre la base de datos primaria y sus réplicas de lectura: las escrituras
+// van siempre a la primaria y las lecturas a una réplica, por turno o a la de menos conexiones
+// prestadas. Tras una escritura propia las lecturas vuelven a la primaria durante una ventana, para
+// no leer de una réplica que aún no la ha recibido. La ventana es de todo el cliente y no por hilo:
+// es una aplicación de escritorio con un usuario, y cada tarea corre en un hilo virtual distinto.
+public class EnrutadorConexiones implements AutoCloseable {
+
+    public enum Estrategia { ROTATORIA, MENOS_CARGADA }
+
+    private static final long VENTANA_LECTURA_PROPIA_POR_DEFECTO_MS = 5_000;
+    // Tiempo que una réplica que no da conexión queda fuera del reparto antes de volver a probarla
+    private static final long PAUSA_REPLICA_CAIDA_MS = 30_000;
+
+    private final PoolConexiones primaria;
+    private final List<PoolConexiones> replicas;
+    private final AtomicLongArray caidaHasta;
+    private final AtomicInteger turno = new AtomicInteger();
+    private volatile Estrategia estrategia = Estrategia.ROTATORIA;
+    private volatile long ventanaLecturaPropiaNanos = TimeUnit.MILLISECONDS.toNanos(VENTANA_LECTURA_PROPIA_POR_DEFECTO_MS);
+    private volatile long primariaHasta = System.nanoTime();
+
+    private final AtomicLong lecturasPrimaria = new AtomicLong();
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasTrasEscritura = new AtomicLong();
+    private final AtomicLong fallosReplica = new AtomicLong();
+
+    // Sin réplicas todo va a la primaria, como con el pool a secas
+    public EnrutadorConexiones(PoolConexiones primaria) {
+        this(primaria, List.of());
+    }
+
+    public EnrutadorConexiones(PoolConexiones primaria, List<PoolConexiones> replicas) {
+        this.primaria = Objects.requireNonNull(primaria, "primaria");
+        this.replicas = List.copyOf(replicas);
+        this.caidaHasta = new AtomicLongArray(this.replicas.size());
+        long ahora = System.nanoTime();
+        for (int i = 0; i < this.replicas.size(); i++) {
+            caidaHasta.set(i, ahora);
+        }
+    }
+
+    public EnrutadorConexiones setEstrategia(Estrategia estrategia) {
+        this.estrategia = Objects.requireNonNull(estrategia, "estrategia");
+        return this;
+    }
+
+    // 0 desactiva la lectura de lo propio en la primaria
+    public EnrutadorConexiones setVentanaLecturaPropiaMs(long ventanaMs) {
+        if (ventanaMs < 0) {
+            throw new IllegalArgumentException("La ventana no puede ser negativa");
+        }
+        this.ventanaLecturaPropiaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        return this;
+    }
+
+    public PoolConexiones getPrimaria() {
+        return primaria;
+    }
+
+    public List<PoolConexiones> getReplicas() {
+        return replicas;
+    }
+
+    public Connection obtenerEscritura() throws SQLException {
+        return primaria.obtenerConexion();
+    }
+
+    // Si la réplica elegida no da conexión se intenta con las demás y, al final, con la primaria. A las
+    // réplicas se les pide sin esperar: una llena pasa la lectura a la siguiente en el acto en lugar
+    // de bloquear la espera completa del pool; solo la primaria espera.
+    public Connection obtenerLectura() throws SQLException {
+        if (replicas.isEmpty()) {
+            lecturasPrimaria.incrementAndGet();
+            return primaria.obtenerConexion();
+        }
+        long ahora = System.nanoTime();
+        if (ahora - primariaHasta < 0) {
+            lecturasTrasEscritura.incrementAndGet();
+            lecturasPrimaria.incrementAndGet();
+            return primaria.obtenerConexion();
+        }
+
+        int primera = elegir(ahora);
+        for (int i = 0; i < replicas.size(); i++) {
+            int indice = (primera + i) % replicas.size();
+            if (i > 0 && ahora - caidaHasta.get(indice) < 0) {
+                continue;
+            }
+            try {
+                Connection conexion = replicas.get(indice).obtenerConexion(0);
+                lecturasReplica.incrementAndGet();
+                return conexion;
+            } catch (SQLTimeoutException e) {
+                // Réplica llena pero viva: se prueba otra sin sacarla del reparto
+            } catch (SQLException e) {
+                fallosReplica.incrementAndGet();
+                caidaHasta.set(indice, ahora + TimeUnit.MILLISECONDS.toNanos(PAUSA_REPLICA_CAIDA_MS));
+                System.err.println("Réplica " + replicas.get(indice).getConfiguracion().getUrl()
+                        + " fuera del reparto durante " + PAUSA_REPLICA_CAIDA_MS + " ms: " + e.getMessage());
+            }
+        }
+        lecturasPrimaria.incrementAndGet();
+        return primaria.obtenerConexion();
+    }
+
+    // Lo llaman los DAO tras confirmar una escritura
+    public void anotarEscritura() {
+        long ventana = ventanaLecturaPropiaNanos;
+        if (ventana > 0 && !replicas.isEmpty()) {
+            primariaHasta = System.nanoTime() + ventana;
+        }
+    }
+
+    public long getLecturasPrimaria() {
+        return lecturasPrimaria.get();
+    }
+
+    public long getLecturasReplica() {
+        return lecturasReplica.get();
+    }
+
+    // Lecturas que fueron a la primaria por caer dentro de la ventana de una escritura propia
+    public long getLecturasTrasEscritura() {
+        return lecturasTrasEscritura.get();
+    }
+
+    public long getFallosReplica() {
+        return fallosReplica.get();
+    }
+
+    // Cierra la primaria y todas las réplicas
+    @Override
+    public void close() {
+        for (PoolConexiones replica : replicas) {
+            replica.close();
+        }
+        primaria.close();
+    }
+
+    // Índice de la réplica por la que empezar; si todas están caídas, la que toque por turno
+    private int elegir(long ahora) {
+        int vuelta = turno.getAndIncrement();
+        int inicio = Math.floorMod(vuelta, replicas.size());
+        if (estrategia == Estrategia.ROTATORIA) {
+            // El turno se cuenta solo entre las vivas, para que las caídas no carguen a su vecina
+            int vivas = 0;
+            for (int i = 0; i < replicas.size(); i++) {
+                if (ahora - caidaHasta.get(i) >= 0) {
+                    vivas++;
+                }
+            }
+            if (vivas == 0) {
+                return inicio;
+            }
+            int restantes = Math.floorMod(vuelta, vivas);
+            for (int i = 0; i < replicas.size(); i++) {
+                if (ahora - caidaHasta.get(i) >= 0 && restantes-- == 0) {
+                    return i;
+                }
+            }
+        }
+
+        // Menos cargada en proporción a su tamaño; el turno reparte los empates
+        int mejor = -1;
+        long mejorActivas = 0;
+        long mejorTamano = 1;
+        for (int i = 0; i < replicas.size(); i++) {
+            int indice = (inicio + i) % replicas.size();
+            if (ahora - caidaHasta.get(indice) < 0) {
+                continue;
+            }
+            PoolConexiones replica = replicas.get(indice);
+            long activas = replica.getActivas();
+            long tamano = replica.getConfiguracion().getTamanoMaximo();
+            if (mejor < 0 || activas * mejorTamano < mejorActivas * tamano) {
+                mejor = indice;
+                mejorActivas = activas;
+                mejorTamano = tamano;
+            }
+        }
+        return mejor < 0 ? inicio : mejor;
+    }
+}
@@ -0,0 +1,291 @@
+// DAO: EscrituraDiferida.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Escritura diferida con commit en grupo. Los guardados se encolan (cola acotada) y un hilo los
+// escribe por grupos con un solo commit cuando se juntan tamanoGrupo o pasa intervaloMs desde el
+// más antiguo. Dos guardados del mismo id que aún esperan se funden en uno con el último estado.
+// El futuro de cada guardado se completa cuando su grupo está confirmado en la base de datos.
+public class EscrituraDiferida<T extends ElementoBiblioteca> implements AutoCloseable {
+
+    // Guardado en espera; puede representar varias llamadas fundidas
+    private class Pendiente {
+        final long desde = System.nanoTime();
+        T elemento;
+        final List<T> originales = new ArrayList<>(1);
+        final List<CompletableFuture<Boolean>> futuros = new ArrayList<>(1);
+    }
+
+    private final ElementoBibliotecaDAO<T> dao;
+    private final int capacidad;
+    private final int tamanoGrupo;
+    private final long intervaloNanos;
+
+    // Modificaciones por id y altas por identidad del objeto, en orden de llegada
+    private final LinkedHashMap<Object, Pendiente> pendientes = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayPendientes = lock.newCondition();
+    private final Condition hayHueco = lock.newCondition();
+    private final Thread escritor;
+    private final Thread alApagar;
+    private boolean cerrando;
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong fundidos = new AtomicLong();
+    private final AtomicLong grupos = new AtomicLong();
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    public EscrituraDiferida(ElementoBibliotecaDAO<T> dao, int capacidad, int tamanoGrupo, long intervaloMs) {
+        if (capacidad <= 0 || tamanoGrupo <= 0 || intervaloMs < 0) {
+            throw new IllegalArgumentException("Capacidad y tamaño de grupo deben ser mayores que cero");
+        }
+        this.dao = dao;
+        this.capacidad = capacidad;
+        this.tamanoGrupo = tamanoGrupo;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+
+        escritor = new Thread(this::escribirMientrasHaya, "escritura-diferida-" + dao.getTipo());
+        escritor.setDaemon(true);
+        escritor.start();
+
+        // Lo que quede en la cola se escribe antes de que termine la aplicación
+        alApagar = new Thread(this::vaciarYParar, "escritura-diferida-cierre-" + dao.getTipo());
+        Runtime.getRuntime().addShutdownHook(alApagar);
+    }
+
+    // Encola el guardado y devuelve un futuro que se completa con true cuando está confirmado, o
+    // false si no se pudo escribir; con ConflictoVersionException si otro cliente lo guardó antes.
+    // Si la cola está llena espera a que el escritor haga hueco.
+    public CompletableFuture<Boolean> guardar(T elemento) {
+        CompletableFuture<Boolean> futuro = new CompletableFuture<>();
+        T copia = copiar(elemento);
+        Object clave = elemento.getId() < 0 ? elemento : Integer.valueOf(elemento.getId());
+
+        lock.lock();
+        try {
+            if (cerrando) {
+                throw new IllegalStateException("La escritura diferida está cerrada");
+            }
+            Pendiente pendiente;
+            while (true) {
+                pendiente = pendientes.get(clave);
+                if (pendiente != null) {
+                    // Mismo id aún sin escribir: basta con escribir el último estado una vez
+                    pendiente.elemento = copia;
+                    fundidos.incrementAndGet();
+                    break;
+                }
+                if (pendientes.size() < capacidad) {
+                    pendiente = new Pendiente();
+                    pendiente.elemento = copia;
+                    pendientes.put(clave, pendiente);
+                    hayPendientes.signal();
+                    break;
+                }
+                hayHueco.awaitUninterruptibly();
+                if (cerrando) {
+                    throw new IllegalStateException("La escritura diferida está cerrada");
+                }
+            }
+            pendiente.originales.add(elemento);
+            pendiente.futuros.add(futuro);
+            encolados.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        return futuro;
+    }
+
+    public int getPendientes() {
+        lock.lock();
+        try {
+            return pendientes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEncolados() {
+        return encolados.get();
+    }
+
+    // Guardados que se fundieron con otro del mismo id y no necesitaron escritura propia
+    public long getFundidos() {
+        return fundidos.get();
+    }
+
+    public long getGrupos() {
+        return grupos.get();
+    }
+
+    public long getEscritos() {
+        return escritos.get();
+    }
+
+    public long getFallidos() {
+        return fallidos.get();
+    }
+
+    // Escribe todo lo pendiente y detiene el escritor; los guardados posteriores se rechazan
+    @Override
+    public void close() {
+        vaciarYParar();
+        try {
+            Runtime.getRuntime().removeShutdownHook(alApagar);
+        } catch (IllegalStateException e) {
+            // La JVM ya se está apagando
+        }
+    }
+
+    private void vaciarYParar() {
+        lock.lock();
+        try {
+            cerrando = true;
+            hayPendientes.signalAll();
+            hayHueco.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void escribirMientrasHaya() {
+        while (true) {
+            List<Pendiente> grupo = siguienteGrupo();
+            if (grupo == null) {
+                return;
+            }
+            escribir(grupo);
+        }
+    }
+
+    // Espera a que haya un grupo lleno o a que venza el plazo del pendiente más antiguo;
+    // null cuando se está cerrando y ya no queda nada
+    private List<Pendiente> siguienteGrupo() {
+        lock.lock();
+        try {
+            while (pendientes.isEmpty()) {
+                if (cerrando) {
+                    return null;
+                }
+                hayPendientes.awaitUninterruptibly();
+            }
+            while (pendientes.size() < tamanoGrupo && !cerrando) {
+                long restante = pendientes.values().iterator().next().desde + intervaloNanos - System.nanoTime();
+                if (restante <= 0) {
+                    break;
+                }
+                try {
+                    hayPendientes.awaitNanos(restante);
+                } catch (InterruptedException e) {
+                    // Nadie interrumpe a este hilo; si ocurre, se escribe lo que haya
+                    break;
+                }
+            }
+
+            List<Pendiente> grupo = new ArrayList<>(Math.min(tamanoGrupo, pendientes.size()));
+            Iterator<Map.Entry<Object, Pendiente>> it = pendientes.entrySet().iterator();
+            while (it.hasNext() && grupo.size() < tamanoGrupo) {
+                grupo.add(it.next().getValue());
+                it.remove();
+            }
+            hayHueco.signalAll();
+            return grupo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Un commit para todo el grupo; si falla, se reintenta uno a uno para que un elemento
+    // erróneo no arrastre a los demás
+    private void escribir(List<Pendiente> grupo) {
+        List<T> elementos = new ArrayList<>(grupo.size());
+        for (Pendiente pendiente : grupo) {
+            elementos.add(pendiente.elemento);
+        }
+        try {
+            dao.guardarGrupo(elementos);
+            grupos.incrementAndGet();
+            for (Pendiente pendiente : grupo) {
+                completar(pendiente, true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (!(e instanceof ConflictoVersionException)) {
+                System.err.println("Error al escribir un grupo de " + grupo.size()
+                        + " elementos, se reintenta uno a uno: " + e.getMessage());
+            }
+            for (Pendiente pendiente : grupo) {
+                escribirUno(pendiente);
+            }
+        }
+    }
+
+    private void escribirUno(Pendiente pendiente) {
+        T elemento = pendiente.elemento;
+        try {
+            completar(pendiente, elemento.getId() < 0 ? dao.insertar(elemento) : dao.actualizar(elemento));
+        } catch (ConflictoVersionException e) {
+            // No es un fallo de escritura: quien guardó decide si funde y reintenta
+            fallidos.incrementAndGet();
+            for (CompletableFuture<Boolean> futuro : pendiente.futuros) {
+                futuro.completeExceptionally(e);
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error al guardar el elemento " + elemento.getId() + ": " + e.getMessage());
+            completar(pendiente, false);
+        }
+    }
+
+    // Los objetos de quien llamó reciben el id y la versión escritos antes de completar su futuro
+    private void completar(Pendiente pendiente, boolean guardado) {
+        if (guardado) {
+            escritos.incrementAndGet();
+            for (T original : pendiente.originales) {
+                original.setId(pendiente.elemento.getId());
+                original.setVersion(pendiente.elemento.getVersion());
+            }
+            seguirVersion(pendiente.elemento);
+        } else {
+            fallidos.incrementAndGet();
+        }
+        for (CompletableFuture<Boolean> futuro : pendiente.futuros) {
+            futuro.complete(guardado);
+        }
+    }
+
+    // Un guardado del mismo id encolado mientras este se escribía partía de la versión anterior, que
+    // acaba de escribir este mismo cliente: se pasa a la nueva para que no choque con su propio cambio
+    private void seguirVersion(T escrito) {
+        lock.lock();
+        try {
+            Pendiente siguiente = pendientes.get(escrito.getId());
+            if (siguiente != null && siguiente.elemento.getVersion() == escrito.getVersion() - 1) {
+                siguiente.elemento.setVersion(escrito.getVersion());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copiar(T elemento) {
+        return (T) elemento.copiar();
+    }
+}
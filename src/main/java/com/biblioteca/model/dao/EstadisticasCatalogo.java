@@ -0,0 +1,97 @@
+// DAO: EstadisticasCatalogo.java
+package com.biblioteca.model.dao;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Resumen agregado del catálogo, calculado con GROUP BY en la base de datos. Los recuentos por
+// texto van de más a menos frecuente (la clave null agrupa las filas sin valor); los de números,
+// ordenados por el inicio del tramo.
+public class EstadisticasCatalogo {
+    private final Map<String, Integer> porTipo;
+    private final Map<String, Integer> porGenero;
+    private final Map<String, Integer> porCategoria;
+    private final Map<String, Integer> porEditorial;
+    private final SortedMap<Integer, Integer> porDecada;
+    private final SortedMap<Integer, Integer> paginas;
+    private final SortedMap<Integer, Integer> duracion;
+    private final int anchoTramoPaginas;
+    private final int anchoTramoDuracion;
+    private final long calculadoEn;
+
+    EstadisticasCatalogo(Map<String, Integer> porTipo, Map<String, Integer> porGenero,
+                         Map<String, Integer> porCategoria, Map<String, Integer> porEditorial,
+                         SortedMap<Integer, Integer> porDecada, SortedMap<Integer, Integer> paginas,
+                         SortedMap<Integer, Integer> duracion, int anchoTramoPaginas, int anchoTramoDuracion) {
+        this.porTipo = porTipo;
+        this.porGenero = porGenero;
+        this.porCategoria = porCategoria;
+        this.porEditorial = porEditorial;
+        this.porDecada = porDecada;
+        this.paginas = paginas;
+        this.duracion = duracion;
+        this.anchoTramoPaginas = anchoTramoPaginas;
+        this.anchoTramoDuracion = anchoTramoDuracion;
+        this.calculadoEn = System.currentTimeMillis();
+    }
+
+    public int getTotal() {
+        int total = 0;
+        for (int cantidad : porTipo.values()) {
+            total += cantidad;
+        }
+        return total;
+    }
+
+    public Map<String, Integer> getPorTipo() {
+        return Collections.unmodifiableMap(porTipo);
+    }
+
+    // Géneros de libros y DVDs juntos
+    public Map<String, Integer> getPorGenero() {
+        return Collections.unmodifiableMap(porGenero);
+    }
+
+    public Map<String, Integer> getPorCategoria() {
+        return Collections.unmodifiableMap(porCategoria);
+    }
+
+    public Map<String, Integer> getPorEditorial() {
+        return Collections.unmodifiableMap(porEditorial);
+    }
+
+    // Década (1990, 2000...) -> elementos publicados en ella
+    public SortedMap<Integer, Integer> getPorDecada() {
+        return Collections.unmodifiableSortedMap(porDecada);
+    }
+
+    // Inicio del tramo de páginas -> libros con ese número de páginas
+    public SortedMap<Integer, Integer> getPaginas() {
+        return Collections.unmodifiableSortedMap(paginas);
+    }
+
+    // Inicio del tramo de minutos -> DVDs con esa duración
+    public SortedMap<Integer, Integer> getDuracion() {
+        return Collections.unmodifiableSortedMap(duracion);
+    }
+
+    public int getAnchoTramoPaginas() {
+        return anchoTramoPaginas;
+    }
+
+    public int getAnchoTramoDuracion() {
+        return anchoTramoDuracion;
+    }
+
+    public long getCalculadoEn() {
+        return calculadoEn;
+    }
+
+    @Override
+    public String toString() {
+        return "Estadísticas [total=" + getTotal() + ", porTipo=" + porTipo + ", géneros=" + porGenero.size() +
+                ", categorías=" + porCategoria.size() + ", editoriales=" + porEditorial.size() +
+                ", décadas=" + porDecada.size() + "]";
+    }
+}
@@ -0,0 +1,158 @@
+// DAO: IndiceTexto.java
+package com.biblioteca.model.dao;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido en memoria: palabra normalizada -> ids de los elementos que la contienen.
+// Las palabras se guardan ordenadas para resolver prefijos con un rango del árbol.
+public class IndiceTexto {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<String, Set<Integer>> idsPorPalabra = new TreeMap<>();
+    private final Map<Integer, String[]> palabrasPorId = new HashMap<>();
+    // Versión del elemento que se indexó, para saber si un delta trae algo que el índice aún no tiene
+    private final Map<Integer, Long> versionPorId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexa (o reindexa) un elemento, en la versión indicada, con los textos indicados
+    public void indexar(int id, long version, String... textos) {
+        Set<String> palabras = new LinkedHashSet<>();
+        for (String texto : textos) {
+            palabras.addAll(tokenizar(texto));
+        }
+        String[] nuevas = palabras.toArray(new String[0]);
+
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+            for (String palabra : nuevas) {
+                idsPorPalabra.computeIfAbsent(palabra, p -> new HashSet<>()).add(id);
+            }
+            palabrasPorId.put(id, nuevas);
+            versionPorId.put(id, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(int id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids (ordenados) de los elementos que tienen, para cada palabra de la consulta,
+    // alguna palabra que empiece por ella
+    public List<Integer> buscar(String consulta) {
+        List<String> terminos = tokenizar(consulta);
+        if (terminos.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Set<Integer>> conjuntos = new ArrayList<>(terminos.size());
+            for (String termino : terminos) {
+                Set<Integer> ids = idsConPrefijo(termino);
+                if (ids.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                conjuntos.add(ids);
+            }
+
+            // Intersección empezando por el conjunto más pequeño
+            conjuntos.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            Set<Integer> resultado = new HashSet<>(conjuntos.get(0));
+            for (int i = 1; i < conjuntos.size() && !resultado.isEmpty(); i++) {
+                resultado.retainAll(conjuntos.get(i));
+            }
+
+            List<Integer> ordenados = new ArrayList<>(resultado);
+            Collections.sort(ordenados);
+            return ordenados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Versión indexada del elemento, o -1 si no está en el índice
+    public long getVersion(int id) {
+        lock.readLock().lock();
+        try {
+            return versionPorId.getOrDefault(id, -1L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTamano() {
+        lock.readLock().lock();
+        try {
+            return palabrasPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Minúsculas, sin tildes ni diacríticos, partido por cualquier carácter que no sea letra o dígito
+    public static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        normalizado = normalizado.toLowerCase(Locale.ROOT);
+
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    private Set<Integer> idsConPrefijo(String prefijo) {
+        NavigableMap<String, Set<Integer>> rango =
+                idsPorPalabra.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false);
+        Set<Integer> ids = new HashSet<>();
+        for (Set<Integer> conjunto : rango.values()) {
+            ids.addAll(conjunto);
+        }
+        return ids;
+    }
+
+    private void quitarSinBloqueo(int id) {
+        versionPorId.remove(id);
+        String[] anteriores = palabrasPorId.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String palabra : anteriores) {
+            Set<Integer> ids = idsPorPalabra.get(palabra);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsPorPalabra.remove(palabra);
+                }
+            }
+        }
+    }
+}
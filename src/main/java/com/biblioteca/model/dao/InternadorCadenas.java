@@ -0,0 +1,131 @@
+// DAO: InternadorCadenas.java
+package com.biblioteca.model.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Deduplica al mapear los textos que se repiten mucho en el catálogo (autor, género, editorial,
+// categoría): cada fila trae su propia copia y miles de elementos en listas, cachés y modelos de
+// tabla acabarían guardando la misma cadena miles de veces. Es una tabla de tamaño fijo con una
+// casilla por hash y sin bloqueos; en una colisión la cadena nueva sustituye a la anterior, así
+// que nunca crece y lo peor que pasa es que una copia no se deduplique. No usa String.intern():
+// esa tabla es de toda la JVM y no se puede acotar ni medir.
+public final class InternadorCadenas implements InternadorCadenasMXBean {
+
+    private static final int CAPACIDAD_POR_DEFECTO = 4096;
+    // Las cadenas largas casi nunca se repiten y ocuparían casillas de las que sí
+    private static final int LONGITUD_MAXIMA = 64;
+
+    private static final InternadorCadenas COMPARTIDO = crearCompartido();
+
+    private final AtomicReferenceArray<String> casillas;
+    private final int mascara;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder bytesAhorrados = new LongAdder();
+
+    // La capacidad se redondea a la siguiente potencia de dos
+    public InternadorCadenas(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que cero");
+        }
+        int casillas = Integer.highestOneBit(Math.max(capacidad * 2 - 1, 1));
+        this.casillas = new AtomicReferenceArray<>(casillas);
+        this.mascara = casillas - 1;
+    }
+
+    // El que usan todos los DAO, para que un autor o un género compartido entre tipos sea una sola cadena
+    public static InternadorCadenas compartido() {
+        return COMPARTIDO;
+    }
+
+    // Devuelve una cadena igual a texto que ya se haya visto, o el propio texto si no la hay
+    public String internar(String texto) {
+        if (texto == null || texto.length() > LONGITUD_MAXIMA) {
+            return texto;
+        }
+        int h = texto.hashCode();
+        int indice = (h ^ (h >>> 16)) & mascara;
+        String actual = casillas.get(indice);
+        if (actual != null && actual.equals(texto)) {
+            if (actual != texto) {
+                aciertos.increment();
+                bytesAhorrados.add(tamanoCopia(texto));
+            }
+            return actual;
+        }
+        fallos.increment();
+        casillas.set(indice, texto);
+        return texto;
+    }
+
+    @Override
+    public int getCapacidad() {
+        return casillas.length();
+    }
+
+    @Override
+    public int getOcupadas() {
+        int ocupadas = 0;
+        for (int i = 0; i < casillas.length(); i++) {
+            if (casillas.get(i) != null) {
+                ocupadas++;
+            }
+        }
+        return ocupadas;
+    }
+
+    @Override
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    @Override
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    @Override
+    public long getBytesAhorrados() {
+        return bytesAhorrados.sum();
+    }
+
+    // Solo los contadores: las cadenas ya internadas siguen sirviendo
+    @Override
+    public void reiniciar() {
+        aciertos.reset();
+        fallos.reset();
+        bytesAhorrados.reset();
+    }
+
+    // Copia en una JVM de 64 bits con referencias comprimidas: el String (24 bytes) y su byte[]
+    // (16 de cabecera y el contenido alineado a 8), a un byte por carácter si todo cabe en Latin-1
+    private static long tamanoCopia(String texto) {
+        int porCaracter = 1;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 0xFF) {
+                porCaracter = 2;
+                break;
+            }
+        }
+        return 24 + 16 + ((texto.length() * porCaracter + 7) & ~7);
+    }
+
+    private static InternadorCadenas crearCompartido() {
+        InternadorCadenas internador = new InternadorCadenas(CAPACIDAD_POR_DEFECTO);
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName("com.biblioteca:type=InternadorCadenas");
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(internador, nombre);
+            }
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las estadísticas del internador por JMX: " + e.getMessage());
+        }
+        return internador;
+    }
+}
@@ -0,0 +1,18 @@
+// DAO: InternadorCadenasMXBean.java
+package com.biblioteca.model.dao;
+
+// Interfaz JMX del internador de cadenas: com.biblioteca:type=InternadorCadenas
+public interface InternadorCadenasMXBean {
+    int getCapacidad();
+
+    int getOcupadas();
+
+    long getAciertos();
+
+    long getFallos();
+
+    // Estimación de la memoria de las copias duplicadas que se han podido soltar
+    long getBytesAhorrados();
+
+    void reiniciar();
+}
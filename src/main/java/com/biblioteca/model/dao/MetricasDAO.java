@@ -0,0 +1,121 @@
+// DAO: MetricasDAO.java
+package com.biblioteca.model.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métricas por operación de los DAO de un tipo de elemento, publicadas como MXBean.
+// Hay una instancia por tipo, compartida por todos los DAO de ese tipo.
+public class MetricasDAO implements MetricasDAOMXBean {
+    private static final Map<String, MetricasDAO> POR_TIPO = new ConcurrentHashMap<>();
+
+    // Contadores de una operación concreta
+    public static class Operacion {
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+        public void registrar(long inicioNanos, long filasDevueltas, boolean error) {
+            latencias.registrar(System.nanoTime() - inicioNanos);
+            llamadas.increment();
+            if (error) {
+                errores.increment();
+            } else if (filasDevueltas > 0) {
+                filas.add(filasDevueltas);
+            }
+        }
+
+        ResumenOperacion resumir() {
+            return new ResumenOperacion(
+                    llamadas.sum(),
+                    errores.sum(),
+                    filas.sum(),
+                    latencias.getMedia() / 1000,
+                    latencias.percentil(0.50) / 1000,
+                    latencias.percentil(0.99) / 1000,
+                    latencias.percentil(0.999) / 1000,
+                    latencias.getMaximo() / 1000);
+        }
+
+        void reiniciar() {
+            llamadas.reset();
+            errores.reset();
+            filas.reset();
+            latencias.reiniciar();
+        }
+    }
+
+    private final String tipo;
+    private final Map<String, Operacion> operaciones = new ConcurrentHashMap<>();
+
+    private MetricasDAO(String tipo) {
+        this.tipo = tipo;
+    }
+
+    // Métricas del tipo indicado; la primera vez se registran en el servidor JMX de la plataforma
+    public static MetricasDAO para(String tipo) {
+        return POR_TIPO.computeIfAbsent(tipo, t -> {
+            MetricasDAO metricas = new MetricasDAO(t);
+            metricas.registrarMBean();
+            return metricas;
+        });
+    }
+
+    public Operacion operacion(String nombre) {
+        Operacion operacion = operaciones.get(nombre);
+        return operacion != null ? operacion : operaciones.computeIfAbsent(nombre, n -> new Operacion());
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    @Override
+    public Map<String, ResumenOperacion> getOperaciones() {
+        Map<String, ResumenOperacion> resumen = new TreeMap<>();
+        operaciones.forEach((nombre, operacion) -> resumen.put(nombre, operacion.resumir()));
+        return resumen;
+    }
+
+    @Override
+    public long getLlamadasTotales() {
+        long total = 0;
+        for (Operacion operacion : operaciones.values()) {
+            total += operacion.llamadas.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getErroresTotales() {
+        long total = 0;
+        for (Operacion operacion : operaciones.values()) {
+            total += operacion.errores.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public void reiniciar() {
+        operaciones.values().forEach(Operacion::reiniciar);
+    }
+
+    private void registrarMBean() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName("com.biblioteca:type=DAO,name=" + ObjectName.quote(tipo));
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(this, nombre);
+            }
+        } catch (JMException e) {
+            System.err.println("No se pudieron publicar las métricas de " + tipo + " por JMX: " + e.getMessage());
+        }
+    }
+}
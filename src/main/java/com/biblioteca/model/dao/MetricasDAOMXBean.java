@@ -0,0 +1,15 @@
+// DAO: MetricasDAOMXBean.java
+package com.biblioteca.model.dao;
+
+import java.util.Map;
+
+// Interfaz JMX de las métricas de un DAO: com.biblioteca:type=DAO,name=<tipo>
+public interface MetricasDAOMXBean {
+    Map<String, ResumenOperacion> getOperaciones();
+
+    long getLlamadasTotales();
+
+    long getErroresTotales();
+
+    void reiniciar();
+}
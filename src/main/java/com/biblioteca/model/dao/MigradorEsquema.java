@@ -0,0 +1,311 @@
+// DAO: MigradorEsquema.java
+package com.biblioteca.model.dao;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Crea y pone al día el esquema al arrancar. Cada migración tiene un número de versión y se anota en
+// VersionEsquema al aplicarse, así que solo se ejecutan las que faltan y en orden. MySQL confirma cada
+// DDL por separado, de modo que los pasos comprueban antes lo que ya existe (tablas, columnas, índices):
+// una migración interrumpida se repite entera sin errores, y una base creada a mano antes de que
+// existiera el migrador se adopta sin tocar lo que ya tiene.
+public class MigradorEsquema {
+
+    // Las tablas con menos filas estimadas no se avisan: en una base recién creada el optimizador
+    // recorre las tablas vacías aunque tengan índice
+    private static final int FILAS_MINIMAS_AVISO = 1_000;
+    private static final Pattern RECORRIDO_H2 = Pattern.compile("(\\w+)\\.tableScan");
+    // Códigos de error de columna e índice duplicados: MySQL 1060 y 1061, H2 42121 y 42111
+    private static final int[] COLUMNA_DUPLICADA = {1060, 42121};
+    private static final int[] INDICE_DUPLICADO = {1061, 42111};
+
+    @FunctionalInterface
+    private interface Paso {
+        void aplicar(Connection conexion) throws SQLException;
+    }
+
+    private static final class Migracion {
+        final int version;
+        final String descripcion;
+        final Paso[] pasos;
+
+        Migracion(int version, String descripcion, Paso... pasos) {
+            this.version = version;
+            this.descripcion = descripcion;
+            this.pasos = pasos;
+        }
+    }
+
+    private static final Migracion[] MIGRACIONES = {
+            new Migracion(1, "Tablas del catálogo",
+                    sql("CREATE TABLE IF NOT EXISTS ElementoBiblioteca (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, titulo VARCHAR(255) NOT NULL, " +
+                            "autor VARCHAR(255), ano_publicacion INT, tipo VARCHAR(20) NOT NULL)"),
+                    // Con ON DELETE CASCADE basta borrar la fila base para que desaparezca la del subtipo
+                    sql("CREATE TABLE IF NOT EXISTS Libro (id INT PRIMARY KEY, isbn VARCHAR(20), " +
+                            "numero_paginas INT, genero VARCHAR(100), editorial VARCHAR(100), " +
+                            "CONSTRAINT fk_libro_elemento FOREIGN KEY (id) REFERENCES ElementoBiblioteca(id) ON DELETE CASCADE)"),
+                    sql("CREATE TABLE IF NOT EXISTS Revista (id INT PRIMARY KEY, numero_edicion INT, " +
+                            "categoria VARCHAR(100), " +
+                            "CONSTRAINT fk_revista_elemento FOREIGN KEY (id) REFERENCES ElementoBiblioteca(id) ON DELETE CASCADE)"),
+                    sql("CREATE TABLE IF NOT EXISTS DVD (id INT PRIMARY KEY, duracion INT, genero VARCHAR(100), " +
+                            "CONSTRAINT fk_dvd_elemento FOREIGN KEY (id) REFERENCES ElementoBiblioteca(id) ON DELETE CASCADE)")),
+
+            new Migracion(2, "Versión de fila, fecha de actualización y borrados para los deltas",
+                    columna("ElementoBiblioteca", "version", "BIGINT NOT NULL DEFAULT 1"),
+                    columna("ElementoBiblioteca", "actualizado_en", "TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)"),
+                    sql("CREATE TABLE IF NOT EXISTS ElementoEliminado (id INT PRIMARY KEY, tipo VARCHAR(20) NOT NULL, " +
+                            "eliminado_en TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6))"),
+                    indice("idx_elemento_tipo_actualizado", "ElementoBiblioteca", "tipo", "actualizado_en"),
+                    indice("idx_eliminado_tipo_fecha", "ElementoEliminado", "tipo", "eliminado_en")),
+
+            new Migracion(3, "Índices de las columnas por las que se filtra",
+                    // En InnoDB el índice secundario lleva detrás la clave primaria: (tipo) equivale a
+                    // (tipo, id) y sirve la paginación WHERE tipo = ? AND id > ? ORDER BY id ya ordenada
+                    indice("idx_elemento_tipo", "ElementoBiblioteca", "tipo"),
+                    indice("idx_elemento_titulo", "ElementoBiblioteca", "titulo"),
+                    indice("idx_elemento_autor", "ElementoBiblioteca", "autor"),
+                    indice("idx_libro_isbn", "Libro", "isbn"),
+                    indice("idx_revista_categoria", "Revista", "categoria"),
+                    indice("idx_dvd_genero", "DVD", "genero")),
+
+            new Migracion(4, "Índices para los filtros por rango y prefijo de Criterio",
+                    indice("idx_elemento_tipo_ano", "ElementoBiblioteca", "tipo", "ano_publicacion"),
+                    indice("idx_libro_genero", "Libro", "genero"),
+                    indice("idx_libro_editorial", "Libro", "editorial")),
+    };
+
+    private final PoolConexiones pool;
+
+    public MigradorEsquema(PoolConexiones pool) {
+        this.pool = pool;
+    }
+
+    public static int getVersionMasReciente() {
+        return MIGRACIONES[MIGRACIONES.length - 1].version;
+    }
+
+    // Aplica las migraciones pendientes y devuelve cuántas aplicó
+    public int migrar() throws SQLException {
+        try (Connection conexion = pool.obtenerConexion()) {
+            ejecutar(conexion, "CREATE TABLE IF NOT EXISTS VersionEsquema (version INT PRIMARY KEY, " +
+                    "descripcion VARCHAR(255) NOT NULL, aplicada_en TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6))");
+            int actual = getVersion(conexion);
+            if (actual > getVersionMasReciente()) {
+                System.err.println("El esquema está en la versión " + actual + ", más nueva que la de esta aplicación ("
+                        + getVersionMasReciente() + "); se usa tal cual");
+                return 0;
+            }
+
+            int aplicadas = 0;
+            for (Migracion migracion : MIGRACIONES) {
+                if (migracion.version <= actual) {
+                    continue;
+                }
+                try {
+                    for (Paso paso : migracion.pasos) {
+                        paso.aplicar(conexion);
+                    }
+                } catch (SQLException e) {
+                    throw new SQLException("Falló la migración " + migracion.version + " (" + migracion.descripcion
+                            + "): " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+                if (anotar(conexion, migracion)) {
+                    aplicadas++;
+                }
+            }
+            return aplicadas;
+        }
+    }
+
+    public int getVersion() throws SQLException {
+        try (Connection conexion = pool.obtenerConexion()) {
+            return getVersion(conexion);
+        }
+    }
+
+    // EXPLAIN de las consultas con filtro de los DAO; devuelve un aviso por cada tabla que se recorre
+    // entera. Entiende la salida en columnas de MySQL (type = ALL) y el plan en texto de H2 (tableScan).
+    // No se comprueban los recorridos completos a propósito (obtenerTodos, recorrerTodos) ni las
+    // búsquedas LIKE '%texto%' por categoría y género, que con el comodín delante no pueden usar índice.
+    public List<String> comprobarConsultas() throws SQLException {
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        List<String> avisos = new ArrayList<>();
+        try (Connection conexion = pool.obtenerConexion()) {
+            for (ElementoBibliotecaDAO<?> dao : new ElementoBibliotecaDAO<?>[] {
+                    new LibroDAO(pool), new RevistaDAO(pool), new DVDDAO(pool)}) {
+                String seleccion = dao.getSqlSeleccion();
+                String nombre = dao.getClass().getSimpleName();
+                explicar(conexion, avisos, nombre + ".obtenerPorId", seleccion + " AND e.id = ?", 1);
+                explicar(conexion, avisos, nombre + ".obtenerPagina",
+                        seleccion + " AND e.id > ? ORDER BY e.id LIMIT ?", 0, 100);
+                explicar(conexion, avisos, nombre + ".obtenerPorIds",
+                        seleccion + " AND e.id IN (?,?,?) ORDER BY e.id", 1, 2, 3);
+                explicar(conexion, avisos, nombre + ".obtenerCambiosDesde",
+                        seleccion + " AND e.actualizado_en >= ? ORDER BY e.id", ahora);
+                explicar(conexion, avisos, nombre + ".buscar (año)", new Criterio<>()
+                        .entre(Campo.ANO_PUBLICACION, 1990, 1999).limite(50).compilar(seleccion), 1990, 1999, 50);
+                explicar(conexion, avisos, nombre + ".buscar (autor)", new Criterio<>()
+                        .empiezaPor(Campo.AUTOR, "a").limite(50).compilar(seleccion), "a%", 50);
+                explicar(conexion, avisos, nombre + ".contar",
+                        "SELECT COUNT(*) FROM ElementoBiblioteca WHERE tipo = ?", dao.getTipo());
+                explicar(conexion, avisos, nombre + ".obtenerCambiosDesde (borrados)",
+                        "SELECT id FROM ElementoEliminado WHERE tipo = ? AND eliminado_en >= ? ORDER BY id",
+                        dao.getTipo(), ahora);
+            }
+        }
+        return avisos;
+    }
+
+    private static void explicar(Connection conexion, List<String> avisos, String consulta, String sql,
+                                 Object... parametros) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (tieneColumna(rs.getMetaData(), "type")) {
+                    while (rs.next()) {
+                        if ("ALL".equalsIgnoreCase(rs.getString("type")) && rs.getLong("rows") >= FILAS_MINIMAS_AVISO) {
+                            avisos.add(consulta + " recorre entera la tabla " + rs.getString("table")
+                                    + " (unas " + rs.getLong("rows") + " filas)");
+                        }
+                    }
+                } else {
+                    while (rs.next()) {
+                        Matcher recorrido = RECORRIDO_H2.matcher(rs.getString(1));
+                        while (recorrido.find()) {
+                            avisos.add(consulta + " recorre entera la tabla " + recorrido.group(1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean tieneColumna(ResultSetMetaData metadatos, String nombre) throws SQLException {
+        for (int i = 1; i <= metadatos.getColumnCount(); i++) {
+            if (nombre.equalsIgnoreCase(metadatos.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getVersion(Connection conexion) throws SQLException {
+        try (Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM VersionEsquema")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // false si otro cliente que arrancaba a la vez ya la había anotado
+    private static boolean anotar(Connection conexion, Migracion migracion) throws SQLException {
+        try (PreparedStatement stmt = conexion.prepareStatement(
+                "INSERT INTO VersionEsquema (version, descripcion) VALUES (?, ?)")) {
+            stmt.setInt(1, migracion.version);
+            stmt.setString(2, migracion.descripcion);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        }
+    }
+
+    private static Paso sql(String sentencia) {
+        return conexion -> ejecutar(conexion, sentencia);
+    }
+
+    // Entre mirar los metadatos y el ALTER otro cliente que arranca a la vez puede añadir la columna;
+    // el ALTER falla entonces por duplicada y, como en anotar, se da por aplicada
+    private static Paso columna(String tabla, String columna, String definicion) {
+        return conexion -> {
+            if (!existeColumna(conexion, tabla, columna)) {
+                try {
+                    ejecutar(conexion, "ALTER TABLE " + tabla + " ADD COLUMN " + columna + " " + definicion);
+                } catch (SQLException e) {
+                    if (!esError(e, COLUMNA_DUPLICADA) && !existeColumna(conexion, tabla, columna)) {
+                        throw e;
+                    }
+                }
+            }
+        };
+    }
+
+    // MySQL no admite CREATE INDEX IF NOT EXISTS, así que se mira antes en los metadatos. Si otro
+    // cliente lo crea entretanto, el CREATE falla por duplicado y se da por aplicado.
+    private static Paso indice(String nombre, String tabla, String... columnas) {
+        return conexion -> {
+            if (!existeIndice(conexion, tabla, nombre)) {
+                try {
+                    ejecutar(conexion, "CREATE INDEX " + nombre + " ON " + tabla + " (" + String.join(", ", columnas) + ")");
+                } catch (SQLException e) {
+                    if (!esError(e, INDICE_DUPLICADO) && !existeIndice(conexion, tabla, nombre)) {
+                        throw e;
+                    }
+                }
+            }
+        };
+    }
+
+    private static boolean esError(SQLException e, int[] codigos) {
+        for (int codigo : codigos) {
+            if (e.getErrorCode() == codigo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void ejecutar(Connection conexion, String sentencia) throws SQLException {
+        try (Statement stmt = conexion.createStatement()) {
+            stmt.execute(sentencia);
+        }
+    }
+
+    // Los nombres se comparan sin mayúsculas: H2 los guarda en mayúsculas y MySQL tal como se crearon
+    private static boolean existeColumna(Connection conexion, String tabla, String columna) throws SQLException {
+        DatabaseMetaData metadatos = conexion.getMetaData();
+        for (String nombreTabla : variantes(tabla)) {
+            try (ResultSet rs = metadatos.getColumns(conexion.getCatalog(), null, nombreTabla, null)) {
+                while (rs.next()) {
+                    if (columna.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean existeIndice(Connection conexion, String tabla, String indice) throws SQLException {
+        DatabaseMetaData metadatos = conexion.getMetaData();
+        for (String nombreTabla : variantes(tabla)) {
+            try (ResultSet rs = metadatos.getIndexInfo(conexion.getCatalog(), null, nombreTabla, false, true)) {
+                while (rs.next()) {
+                    if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String[] variantes(String nombre) {
+        String mayusculas = nombre.toUpperCase(Locale.ROOT);
+        return mayusculas.equals(nombre) ? new String[] {nombre} : new String[] {nombre, mayusculas};
+    }
+}
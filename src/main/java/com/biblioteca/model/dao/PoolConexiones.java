@@ -0,0 +1,701 @@
+// DAO: PoolConexiones.java
+package com.biblioteca.model.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PoolConexiones implements AutoCloseable {
+
+    // Parámetros del pool; los valores por defecto sirven para una instalación de escritorio
+    public static class Configuracion {
+        private String url;
+        private String usuario;
+        private String password;
+        private int tamanoMaximo = 10;
+        private int minimoInactivas = 2;
+        private long tiempoMaximoInactividadMs = TimeUnit.MINUTES.toMillis(10);
+        private long tiempoEsperaMs = TimeUnit.SECONDS.toMillis(30);
+        private int tiempoValidacionSeg = 2;
+        private long umbralFugaMs = TimeUnit.MINUTES.toMillis(1);
+        private boolean registrarOrigenFuga;
+        private long intervaloMantenimientoMs = TimeUnit.SECONDS.toMillis(30);
+        private int tamanoCacheSentencias = 64;
+
+        public Configuracion(String url, String usuario, String password) {
+            this.url = url;
+            this.usuario = usuario;
+            this.password = password;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getUsuario() {
+            return usuario;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public int getTamanoMaximo() {
+            return tamanoMaximo;
+        }
+
+        public Configuracion setTamanoMaximo(int tamanoMaximo) {
+            this.tamanoMaximo = tamanoMaximo;
+            return this;
+        }
+
+        public int getMinimoInactivas() {
+            return minimoInactivas;
+        }
+
+        public Configuracion setMinimoInactivas(int minimoInactivas) {
+            this.minimoInactivas = minimoInactivas;
+            return this;
+        }
+
+        public long getTiempoMaximoInactividadMs() {
+            return tiempoMaximoInactividadMs;
+        }
+
+        public Configuracion setTiempoMaximoInactividadMs(long tiempoMaximoInactividadMs) {
+            this.tiempoMaximoInactividadMs = tiempoMaximoInactividadMs;
+            return this;
+        }
+
+        public long getTiempoEsperaMs() {
+            return tiempoEsperaMs;
+        }
+
+        public Configuracion setTiempoEsperaMs(long tiempoEsperaMs) {
+            this.tiempoEsperaMs = tiempoEsperaMs;
+            return this;
+        }
+
+        public int getTiempoValidacionSeg() {
+            return tiempoValidacionSeg;
+        }
+
+        public Configuracion setTiempoValidacionSeg(int tiempoValidacionSeg) {
+            this.tiempoValidacionSeg = tiempoValidacionSeg;
+            return this;
+        }
+
+        // 0 desactiva la detección de fugas
+        public long getUmbralFugaMs() {
+            return umbralFugaMs;
+        }
+
+        public Configuracion setUmbralFugaMs(long umbralFugaMs) {
+            this.umbralFugaMs = umbralFugaMs;
+            return this;
+        }
+
+        // Guarda la pila de cada préstamo para decir en el aviso de fuga dónde se obtuvo la conexión.
+        // Cuesta una pila por préstamo: para depurar una fuga, no para el uso normal.
+        public boolean isRegistrarOrigenFuga() {
+            return registrarOrigenFuga;
+        }
+
+        public Configuracion setRegistrarOrigenFuga(boolean registrarOrigenFuga) {
+            this.registrarOrigenFuga = registrarOrigenFuga;
+            return this;
+        }
+
+        public long getIntervaloMantenimientoMs() {
+            return intervaloMantenimientoMs;
+        }
+
+        public Configuracion setIntervaloMantenimientoMs(long intervaloMantenimientoMs) {
+            this.intervaloMantenimientoMs = intervaloMantenimientoMs;
+            return this;
+        }
+
+        // Sentencias preparadas que se conservan por cada conexión física; 0 desactiva la caché
+        public int getTamanoCacheSentencias() {
+            return tamanoCacheSentencias;
+        }
+
+        public Configuracion setTamanoCacheSentencias(int tamanoCacheSentencias) {
+            this.tamanoCacheSentencias = tamanoCacheSentencias;
+            return this;
+        }
+    }
+
+    // Instantánea de las métricas del pool
+    public static class Estadisticas {
+        private final int activas;
+        private final int inactivas;
+        private final long prestamos;
+        private final long esperasAgotadas;
+        private final long tiempoEsperaMedioMicros;
+        private final long tiempoEsperaMaximoMicros;
+        private final long conexionesCreadas;
+        private final long conexionesDescartadas;
+        private final long fugasDetectadas;
+        private final long sentenciasReutilizadas;
+        private final long sentenciasPreparadas;
+        private final long sentenciasDesalojadas;
+
+        Estadisticas(int activas, int inactivas, long prestamos, long esperasAgotadas,
+                     long tiempoEsperaMedioMicros, long tiempoEsperaMaximoMicros,
+                     long conexionesCreadas, long conexionesDescartadas, long fugasDetectadas,
+                     long sentenciasReutilizadas, long sentenciasPreparadas, long sentenciasDesalojadas) {
+            this.activas = activas;
+            this.inactivas = inactivas;
+            this.prestamos = prestamos;
+            this.esperasAgotadas = esperasAgotadas;
+            this.tiempoEsperaMedioMicros = tiempoEsperaMedioMicros;
+            this.tiempoEsperaMaximoMicros = tiempoEsperaMaximoMicros;
+            this.conexionesCreadas = conexionesCreadas;
+            this.conexionesDescartadas = conexionesDescartadas;
+            this.fugasDetectadas = fugasDetectadas;
+            this.sentenciasReutilizadas = sentenciasReutilizadas;
+            this.sentenciasPreparadas = sentenciasPreparadas;
+            this.sentenciasDesalojadas = sentenciasDesalojadas;
+        }
+
+        public int getActivas() {
+            return activas;
+        }
+
+        public int getInactivas() {
+            return inactivas;
+        }
+
+        public long getPrestamos() {
+            return prestamos;
+        }
+
+        public long getEsperasAgotadas() {
+            return esperasAgotadas;
+        }
+
+        public long getTiempoEsperaMedioMicros() {
+            return tiempoEsperaMedioMicros;
+        }
+
+        public long getTiempoEsperaMaximoMicros() {
+            return tiempoEsperaMaximoMicros;
+        }
+
+        public long getConexionesCreadas() {
+            return conexionesCreadas;
+        }
+
+        public long getConexionesDescartadas() {
+            return conexionesDescartadas;
+        }
+
+        public long getFugasDetectadas() {
+            return fugasDetectadas;
+        }
+
+        // prepareStatement resueltos con una sentencia ya preparada en la conexión
+        public long getSentenciasReutilizadas() {
+            return sentenciasReutilizadas;
+        }
+
+        // prepareStatement que tuvieron que preparar la sentencia en el servidor
+        public long getSentenciasPreparadas() {
+            return sentenciasPreparadas;
+        }
+
+        public long getSentenciasDesalojadas() {
+            return sentenciasDesalojadas;
+        }
+
+        public double getTasaAciertosSentencias() {
+            long total = sentenciasReutilizadas + sentenciasPreparadas;
+            return total == 0 ? 0.0 : (double) sentenciasReutilizadas / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Pool [activas=" + activas + ", inactivas=" + inactivas +
+                    ", préstamos=" + prestamos + ", esperas agotadas=" + esperasAgotadas +
+                    ", espera media=" + tiempoEsperaMedioMicros + "µs" +
+                    ", espera máxima=" + tiempoEsperaMaximoMicros + "µs" +
+                    ", creadas=" + conexionesCreadas + ", descartadas=" + conexionesDescartadas +
+                    ", fugas=" + fugasDetectadas +
+                    ", sentencias reutilizadas=" + sentenciasReutilizadas +
+                    ", preparadas=" + sentenciasPreparadas + ", desalojadas=" + sentenciasDesalojadas + "]";
+        }
+    }
+
+    // Conexión física en reposo dentro del pool
+    private static class ConexionInactiva {
+        final Connection fisica;
+        final long desde;
+
+        ConexionInactiva(Connection fisica) {
+            this.fisica = fisica;
+            this.desde = System.currentTimeMillis();
+        }
+    }
+
+    // Datos de un préstamo en curso, usados para detectar fugas
+    private static class Prestamo {
+        final long desde = System.currentTimeMillis();
+        final Throwable origen;
+        volatile boolean reportado;
+
+        Prestamo(boolean registrarOrigen) {
+            this.origen = registrarOrigen ? new Throwable("Conexión obtenida aquí") : null;
+        }
+    }
+
+    private final Configuracion config;
+    private final Semaphore permisos;
+    private final ConcurrentLinkedDeque<ConexionInactiva> inactivas = new ConcurrentLinkedDeque<>();
+    private final Map<Connection, Prestamo> prestadas = new ConcurrentHashMap<>();
+    private final Map<Connection, CacheSentencias> sentenciasPorConexion = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong esperasAgotadas = new AtomicLong();
+    private final AtomicLong tiempoEsperaTotalNanos = new AtomicLong();
+    private final AtomicLong tiempoEsperaMaximoNanos = new AtomicLong();
+    private final AtomicLong conexionesCreadas = new AtomicLong();
+    private final AtomicLong conexionesDescartadas = new AtomicLong();
+    private final AtomicLong fugasDetectadas = new AtomicLong();
+    private final AtomicLong sentenciasReutilizadas = new AtomicLong();
+    private final AtomicLong sentenciasPreparadas = new AtomicLong();
+    private final AtomicLong sentenciasDesalojadas = new AtomicLong();
+
+    public PoolConexiones(Configuracion config) throws SQLException {
+        if (config.getTamanoMaximo() <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser mayor que cero");
+        }
+        this.config = config;
+        this.permisos = new Semaphore(config.getTamanoMaximo(), true);
+
+        // Precarga las conexiones mínimas para que el primer uso no pague la conexión
+        int minimo = Math.min(config.getMinimoInactivas(), config.getTamanoMaximo());
+        for (int i = 0; i < minimo; i++) {
+            inactivas.offerFirst(new ConexionInactiva(crearConexionFisica()));
+        }
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-conexiones-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long intervalo = config.getIntervaloMantenimientoMs();
+        mantenimiento.scheduleWithFixedDelay(this::mantener, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    // Presta una conexión; al cerrarla vuelve al pool en lugar de cerrarse
+    public Connection obtenerConexion() throws SQLException {
+        return obtenerConexion(config.getTiempoEsperaMs());
+    }
+
+    // Con una espera distinta de la configurada; con 0 falla en el acto si no hay ninguna libre
+    public Connection obtenerConexion(long tiempoEsperaMs) throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(tiempoEsperaMs, TimeUnit.MILLISECONDS)) {
+                esperasAgotadas.incrementAndGet();
+                throw new SQLTimeoutException("Tiempo de espera agotado al obtener una conexión del pool ("
+                        + tiempoEsperaMs + " ms, máximo " + config.getTamanoMaximo() + " conexiones)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión del pool", e);
+        }
+        registrarEspera(System.nanoTime() - inicio);
+
+        try {
+            Connection fisica = tomarConexionValida();
+            prestamos.incrementAndGet();
+            prestadas.put(fisica, new Prestamo(config.getUmbralFugaMs() > 0 && config.isRegistrarOrigenFuga()));
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    new ConexionPrestada(fisica));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        long total = prestamos.get();
+        long medio = total == 0 ? 0 : tiempoEsperaTotalNanos.get() / total / 1000;
+        return new Estadisticas(
+                prestadas.size(),
+                inactivas.size(),
+                total,
+                esperasAgotadas.get(),
+                medio,
+                tiempoEsperaMaximoNanos.get() / 1000,
+                conexionesCreadas.get(),
+                conexionesDescartadas.get(),
+                fugasDetectadas.get(),
+                sentenciasReutilizadas.get(),
+                sentenciasPreparadas.get(),
+                sentenciasDesalojadas.get());
+    }
+
+    // Conexiones prestadas o a punto de prestarse; más barato que getEstadisticas para decidir a qué pool ir
+    public int getActivas() {
+        return config.getTamanoMaximo() - permisos.availablePermits();
+    }
+
+    public Configuracion getConfiguracion() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            cerrarFisica(inactiva.fisica);
+        }
+        // Las conexiones prestadas se cierran al devolverse
+    }
+
+    // Toma la conexión inactiva más reciente que siga siendo válida o crea una nueva
+    private Connection tomarConexionValida() throws SQLException {
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            if (esValida(inactiva.fisica)) {
+                return inactiva.fisica;
+            }
+            conexionesDescartadas.incrementAndGet();
+            cerrarFisica(inactiva.fisica);
+        }
+        return crearConexionFisica();
+    }
+
+    private boolean esValida(Connection fisica) {
+        try {
+            return !fisica.isClosed() && fisica.isValid(config.getTiempoValidacionSeg());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection crearConexionFisica() throws SQLException {
+        Connection fisica = DriverManager.getConnection(config.getUrl(), config.getUsuario(), config.getPassword());
+        conexionesCreadas.incrementAndGet();
+        return fisica;
+    }
+
+    private void devolver(Connection fisica) {
+        prestadas.remove(fisica);
+        try {
+            boolean reutilizable = !cerrado && !fisica.isClosed();
+            if (reutilizable && !fisica.getAutoCommit()) {
+                // Deshace cualquier transacción que el DAO haya dejado a medias
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (reutilizable) {
+                inactivas.offerFirst(new ConexionInactiva(fisica));
+            } else {
+                cerrarFisica(fisica);
+            }
+        } catch (SQLException e) {
+            conexionesDescartadas.incrementAndGet();
+            cerrarFisica(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        tiempoEsperaTotalNanos.addAndGet(nanos);
+        tiempoEsperaMaximoNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // Tarea periódica: desaloja inactivas antiguas y avisa de préstamos sospechosos
+    private void mantener() {
+        long ahora = System.currentTimeMillis();
+
+        Iterator<ConexionInactiva> it = inactivas.descendingIterator();
+        while (it.hasNext() && inactivas.size() > config.getMinimoInactivas()) {
+            ConexionInactiva inactiva = it.next();
+            if (ahora - inactiva.desde > config.getTiempoMaximoInactividadMs() && inactivas.remove(inactiva)) {
+                cerrarFisica(inactiva.fisica);
+            }
+        }
+
+        if (config.getUmbralFugaMs() > 0) {
+            for (Prestamo prestamo : prestadas.values()) {
+                if (!prestamo.reportado && ahora - prestamo.desde > config.getUmbralFugaMs()) {
+                    prestamo.reportado = true;
+                    fugasDetectadas.incrementAndGet();
+                    System.err.println("Posible fuga de conexión: prestada hace " + (ahora - prestamo.desde) + " ms"
+                            + (prestamo.origen != null ? ", obtenida en " + origenDe(prestamo.origen) : ""));
+                }
+            }
+        }
+    }
+
+    // La pila del préstamo en una línea, sin los marcos del propio pool
+    private static String origenDe(Throwable origen) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement marco : origen.getStackTrace()) {
+            String clase = marco.getClassName();
+            if (clase.equals(PoolConexiones.class.getName()) || clase.startsWith(PoolConexiones.class.getName() + "$")) {
+                continue;
+            }
+            sb.append(sb.length() == 0 ? "" : " <- ").append(marco);
+        }
+        return sb.toString();
+    }
+
+    // Cerrar la conexión física cierra también sus sentencias en caché
+    private void cerrarFisica(Connection fisica) {
+        sentenciasPorConexion.remove(fisica);
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar la conexión: " + e.getMessage());
+        }
+    }
+
+    // Envoltorio de la conexión prestada: close() la devuelve al pool
+    private class ConexionPrestada implements InvocationHandler {
+        private final Connection fisica;
+        private boolean devuelta;
+
+        ConexionPrestada(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPrestada[" + fisica + "]";
+                default:
+                    break;
+            }
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            if (method.getName().equals("prepareStatement") && config.getTamanoCacheSentencias() > 0) {
+                String clave = CacheSentencias.clave(method, args);
+                if (clave != null) {
+                    return sentenciasPorConexion
+                            .computeIfAbsent(fisica, f -> new CacheSentencias(f, config.getTamanoCacheSentencias()))
+                            .preparar(clave, (Connection) proxy, method, args);
+                }
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Sentencias preparadas de una conexión física, por SQL y de la menos a la más usada.
+    // Sobreviven a los préstamos, así que cada consulta fija se analiza y planifica una vez por conexión.
+    // Solo la toca quien tiene la conexión prestada, por eso no necesita sincronización.
+    private class CacheSentencias {
+        private final Connection fisica;
+        private final int tamanoMaximo;
+        private final LinkedHashMap<String, SentenciaCacheada> sentencias;
+
+        CacheSentencias(Connection fisica, int tamanoMaximo) {
+            this.fisica = fisica;
+            this.tamanoMaximo = tamanoMaximo;
+            this.sentencias = new LinkedHashMap<String, SentenciaCacheada>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SentenciaCacheada> eldest) {
+                    if (size() <= CacheSentencias.this.tamanoMaximo) {
+                        return false;
+                    }
+                    sentenciasDesalojadas.incrementAndGet();
+                    eldest.getValue().desalojar();
+                    return true;
+                }
+            };
+        }
+
+        // Clave de caché para las variantes de prepareStatement que admite; null para el resto
+        static String clave(Method method, Object[] args) {
+            Class<?>[] tipos = method.getParameterTypes();
+            if (tipos.length == 0 || tipos.length > 3 || tipos[0] != String.class) {
+                return null;
+            }
+            StringBuilder clave = new StringBuilder((String) args[0]);
+            for (int i = 1; i < tipos.length; i++) {
+                if (tipos[i] != int.class) {
+                    return null;
+                }
+                clave.append('\u0000').append(args[i]);
+            }
+            return clave.toString();
+        }
+
+        PreparedStatement preparar(String clave, Connection prestada, Method method, Object[] args)
+                throws Throwable {
+            SentenciaCacheada cacheada = sentencias.get(clave);
+            if (cacheada != null && !cacheada.enUso) {
+                sentenciasReutilizadas.incrementAndGet();
+                return cacheada.prestar(prestada);
+            }
+
+            sentenciasPreparadas.incrementAndGet();
+            PreparedStatement nueva;
+            try {
+                nueva = (PreparedStatement) method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (cacheada != null) {
+                // La misma consulta ya está abierta en esta conexión: esta copia no se guarda
+                return nueva;
+            }
+            cacheada = new SentenciaCacheada(this, clave, nueva);
+            sentencias.put(clave, cacheada);
+            return cacheada.prestar(prestada);
+        }
+
+        void descartar(SentenciaCacheada cacheada) {
+            sentencias.remove(cacheada.clave, cacheada);
+        }
+    }
+
+    // Sentencia física en caché; close() sobre el envoltorio la limpia y la deja lista para reutilizarse
+    private static class SentenciaCacheada implements InvocationHandler {
+        private final CacheSentencias cache;
+        private final String clave;
+        private final PreparedStatement fisica;
+        private final int tamanoFetchInicial;
+        private Connection prestada;
+        private boolean enUso;
+        private boolean desalojada;
+
+        SentenciaCacheada(CacheSentencias cache, String clave, PreparedStatement fisica) throws SQLException {
+            this.cache = cache;
+            this.clave = clave;
+            this.fisica = fisica;
+            this.tamanoFetchInicial = fisica.getFetchSize();
+        }
+
+        PreparedStatement prestar(Connection prestada) {
+            this.prestada = prestada;
+            this.enUso = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    this);
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrar(fisica);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (enUso) {
+                        enUso = false;
+                        liberar();
+                    }
+                    return null;
+                case "isClosed":
+                    return !enUso || fisica.isClosed();
+                case "getConnection":
+                    return prestada;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaCacheada[" + fisica + "]";
+                default:
+                    break;
+            }
+            if (!enUso) {
+                throw new SQLException("La sentencia ya está cerrada");
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Deja la sentencia como recién preparada; si algo falla se cierra y sale de la caché
+        private void liberar() {
+            prestada = null;
+            if (desalojada) {
+                cerrar(fisica);
+                return;
+            }
+            try {
+                ResultSet abierto = fisica.getResultSet();
+                if (abierto != null) {
+                    abierto.close();
+                }
+                fisica.clearParameters();
+                fisica.clearBatch();
+                fisica.clearWarnings();
+                if (fisica.getFetchSize() != tamanoFetchInicial) {
+                    fisica.setFetchSize(tamanoFetchInicial);
+                }
+            } catch (SQLException e) {
+                cache.descartar(this);
+                cerrar(fisica);
+            }
+        }
+
+        private static void cerrar(PreparedStatement fisica) {
+            try {
+                fisica.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la sentencia: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+// DAO: ResultadoLote.java
+package com.biblioteca.model.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resultado de una inserción por lotes: cuántos elementos entraron y qué tramos fallaron
+public class ResultadoLote {
+
+    // Tramo [desde, hasta) de la lista original que no se pudo guardar
+    public static class FalloLote {
+        private final int desde;
+        private final int hasta;
+        private final SQLException causa;
+
+        public FalloLote(int desde, int hasta, SQLException causa) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.causa = causa;
+        }
+
+        public int getDesde() {
+            return desde;
+        }
+
+        public int getHasta() {
+            return hasta;
+        }
+
+        public SQLException getCausa() {
+            return causa;
+        }
+
+        @Override
+        public String toString() {
+            return "Elementos " + desde + "-" + (hasta - 1) + ": " + causa.getMessage();
+        }
+    }
+
+    private final int total;
+    private int insertados;
+    private final List<FalloLote> fallos = new ArrayList<>();
+
+    public ResultadoLote(int total) {
+        this.total = total;
+    }
+
+    // Resultado para un lote que no llegó a procesarse
+    public static ResultadoLote fallido(int total, SQLException causa) {
+        ResultadoLote resultado = new ResultadoLote(total);
+        resultado.registrarFallo(0, total, causa);
+        return resultado;
+    }
+
+    void registrarInsertados(int cantidad) {
+        insertados += cantidad;
+    }
+
+    void registrarFallo(int desde, int hasta, SQLException causa) {
+        fallos.add(new FalloLote(desde, hasta, causa));
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getInsertados() {
+        return insertados;
+    }
+
+    public List<FalloLote> getFallos() {
+        return Collections.unmodifiableList(fallos);
+    }
+
+    public boolean isCompleto() {
+        return fallos.isEmpty() && insertados == total;
+    }
+
+    @Override
+    public String toString() {
+        return "Lote [total=" + total + ", insertados=" + insertados + ", tramos fallidos=" + fallos.size() + "]";
+    }
+}
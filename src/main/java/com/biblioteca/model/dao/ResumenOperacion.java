@@ -0,0 +1,69 @@
+// DAO: ResumenOperacion.java
+package com.biblioteca.model.dao;
+
+import java.beans.ConstructorProperties;
+
+// Instantánea de las métricas de una operación, tal como se publica por JMX (tiempos en microsegundos)
+public class ResumenOperacion {
+    private final long llamadas;
+    private final long errores;
+    private final long filas;
+    private final long mediaMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maximoMicros;
+
+    @ConstructorProperties({"llamadas", "errores", "filas", "mediaMicros",
+            "p50Micros", "p99Micros", "p999Micros", "maximoMicros"})
+    public ResumenOperacion(long llamadas, long errores, long filas, long mediaMicros,
+                            long p50Micros, long p99Micros, long p999Micros, long maximoMicros) {
+        this.llamadas = llamadas;
+        this.errores = errores;
+        this.filas = filas;
+        this.mediaMicros = mediaMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maximoMicros = maximoMicros;
+    }
+
+    public long getLlamadas() {
+        return llamadas;
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    public long getMediaMicros() {
+        return mediaMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaximoMicros() {
+        return maximoMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "llamadas=" + llamadas + ", errores=" + errores + ", filas=" + filas +
+                ", media=" + mediaMicros + "µs, p50=" + p50Micros + "µs, p99=" + p99Micros +
+                "µs, p999=" + p999Micros + "µs, máx=" + maximoMicros + "µs";
+    }
+}
@@ -0,0 +1,241 @@
+// DAO: TablaArchivo.java
+package com.biblioteca.model.dao;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Vista de un tipo sobre el AlmacenArchivo con la forma que esperan los DAO: elementos tipados,
+// SQLException en los errores y los mismos resultados (ResultadoLote, Cambios) que la versión MySQL
+class TablaArchivo<T extends ElementoBiblioteca> {
+    private final AlmacenArchivo almacen;
+    private final String tipo;
+
+    TablaArchivo(AlmacenArchivo almacen, String tipo) {
+        this.almacen = almacen;
+        this.tipo = tipo;
+    }
+
+    T obtener(int id) {
+        return convertir(almacen.obtener(tipo, id));
+    }
+
+    boolean insertar(T elemento) throws SQLException {
+        try {
+            almacen.guardar(List.of(elemento));
+            return true;
+        } catch (IOException e) {
+            throw error("insertar", e);
+        }
+    }
+
+    boolean actualizar(T elemento) throws SQLException {
+        try {
+            almacen.guardar(List.of(elemento));
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        } catch (IOException e) {
+            throw error("actualizar", e);
+        }
+    }
+
+    // Todo el grupo en un registro: si falla no queda nada escrito y las altas vuelven a id -1
+    void guardarGrupo(List<T> elementos, Consumer<T> alGuardar) throws SQLException {
+        List<Boolean> altas = new ArrayList<>(elementos.size());
+        for (T elemento : elementos) {
+            altas.add(elemento.getId() < 0);
+        }
+        try {
+            almacen.guardar(elementos);
+        } catch (NoSuchElementException e) {
+            throw new SQLException("La actualización falló: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw error("guardar el grupo", e);
+        }
+        for (int i = 0; i < elementos.size(); i++) {
+            T elemento = elementos.get(i);
+            elemento.setVersion(altas.get(i) ? 1 : elemento.getVersion() + 1);
+            alGuardar.accept(elemento);
+        }
+    }
+
+    // Un registro por tramo, igual que un commit por tramo en la versión MySQL
+    ResultadoLote insertarLote(List<T> elementos, int tamanoLote, Consumer<T> alGuardar) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        ResultadoLote resultado = new ResultadoLote(elementos.size());
+        for (int desde = 0; desde < elementos.size(); desde += tamanoLote) {
+            List<T> tramo = elementos.subList(desde, Math.min(desde + tamanoLote, elementos.size()));
+            try {
+                almacen.guardar(tramo);
+            } catch (IOException | ConflictoVersionException | RuntimeException e) {
+                for (T elemento : tramo) {
+                    elemento.setId(-1);
+                }
+                resultado.registrarFallo(desde, desde + tramo.size(), error("insertar el lote", e));
+                continue;
+            }
+            resultado.registrarInsertados(tramo.size());
+            for (T elemento : tramo) {
+                elemento.setVersion(1);
+                alGuardar.accept(elemento);
+            }
+        }
+        return resultado;
+    }
+
+    boolean eliminar(int id) throws SQLException {
+        try {
+            return almacen.eliminar(tipo, id);
+        } catch (IOException e) {
+            throw error("eliminar", e);
+        }
+    }
+
+    // Un registro por tramo, igual que una transacción por tramo en la versión MySQL; si un tramo
+    // falla, los anteriores quedan borrados y anotados
+    List<Integer> eliminarLote(Collection<Integer> ids, int tamanoTramo, Consumer<Integer> alEliminar) throws SQLException {
+        List<Integer> pendientes = new ArrayList<>(ids);
+        List<Integer> eliminados = new ArrayList<>(pendientes.size());
+        for (int desde = 0; desde < pendientes.size(); desde += tamanoTramo) {
+            List<Integer> borrados;
+            try {
+                borrados = almacen.eliminar(tipo, pendientes.subList(desde, Math.min(desde + tamanoTramo, pendientes.size())));
+            } catch (IOException e) {
+                throw new EliminacionParcialException(eliminados, pendientes.size(), e);
+            }
+            borrados.forEach(alEliminar);
+            eliminados.addAll(borrados);
+        }
+        return eliminados;
+    }
+
+    void recorrer(Consumer<? super T> accion) {
+        Iterator<ElementoBiblioteca> it = almacen.recorrer(tipo);
+        while (it.hasNext()) {
+            accion.accept(convertir(it.next()));
+        }
+    }
+
+    // No retiene recursos, pero se cierra igual que el flujo sobre un cursor
+    Stream<T> flujo() {
+        Iterator<ElementoBiblioteca> it = almacen.recorrer(tipo);
+        Spliterator<T> elementos = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accion) {
+                if (!it.hasNext()) {
+                    return false;
+                }
+                accion.accept(convertir(it.next()));
+                return true;
+            }
+        };
+        return StreamSupport.stream(elementos, false);
+    }
+
+    List<T> pagina(int despuesDeId, int limite) {
+        return convertir(almacen.pagina(tipo, despuesDeId, limite));
+    }
+
+    List<T> paginaPorPosicion(int posicion, int limite) {
+        return convertir(almacen.paginaPorPosicion(tipo, posicion, limite));
+    }
+
+    int contar() {
+        return almacen.contar(tipo);
+    }
+
+    // Mismo contrato que ElementoBibliotecaDAO.obtenerCambiosDesde; la marca es la hora del almacén,
+    // que no retrocede, así que no hace falta releer ningún margen
+    Cambios<T> cambiosDesde(Timestamp marca) {
+        Timestamp nuevaMarca = new Timestamp(almacen.getMomentoActual());
+        if (marca == null) {
+            return new Cambios<T>(Collections.emptyList(), Collections.emptyList(), contar(), nuevaMarca);
+        }
+        List<T> modificados = convertir(almacen.modificadosDesde(tipo, marca.getTime()));
+        List<Integer> eliminados = almacen.eliminadosDesde(tipo, marca.getTime());
+        int total = modificados.isEmpty() && eliminados.isEmpty() ? -1 : contar();
+        return new Cambios<>(modificados, eliminados, total, nuevaMarca);
+    }
+
+    // Ordenados por id, como el IN de la versión MySQL; los ids que no existen se omiten
+    List<T> porIds(Collection<Integer> ids, Cancelacion cancelacion) throws SQLException {
+        List<T> elementos = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            comprobarCancelacion(cancelacion, elementos.size());
+            T elemento = obtener(id);
+            if (elemento != null) {
+                elementos.add(elemento);
+            }
+        }
+        elementos.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return elementos;
+    }
+
+    // Recorrido completo con un filtro, en lugar de una consulta LIKE
+    List<T> filtrar(Predicate<? super T> filtro, Cancelacion cancelacion) throws SQLException {
+        List<T> elementos = new ArrayList<>();
+        Iterator<ElementoBiblioteca> it = almacen.recorrer(tipo);
+        for (int leidos = 0; it.hasNext(); leidos++) {
+            comprobarCancelacion(cancelacion, leidos);
+            T elemento = convertir(it.next());
+            if (filtro.test(elemento)) {
+                elementos.add(elemento);
+            }
+        }
+        return elementos;
+    }
+
+    // Mismo resultado que la consulta compilada del Criterio, evaluado sobre un recorrido completo
+    List<T> buscar(Criterio<T> criterio, Cancelacion cancelacion) throws SQLException {
+        List<T> elementos = filtrar(criterio::cumple, cancelacion);
+        elementos.sort(criterio.comparador());
+        int desde = Math.min(criterio.getSaltar(), elementos.size());
+        int hasta = criterio.getLimite() < 0 ? elementos.size()
+                : (int) Math.min((long) desde + criterio.getLimite(), elementos.size());
+        return new ArrayList<>(elementos.subList(desde, hasta));
+    }
+
+    // Equivale a LIKE '%fragmento%' con la intercalación por defecto de MySQL, sin distinguir mayúsculas
+    static boolean contiene(String valor, String fragmento) {
+        return valor != null && valor.toLowerCase(Locale.ROOT).contains(fragmento.toLowerCase(Locale.ROOT));
+    }
+
+    // Se mira cada cierto número de elementos; sin servidor no hay sentencia que cancelar
+    private static void comprobarCancelacion(Cancelacion cancelacion, int procesados) throws SQLException {
+        if (procesados % 256 == 0 && cancelacion.isCancelada()) {
+            throw new SQLException("Consulta cancelada", Cancelacion.ESTADO_CANCELADA);
+        }
+    }
+
+    private static SQLException error(String operacion, Exception causa) {
+        return new SQLException("Error del almacén local al " + operacion + ": " + causa.getMessage(), causa);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T convertir(ElementoBiblioteca elemento) {
+        return (T) elemento;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> convertir(List<ElementoBiblioteca> elementos) {
+        return (List<T>) (List<?>) elementos;
+    }
+}
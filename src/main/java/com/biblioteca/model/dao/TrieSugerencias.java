@@ -0,0 +1,208 @@
+// DAO: TrieSugerencias.java
+package com.biblioteca.model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Árbol de prefijos con los textos que se sugieren mientras se escribe (títulos, categorías, géneros).
+// Cada palabra del texto es un camino del árbol, así que "jard" sugiere "El jardín de senderos".
+// Las sugerencias salen de las que más elementos comparten a las que menos.
+public class TrieSugerencias {
+    // De los que más elementos comparten a los que menos; a igual cuenta, alfabético
+    private static final Comparator<Map.Entry<String, Integer>> ORDEN =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private static class Nodo {
+        final TreeMap<Character, Nodo> hijos = new TreeMap<>();
+        // Solo en nodos donde termina una palabra: texto original -> elementos que lo usan
+        Map<String, Integer> textos;
+
+        boolean vacio() {
+            return hijos.isEmpty() && (textos == null || textos.isEmpty());
+        }
+    }
+
+    private final Nodo raiz = new Nodo();
+    private final Map<Integer, String[]> textosPorId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Registra (o sustituye) los textos sugeribles de un elemento
+    public void agregar(int id, String... textos) {
+        List<String> nuevos = new ArrayList<>(textos.length);
+        for (String texto : textos) {
+            if (texto != null && !texto.isBlank()) {
+                nuevos.add(texto.trim());
+            }
+        }
+        String[] registrados = nuevos.toArray(new String[0]);
+
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+            for (String texto : registrados) {
+                for (String palabra : palabras(texto)) {
+                    Nodo nodo = raiz;
+                    for (int i = 0; i < palabra.length(); i++) {
+                        nodo = nodo.hijos.computeIfAbsent(palabra.charAt(i), c -> new Nodo());
+                    }
+                    if (nodo.textos == null) {
+                        nodo.textos = new HashMap<>(4);
+                    }
+                    nodo.textos.merge(texto, 1, Integer::sum);
+                }
+            }
+            textosPorId.put(id, registrados);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(int id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Hasta maximo textos con alguna palabra que empiece por la última palabra de la consulta
+    // y que contengan también, como prefijo de alguna palabra, cada una de las anteriores
+    public List<String> sugerir(String consulta, int maximo) {
+        List<String> terminos = IndiceTexto.tokenizar(consulta);
+        if (terminos.isEmpty() || maximo <= 0) {
+            return Collections.emptyList();
+        }
+        String prefijo = terminos.get(terminos.size() - 1);
+        List<String> anteriores = terminos.subList(0, terminos.size() - 1);
+
+        // Los maximo mejores vistos hasta ahora, con el peor en la cabeza para poder desplazarlo
+        PriorityQueue<Map.Entry<String, Integer>> mejores = new PriorityQueue<>(maximo + 1, ORDEN.reversed());
+        Set<String> enMejores = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            for (int i = 0; i < prefijo.length() && nodo != null; i++) {
+                nodo = nodo.hijos.get(prefijo.charAt(i));
+            }
+            if (nodo == null) {
+                return Collections.emptyList();
+            }
+            recolectar(nodo, anteriores, maximo, mejores, enMejores);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<String, Integer>> ordenados = new ArrayList<>(mejores);
+        ordenados.sort(ORDEN);
+        List<String> sugerencias = new ArrayList<>(ordenados.size());
+        for (Map.Entry<String, Integer> sugerencia : ordenados) {
+            sugerencias.add(sugerencia.getKey());
+        }
+        return sugerencias;
+    }
+
+    public int getTamano() {
+        lock.readLock().lock();
+        try {
+            return textosPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Recorre todo el subárbol: filtrar por las palabras anteriores o quedarse con los primeros textos
+    // en orden alfabético dejaría fuera los que más se comparten. Lo que se guarda está acotado por
+    // maximo; un texto que no mejora al peor de los guardados ni se comprueba contra los filtros.
+    private static void recolectar(Nodo nodo, List<String> anteriores, int maximo,
+                                   PriorityQueue<Map.Entry<String, Integer>> mejores, Set<String> enMejores) {
+        if (nodo.textos != null) {
+            for (Map.Entry<String, Integer> texto : nodo.textos.entrySet()) {
+                // Un mismo texto cuelga de varias palabras del subárbol, siempre con la misma cuenta
+                if (enMejores.contains(texto.getKey())
+                        || mejores.size() >= maximo && ORDEN.compare(texto, mejores.peek()) >= 0
+                        || !contienePrefijos(texto.getKey(), anteriores)) {
+                    continue;
+                }
+                mejores.add(Map.entry(texto.getKey(), texto.getValue()));
+                enMejores.add(texto.getKey());
+                if (mejores.size() > maximo) {
+                    enMejores.remove(mejores.poll().getKey());
+                }
+            }
+        }
+        for (Nodo hijo : nodo.hijos.values()) {
+            recolectar(hijo, anteriores, maximo, mejores, enMejores);
+        }
+    }
+
+    private static boolean contienePrefijos(String texto, List<String> prefijos) {
+        if (prefijos.isEmpty()) {
+            return true;
+        }
+        Set<String> palabras = palabras(texto);
+        for (String prefijo : prefijos) {
+            boolean encontrado = false;
+            for (String palabra : palabras) {
+                if (palabra.startsWith(prefijo)) {
+                    encontrado = true;
+                    break;
+                }
+            }
+            if (!encontrado) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> palabras(String texto) {
+        return new LinkedHashSet<>(IndiceTexto.tokenizar(texto));
+    }
+
+    private void quitarSinBloqueo(int id) {
+        String[] anteriores = textosPorId.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String texto : anteriores) {
+            for (String palabra : palabras(texto)) {
+                quitarPalabra(texto, palabra);
+            }
+        }
+    }
+
+    // Descuenta el texto en el nodo de la palabra y poda las ramas que queden vacías
+    private void quitarPalabra(String texto, String palabra) {
+        Nodo[] camino = new Nodo[palabra.length() + 1];
+        camino[0] = raiz;
+        for (int i = 0; i < palabra.length(); i++) {
+            camino[i + 1] = camino[i].hijos.get(palabra.charAt(i));
+            if (camino[i + 1] == null) {
+                return;
+            }
+        }
+
+        Nodo fin = camino[palabra.length()];
+        if (fin.textos != null) {
+            fin.textos.computeIfPresent(texto, (t, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+            if (fin.textos.isEmpty()) {
+                fin.textos = null;
+            }
+        }
+        for (int i = palabra.length(); i > 0 && camino[i].vacio(); i--) {
+            camino[i - 1].hijos.remove(palabra.charAt(i - 1));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+// Exportación: CanalBufferizado.java
+package com.biblioteca.model.exportacion;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Escritura a un canal con doble búfer directo: mientras un hilo vuelca un búfer lleno al canal
+// (y lo comprime, si el canal comprime), quien escribe sigue llenando el otro. La memoria usada
+// son siempre los dos búferes, escriba lo que escriba.
+public class CanalBufferizado implements AutoCloseable {
+    private static final int TAMANO_BUFER_POR_DEFECTO = 1 << 20;
+
+    private final WritableByteChannel canal;
+    private final ExecutorService volcador;
+    private ByteBuffer actual;
+    private ByteBuffer enVuelco;
+    private Future<?> vuelco;
+    private long bytesEscritos;
+
+    public CanalBufferizado(WritableByteChannel canal) {
+        this(canal, TAMANO_BUFER_POR_DEFECTO);
+    }
+
+    public CanalBufferizado(WritableByteChannel canal, int tamanoBufer) {
+        this.canal = canal;
+        this.actual = ByteBuffer.allocateDirect(tamanoBufer);
+        this.enVuelco = ByteBuffer.allocateDirect(tamanoBufer);
+        this.volcador = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "exportacion-volcado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    public void escribirByte(int valor) throws IOException {
+        asegurar(1);
+        actual.put((byte) valor);
+        bytesEscritos++;
+    }
+
+    public void escribirInt(int valor) throws IOException {
+        asegurar(4);
+        actual.putInt(valor);
+        bytesEscritos += 4;
+    }
+
+    // Entero sin signo en base 128, de 1 a 5 bytes
+    public void escribirVarint(int valor) throws IOException {
+        asegurar(5);
+        while ((valor & ~0x7F) != 0) {
+            actual.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+            bytesEscritos++;
+        }
+        actual.put((byte) valor);
+        bytesEscritos++;
+    }
+
+    public void escribirBytes(byte[] bytes) throws IOException {
+        int desde = 0;
+        while (desde < bytes.length) {
+            asegurar(1);
+            int cantidad = Math.min(actual.remaining(), bytes.length - desde);
+            actual.put(bytes, desde, cantidad);
+            desde += cantidad;
+        }
+        bytesEscritos += bytes.length;
+    }
+
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    // Vuelca lo pendiente, espera a que llegue al canal y lo cierra
+    @Override
+    public void close() throws IOException {
+        try {
+            volcar();
+            esperarVuelco();
+        } finally {
+            volcador.shutdown();
+            canal.close();
+        }
+    }
+
+    private void asegurar(int bytes) throws IOException {
+        if (actual.remaining() < bytes) {
+            volcar();
+        }
+    }
+
+    private void volcar() throws IOException {
+        esperarVuelco();
+        ByteBuffer lleno = actual;
+        lleno.flip();
+        vuelco = volcador.submit(() -> {
+            while (lleno.hasRemaining()) {
+                canal.write(lleno);
+            }
+            return null;
+        });
+        actual = enVuelco;
+        enVuelco = lleno;
+        actual.clear();
+    }
+
+    private void esperarVuelco() throws IOException {
+        if (vuelco == null) {
+            return;
+        }
+        try {
+            vuelco.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Exportación interrumpida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw causa instanceof IOException ? (IOException) causa : new IOException(causa);
+        } finally {
+            vuelco = null;
+        }
+    }
+}
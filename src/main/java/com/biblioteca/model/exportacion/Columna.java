@@ -0,0 +1,60 @@
+// Exportación: Columna.java
+package com.biblioteca.model.exportacion;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Columnas exportadas, con los mismos nombres que las de la base de datos y las que admite la
+// importación, de modo que un CSV exportado puede volver a importarse. Las columnas de un subtipo
+// quedan vacías (texto null, entero 0) en los elementos de los otros.
+public enum Columna {
+    ID("id", ElementoBiblioteca::getId),
+    TIPO("tipo", ElementoBiblioteca::getTipo),
+    TITULO("titulo", ElementoBiblioteca::getTitulo),
+    AUTOR("autor", ElementoBiblioteca::getAutor),
+    ANO_PUBLICACION("ano_publicacion", ElementoBiblioteca::getAnoPublicacion),
+    ISBN("isbn", (ElementoBiblioteca e) -> e instanceof Libro libro ? libro.getIsbn() : null),
+    NUMERO_PAGINAS("numero_paginas", (ElementoBiblioteca e) -> e instanceof Libro libro ? libro.getNumeroPaginas() : 0),
+    GENERO("genero", (ElementoBiblioteca e) -> e instanceof Libro libro ? libro.getGenero()
+            : e instanceof DVD dvd ? dvd.getGenero() : null),
+    EDITORIAL("editorial", (ElementoBiblioteca e) -> e instanceof Libro libro ? libro.getEditorial() : null),
+    NUMERO_EDICION("numero_edicion", (ElementoBiblioteca e) -> e instanceof Revista revista ? revista.getNumeroEdicion() : 0),
+    CATEGORIA("categoria", (ElementoBiblioteca e) -> e instanceof Revista revista ? revista.getCategoria() : null),
+    DURACION("duracion", (ElementoBiblioteca e) -> e instanceof DVD dvd ? dvd.getDuracion() : 0);
+
+    private final String nombre;
+    private final ToIntFunction<ElementoBiblioteca> entero;
+    private final Function<ElementoBiblioteca, String> texto;
+
+    Columna(String nombre, ToIntFunction<ElementoBiblioteca> entero) {
+        this.nombre = nombre;
+        this.entero = entero;
+        this.texto = null;
+    }
+
+    Columna(String nombre, Function<ElementoBiblioteca, String> texto) {
+        this.nombre = nombre;
+        this.entero = null;
+        this.texto = texto;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public boolean isEntera() {
+        return entero != null;
+    }
+
+    public int entero(ElementoBiblioteca elemento) {
+        return entero.applyAsInt(elemento);
+    }
+
+    public String texto(ElementoBiblioteca elemento) {
+        return texto != null ? texto.apply(elemento) : Integer.toString(entero.applyAsInt(elemento));
+    }
+}
@@ -0,0 +1,159 @@
+// Exportación: EscritorColumnar.java
+package com.biblioteca.model.exportacion;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Formato binario por columnas (.bibc). Las filas se agrupan en bloques de tamanoBloque y dentro
+// de cada bloque se escribe columna a columna, así que solo el bloque en curso está en memoria.
+//
+//   cabecera: "BIBC", versión (byte), tamaño de bloque (varint), número de columnas (varint) y,
+//             por columna, nombre (texto) y tipo (byte: 0 entero, 1 texto)
+//   bloque:   número de filas (varint) y después cada columna:
+//             - entera: diferencia con el valor anterior del bloque en zigzag + varint, de modo que
+//               ids consecutivos o años repetidos ocupan un byte
+//             - texto:  codificación (byte) y valores. 0 = plano: texto por fila. 1 = diccionario:
+//               número de entradas (varint), las entradas (texto) e índice+1 por fila (varint, 0 = null)
+//   fin:      un bloque de 0 filas
+//
+// Un texto es su longitud en bytes UTF-8 + 1 (varint, 0 = null) seguida de los bytes.
+public class EscritorColumnar implements EscritorElementos {
+    public static final byte[] FIRMA = {'B', 'I', 'B', 'C'};
+    public static final int VERSION = 1;
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = 8_192;
+
+    private static final int TIPO_ENTERO = 0;
+    private static final int TIPO_TEXTO = 1;
+    private static final int CODIFICACION_PLANA = 0;
+    private static final int CODIFICACION_DICCIONARIO = 1;
+
+    private final CanalBufferizado salida;
+    private final Columna[] columnas = Columna.values();
+    private final int tamanoBloque;
+    // Valores del bloque en curso, por columna; solo se usa el array del tipo de cada columna
+    private final int[][] enteros;
+    private final String[][] textos;
+    private int filas;
+
+    public EscritorColumnar(CanalBufferizado salida) throws IOException {
+        this(salida, TAMANO_BLOQUE_POR_DEFECTO);
+    }
+
+    public EscritorColumnar(CanalBufferizado salida, int tamanoBloque) throws IOException {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser mayor que cero");
+        }
+        this.salida = salida;
+        this.tamanoBloque = tamanoBloque;
+        this.enteros = new int[columnas.length][];
+        this.textos = new String[columnas.length][];
+        for (int i = 0; i < columnas.length; i++) {
+            if (columnas[i].isEntera()) {
+                enteros[i] = new int[tamanoBloque];
+            } else {
+                textos[i] = new String[tamanoBloque];
+            }
+        }
+
+        salida.escribirBytes(FIRMA);
+        salida.escribirByte(VERSION);
+        salida.escribirVarint(tamanoBloque);
+        salida.escribirVarint(columnas.length);
+        for (Columna columna : columnas) {
+            escribirTexto(columna.getNombre());
+            salida.escribirByte(columna.isEntera() ? TIPO_ENTERO : TIPO_TEXTO);
+        }
+    }
+
+    @Override
+    public void escribir(ElementoBiblioteca elemento) throws IOException {
+        for (int i = 0; i < columnas.length; i++) {
+            if (enteros[i] != null) {
+                enteros[i][filas] = columnas[i].entero(elemento);
+            } else {
+                textos[i][filas] = columnas[i].texto(elemento);
+            }
+        }
+        if (++filas == tamanoBloque) {
+            escribirBloque();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (filas > 0) {
+                escribirBloque();
+            }
+            salida.escribirVarint(0);
+        } finally {
+            salida.close();
+        }
+    }
+
+    private void escribirBloque() throws IOException {
+        salida.escribirVarint(filas);
+        for (int i = 0; i < columnas.length; i++) {
+            if (enteros[i] != null) {
+                escribirEnteros(enteros[i]);
+            } else {
+                escribirTextos(textos[i]);
+                Arrays.fill(textos[i], 0, filas, null);
+            }
+        }
+        filas = 0;
+    }
+
+    private void escribirEnteros(int[] valores) throws IOException {
+        int anterior = 0;
+        for (int i = 0; i < filas; i++) {
+            int diferencia = valores[i] - anterior;
+            salida.escribirVarint((diferencia << 1) ^ (diferencia >> 31));
+            anterior = valores[i];
+        }
+    }
+
+    // Diccionario si los valores distintos no llegan a la mitad de las filas (tipo, género,
+    // editorial...); plano para columnas casi únicas como el título
+    private void escribirTextos(String[] valores) throws IOException {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> diccionario = new ArrayList<>();
+        for (int i = 0; i < filas && diccionario.size() * 2 < filas; i++) {
+            if (valores[i] != null && indices.putIfAbsent(valores[i], diccionario.size()) == null) {
+                diccionario.add(valores[i]);
+            }
+        }
+
+        if (diccionario.size() * 2 >= filas) {
+            salida.escribirByte(CODIFICACION_PLANA);
+            for (int i = 0; i < filas; i++) {
+                escribirTexto(valores[i]);
+            }
+            return;
+        }
+        salida.escribirByte(CODIFICACION_DICCIONARIO);
+        salida.escribirVarint(diccionario.size());
+        for (String valor : diccionario) {
+            escribirTexto(valor);
+        }
+        for (int i = 0; i < filas; i++) {
+            salida.escribirVarint(valores[i] == null ? 0 : indices.get(valores[i]) + 1);
+        }
+    }
+
+    private void escribirTexto(String valor) throws IOException {
+        if (valor == null) {
+            salida.escribirVarint(0);
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        salida.escribirVarint(bytes.length + 1);
+        salida.escribirBytes(bytes);
+    }
+}
@@ -0,0 +1,63 @@
+// Exportación: EscritorCsv.java
+package com.biblioteca.model.exportacion;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// CSV en UTF-8 con cabecera y separador ','; los campos con separador, comillas o saltos de
+// línea van entre comillas con las comillas dobladas (RFC 4180)
+public class EscritorCsv implements EscritorElementos {
+    private static final byte[] SEPARADOR = {','};
+    private static final byte[] FIN_LINEA = {'\n'};
+
+    private final CanalBufferizado salida;
+    private final Columna[] columnas = Columna.values();
+
+    public EscritorCsv(CanalBufferizado salida) throws IOException {
+        this.salida = salida;
+        for (int i = 0; i < columnas.length; i++) {
+            if (i > 0) {
+                salida.escribirBytes(SEPARADOR);
+            }
+            escribirCampo(columnas[i].getNombre());
+        }
+        salida.escribirBytes(FIN_LINEA);
+    }
+
+    @Override
+    public void escribir(ElementoBiblioteca elemento) throws IOException {
+        for (int i = 0; i < columnas.length; i++) {
+            if (i > 0) {
+                salida.escribirBytes(SEPARADOR);
+            }
+            String valor = columnas[i].texto(elemento);
+            if (valor != null) {
+                escribirCampo(valor);
+            }
+        }
+        salida.escribirBytes(FIN_LINEA);
+    }
+
+    @Override
+    public void close() throws IOException {
+        salida.close();
+    }
+
+    private void escribirCampo(String valor) throws IOException {
+        if (necesitaComillas(valor)) {
+            valor = '"' + valor.replace("\"", "\"\"") + '"';
+        }
+        salida.escribirBytes(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean necesitaComillas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
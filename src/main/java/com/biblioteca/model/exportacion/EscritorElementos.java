@@ -0,0 +1,16 @@
+// Exportación: EscritorElementos.java
+package com.biblioteca.model.exportacion;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import java.io.IOException;
+
+// Formato de salida de la exportación: recibe los elementos de uno en uno y no guarda más que
+// lo que necesita para el bloque en curso
+public interface EscritorElementos extends AutoCloseable {
+
+    void escribir(ElementoBiblioteca elemento) throws IOException;
+
+    // Completa el fichero (cola, bloque final) y cierra el canal
+    @Override
+    void close() throws IOException;
+}
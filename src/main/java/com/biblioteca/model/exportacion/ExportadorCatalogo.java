@@ -0,0 +1,137 @@
+// Exportación: ExportadorCatalogo.java
+package com.biblioteca.model.exportacion;
+
+import com.biblioteca.model.dao.CatalogoDAO;
+import com.biblioteca.model.dao.FabricaDAO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+// Exporta el catálogo completo (los tres tipos) recorriendo un cursor de CatalogoDAO y escribiendo
+// cada fila según llega, por un canal con doble búfer y compresión gzip opcional. La memoria no
+// depende del número de filas: la fila en curso, el bloque del formato columnar y dos búferes.
+public class ExportadorCatalogo {
+    private static final long FILAS_POR_AVISO = 100_000;
+    private static final int TAMANO_BUFER_GZIP = 64 * 1024;
+    private static final String TEMPORAL = ".tmp";
+
+    public enum Formato {
+        CSV, COLUMNAR;
+
+        // Por extensión, ignorando un .gz final: .bibc es columnar; el resto, CSV
+        public static Formato deFichero(Path fichero) {
+            String nombre = fichero.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (nombre.endsWith(".gz")) {
+                nombre = nombre.substring(0, nombre.length() - 3);
+            }
+            return nombre.endsWith(".bibc") ? COLUMNAR : CSV;
+        }
+    }
+
+    private final CatalogoDAO catalogoDAO;
+    private boolean comprimir;
+    private int tamanoBloque = EscritorColumnar.TAMANO_BLOQUE_POR_DEFECTO;
+    private LongConsumer alProgresar = filas -> { };
+
+    public ExportadorCatalogo(CatalogoDAO catalogoDAO) {
+        this.catalogoDAO = catalogoDAO;
+    }
+
+    public ExportadorCatalogo setComprimir(boolean comprimir) {
+        this.comprimir = comprimir;
+        return this;
+    }
+
+    // Filas por bloque del formato columnar
+    public ExportadorCatalogo setTamanoBloque(int tamanoBloque) {
+        this.tamanoBloque = tamanoBloque;
+        return this;
+    }
+
+    // Recibe el número de filas exportadas cada FILAS_POR_AVISO filas
+    public ExportadorCatalogo setAlProgresar(LongConsumer alProgresar) {
+        this.alProgresar = alProgresar;
+        return this;
+    }
+
+    // Exporta al fichero (que se sobrescribe) y devuelve cuántas filas escribió. Se escribe en un
+    // temporal junto al destino que solo lo sustituye si todo fue bien: cerrar el escritor tras un
+    // fallo deja un fichero bien formado pero incompleto, que no debe confundirse con una exportación.
+    public long exportar(Path destino, Formato formato) throws IOException, SQLException {
+        Path temporal = destino.resolveSibling(destino.getFileName() + TEMPORAL);
+        long[] filas = {0};
+        try {
+            try (EscritorElementos escritor = crearEscritor(abrir(temporal), formato)) {
+                catalogoDAO.recorrerTodosElementos(elemento -> {
+                    try {
+                        escritor.escribir(elemento);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++filas[0] % FILAS_POR_AVISO == 0) {
+                        alProgresar.accept(filas[0]);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return filas[0];
+    }
+
+    private CanalBufferizado abrir(Path destino) throws IOException {
+        WritableByteChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (comprimir) {
+            // La compresión la hace el hilo que vuelca los búferes, en paralelo con la lectura
+            canal = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(canal), TAMANO_BUFER_GZIP));
+        }
+        return new CanalBufferizado(canal);
+    }
+
+    private EscritorElementos crearEscritor(CanalBufferizado salida, Formato formato) throws IOException {
+        try {
+            return formato == Formato.COLUMNAR ? new EscritorColumnar(salida, tamanoBloque) : new EscritorCsv(salida);
+        } catch (IOException | RuntimeException e) {
+            salida.close();
+            throw e;
+        }
+    }
+
+    // Uso: ExportadorCatalogo <destino.csv|destino.bibc>[.gz]
+    // Con .gz al final se comprime; el formato se deduce de la extensión anterior
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: ExportadorCatalogo <destino.csv|destino.bibc>[.gz]");
+            System.exit(2);
+        }
+        Path destino = Paths.get(args[0]);
+        try {
+            long inicio = System.nanoTime();
+            long filas = new ExportadorCatalogo(FabricaDAO.crearCatalogoDAO())
+                    .setComprimir(destino.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz"))
+                    .setAlProgresar(n -> System.out.println(n + " filas exportadas"))
+                    .exportar(destino, Formato.deFichero(destino));
+            System.out.println(filas + " filas exportadas a " + destino + " en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        } catch (IOException | SQLException e) {
+            System.err.println("No se pudo exportar: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
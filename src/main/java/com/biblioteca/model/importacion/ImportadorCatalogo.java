@@ -0,0 +1,372 @@
+// Importación: ImportadorCatalogo.java
+package com.biblioteca.model.importacion;
+
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.dao.DVDDAO;
+import com.biblioteca.model.dao.ElementoBibliotecaDAO;
+import com.biblioteca.model.dao.FabricaDAO;
+import com.biblioteca.model.dao.LibroDAO;
+import com.biblioteca.model.dao.ResultadoLote;
+import com.biblioteca.model.dao.RevistaDAO;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Importación masiva sin interfaz en tres etapas unidas por colas acotadas:
+//   lectura en flujo (un hilo) -> validación y conversión (hilosValidacion) -> escritura por lotes (quien llama).
+// Si una etapa se retrasa, las colas se llenan y las anteriores esperan, así que la memoria depende de
+// capacidadCola y tamanoLote, no del tamaño del fichero. Las filas no válidas o que la base de datos
+// rechaza se notifican con alRechazar y la importación sigue; un error de lectura o de conexión la
+// detiene y lo que ya estaba en camino se rechaza.
+public class ImportadorCatalogo {
+    private static final int TAMANO_LOTE_POR_DEFECTO = 500;
+    private static final int CAPACIDAD_COLA_POR_DEFECTO = 2_000;
+    private static final long INTERVALO_PROGRESO_POR_DEFECTO_MS = 1_000;
+
+    public enum Formato {
+        CSV, JSON;
+
+        // Por extensión: .json, .jsonl y .ndjson son JSON; el resto, CSV
+        public static Formato deFichero(Path fichero) {
+            String nombre = fichero.getFileName().toString().toLowerCase(Locale.ROOT);
+            return nombre.endsWith(".json") || nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson") ? JSON : CSV;
+        }
+    }
+
+    // Fila ya convertida, con su registro para poder rechazarla si falla la escritura
+    private static class Validado {
+        final Registro registro;
+        final ElementoBiblioteca elemento;
+
+        Validado(Registro registro, ElementoBiblioteca elemento) {
+            this.registro = registro;
+            this.elemento = elemento;
+        }
+    }
+
+    // Marcas de fin: el lector deja una por validador y cada validador deja una al escritor
+    private static final Registro FIN_REGISTROS = new Registro(-1, new HashMap<>());
+    private static final Validado FIN_VALIDADOS = new Validado(null, null);
+
+    private final Map<String, ElementoBibliotecaDAO<? extends ElementoBiblioteca>> daos = new HashMap<>();
+    private int hilosValidacion = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int tamanoLote = TAMANO_LOTE_POR_DEFECTO;
+    private int capacidadCola = CAPACIDAD_COLA_POR_DEFECTO;
+    private long intervaloProgresoMs = INTERVALO_PROGRESO_POR_DEFECTO_MS;
+    private Consumer<ProgresoImportacion> alProgresar = progreso -> { };
+    private Consumer<RegistroRechazado> alRechazar = rechazado -> { };
+
+    public ImportadorCatalogo(LibroDAO libroDAO, RevistaDAO revistaDAO, DVDDAO dvdDAO) {
+        daos.put("LIBRO", libroDAO);
+        daos.put("REVISTA", revistaDAO);
+        daos.put("DVD", dvdDAO);
+    }
+
+    public ImportadorCatalogo setHilosValidacion(int hilosValidacion) {
+        if (hilosValidacion <= 0) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo de validación");
+        }
+        this.hilosValidacion = hilosValidacion;
+        return this;
+    }
+
+    public ImportadorCatalogo setTamanoLote(int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.tamanoLote = tamanoLote;
+        return this;
+    }
+
+    public ImportadorCatalogo setCapacidadCola(int capacidadCola) {
+        if (capacidadCola <= 0) {
+            throw new IllegalArgumentException("La capacidad de las colas debe ser mayor que cero");
+        }
+        this.capacidadCola = capacidadCola;
+        return this;
+    }
+
+    // Frecuencia máxima de los avisos de progreso; el aviso final llega siempre
+    public ImportadorCatalogo setIntervaloProgresoMs(long intervaloProgresoMs) {
+        this.intervaloProgresoMs = intervaloProgresoMs;
+        return this;
+    }
+
+    // Los avisos nunca se solapan, aunque lleguen desde hilos distintos
+    public ImportadorCatalogo setAlProgresar(Consumer<ProgresoImportacion> alProgresar) {
+        this.alProgresar = alProgresar;
+        return this;
+    }
+
+    public ImportadorCatalogo setAlRechazar(Consumer<RegistroRechazado> alRechazar) {
+        this.alRechazar = alRechazar;
+        return this;
+    }
+
+    public ProgresoImportacion importar(Path fichero) throws IOException, InterruptedException {
+        return importar(fichero, Formato.deFichero(fichero));
+    }
+
+    public ProgresoImportacion importar(Path fichero, Formato formato) throws IOException, InterruptedException {
+        Reader entrada = Files.newBufferedReader(fichero, StandardCharsets.UTF_8);
+        try (LectorRegistros lector = formato == Formato.JSON ? new LectorJson(entrada) : new LectorCsv(entrada)) {
+            return importar(lector);
+        }
+    }
+
+    // Bloquea hasta terminar; el hilo que llama hace de escritor. El lector no se cierra aquí.
+    public ProgresoImportacion importar(LectorRegistros lector) throws InterruptedException {
+        return new Ejecucion().ejecutar(lector);
+    }
+
+    // Estado de una importación concreta, para que el mismo importador pueda reutilizarse
+    private class Ejecucion {
+        private final BlockingQueue<Registro> registros = new ArrayBlockingQueue<>(capacidadCola);
+        private final BlockingQueue<Validado> validados = new ArrayBlockingQueue<>(capacidadCola);
+        // Un lote en preparación por tipo; solo lo toca el escritor
+        private final Map<String, List<Validado>> lotes = new HashMap<>();
+
+        private final AtomicLong leidos = new AtomicLong();
+        private final AtomicLong validos = new AtomicLong();
+        private final AtomicLong rechazados = new AtomicLong();
+        private final AtomicLong escritos = new AtomicLong();
+        private final long inicio = System.nanoTime();
+        private final Object avisos = new Object();
+        private long ultimoAviso = System.nanoTime();
+        private volatile String error;
+
+        ProgresoImportacion ejecutar(LectorRegistros lector) throws InterruptedException {
+            AtomicInteger numeroHilo = new AtomicInteger();
+            ExecutorService hilos = Executors.newFixedThreadPool(hilosValidacion + 1, tarea -> {
+                Thread hilo = new Thread(tarea, "importacion-" + numeroHilo.getAndIncrement());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            try {
+                hilos.execute(() -> leer(lector));
+                for (int i = 0; i < hilosValidacion; i++) {
+                    hilos.execute(this::validar);
+                }
+                escribir();
+            } catch (InterruptedException e) {
+                detener("Importación interrumpida");
+                hilos.shutdownNow();
+                throw e;
+            }
+            hilos.shutdown();
+            hilos.awaitTermination(1, TimeUnit.MINUTES);
+
+            ProgresoImportacion resultado = progreso(true);
+            synchronized (avisos) {
+                alProgresar.accept(resultado);
+            }
+            return resultado;
+        }
+
+        private void leer(LectorRegistros lector) {
+            try {
+                Registro registro;
+                while (error == null && (registro = lector.siguiente()) != null) {
+                    leidos.incrementAndGet();
+                    registros.put(registro);
+                }
+            } catch (IOException e) {
+                detener("Error de lectura: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                for (int i = 0; i < hilosValidacion; i++) {
+                    registros.put(FIN_REGISTROS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void validar() {
+            try {
+                while (true) {
+                    Registro registro = registros.take();
+                    if (registro == FIN_REGISTROS) {
+                        break;
+                    }
+                    if (error != null) {
+                        rechazar(registro, "Importación detenida: " + error);
+                        continue;
+                    }
+                    ElementoBiblioteca elemento;
+                    try {
+                        elemento = ValidadorRegistros.mapear(registro);
+                    } catch (IllegalArgumentException e) {
+                        rechazar(registro, e.getMessage());
+                        continue;
+                    }
+                    validos.incrementAndGet();
+                    validados.put(new Validado(registro, elemento));
+                }
+                validados.put(FIN_VALIDADOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void escribir() throws InterruptedException {
+            int validadoresTerminados = 0;
+            while (validadoresTerminados < hilosValidacion) {
+                Validado validado = validados.take();
+                if (validado == FIN_VALIDADOS) {
+                    validadoresTerminados++;
+                    continue;
+                }
+                if (error != null) {
+                    rechazar(validado.registro, "Importación detenida: " + error);
+                    continue;
+                }
+                String tipo = validado.elemento.getTipo();
+                List<Validado> lote = lotes.computeIfAbsent(tipo, t -> new ArrayList<>(tamanoLote));
+                lote.add(validado);
+                if (lote.size() >= tamanoLote) {
+                    escribirLote(tipo, lote);
+                }
+            }
+            for (Map.Entry<String, List<Validado>> lote : lotes.entrySet()) {
+                escribirLote(lote.getKey(), lote.getValue());
+            }
+        }
+
+        // Un tramo que falla se reintenta fila a fila para rechazar solo las filas culpables
+        private void escribirLote(String tipo, List<Validado> lote) {
+            if (lote.isEmpty()) {
+                return;
+            }
+            ElementoBibliotecaDAO<? extends ElementoBiblioteca> dao = daos.get(tipo);
+            List<ElementoBiblioteca> elementos = new ArrayList<>(lote.size());
+            for (Validado validado : lote) {
+                elementos.add(validado.elemento);
+            }
+            try {
+                if (error != null) {
+                    throw new SQLException(error);
+                }
+                ResultadoLote resultado = insertarLote(dao, elementos, tamanoLote);
+                escritos.addAndGet(resultado.getInsertados());
+                for (ResultadoLote.FalloLote fallo : resultado.getFallos()) {
+                    for (int i = fallo.getDesde(); i < fallo.getHasta(); i++) {
+                        escribirUno(dao, lote.get(i));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                detener("Error de base de datos: " + e.getMessage());
+                for (Validado validado : lote) {
+                    rechazar(validado.registro, "Importación detenida: " + error);
+                }
+            }
+            lote.clear();
+            avisarProgreso();
+        }
+
+        private void escribirUno(ElementoBibliotecaDAO<? extends ElementoBiblioteca> dao, Validado validado) {
+            try {
+                if (insertar(dao, validado.elemento)) {
+                    escritos.incrementAndGet();
+                } else {
+                    rechazar(validado.registro, "La base de datos no insertó la fila");
+                }
+            } catch (SQLException e) {
+                rechazar(validado.registro, "Error al escribir: " + e.getMessage());
+            }
+        }
+
+        private void rechazar(Registro registro, String motivo) {
+            rechazados.incrementAndGet();
+            RegistroRechazado rechazado = new RegistroRechazado(registro.getNumero(), motivo, registro.getCampos());
+            synchronized (avisos) {
+                alRechazar.accept(rechazado);
+            }
+        }
+
+        // Se queda con el primer error; los siguientes suelen ser consecuencia suya
+        private synchronized void detener(String motivo) {
+            if (error == null) {
+                error = motivo;
+            }
+        }
+
+        private void avisarProgreso() {
+            long ahora = System.nanoTime();
+            if (ahora - ultimoAviso < TimeUnit.MILLISECONDS.toNanos(intervaloProgresoMs)) {
+                return;
+            }
+            ultimoAviso = ahora;
+            ProgresoImportacion progreso = progreso(false);
+            synchronized (avisos) {
+                alProgresar.accept(progreso);
+            }
+        }
+
+        private ProgresoImportacion progreso(boolean terminada) {
+            return new ProgresoImportacion(leidos.get(), validos.get(), rechazados.get(), escritos.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), terminada, error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends ElementoBiblioteca> ResultadoLote insertarLote(
+            ElementoBibliotecaDAO<T> dao, List<ElementoBiblioteca> elementos, int tamanoLote) throws SQLException {
+        return dao.insertarLote((List<T>) elementos, tamanoLote);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends ElementoBiblioteca> boolean insertar(
+            ElementoBibliotecaDAO<T> dao, ElementoBiblioteca elemento) throws SQLException {
+        return dao.insertar((T) elemento);
+    }
+
+    // Uso: ImportadorCatalogo <fichero.csv|fichero.json> [hilosValidacion] [tamanoLote]
+    // El progreso va a la salida estándar y las filas rechazadas a la de errores
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: ImportadorCatalogo <fichero.csv|fichero.json> [hilosValidacion] [tamanoLote]");
+            System.exit(2);
+        }
+        try {
+            ImportadorCatalogo importador = new ImportadorCatalogo(FabricaDAO.crearLibroDAO(),
+                    FabricaDAO.crearRevistaDAO(), FabricaDAO.crearDVDDAO())
+                    .setAlProgresar(System.out::println)
+                    .setAlRechazar(System.err::println);
+            if (args.length > 1) {
+                importador.setHilosValidacion(Integer.parseInt(args[1]));
+            }
+            if (args.length > 2) {
+                importador.setTamanoLote(Integer.parseInt(args[2]));
+            }
+            ProgresoImportacion resultado = importador.importar(Paths.get(args[0]));
+            System.exit(resultado.getError() == null ? 0 : 1);
+        } catch (IOException | SQLException e) {
+            System.err.println("No se pudo importar: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+}
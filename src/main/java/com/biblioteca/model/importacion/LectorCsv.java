@@ -0,0 +1,171 @@
+// Importación: LectorCsv.java
+package com.biblioteca.model.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// CSV con cabecera (RFC 4180): campos entre comillas con comillas dobladas y saltos de línea dentro.
+// El separador es ',' o ';' según cuál aparezca más en la cabecera. Lee carácter a carácter de un
+// búfer, así que solo tiene en memoria la fila en curso.
+public class LectorCsv implements LectorRegistros {
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private final Reader entrada;
+    private final String[] cabecera;
+    private final char separador;
+    private long linea = 1;
+    private int devuelto = -2;    // Carácter leído de más, -2 si no hay
+
+    public LectorCsv(Reader entrada) throws IOException {
+        this.entrada = entrada instanceof BufferedReader ? entrada : new BufferedReader(entrada, TAMANO_BUFER);
+
+        String primeraLinea = leerLineaCabecera();
+        this.separador = contar(primeraLinea, ';') > contar(primeraLinea, ',') ? ';' : ',';
+        if (primeraLinea.isEmpty()) {
+            this.cabecera = new String[0];
+            return;
+        }
+        List<String> nombres = partir(primeraLinea);
+        this.cabecera = new String[nombres.size()];
+        for (int i = 0; i < cabecera.length; i++) {
+            cabecera[i] = nombres.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public Registro siguiente() throws IOException {
+        while (true) {
+            long inicio = linea;
+            List<String> campos = new ArrayList<>(cabecera.length);
+            String error = leerCampos(campos);
+            if (campos.isEmpty()) {
+                return null;
+            }
+            if (error == null && campos.size() == 1 && campos.get(0).isEmpty()) {
+                continue;   // Línea en blanco
+            }
+
+            Map<String, String> valores = new LinkedHashMap<>(cabecera.length * 2);
+            for (int i = 0; i < campos.size() && i < cabecera.length; i++) {
+                valores.put(cabecera[i], campos.get(i));
+            }
+            // Faltar columnas al final se tolera (algunas hojas de cálculo omiten las vacías); sobrar, no
+            if (error == null && campos.size() > cabecera.length) {
+                error = "La fila tiene " + campos.size() + " columnas y la cabecera " + cabecera.length;
+            }
+            return new Registro(inicio, valores, error);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    // Lee una fila completa en campos; devuelve un error si acaba dentro de unas comillas
+    private String leerCampos(List<String> campos) throws IOException {
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean hayDatos = false;
+        int c;
+        while ((c = leer()) != -1) {
+            hayDatos = true;
+            if (entreComillas) {
+                if (c == '"') {
+                    int d = leer();
+                    if (d == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        devolver(d);
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                linea++;
+                campos.add(campo.toString());
+                return null;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+        if (hayDatos) {
+            campos.add(campo.toString());
+        }
+        return entreComillas ? "Comillas sin cerrar al final del fichero" : null;
+    }
+
+    private String leerLineaCabecera() throws IOException {
+        StringBuilder texto = new StringBuilder();
+        int c = leer();
+        if (c == '\uFEFF') {
+            c = leer();     // Marca de orden de bytes que dejan algunos editores
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                texto.append((char) c);
+            }
+            c = leer();
+        }
+        linea++;
+        return texto.toString();
+    }
+
+    // La cabecera no lleva saltos de línea, pero sus nombres pueden ir entre comillas
+    private List<String> partir(String texto) {
+        List<String> partes = new ArrayList<>();
+        StringBuilder parte = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == separador && !entreComillas) {
+                partes.add(parte.toString());
+                parte.setLength(0);
+            } else {
+                parte.append(c);
+            }
+        }
+        partes.add(parte.toString());
+        return partes;
+    }
+
+    private int leer() throws IOException {
+        if (devuelto != -2) {
+            int c = devuelto;
+            devuelto = -2;
+            return c;
+        }
+        return entrada.read();
+    }
+
+    private void devolver(int c) {
+        devuelto = c;
+    }
+
+    private static int contar(String texto, char c) {
+        int n = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == c) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
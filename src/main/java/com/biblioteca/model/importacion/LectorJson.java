@@ -0,0 +1,223 @@
+// Importación: LectorJson.java
+package com.biblioteca.model.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// JSON en flujo: un array de objetos planos ([{...}, {...}]) u objetos seguidos, uno por línea
+// (JSON Lines). Solo se construye el objeto en curso, nunca el documento entero. Un valor anidado
+// invalida su fila; un error de sintaxis detiene la lectura porque no hay forma fiable de seguir.
+public class LectorJson implements LectorRegistros {
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private final Reader entrada;
+    private long linea = 1;
+    private int devuelto = -2;    // Carácter leído de más, -2 si no hay
+    private boolean iniciado;
+    private boolean enArray;
+    private boolean terminado;
+
+    public LectorJson(Reader entrada) {
+        this.entrada = entrada instanceof BufferedReader ? entrada : new BufferedReader(entrada, TAMANO_BUFER);
+    }
+
+    @Override
+    public Registro siguiente() throws IOException {
+        if (terminado) {
+            return null;
+        }
+        int c = saltarEspacios();
+        if (!iniciado) {
+            iniciado = true;
+            if (c == '\uFEFF') {
+                c = saltarEspacios();
+            }
+            if (c == '[') {
+                enArray = true;
+                c = saltarEspacios();
+                if (c == ']') {
+                    terminado = true;
+                    return null;
+                }
+            }
+        } else if (enArray) {
+            if (c == ']') {
+                terminado = true;
+                return null;
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o ']'");
+            }
+            c = saltarEspacios();
+        }
+
+        if (c == -1) {
+            if (enArray) {
+                throw error("el array no se cierra");
+            }
+            terminado = true;
+            return null;
+        }
+        if (c != '{') {
+            throw error("se esperaba un objeto");
+        }
+        return leerObjeto();
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    private Registro leerObjeto() throws IOException {
+        long inicio = linea;
+        Map<String, String> campos = new LinkedHashMap<>();
+        String errorFila = null;
+
+        int c = saltarEspacios();
+        if (c == '}') {
+            return new Registro(inicio, campos);
+        }
+        while (true) {
+            if (c != '"') {
+                throw error("se esperaba el nombre de un campo");
+            }
+            String nombre = leerCadena().trim().toLowerCase(Locale.ROOT);
+            if (saltarEspacios() != ':') {
+                throw error("se esperaba ':'");
+            }
+
+            c = saltarEspacios();
+            if (c == '"') {
+                campos.put(nombre, leerCadena());
+            } else if (c == '{' || c == '[') {
+                saltarAnidado();
+                errorFila = "El campo '" + nombre + "' tiene un valor anidado";
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                campos.put(nombre, leerMientras(c, "+-.eE0123456789"));
+            } else if (c >= 'a' && c <= 'z') {
+                String literal = leerMientras(c, "abcdefghijklmnopqrstuvwxyz");
+                switch (literal) {
+                    case "true", "false" -> campos.put(nombre, literal);
+                    case "null" -> { }      // Igual que si el campo no estuviera
+                    default -> throw error("valor desconocido '" + literal + "'");
+                }
+            } else {
+                throw error("se esperaba un valor");
+            }
+
+            c = saltarEspacios();
+            if (c == '}') {
+                return new Registro(inicio, campos, errorFila);
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o '}'");
+            }
+            c = saltarEspacios();
+        }
+    }
+
+    // Cadena tras la comilla de apertura, hasta la de cierre, resolviendo escapes
+    private String leerCadena() throws IOException {
+        StringBuilder texto = new StringBuilder();
+        while (true) {
+            int c = leer();
+            switch (c) {
+                case -1 -> throw error("cadena sin cerrar");
+                case '"' -> {
+                    return texto.toString();
+                }
+                case '\\' -> {
+                    int e = leer();
+                    switch (e) {
+                        case '"', '\\', '/' -> texto.append((char) e);
+                        case 'b' -> texto.append('\b');
+                        case 'f' -> texto.append('\f');
+                        case 'n' -> texto.append('\n');
+                        case 'r' -> texto.append('\r');
+                        case 't' -> texto.append('\t');
+                        case 'u' -> texto.append(leerUnicode());
+                        default -> throw error("escape no válido");
+                    }
+                }
+                default -> {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    texto.append((char) c);
+                }
+            }
+        }
+    }
+
+    private char leerUnicode() throws IOException {
+        int valor = 0;
+        for (int i = 0; i < 4; i++) {
+            int digito = Character.digit(leer(), 16);
+            if (digito < 0) {
+                throw error("escape \\u no válido");
+            }
+            valor = valor * 16 + digito;
+        }
+        return (char) valor;
+    }
+
+    private String leerMientras(int primero, String admitidos) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        texto.append((char) primero);
+        int c;
+        while ((c = leer()) != -1 && admitidos.indexOf(c) >= 0) {
+            texto.append((char) c);
+        }
+        devolver(c);
+        return texto.toString();
+    }
+
+    // Consume un objeto o array anidado completo sin guardarlo
+    private void saltarAnidado() throws IOException {
+        int profundidad = 1;
+        while (profundidad > 0) {
+            int c = leer();
+            switch (c) {
+                case -1 -> throw error("valor anidado sin cerrar");
+                case '"' -> leerCadena();
+                case '{', '[' -> profundidad++;
+                case '}', ']' -> profundidad--;
+                case '\n' -> linea++;
+                default -> { }
+            }
+        }
+    }
+
+    private int saltarEspacios() throws IOException {
+        int c;
+        do {
+            c = leer();
+            if (c == '\n') {
+                linea++;
+            }
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    private int leer() throws IOException {
+        if (devuelto != -2) {
+            int c = devuelto;
+            devuelto = -2;
+            return c;
+        }
+        return entrada.read();
+    }
+
+    private void devolver(int c) {
+        devuelto = c;
+    }
+
+    private IOException error(String detalle) {
+        return new IOException("JSON mal formado en la línea " + linea + ": " + detalle);
+    }
+}
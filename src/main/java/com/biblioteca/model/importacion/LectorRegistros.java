@@ -0,0 +1,15 @@
+// Importación: LectorRegistros.java
+package com.biblioteca.model.importacion;
+
+import java.io.IOException;
+
+// Fuente de filas en flujo: cada llamada lee solo lo necesario para la siguiente fila
+public interface LectorRegistros extends AutoCloseable {
+
+    // Siguiente fila, o null al llegar al final. Una IOException indica que el resto del fichero
+    // no se puede leer; los errores de una sola fila llegan en Registro.getErrorLectura
+    Registro siguiente() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
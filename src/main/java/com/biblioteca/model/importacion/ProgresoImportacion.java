@@ -0,0 +1,66 @@
+// Importación: ProgresoImportacion.java
+package com.biblioteca.model.importacion;
+
+// Instantánea del avance de una importación; la última, con terminada = true, es el resultado
+public class ProgresoImportacion {
+    private final long leidos;
+    private final long validos;
+    private final long rechazados;
+    private final long escritos;
+    private final long duracionMs;
+    private final boolean terminada;
+    private final String error;
+
+    ProgresoImportacion(long leidos, long validos, long rechazados, long escritos,
+                        long duracionMs, boolean terminada, String error) {
+        this.leidos = leidos;
+        this.validos = validos;
+        this.rechazados = rechazados;
+        this.escritos = escritos;
+        this.duracionMs = duracionMs;
+        this.terminada = terminada;
+        this.error = error;
+    }
+
+    public long getLeidos() {
+        return leidos;
+    }
+
+    public long getValidos() {
+        return validos;
+    }
+
+    // Filas descartadas en la validación o al escribirlas
+    public long getRechazados() {
+        return rechazados;
+    }
+
+    public long getEscritos() {
+        return escritos;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public boolean isTerminada() {
+        return terminada;
+    }
+
+    // Motivo por el que la importación se detuvo antes de terminar el fichero; null si no ocurrió
+    public String getError() {
+        return error;
+    }
+
+    public double getFilasPorSegundo() {
+        return duracionMs == 0 ? 0.0 : leidos * 1000.0 / duracionMs;
+    }
+
+    @Override
+    public String toString() {
+        return "Importación [leídos=" + leidos + ", válidos=" + validos + ", rechazados=" + rechazados +
+                ", escritos=" + escritos + ", " + duracionMs + " ms, " +
+                String.format("%.0f", getFilasPorSegundo()) + " filas/s" +
+                (error != null ? ", error=" + error : "") + "]";
+    }
+}
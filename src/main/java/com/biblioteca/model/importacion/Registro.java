@@ -0,0 +1,40 @@
+// Importación: Registro.java
+package com.biblioteca.model.importacion;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Fila leída del fichero de origen, aún sin validar: nombre de columna -> texto
+public class Registro {
+    private final long numero;
+    private final Map<String, String> campos;
+    private final String errorLectura;
+
+    public Registro(long numero, Map<String, String> campos) {
+        this(numero, campos, null);
+    }
+
+    // Fila que se pudo delimitar pero no interpretar (columnas de más, valores anidados...)
+    public Registro(long numero, Map<String, String> campos, String errorLectura) {
+        this.numero = numero;
+        this.campos = campos;
+        this.errorLectura = errorLectura;
+    }
+
+    // Línea del fichero donde empieza la fila
+    public long getNumero() {
+        return numero;
+    }
+
+    public Map<String, String> getCampos() {
+        return Collections.unmodifiableMap(campos);
+    }
+
+    public String get(String columna) {
+        return campos.get(columna);
+    }
+
+    public String getErrorLectura() {
+        return errorLectura;
+    }
+}
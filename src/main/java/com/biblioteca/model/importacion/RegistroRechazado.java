@@ -0,0 +1,34 @@
+// Importación: RegistroRechazado.java
+package com.biblioteca.model.importacion;
+
+import java.util.Map;
+
+// Fila que no llegó a la base de datos y por qué
+public class RegistroRechazado {
+    private final long numero;
+    private final String motivo;
+    private final Map<String, String> campos;
+
+    public RegistroRechazado(long numero, String motivo, Map<String, String> campos) {
+        this.numero = numero;
+        this.motivo = motivo;
+        this.campos = campos;
+    }
+
+    public long getNumero() {
+        return numero;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public Map<String, String> getCampos() {
+        return campos;
+    }
+
+    @Override
+    public String toString() {
+        return "Línea " + numero + ": " + motivo;
+    }
+}
@@ -0,0 +1,93 @@
+// Importación: ValidadorRegistros.java
+package com.biblioteca.model.importacion;
+
+import com.biblioteca.model.DVD;
+import com.biblioteca.model.ElementoBiblioteca;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Revista;
+import java.math.BigDecimal;
+import java.time.Year;
+import java.util.Locale;
+
+// Convierte una fila en Libro, Revista o DVD comprobando obligatorios, números y longitudes de
+// columna. Las columnas se llaman como en la base de datos: tipo, titulo, autor, ano_publicacion,
+// isbn, numero_paginas, genero, editorial, numero_edicion, categoria y duracion.
+public final class ValidadorRegistros {
+    private static final int MAXIMO_TITULO = 255;
+    private static final int MAXIMO_AUTOR = 255;
+    private static final int MAXIMO_ISBN = 20;
+    private static final int MAXIMO_CLASIFICACION = 100;   // genero, editorial y categoria
+
+    private ValidadorRegistros() {}
+
+    // Elemento nuevo (sin id) para la fila; IllegalArgumentException con el motivo si no es válida
+    public static ElementoBiblioteca mapear(Registro registro) {
+        if (registro.getErrorLectura() != null) {
+            throw new IllegalArgumentException(registro.getErrorLectura());
+        }
+        String tipo = obligatorio(registro, "tipo").toUpperCase(Locale.ROOT);
+        String titulo = texto(registro, "titulo", MAXIMO_TITULO);
+        if (titulo == null) {
+            throw new IllegalArgumentException("Falta la columna 'titulo'");
+        }
+        String autor = texto(registro, "autor", MAXIMO_AUTOR);
+        int ano = entero(registro, "ano_publicacion");
+        if (ano < 0 || ano > Year.now().getValue() + 1) {
+            throw new IllegalArgumentException("Año de publicación fuera de rango: " + ano);
+        }
+
+        return switch (tipo) {
+            case "LIBRO" -> new Libro(titulo, autor, ano,
+                    texto(registro, "isbn", MAXIMO_ISBN),
+                    entero(registro, "numero_paginas"),
+                    texto(registro, "genero", MAXIMO_CLASIFICACION),
+                    texto(registro, "editorial", MAXIMO_CLASIFICACION));
+            case "REVISTA" -> new Revista(titulo, autor, ano,
+                    entero(registro, "numero_edicion"),
+                    texto(registro, "categoria", MAXIMO_CLASIFICACION));
+            case "DVD" -> new DVD(titulo, autor, ano,
+                    entero(registro, "duracion"),
+                    texto(registro, "genero", MAXIMO_CLASIFICACION));
+            default -> throw new IllegalArgumentException("Tipo desconocido: " + tipo);
+        };
+    }
+
+    private static String obligatorio(Registro registro, String columna) {
+        String valor = registro.get(columna);
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("Falta la columna '" + columna + "'");
+        }
+        return valor.trim();
+    }
+
+    // Texto recortado, null si está vacío
+    private static String texto(Registro registro, String columna, int maximo) {
+        String valor = registro.get(columna);
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        valor = valor.trim();
+        if (valor.length() > maximo) {
+            throw new IllegalArgumentException("'" + columna + "' supera los " + maximo + " caracteres");
+        }
+        return valor;
+    }
+
+    // Entero no negativo; vacío cuenta como 0. Acepta "2001.0", que es como llegan algunos JSON
+    private static int entero(Registro registro, String columna) {
+        String valor = registro.get(columna);
+        if (valor == null || valor.isBlank()) {
+            return 0;
+        }
+        int numero;
+        try {
+            numero = new BigDecimal(valor.trim()).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("'" + columna + "' no es un número entero: " + valor);
+        }
+        if (numero < 0) {
+            throw new IllegalArgumentException("'" + columna + "' no puede ser negativo: " + numero);
+        }
+        return numero;
+    }
+}